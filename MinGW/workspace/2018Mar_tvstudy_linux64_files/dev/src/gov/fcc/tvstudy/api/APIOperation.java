@@ -54,6 +54,20 @@ public class APIOperation {
 
 	public static final String OP_MENU = "menu";
 	public static final String OP_PREFS = "prefs";
+	public static final String OP_METRICS = "metrics";
+	public static final String OP_SLOW_QUERIES = "slowqueries";
+
+	// Number of entries shown by the slow query report, and parameter to clear the aggregate.
+
+	private static final int SLOW_QUERY_REPORT_COUNT = 25;
+
+	public static final String KEY_CLEAR = "clear";
+
+	// Content type for getResultPage(), see getResultContentType().
+
+	public static final String CONTENT_TYPE_HTML = "text/html";
+	public static final String CONTENT_TYPE_METRICS = "text/plain; version=0.0.4";
+	public static final String CONTENT_TYPE_JSON = "application/json";
 
 	// See servletInit() and servletDestroy().
 
@@ -74,6 +88,7 @@ public class APIOperation {
 
 	protected int status;
 	protected String resultPage;
+	protected String resultContentType = CONTENT_TYPE_HTML;
 	protected String resultURL;
 	protected APIOperation chainOperation;
 
@@ -277,13 +292,13 @@ public class APIOperation {
 
 	public static boolean canHandleOperation(String op) {
 
-		return (OP_MENU.equals(op) || OP_PREFS.equals(op));
+		return (OP_MENU.equals(op) || OP_PREFS.equals(op) || OP_METRICS.equals(op) || OP_SLOW_QUERIES.equals(op));
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Subclass constructors must at least accept an operation, parameters map, and error message string, and pass
-	// them all to super.  The menu and preferences operations are implemented here.
+	// them all to super.  The menu, preferences, metrics, and slow query operations are implemented here.
 
 	public APIOperation(String op, HashMap<String, String> theParams, String theError) {
 
@@ -300,6 +315,16 @@ public class APIOperation {
 			return;
 		}
 
+		if (OP_METRICS.equals(op)) {
+			doOpMetrics();
+			return;
+		}
+
+		if (OP_SLOW_QUERIES.equals(op)) {
+			doOpSlowQueries();
+			return;
+		}
+
 		// Extract back and next parameters to be used by subclass.  To prevent navigational loops the back and next
 		// cannot be the same as the current op.  If an error message was passed set STATUS_ERROR, the subclass will
 		// usually change that to show a page displaying the error.
@@ -347,6 +372,8 @@ public class APIOperation {
 		page.append("<br><a href=\"/tvstudy/api?op=" + IxCheckAPI.OP_CACHE +
 			"\">Interference check cache maintenance</a><br>\n");
 
+		page.append("<br><a href=\"/tvstudy/api?op=" + OP_SLOW_QUERIES + "\">Slow database queries</a><br>\n");
+
 		page.append("<br><a href=\"/tvstudy/api?op=" + OP_PREFS + "\">Preferences</a><br>\n");
 
 		addPageFooter(page, false);
@@ -356,6 +383,83 @@ public class APIOperation {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Metrics scrape for monitoring, returns the AppMetrics registry in the Prometheus text format.  The result is
+	// not HTML so the content type is changed, see getResultContentType().
+
+	private void doOpMetrics() {
+
+		resultPage = AppMetrics.getPrometheusText();
+		resultContentType = CONTENT_TYPE_METRICS;
+		status = STATUS_PAGE;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Report of the slowest database statements since startup or the last clear, aggregated by normalized SQL and
+	// ordered by total time, see SlowQueryLog.  The full log with EXPLAIN output is in the lib directory.  The
+	// threshold may be changed here, the new value applies to subsequent statements.
+
+	private void doOpSlowQueries() {
+
+		String value = parameters.get(KEY_CLEAR);
+		if ((null != value) && Boolean.valueOf(value).booleanValue()) {
+			SlowQueryLog.clearTopQueries();
+		}
+
+		value = parameters.get(AppCore.PREF_SLOW_QUERY_THRESHOLD);
+		if (null != value) {
+			try {
+				SlowQueryLog.setThresholdPreference(Double.parseDouble(value));
+			} catch (NumberFormatException ne) {
+				errorMessage = "ERROR: Threshold must be a number.";
+			}
+		}
+
+		StringBuilder page = new StringBuilder();
+
+		addPageHeader(page, "TVStudy - Slow Database Queries", 0, errorMessage);
+
+		page.append("Slow database queries<br><br>\n");
+
+		addFormStart(page, OP_SLOW_QUERIES);
+		page.append("Threshold <input type=\"text\" name=\"" + AppCore.PREF_SLOW_QUERY_THRESHOLD + "\" value=\"" +
+			String.format(Locale.US, "%.1f", SlowQueryLog.getThresholdPreference()) + "\" size=\"6\"> seconds, " +
+			"0 to disable<br>\n");
+		page.append("<input type=\"checkbox\" name=\"" + KEY_CLEAR + "\" value=\"true\">Clear report<br>\n");
+		addFormEnd(page, "Update");
+
+		ArrayList<SlowQueryLog.QueryStats> theList = SlowQueryLog.getTopQueries(SLOW_QUERY_REPORT_COUNT);
+
+		if (theList.isEmpty()) {
+
+			page.append("<br>No slow queries recorded.<br>\n");
+
+		} else {
+
+			page.append("<br><table border=\"1\" cellpadding=\"3\">\n");
+			page.append("<tr><th>Count</th><th>Total sec</th><th>Max sec</th><th>Avg sec</th><th>Last rows</th>" +
+				"<th>Last seen</th><th>Caller</th><th>SQL</th></tr>\n");
+
+			for (SlowQueryLog.QueryStats theStats : theList) {
+				page.append(String.format(Locale.US, "<tr><td>%d</td><td>%.2f</td><td>%.2f</td><td>%.2f</td>" +
+					"<td>%d</td>", theStats.count, theStats.getTotalSeconds(), theStats.getMaxSeconds(),
+					theStats.getAverageSeconds(), theStats.lastRowCount));
+				page.append("<td>" + AppCore.formatTimestamp(theStats.lastTime) + "</td><td>" +
+					AppCore.xmlclean(theStats.lastCaller) + "</td><td><tt>" +
+					AppCore.xmlclean(theStats.normalizedSQL) + "</tt></td></tr>\n");
+			}
+
+			page.append("</table>\n");
+		}
+
+		addPageFooter(page);
+
+		resultPage = page.toString();
+		status = STATUS_PAGE;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Preferences interface, shows only settings relevant to servlet operations.  This is a single-operation request,
 	// if attributes are set in the request apply those to the preference state, else load existing preference state.
@@ -507,6 +611,15 @@ public class APIOperation {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// The servlet must use this as the response content type for a STATUS_PAGE result, usually it is HTML.
+
+	public String getResultContentType() {
+
+		return resultContentType;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 
 	public String getResultURL() {
@@ -544,24 +657,66 @@ public class APIOperation {
 	protected static void writeInProgressIndex(String outDirectoryPath, String description,
 			String message) throws IOException {
 
+		writeIndexFile(outDirectoryPath, makeInProgressPage(description, message, null, 0));
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Compose an in-progress index page.  If a status URL is provided the page uses a script to long-poll that URL
+	// for status updates, the status URL must return JSON with message, version, done, and found properties as from
+	// IxCheckProgress.getStatusJSON().  The page is reloaded when the run is done so the final index page appears.
+	// The version argument is the status version the page content represents.  The reload header is still present
+	// but only used if scripting is disabled.  Without a status URL the page just reloads periodically.
+
+	protected static String makeInProgressPage(String description, String message, String statusURL, int version) {
+
 		StringBuilder page = new StringBuilder();
 
-		addPageHeader(page, "TVStudy - Study In Progress", IN_PROGRESS_RELOAD_TIME, null);
+		if (null == statusURL) {
+
+			addPageHeader(page, "TVStudy - Study In Progress", IN_PROGRESS_RELOAD_TIME, null);
 
-		page.append("<br>" + description + "<br>\n");
-		if (null != message) {
-			page.append("<br>" + message + "<br>\n");
 		} else {
-			page.append("<br>Study running<br>\n");
+
+			page.append("<html>\n");
+			page.append("<head>\n");
+			page.append("<noscript><meta http-equiv=\"refresh\" content=\"" + IN_PROGRESS_RELOAD_TIME +
+				"\"/></noscript>\n");
+			page.append("<title>TVStudy - Study In Progress</title>\n");
+			page.append("<script>\n");
+			page.append("var version = " + version + ";\n");
+			page.append("function reloadLater() {setTimeout(function() {location.reload();}, " +
+				(IN_PROGRESS_RELOAD_TIME * 1000) + ");}\n");
+			page.append("function poll() {\n");
+			page.append("  var req = new XMLHttpRequest();\n");
+			page.append("  req.open(\"GET\", \"" + statusURL + "&version=\" + version);\n");
+			page.append("  req.onload = function() {\n");
+			page.append("    if (200 != req.status) {reloadLater(); return;}\n");
+			page.append("    var stat = JSON.parse(req.responseText);\n");
+			page.append("    if (stat.done) {location.reload(); return;}\n");
+			page.append("    if (!stat.found) {reloadLater(); return;}\n");
+			page.append("    version = stat.version;\n");
+			page.append("    document.getElementById(\"status\").textContent = stat.message;\n");
+			page.append("    poll();\n");
+			page.append("  };\n");
+			page.append("  req.onerror = reloadLater;\n");
+			page.append("  req.send();\n");
+			page.append("}\n");
+			page.append("window.onload = poll;\n");
+			page.append("</script>\n");
+			page.append("</head>\n");
+			page.append("<body>\n");
 		}
 
-		addPageFooter(page);
+		page.append("<br>" + description + "<br>\n");
+		if (null == message) {
+			message = "Study running";
+		}
+		page.append("<br><span id=\"status\">" + message + "</span><br>\n");
 
-		Files.createDirectories(Paths.get(outDirectoryPath));
+		addPageFooter(page);
 
-		BufferedWriter out = new BufferedWriter(new FileWriter(outDirectoryPath + File.separator + INDEX_FILE_NAME));
-		out.write(page.toString());
-		out.close();
+		return page.toString();
 	}
 
 
@@ -572,6 +727,15 @@ public class APIOperation {
 	protected static void writeFileIndex(String outDirectoryPath, String description, String message, String report,
 			ArrayList<String> outputFiles) throws IOException {
 
+		writeIndexFile(outDirectoryPath, makeFileIndexPage(description, message, report, outputFiles));
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	protected static String makeFileIndexPage(String description, String message, String report,
+			ArrayList<String> outputFiles) {
+
 		StringBuilder page = new StringBuilder();
 
 		addPageHeader(page, "TVStudy - Study Results", 0, null);
@@ -602,11 +766,40 @@ public class APIOperation {
 
 		addPageFooter(page);
 
-		Files.createDirectories(Paths.get(outDirectoryPath));
+		return page.toString();
+	}
+
 
-		BufferedWriter out = new BufferedWriter(new FileWriter(outDirectoryPath + File.separator + INDEX_FILE_NAME));
-		out.write(page.toString());
-		out.close();
+	//-----------------------------------------------------------------------------------------------------------------
+	// Write an index page to the standard index file name.  The page is written to a temporary file then renamed, so
+	// a web server never sees a partially-written file.  If the filesystem does not support an atomic move fall back
+	// to a normal replacing move.  The temporary name includes the thread ID in case of concurrent writes, that is
+	// not expected but if it did occur the last rename would win.  Files.createTempFile() is not used because that
+	// creates files readable only by the owner, the index must have the same permissions as other output files.
+
+	protected static void writeIndexFile(String outDirectoryPath, String page) throws IOException {
+
+		Path theDirectory = Paths.get(outDirectoryPath);
+		Files.createDirectories(theDirectory);
+
+		Path tempFile = theDirectory.resolve(INDEX_FILE_NAME + "." + Thread.currentThread().getId() + ".tmp");
+
+		try {
+
+			BufferedWriter out = Files.newBufferedWriter(tempFile, java.nio.charset.Charset.defaultCharset());
+			out.write(page);
+			out.close();
+
+			try {
+				Files.move(tempFile, theDirectory.resolve(INDEX_FILE_NAME), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ae) {
+				Files.move(tempFile, theDirectory.resolve(INDEX_FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
 	}
 
 
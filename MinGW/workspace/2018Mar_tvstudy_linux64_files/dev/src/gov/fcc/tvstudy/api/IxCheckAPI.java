@@ -25,6 +25,7 @@ import java.net.*;
 // OP_SETUP is chained from those other operations once a specific record has been identified, it presents a form to
 // enter study-specific parameters.  That form sends an OP_RUN.  OP_CACHE shows a page for doing maintenance on the
 // cached output files from past studies, with various actions to update the cache index and delete cached output.
+// OP_STATUS returns JSON status for a running study, optionally long-polling for a change, see IxCheckProgress.
 
 public class IxCheckAPI extends APIOperation implements StatusLogger {
 
@@ -61,8 +62,14 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 	public static final String KEY_ACTION = "cache_action";
 	public static final String ACTION_CLEANUP = "cleanup";
 	public static final String ACTION_DELETE = "delete";
+	public static final String ACTION_ENGINE_LIMIT = "enginelimit";
 	public static final String KEY_DAYS = "delete_days";
 
+	public static final String OP_STATUS = "ixcheckstatus";
+
+	public static final String KEY_STUDY_NAME = "study_name";
+	public static final String KEY_VERSION = "version";
+
 	// Engine output file top directory.
 
 	private static String outPath = outRootPath + File.separator + AppCore.OUT_DIRECTORY_NAME;
@@ -91,7 +98,8 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 
 	public static boolean canHandleOperation(String op) {
 
-		return (OP_START.equals(op) || OP_SETUP.equals(op) || OP_RUN.equals(op) || OP_CACHE.equals(op));
+		return (OP_START.equals(op) || OP_SETUP.equals(op) || OP_RUN.equals(op) || OP_CACHE.equals(op) ||
+			OP_STATUS.equals(op));
 	}
 
 
@@ -104,7 +112,7 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 
 		errors = new ErrorLogger();
 
-		if (!OP_CACHE.equals(op)) {
+		if (!OP_CACHE.equals(op) && !OP_STATUS.equals(op)) {
 
 			ixCheck = new StudyBuildIxCheck(dbID);
 
@@ -151,6 +159,11 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 			return;
 		}
 
+		if (OP_STATUS.equals(op)) {
+			doOpStatus();
+			return;
+		}
+
 		super.dispatchOperation(op);
 	}
 
@@ -1017,9 +1030,10 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 		}
 
 		// No past runs or rerun flag set, run the study.  First call willRunStudy() to register the new run in the
-		// cache.  Then write an initial in-progress index so that file always exists, the return from the immediate
-		// operation will always be a redirect to that file.  Start runStudy() on a secondary thread, when the run
-		// completes write a final results index file.  Calls to reportStatus() will update the in-progress index.
+		// cache.  Then start progress tracking which writes an initial in-progress index so that file always exists,
+		// the return from the immediate operation will always be a redirect to that file.  Start runStudy() on a
+		// secondary thread, when the run completes write a final results index file.  Calls to reportStatus() will
+		// update the progress state, the in-progress index is updated asynchronously, see IxCheckProgress.
 
 		if (!ixCheck.willRunStudy(errors)) {
 			handleError(errors.toString(), OP_SETUP);
@@ -1027,7 +1041,7 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 		}
 
 		try {
-			writeInProgressIndex(ixCheck.getOutDirectoryPath(), ixCheck.getStudyDescription(),
+			IxCheckProgress.startRun(ixCheck.studyName, ixCheck.getOutDirectoryPath(), ixCheck.getStudyDescription(),
 				"Study queued, waiting to start...");
 		} catch (IOException ie) {
 		}
@@ -1045,11 +1059,8 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 					}
 				}
 
-				try {
-					writeFileIndex(ixCheck.getOutDirectoryPath(), ixCheck.getStudyDescription(), message,
-						ixCheck.getStudyReport(), ixCheck.getOutputFiles());
-				} catch (IOException e) {
-				}
+				IxCheckProgress.finishRun(ixCheck.studyName, message, makeFileIndexPage(ixCheck.getStudyDescription(),
+					message, ixCheck.getStudyReport(), ixCheck.getOutputFiles()));
 			}
 		}.start();
 
@@ -1059,14 +1070,39 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// The build object will call this to report status during the build and run, update the in-progress index.
+	// The build object will call this to report status during the build and run, update the progress state.  This
+	// does not block on I/O, the in-progress index is written asynchronously.
 
-	public synchronized void reportStatus(String message) {
+	public void reportStatus(String message) {
 
-		try {
-			writeInProgressIndex(ixCheck.getOutDirectoryPath(), ixCheck.getStudyDescription(), message);
-		} catch (IOException ie) {
+		IxCheckProgress.updateRun(ixCheck.studyName, message);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Return JSON status for a study run, see IxCheckProgress.  If a version is provided and is the current status
+	// version, this waits for a change before returning.  The result is not HTML so the content type is changed.
+
+	private void doOpStatus() {
+
+		String theName = parameters.get(KEY_STUDY_NAME);
+		if (null == theName) {
+			handleError("ERROR: Missing study name", null);
+			return;
+		}
+
+		int theVersion = 0;
+		String value = parameters.get(KEY_VERSION);
+		if (null != value) {
+			try {
+				theVersion = Integer.parseInt(value);
+			} catch (NumberFormatException ne) {
+			}
 		}
+
+		resultPage = IxCheckProgress.getStatusJSON(theName, theVersion, IxCheckProgress.MAX_POLL_TIME);
+		resultContentType = CONTENT_TYPE_JSON;
+		status = STATUS_PAGE;
 	}
 
 
@@ -1129,7 +1165,21 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 
 				} else {
 
-					page.append("<br><b>ERROR: Unknown cache maintenance action '" + value + "'</b><br><br>\n");
+					if (ACTION_ENGINE_LIMIT.equals(value)) {
+
+						ErrorLogger errors = new ErrorLogger();
+						long freed = CacheManager.applyCacheLimit(null, errors);
+						if (errors.hasErrors()) {
+							page.append("<br><b>" + errors.toString() + "</b><br>\n");
+						}
+						page.append("<br>Study engine cache files deleted: " + AppCore.formatBytes(freed) +
+							"<br><br>\n");
+
+					} else {
+
+						page.append("<br><b>ERROR: Unknown cache maintenance action '" + value +
+							"'</b><br><br>\n");
+					}
 				}
 			}
 
@@ -1151,6 +1201,16 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 			page.append("Cache cleanup repairs the cache index and removes inaccessible output.<br>\n");
 			page.append("A cleanup may be needed if 'Page not found' errors are appearing.<br>\n");
 			addFormEnd(page, "Cleanup");
+
+			addEngineCacheReport(page);
+
+			if (CacheManager.getCacheLimit() > 0L) {
+				addFormStart(page, OP_CACHE);
+				page.append("<input type=\"hidden\" name=\"" + KEY_ACTION + "\" value=\"" + ACTION_ENGINE_LIMIT +
+					"\">\n");
+				page.append("Delete least-recently-used study engine cache files to meet the cache limit.<br>\n");
+				addFormEnd(page, "Apply Limit");
+			}
 		}
 
 		addPageFooter(page);
@@ -1158,4 +1218,40 @@ public class IxCheckAPI extends APIOperation implements StatusLogger {
 		resultPage = page.toString();
 		status = STATUS_PAGE;
 	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Report study engine cache use by study from the CacheManager index.  This is separate from the study output
+	// cache above, the engine cache holds intermediate calculation results shared between runs of the same study.
+
+	private void addEngineCacheReport(StringBuilder page) {
+
+		ArrayList<CacheManager.StudyCacheInfo> theList = CacheManager.getCacheInfo(dbID);
+
+		long totalSize = 0L;
+		for (CacheManager.StudyCacheInfo theInfo : theList) {
+			totalSize += theInfo.size;
+		}
+
+		page.append("<br>Study engine cache status:<br><br>\n");
+
+		page.append("Storage used: " + AppCore.formatBytes(totalSize) + "<br>\n");
+		long theLimit = CacheManager.getCacheLimit();
+		if (theLimit > 0L) {
+			page.append("Storage limit, all databases: " + AppCore.formatBytes(theLimit) + "<br>\n");
+		}
+
+		if (!theList.isEmpty()) {
+			page.append("<br><table>\n");
+			page.append("<tr><th>Study key</th><th>Size</th><th>Last used</th><th>Hit rate</th></tr>\n");
+			for (CacheManager.StudyCacheInfo theInfo : theList) {
+				page.append("<tr><td>" + theInfo.studyKey + "</td><td>" + AppCore.formatBytes(theInfo.size) +
+					"</td><td>" + AppCore.formatTimestamp(theInfo.lastUsed) + "</td><td>" +
+					theInfo.getHitRateText() + "</td></tr>\n");
+			}
+			page.append("</table>\n");
+		}
+
+		page.append("<br>\n");
+	}
 }
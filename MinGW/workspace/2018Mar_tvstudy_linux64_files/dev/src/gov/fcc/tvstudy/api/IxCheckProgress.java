@@ -0,0 +1,323 @@
+//
+//  IxCheckProgress.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.api;
+
+import gov.fcc.tvstudy.core.*;
+
+import java.util.*;
+import java.io.*;
+import java.net.*;
+
+
+//=====================================================================================================================
+// Progress state for interference-check study runs started by IxCheckAPI.  Status messages reported during the build
+// and run only update state in memory here, so the build and engine output threads never wait on disk I/O.  The
+// in-progress index page in the run output directory is re-written asynchronously by a single background thread.
+// That waits briefly after an update so all updates in that interval, across all runs, are written as one batch, and
+// only the latest message for each run is written.  Page writes use a temporary file and rename so a partial page is
+// never seen, see APIOperation.writeIndexFile().
+
+// The state can also be read directly by the IxCheckAPI status operation, which returns it as JSON.  That request may
+// include the last status version seen by the client, in which case the request waits until the status changes or a
+// timeout expires before returning, so a client can long-poll for updates.  The in-progress page uses that when
+// scripting is available, see APIOperation.makeInProgressPage().  The final results index is written synchronously
+// by finishRun(), after that no more in-progress writes occur for the run.  State for finished runs is kept for a
+// while so pollers see the done flag, then discarded.  Runs are identified by study name.
+
+public class IxCheckProgress {
+
+	// Delay from an update to the flush, and time to keep state for finished runs.
+
+	private static final long FLUSH_DELAY = 1000L;   // milliseconds
+	private static final long FINISHED_RETAIN_TIME = 600000L;   // milliseconds
+
+	// Maximum wait time for a long-polling status request.
+
+	public static final long MAX_POLL_TIME = 25000L;   // milliseconds
+
+	private static final HashMap<String, RunState> runs = new HashMap<String, RunState>();
+	private static final LinkedHashSet<RunState> dirtyRuns = new LinkedHashSet<RunState>();
+
+	private static Thread flushThread;
+
+
+	//=================================================================================================================
+	// State for one run.  The message and version are protected by the class lock.  Page writes are serialized by the
+	// write lock, which also protects the final flag.
+
+	private static class RunState {
+
+		private String studyName;
+		private String outDirectoryPath;
+		private String description;
+		private String statusURL;
+
+		private String message;
+		private int version;
+		private boolean done;
+		private long doneTime;
+
+		private final Object writeLock = new Object();
+		private boolean finalWritten;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Start tracking a run and write the initial in-progress page.  This write is synchronous so the page exists when
+	// the caller redirects to it.  If a run with the same name is still being tracked it is replaced.
+
+	public static void startRun(String theStudyName, String theOutDirectoryPath, String theDescription,
+			String theMessage) throws IOException {
+
+		RunState theRun = new RunState();
+		theRun.studyName = theStudyName;
+		theRun.outDirectoryPath = theOutDirectoryPath;
+		theRun.description = theDescription;
+		theRun.message = theMessage;
+		theRun.version = 1;
+
+		try {
+			theRun.statusURL = "/tvstudy/api?op=" + IxCheckAPI.OP_STATUS + "&" + IxCheckAPI.KEY_STUDY_NAME + "=" +
+				URLEncoder.encode(theStudyName, "UTF-8");
+		} catch (UnsupportedEncodingException ue) {
+		}
+
+		synchronized (IxCheckProgress.class) {
+			runs.put(theStudyName, theRun);
+		}
+
+		writeRun(theRun, theMessage, theRun.version);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Update the status message for a run, this never blocks on I/O.  The page write is queued for the flush thread.
+
+	public static synchronized void updateRun(String theStudyName, String theMessage) {
+
+		RunState theRun = runs.get(theStudyName);
+		if ((null == theRun) || theRun.done) {
+			return;
+		}
+
+		theRun.message = theMessage;
+		theRun.version++;
+		dirtyRuns.add(theRun);
+
+		if (null == flushThread) {
+			flushThread = new Thread() {
+				public void run() {
+					doFlush();
+				}
+			};
+			flushThread.setDaemon(true);
+			flushThread.start();
+		}
+
+		IxCheckProgress.class.notifyAll();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Finish a run by writing the final index page, then set the done flag and wake any pollers.
+
+	public static void finishRun(String theStudyName, String theMessage, String thePage) {
+
+		RunState theRun;
+		synchronized (IxCheckProgress.class) {
+			theRun = runs.get(theStudyName);
+			if (null != theRun) {
+				dirtyRuns.remove(theRun);
+			}
+		}
+
+		if (null != theRun) {
+
+			synchronized (theRun.writeLock) {
+				try {
+					APIOperation.writeIndexFile(theRun.outDirectoryPath, thePage);
+				} catch (IOException ie) {
+					AppCore.log(AppCore.ERROR_MESSAGE, "Could not write index file", ie);
+				}
+				theRun.finalWritten = true;
+			}
+
+			synchronized (IxCheckProgress.class) {
+				theRun.message = theMessage;
+				theRun.version++;
+				theRun.done = true;
+				theRun.doneTime = System.currentTimeMillis();
+				IxCheckProgress.class.notifyAll();
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get status as a JSON object.  If the version argument is greater than 0 and matches the current version, wait
+	// until the version changes or the timeout expires.  The found property is false if the run is not known, that
+	// may mean the run finished long ago or the server was restarted.
+
+	public static String getStatusJSON(String theStudyName, int lastVersion, long maxWait) {
+
+		if (maxWait > MAX_POLL_TIME) {
+			maxWait = MAX_POLL_TIME;
+		}
+
+		StringBuilder result = new StringBuilder();
+
+		synchronized (IxCheckProgress.class) {
+
+			RunState theRun = runs.get(theStudyName);
+
+			if ((null != theRun) && (lastVersion > 0) && (maxWait > 0L)) {
+				long endTime = System.currentTimeMillis() + maxWait, waitTime;
+				while ((theRun.version == lastVersion) && !theRun.done && (runs.get(theStudyName) == theRun)) {
+					waitTime = endTime - System.currentTimeMillis();
+					if (waitTime <= 0L) {
+						break;
+					}
+					try {
+						IxCheckProgress.class.wait(waitTime);
+					} catch (InterruptedException ie) {
+						break;
+					}
+				}
+			}
+
+			result.append("{\"study_name\":");
+			appendJSONString(result, theStudyName);
+			if (null == theRun) {
+				result.append(",\"found\":false,\"done\":false,\"version\":0,\"message\":\"\"}");
+			} else {
+				result.append(",\"found\":true,\"done\":");
+				result.append(String.valueOf(theRun.done));
+				result.append(",\"version\":");
+				result.append(String.valueOf(theRun.version));
+				result.append(",\"message\":");
+				appendJSONString(result, ((null == theRun.message) ? "" : theRun.message));
+				result.append('}');
+			}
+		}
+
+		return result.toString();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Flush thread loop.  Wait for updates, wait a bit longer to collect a batch, then write the latest message for
+	// each updated run.  Also discard state for runs that finished long ago.
+
+	private static void doFlush() {
+
+		ArrayList<RunState> theRuns = new ArrayList<RunState>();
+		ArrayList<String> theMessages = new ArrayList<String>();
+		ArrayList<Integer> theVersions = new ArrayList<Integer>();
+
+		while (true) {
+
+			synchronized (IxCheckProgress.class) {
+				while (dirtyRuns.isEmpty()) {
+					try {
+						IxCheckProgress.class.wait();
+					} catch (InterruptedException ie) {
+					}
+				}
+			}
+
+			try {
+				Thread.sleep(FLUSH_DELAY);
+			} catch (InterruptedException ie) {
+			}
+
+			theRuns.clear();
+			theMessages.clear();
+			theVersions.clear();
+
+			synchronized (IxCheckProgress.class) {
+
+				for (RunState theRun : dirtyRuns) {
+					theRuns.add(theRun);
+					theMessages.add(theRun.message);
+					theVersions.add(Integer.valueOf(theRun.version));
+				}
+				dirtyRuns.clear();
+
+				long now = System.currentTimeMillis();
+				Iterator<RunState> it = runs.values().iterator();
+				while (it.hasNext()) {
+					RunState theRun = it.next();
+					if (theRun.done && ((now - theRun.doneTime) > FINISHED_RETAIN_TIME)) {
+						it.remove();
+					}
+				}
+			}
+
+			for (int i = 0; i < theRuns.size(); i++) {
+				writeRun(theRuns.get(i), theMessages.get(i), theVersions.get(i).intValue());
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Write an in-progress page, unless the final page has been written.
+
+	private static void writeRun(RunState theRun, String theMessage, int theVersion) {
+
+		String thePage = APIOperation.makeInProgressPage(theRun.description, theMessage, theRun.statusURL, theVersion);
+
+		synchronized (theRun.writeLock) {
+			if (!theRun.finalWritten) {
+				try {
+					APIOperation.writeIndexFile(theRun.outDirectoryPath, thePage);
+				} catch (IOException ie) {
+				}
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Append a quoted and escaped JSON string.
+
+	private static void appendJSONString(StringBuilder result, String theText) {
+
+		result.append('"');
+
+		char c;
+		for (int i = 0; i < theText.length(); i++) {
+			c = theText.charAt(i);
+			switch (c) {
+				case '"':
+					result.append("\\\"");
+					break;
+				case '\\':
+					result.append("\\\\");
+					break;
+				case '\n':
+					result.append("\\n");
+					break;
+				case '\r':
+					result.append("\\r");
+					break;
+				case '\t':
+					result.append("\\t");
+					break;
+				default:
+					if (c < ' ') {
+						result.append(String.format("\\u%04x", (int)c));
+					} else {
+						result.append(c);
+					}
+					break;
+			}
+		}
+
+		result.append('"');
+	}
+}
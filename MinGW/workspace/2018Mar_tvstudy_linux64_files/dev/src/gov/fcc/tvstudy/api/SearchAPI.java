@@ -25,6 +25,13 @@ import java.io.*;
 // operation is provided, once a search is complete the OP_SHOW operation is called to simply display the record.
 // Note at the moment this only supports TV records.
 
+// Search results are cached for a short time so paging through a long result list, or repeating a search with back
+// and forward navigation, does not repeat the query.  The cache key is the composed query string, which is already a
+// normalized form of the search parameters, plus the station data key or the user record table.  Results are sorted
+// once when cached using a precomputed sort key for each record.  The cache is bounded by entry count and by total
+// record count, least-recently-used entries are removed first.  Station data sets do not change once imported, but
+// user records can be added or deleted at any time, the cache lifetime is short so those will appear soon enough.
+
 public class SearchAPI extends APIOperation {
 
 	public static final String OP_START = "search";
@@ -40,9 +47,27 @@ public class SearchAPI extends APIOperation {
 
 	public static final String KEY_INCLUDE_ARCHIVED = "include_archived";
 
-	// Maximum number of records matching search to show on result page.
+	public static final String KEY_RESULT_PAGE = "result_page";
+
+	// Number of records matching search to show on each result page.
+
+	private static final int PAGE_SIZE = 200;
+
+	// Result cache, see comments above.
 
-	private static final int MAX_RECORDS = 200;
+	private static final long CACHE_LIFETIME = 120000L;   // milliseconds
+	private static final int CACHE_MAX_ENTRIES = 50;
+	private static final int CACHE_MAX_RECORDS = 50000;
+
+	private static class CachedResult {
+
+		private Record[] records;
+		private long cacheTime;
+	}
+
+	private static LinkedHashMap<String, CachedResult> resultCache = new LinkedHashMap<String, CachedResult>(16, 0.75f,
+		true);
+	private static int cachedRecordCount;
 
 	// Error logger.  The logger is used to collect errors from core API calls, it does not actually log or report,
 	// the error message is immediately passed off to handleError().
@@ -387,32 +412,47 @@ public class SearchAPI extends APIOperation {
 			return;
 		}
 
-		// Do the search.
+		// Do the search, or get the results from the cache.
+
+		String cacheKey;
+		if (null == extDb) {
+			cacheKey = dbID + ":user:" + query.toString();
+		} else {
+			cacheKey = dbID + ":" + extDb.key + ":" + query.toString();
+		}
+
+		Record[] results = getCachedResult(cacheKey);
 
-		ArrayList<Record> results = new ArrayList<Record>();
+		if (null == results) {
 
-		if (isSrc) {
-			java.util.List<SourceEditData> sources = null;
-			if (ExtDb.DB_TYPE_NOT_SET == dbType) {
-				sources = SourceEditData.findUserRecords(dbID, Source.RECORD_TYPE_TV, query.toString(), errors);
+			ArrayList<Record> theRecords = new ArrayList<Record>();
+
+			if (isSrc) {
+				java.util.List<SourceEditData> sources = null;
+				if (ExtDb.DB_TYPE_NOT_SET == dbType) {
+					sources = SourceEditData.findUserRecords(dbID, Source.RECORD_TYPE_TV, query.toString(), errors);
+				} else {
+					sources = SourceEditData.findImportRecords(extDb, query.toString(), errors);
+				}
+				if (null == sources) {
+					handleError(errors.toString(), OP_START);
+					return;
+				}
+				theRecords.addAll(sources);
 			} else {
-				sources = SourceEditData.findImportRecords(extDb, query.toString(), errors);
-			}
-			if (null == sources) {
-				handleError(errors.toString(), OP_START);
-				return;
-			}
-			results.addAll(sources);
-		} else {
-			LinkedList<ExtDbRecordTV> records = ExtDbRecordTV.findRecordsTV(extDb, query.toString(), errors);
-			if (null == records) {
-				handleError(errors.toString(), OP_START);
-				return;
+				LinkedList<ExtDbRecordTV> records = ExtDbRecordTV.findRecordsTV(extDb, query.toString(), errors);
+				if (null == records) {
+					handleError(errors.toString(), OP_START);
+					return;
+				}
+				theRecords.addAll(records);
 			}
-			results.addAll(records);
+
+			results = sortResults(theRecords);
+			putCachedResult(cacheKey, results);
 		}
 
-		int recordCount = results.size();
+		int recordCount = results.length;
 		if (0 == recordCount) {
 			handleError("Search did not find any matching records", OP_START);
 			return;
@@ -422,35 +462,39 @@ public class SearchAPI extends APIOperation {
 
 		if (1 == recordCount) {
 			if (null == extDb) {
-				parameters.put(KEY_USER_RECORD_ID, results.get(0).getRecordID());
+				parameters.put(KEY_USER_RECORD_ID, results[0].getRecordID());
 			} else {
 				parameters.put(KEY_EXT_DB_KEY, String.valueOf(extDb.key));
-				parameters.put(KEY_EXT_RECORD_ID, results.get(0).getRecordID());
+				parameters.put(KEY_EXT_RECORD_ID, results[0].getRecordID());
 			}
 			chainToOperation(nextOp);
 			return;
 		}
 
-		// Compose the page showing multiple results.  First sort the records.
-
-		Collections.sort(results, new Comparator<Record>() {
-			public int compare(Record thisRecord, Record otherRecord) {
-				int result = thisRecord.getSortCountry().compareTo(otherRecord.getSortCountry());
-				if (0 == result) {
-					result = thisRecord.getState().compareTo(otherRecord.getState());
-					if (0 == result) {
-						result = thisRecord.getCity().compareTo(otherRecord.getCity());
-						if (0 == result) {
-							result = thisRecord.getSortChannel().compareTo(otherRecord.getSortChannel());
-							if (0 == result) {
-								result = thisRecord.getSortStatus().compareTo(otherRecord.getSortStatus());
-							}
-						}
-					}
-				}
-				return result;
+		// Compose the page showing multiple results.  Determine the page to show, an invalid page number just shows
+		// the first or last page.
+
+		int pageCount = ((recordCount - 1) / PAGE_SIZE) + 1;
+		int pageNumber = 1;
+		value = parameters.get(KEY_RESULT_PAGE);
+		if (null != value) {
+			try {
+				pageNumber = Integer.parseInt(value);
+			} catch (NumberFormatException e) {
 			}
-		});
+		}
+		if (pageNumber < 1) {
+			pageNumber = 1;
+		}
+		if (pageNumber > pageCount) {
+			pageNumber = pageCount;
+		}
+
+		int firstIndex = (pageNumber - 1) * PAGE_SIZE;
+		int lastIndex = firstIndex + PAGE_SIZE;
+		if (lastIndex > recordCount) {
+			lastIndex = recordCount;
+		}
 
 		StringBuilder page = new StringBuilder();
 
@@ -466,18 +510,15 @@ public class SearchAPI extends APIOperation {
 			page.append("<input type=\"hidden\" name=\"" + KEY_EXT_DB_KEY + "\" value=\"" + extDb.key + "\">\n");
 		}
 
-		if (recordCount > MAX_RECORDS) {
-			page.append("<br>Too many records, only the first " + MAX_RECORDS + " are shown.<br>\n");
+		if (pageCount > 1) {
+			page.append("<br>Found " + recordCount + " records, showing " + (firstIndex + 1) + " to " + lastIndex +
+				".<br>\n");
 		}
 
 		page.append("<br>Choose record:<br><br>\n");
-		int theCount = 0;
-		for (Record theRecord : results) {
-			if (++theCount > MAX_RECORDS) {
-				break;
-			}
-			page.append("<input type=\"radio\" name=\"" + key + "\" value=\"" + theRecord.getRecordID() + "\">");
-			addRecordInfo(page, theRecord);
+		for (int i = firstIndex; i < lastIndex; i++) {
+			page.append("<input type=\"radio\" name=\"" + key + "\" value=\"" + results[i].getRecordID() + "\">");
+			addRecordInfo(page, results[i]);
 		}
 
 		page.append("<br>\n");
@@ -488,6 +529,16 @@ public class SearchAPI extends APIOperation {
 
 		addFormEnd(page, "Choose");
 
+		// Page navigation buttons.  These repeat the search with a different page number, so those will normally use
+		// the cached results.  The record ID and file number are not included by addHiddenFields() so add those.
+
+		if (pageNumber > 1) {
+			addPageForm(page, (pageNumber - 1), "Previous page");
+		}
+		if (pageNumber < pageCount) {
+			addPageForm(page, (pageNumber + 1), "Next page");
+		}
+
 		// Back button.
 
 		addFormStart(page, backOp);
@@ -501,6 +552,134 @@ public class SearchAPI extends APIOperation {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Add a form to repeat the search showing a different page of results.
+
+	private void addPageForm(StringBuilder page, int pageNumber, String label) {
+
+		addFormStart(page, OP_RUN, backOp, backOpLabel, nextOp);
+
+		addHiddenFields(page, parameters);
+
+		String value = parameters.get(KEY_RECORD_ID);
+		if (null != value) {
+			page.append("<input type=\"hidden\" name=\"" + KEY_RECORD_ID + "\" value=\"" + value + "\">\n");
+		}
+		value = parameters.get(KEY_FILE_NUMBER);
+		if (null != value) {
+			page.append("<input type=\"hidden\" name=\"" + KEY_FILE_NUMBER + "\" value=\"" + value + "\">\n");
+		}
+
+		page.append("<input type=\"hidden\" name=\"" + KEY_RESULT_PAGE + "\" value=\"" + pageNumber + "\">\n");
+
+		addFormEnd(page, label);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Sort search results by country, state, city, channel, and status.  Rather than calling all of the record sort
+	// methods for every comparison, a sort key is built once for each record by concatenating those values with a
+	// separator that sorts lower than any character in the values, so the ordering is the same as comparing each
+	// value in turn.
+
+	private static Record[] sortResults(ArrayList<Record> theRecords) {
+
+		final int count = theRecords.size();
+		String[] sortKeys = new String[count];
+		Integer[] order = new Integer[count];
+
+		StringBuilder theKey = new StringBuilder();
+		Record theRecord;
+
+		for (int i = 0; i < count; i++) {
+			theRecord = theRecords.get(i);
+			theKey.setLength(0);
+			theKey.append(theRecord.getSortCountry());
+			theKey.append('\u0000');
+			theKey.append(theRecord.getState());
+			theKey.append('\u0000');
+			theKey.append(theRecord.getCity());
+			theKey.append('\u0000');
+			theKey.append(theRecord.getSortChannel());
+			theKey.append('\u0000');
+			theKey.append(theRecord.getSortStatus());
+			sortKeys[i] = theKey.toString();
+			order[i] = Integer.valueOf(i);
+		}
+
+		final String[] keys = sortKeys;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer thisIndex, Integer otherIndex) {
+				return keys[thisIndex.intValue()].compareTo(keys[otherIndex.intValue()]);
+			}
+		});
+
+		Record[] result = new Record[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = theRecords.get(order[i].intValue());
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get results from the cache, returns null if not found or expired.  The returned array must not be modified.
+
+	private static synchronized Record[] getCachedResult(String theKey) {
+
+		CachedResult theResult = resultCache.get(theKey);
+		if ((null != theResult) && ((System.currentTimeMillis() - theResult.cacheTime) > CACHE_LIFETIME)) {
+			resultCache.remove(theKey);
+			cachedRecordCount -= theResult.records.length;
+			theResult = null;
+		}
+
+		if (null == theResult) {
+			AppMetrics.increment(AppMetrics.SEARCH_CACHE_REQUESTS, "result", "miss");
+			return null;
+		}
+
+		AppMetrics.increment(AppMetrics.SEARCH_CACHE_REQUESTS, "result", "hit");
+		return theResult.records;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Add results to the cache, then remove expired entries and least-recently-used entries as needed to stay within
+	// the size limits.  A result larger than the record limit is not cached at all.
+
+	private static synchronized void putCachedResult(String theKey, Record[] theRecords) {
+
+		if (theRecords.length > CACHE_MAX_RECORDS) {
+			return;
+		}
+
+		CachedResult theResult = new CachedResult();
+		theResult.records = theRecords;
+		theResult.cacheTime = System.currentTimeMillis();
+
+		CachedResult oldResult = resultCache.put(theKey, theResult);
+		if (null != oldResult) {
+			cachedRecordCount -= oldResult.records.length;
+		}
+		cachedRecordCount += theRecords.length;
+
+		long now = System.currentTimeMillis();
+		Iterator<CachedResult> it = resultCache.values().iterator();
+		while (it.hasNext()) {
+			CachedResult aResult = it.next();
+			if (((now - aResult.cacheTime) > CACHE_LIFETIME) || (resultCache.size() > CACHE_MAX_ENTRIES) ||
+					(cachedRecordCount > CACHE_MAX_RECORDS)) {
+				it.remove();
+				cachedRecordCount -= aResult.records.length;
+			}
+		}
+
+		AppMetrics.setGauge(AppMetrics.SEARCH_CACHE_RECORDS, (double)cachedRecordCount);
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Display a record.
 
@@ -9,13 +9,17 @@ package gov.fcc.tvstudy.core;
 import gov.fcc.tvstudy.core.data.*;
 
 import java.util.*;
+import java.lang.ref.*;
 import java.sql.*;
 
 
+
 //=====================================================================================================================
 // Mutable data model for all types of pattern data.  This can contain either azimuth or elevation patterns, and both
 // can be "matrix" patterns with multiple azimuth/elevation slices.  In a matrix elevation pattern the slices are at
-// varying azimuths, in a matrix azimuth pattern the slices are at varying frequencies.
+// varying azimuths, in a matrix azimuth pattern the slices are at varying frequencies.  Data is held in compact
+// primitive arrays, with AntPoint and AntSlice objects created only when needed for editing, see expand().  The
+// pattern can be evaluated at arbitrary angles with relativeField().
 
 public class AntPattern {
 
@@ -57,8 +61,8 @@ public class AntPattern {
 	public static final String NEW_ANTENNA_NAME = "(new)";
 	public static final String GENERIC_ANTENNA_NAME = "(generic)";
 
-	// Properties.  Only one or the other of points or slices is non-null.  Note the key is only used for receive
-	// antenna patterns, it is null on others.  Gain is only used in receive pattern mode.
+	// Properties.  Note the key is only used for receive antenna patterns, it is null on others.  Gain is only used in
+	// receive pattern mode.
 
 	public final String dbID;
 
@@ -68,9 +72,30 @@ public class AntPattern {
 
 	public double gain;
 
+	// Pattern data is normally held in compact form as parallel arrays of angle and relative field.  A matrix pattern
+	// is a flat grid of slices concatenated in order of slice value, sliceStarts has the index of the first point in
+	// each slice plus a final entry equal to the total point count.  For a simple pattern sliceValues and sliceStarts
+	// are null.  The per-slice uniform angle step is determined lazily for interpolated lookups, 0 if not uniform.
+
+	private double[] angles;
+	private double[] fields;
+	private double[] sliceValues;
+	private int[] sliceStarts;
+	private double[] sliceSteps;
+
+	// The editor works on AntPoint and AntSlice objects which are modified directly, those are created on demand by
+	// getPoints(), getSlicePoints(), getSlices(), or any of the slice-editing methods.  Once those exist they are the
+	// authoritative data, only one or the other of points or slices is non-null, and methods reading the compact form
+	// will take a new snapshot of the editing objects on each call.  See compact().
+
 	private ArrayList<AntPoint> points;
 	private TreeMap<Double, AntSlice> slices;
 
+	// Canonical shared data if this pattern has been interned, see intern().  This holds a strong reference so the
+	// canonical entry stays in the intern table as long as any pattern is using it.
+
+	private PatternData shared;
+
 
 	//=================================================================================================================
 	// Data class for points.  The angle may be azimuth in degrees true or vertical angle in degrees of depression.
@@ -147,18 +172,20 @@ public class AntPattern {
 		dbID = theDbID;
 		type = theType;
 		name = theName;
-		points = new ArrayList<AntPoint>();
+		angles = new double[0];
+		fields = new double[0];
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// The point list is converted to compact form, the caller may discard or re-use the list.
 
 	public AntPattern(String theDbID, int theType, String theName, ArrayList<AntPoint> thePoints) {
 
 		dbID = theDbID;
 		type = theType;
 		name = theName;
-		points = thePoints;
+		setPointArrays(thePoints);
 	}
 
 
@@ -172,40 +199,195 @@ public class AntPattern {
 		name = theName;
 		if ((PATTERN_TYPE_HORIZONTAL == type) || (theSlices.size() < 2)) {
 			if (!theSlices.isEmpty()) {
-				points = theSlices.get(0).points;
+				setPointArrays(theSlices.get(0).points);
 			} else {
-				points = new ArrayList<AntPoint>();
+				angles = new double[0];
+				fields = new double[0];
 			}
 		} else {
-			slices = new TreeMap<Double, AntSlice>();
+			TreeMap<Double, AntSlice> theMap = new TreeMap<Double, AntSlice>();
 			for (AntSlice theSlice : theSlices) {
-				slices.put(Double.valueOf(theSlice.value), theSlice);
+				theMap.put(Double.valueOf(theSlice.value), theSlice);
 			}
+			setSliceArrays(theMap.values());
 		}
 	}
 
 
-	//-------------------------------------------------------------------------------------------------------------
+	//-----------------------------------------------------------------------------------------------------------------
+	// Construct directly from compact arrays, the arrays are used as-is and must not be modified by the caller.  The
+	// angles must be in increasing order.
 
-	public AntPattern copy() {
+	public AntPattern(String theDbID, int theType, String theName, double[] theAngles, double[] theFields) {
 
-		AntPattern newPattern;
+		dbID = theDbID;
+		type = theType;
+		name = theName;
+		angles = theAngles;
+		fields = theFields;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Construct a matrix directly from compact arrays, see comments above for the layout.  Slice values must be in
+	// increasing order.  As for other forms, a horizontal pattern or a single slice becomes a simple pattern.
+
+	public AntPattern(String theDbID, int theType, String theName, double[] theSliceValues, int[] theSliceStarts,
+			double[] theAngles, double[] theFields) {
+
+		dbID = theDbID;
+		type = theType;
+		name = theName;
+		if ((PATTERN_TYPE_HORIZONTAL == type) || (theSliceValues.length < 2)) {
+			int n = (theSliceValues.length > 0) ? theSliceStarts[1] : 0;
+			angles = Arrays.copyOf(theAngles, n);
+			fields = Arrays.copyOf(theFields, n);
+		} else {
+			sliceValues = theSliceValues;
+			sliceStarts = theSliceStarts;
+			angles = theAngles;
+			fields = theFields;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private void setPointArrays(ArrayList<AntPoint> thePoints) {
+
+		int n = thePoints.size(), i = 0;
+		angles = new double[n];
+		fields = new double[n];
+		for (AntPoint thePoint : thePoints) {
+			angles[i] = thePoint.angle;
+			fields[i++] = thePoint.relativeField;
+		}
+		sliceValues = null;
+		sliceStarts = null;
+		sliceSteps = null;
+		shared = null;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private void setSliceArrays(Collection<AntSlice> theSlices) {
+
+		int n = 0, s = 0, i = 0;
+		for (AntSlice theSlice : theSlices) {
+			n += theSlice.points.size();
+		}
+
+		angles = new double[n];
+		fields = new double[n];
+		sliceValues = new double[theSlices.size()];
+		sliceStarts = new int[theSlices.size() + 1];
+		sliceSteps = null;
+		shared = null;
+
+		for (AntSlice theSlice : theSlices) {
+			sliceValues[s] = theSlice.value;
+			sliceStarts[s++] = i;
+			for (AntPoint thePoint : theSlice.points) {
+				angles[i] = thePoint.angle;
+				fields[i++] = thePoint.relativeField;
+			}
+		}
+		sliceStarts[s] = i;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// If the editing objects exist, take a snapshot of those into the compact arrays.  Called by all methods that
+	// read the compact form.
+
+	private void sync() {
 
 		if (null != points) {
+			setPointArrays(points);
+		} else {
+			if (null != slices) {
+				setSliceArrays(slices.values());
+			}
+		}
+	}
 
-			ArrayList<AntPoint> newPoints = new ArrayList<AntPoint>();
-			for (AntPoint thePoint : points) {
-				newPoints.add(thePoint.copy());
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Create the editing objects from the compact form if needed.  The arrays are discarded since they will be stale
+	// as soon as the editor makes changes.
+
+	private void expand() {
+
+		if ((null != points) || (null != slices)) {
+			return;
+		}
+
+		if (null == sliceValues) {
+
+			points = new ArrayList<AntPoint>(angles.length);
+			for (int i = 0; i < angles.length; i++) {
+				points.add(new AntPoint(angles[i], fields[i]));
 			}
-			newPattern = new AntPattern(dbID, type, name, newPoints);
 
 		} else {
 
-			ArrayList<AntSlice> newSlices = new ArrayList<AntSlice>();
-			for (AntSlice theSlice : slices.values()) {
-				newSlices.add(theSlice.copy());
+			slices = new TreeMap<Double, AntSlice>();
+			for (int s = 0; s < sliceValues.length; s++) {
+				ArrayList<AntPoint> thePoints = new ArrayList<AntPoint>(sliceStarts[s + 1] - sliceStarts[s]);
+				for (int i = sliceStarts[s]; i < sliceStarts[s + 1]; i++) {
+					thePoints.add(new AntPoint(angles[i], fields[i]));
+				}
+				slices.put(Double.valueOf(sliceValues[s]), new AntSlice(sliceValues[s], thePoints));
+			}
+		}
+
+		angles = null;
+		fields = null;
+		sliceValues = null;
+		sliceStarts = null;
+		sliceSteps = null;
+		shared = null;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Fold any editing objects back into the compact form and release them.  Any AntPoint or AntSlice objects or lists
+	// previously obtained from this pattern are detached and further changes to those will not be seen.
+
+	public AntPattern compact() {
+
+		if ((null != points) || (null != slices)) {
+			sync();
+			points = null;
+			slices = null;
+		}
+
+		return this;
+	}
+
+
+	//-------------------------------------------------------------------------------------------------------------
+	// The copy is always in compact form.  If this pattern is interned the copy shares the same data.
+
+	public AntPattern copy() {
+
+		sync();
+
+		AntPattern newPattern;
+
+		if (null != shared) {
+			newPattern = new AntPattern(dbID, type, name, angles, fields);
+			newPattern.sliceValues = sliceValues;
+			newPattern.sliceStarts = sliceStarts;
+			newPattern.shared = shared;
+		} else {
+			if (null == sliceValues) {
+				newPattern = new AntPattern(dbID, type, name, angles.clone(), fields.clone());
+			} else {
+				newPattern = new AntPattern(dbID, type, name, sliceValues.clone(), sliceStarts.clone(),
+					angles.clone(), fields.clone());
 			}
-			newPattern = new AntPattern(dbID, name, type, newSlices);
 		}
 
 		newPattern.key = key;
@@ -214,12 +396,18 @@ public class AntPattern {
 		return newPattern;
 	}
 
-			
+
 	//-----------------------------------------------------------------------------------------------------------------
 
 	public boolean isSimple() {
 
-		return (null != points);
+		if (null != points) {
+			return true;
+		}
+		if (null != slices) {
+			return false;
+		}
+		return (null == sliceValues);
 	}
 
 
@@ -228,6 +416,7 @@ public class AntPattern {
 
 	public ArrayList<AntPoint> getPoints() {
 
+		expand();
 		return points;
 	}
 
@@ -236,7 +425,7 @@ public class AntPattern {
 
 	public boolean isMatrix() {
 
-		return (null != slices);
+		return !isSimple();
 	}
 
 
@@ -244,8 +433,9 @@ public class AntPattern {
 
 	public double minimumValue() {
 
-		if (null != slices) {
-			return slices.firstEntry().getValue().value;
+		sync();
+		if (null != sliceValues) {
+			return sliceValues[0];
 		}
 		return -1.;
 	}
@@ -255,18 +445,73 @@ public class AntPattern {
 
 	public double maximumValue() {
 
-		if (null != slices) {
-			return slices.lastEntry().getValue().value;
+		sync();
+		if (null != sliceValues) {
+			return sliceValues[sliceValues.length - 1];
 		}
 		return -1.;
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// The editor does not use this, it's for the save code.  Slice objects are not modified directly.
+	// Accessors for the compact form, used by save and export code.  For a simple pattern the slice count is 0 and
+	// point indices run from 0 to getPointCount() - 1.  For a matrix, points for a slice are at indices from
+	// getSliceStart() to getSliceEnd() - 1, the slices are in increasing order of value.  These are not for use by
+	// the editor, they will compact() the pattern.
+
+	public int getPointCount() {
+
+		compact();
+		return angles.length;
+	}
+
+	public double getAngle(int theIndex) {
+
+		compact();
+		return angles[theIndex];
+	}
+
+	public double getRelativeField(int theIndex) {
+
+		compact();
+		return fields[theIndex];
+	}
+
+	public int getSliceCount() {
+
+		compact();
+		if (null == sliceValues) {
+			return 0;
+		}
+		return sliceValues.length;
+	}
+
+	public double getSliceValue(int theSlice) {
+
+		compact();
+		return sliceValues[theSlice];
+	}
+
+	public int getSliceStart(int theSlice) {
+
+		compact();
+		return sliceStarts[theSlice];
+	}
+
+	public int getSliceEnd(int theSlice) {
+
+		compact();
+		return sliceStarts[theSlice + 1];
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Slice objects are not modified directly, only the point lists.  Save and export code should use the compact
+	// form accessors instead of this, see above.
 
 	public Collection<AntSlice> getSlices() {
 
+		expand();
 		if (null == slices) {
 			return null;
 		}
@@ -280,6 +525,8 @@ public class AntPattern {
 
 	public boolean convertToMatrix(Double firstValue, Double secondValue) {
 
+		expand();
+
 		if ((PATTERN_TYPE_HORIZONTAL == type) || (null == points) || firstValue.equals(secondValue)) {
 			return false;
 		}
@@ -302,13 +549,15 @@ public class AntPattern {
 
 	public ArrayList<Double> getSliceValues() {
 
-		if (null == slices) {
+		sync();
+
+		if (null == sliceValues) {
 			return null;
 		}
 
-		ArrayList<Double> theValues = new ArrayList<Double>();
-		for (AntSlice theSlice : slices.values()) {
-			theValues.add(Double.valueOf(theSlice.value));
+		ArrayList<Double> theValues = new ArrayList<Double>(sliceValues.length);
+		for (double theValue : sliceValues) {
+			theValues.add(Double.valueOf(theValue));
 		}
 		return theValues;
 	}
@@ -318,11 +567,17 @@ public class AntPattern {
 
 	public boolean containsSlice(Double theValue) {
 
-		if (null == slices) {
+		if (null != slices) {
+			return slices.containsKey(theValue);
+		}
+
+		sync();
+
+		if (null == sliceValues) {
 			return false;
 		}
 
-		return slices.containsKey(theValue);
+		return (Arrays.binarySearch(sliceValues, theValue.doubleValue()) >= 0);
 	}
 
 
@@ -330,6 +585,8 @@ public class AntPattern {
 
 	public ArrayList<AntPoint> getSlicePoints(Double theValue) {
 
+		expand();
+
 		if (null == slices) {
 			return null;
 		}
@@ -348,6 +605,8 @@ public class AntPattern {
 
 	public boolean changeSliceValue(Double oldValue, Double newValue) {
 
+		expand();
+
 		if ((null == slices) || !slices.containsKey(oldValue) || slices.containsKey(newValue)) {
 			return false;
 		}
@@ -364,6 +623,8 @@ public class AntPattern {
 
 	public boolean addSlice(Double newValue) {
 
+		expand();
+
 		if (null == slices) {
 			return false;
 		}
@@ -380,6 +641,8 @@ public class AntPattern {
 
 	public boolean removeSlice(Double theValue) {
 
+		expand();
+
 		if (null == slices) {
 			return false;
 		}
@@ -393,6 +656,356 @@ public class AntPattern {
 	}
 
 
+	//=================================================================================================================
+	// Immutable pattern content used for interning.  Equality is by content of the compact arrays.  The hash is a
+	// 64-bit value over all arrays, that is also used by save code to find duplicate patterns, see dataEquals().
+
+	private static class PatternData {
+
+		private final double[] angles;
+		private final double[] fields;
+		private final double[] sliceValues;
+		private final int[] sliceStarts;
+
+		private final long contentHash;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private PatternData(double[] theAngles, double[] theFields, double[] theSliceValues, int[] theSliceStarts) {
+
+			angles = theAngles;
+			fields = theFields;
+			sliceValues = theSliceValues;
+			sliceStarts = theSliceStarts;
+
+			long h = 1125899906842597L;
+			h = hashArray(h, angles);
+			h = hashArray(h, fields);
+			if (null != sliceValues) {
+				h = hashArray(h, sliceValues);
+				for (int start : sliceStarts) {
+					h = (31L * h) + start;
+				}
+			}
+			contentHash = h;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private static long hashArray(long h, double[] data) {
+
+			long bits;
+			for (double d : data) {
+				bits = Double.doubleToLongBits(d);
+				h = (31L * h) + (bits ^ (bits >>> 29));
+			}
+			return (31L * h) + data.length;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public int hashCode() {
+
+			return (int)(contentHash ^ (contentHash >>> 32));
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public boolean equals(Object other) {
+
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof PatternData)) {
+				return false;
+			}
+			PatternData theOther = (PatternData)other;
+			return (contentHash == theOther.contentHash) && Arrays.equals(angles, theOther.angles) &&
+				Arrays.equals(fields, theOther.fields) && Arrays.equals(sliceValues, theOther.sliceValues) &&
+				Arrays.equals(sliceStarts, theOther.sliceStarts);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// JVM-wide intern table for pattern data.  The same antenna pattern is frequently loaded for many sources across
+	// many studies and data sets; interning makes all of those share a single copy of the compact arrays.  Entries are
+	// weakly held and disappear when no pattern is using them.  This is safe because the compact arrays are never
+	// modified in place, editing always works on expanded objects and then creates new arrays.
+
+	private static final WeakHashMap<PatternData, WeakReference<PatternData>> internTable =
+		new WeakHashMap<PatternData, WeakReference<PatternData>>();
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Replace this pattern's data with the canonical shared copy of identical data, adding it to the table if needed.
+	// Returns this object for convenience in load code.  This will compact() the pattern.
+
+	public AntPattern intern() {
+
+		compact();
+
+		if (null != shared) {
+			return this;
+		}
+
+		PatternData theData = new PatternData(angles, fields, sliceValues, sliceStarts);
+
+		synchronized (internTable) {
+			WeakReference<PatternData> theRef = internTable.get(theData);
+			PatternData theShared = (null == theRef) ? null : theRef.get();
+			if (null == theShared) {
+				internTable.put(theData, new WeakReference<PatternData>(theData));
+				theShared = theData;
+			}
+			shared = theShared;
+		}
+
+		angles = shared.angles;
+		fields = shared.fields;
+		sliceValues = shared.sliceValues;
+		sliceStarts = shared.sliceStarts;
+
+		return this;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Hash of the point data, not including name or other properties.  Identical data always has the same hash; for
+	// an exact test use dataEquals().  This will compact() the pattern.
+
+	public long getContentHash() {
+
+		compact();
+
+		if (null != shared) {
+			return shared.contentHash;
+		}
+		return new PatternData(angles, fields, sliceValues, sliceStarts).contentHash;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Test if another pattern has identical point data.  This will compact() both patterns.
+
+	public boolean dataEquals(AntPattern other) {
+
+		compact();
+		other.compact();
+
+		if ((null != shared) && (shared == other.shared)) {
+			return true;
+		}
+		return Arrays.equals(angles, other.angles) && Arrays.equals(fields, other.fields) &&
+			Arrays.equals(sliceValues, other.sliceValues) && Arrays.equals(sliceStarts, other.sliceStarts);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Evaluate the pattern at an arbitrary angle with linear interpolation of relative field, using the same rules as
+	// the study engine.  Azimuth lookups wrap around 360 degrees, vertical angle lookups use the first or last point
+	// when beyond the ends of the tabulation.  For a matrix pattern the two-argument form interpolates between the
+	// bracketing slices at the slice value, which is an azimuth for a vertical pattern (wraps) or a frequency for a
+	// receive pattern (does not wrap).  The one-argument form on a matrix pattern uses the first slice.  A pattern
+	// with no points returns 1.  Lookup within a slice is O(1) when the angles are uniformly spaced, as most are,
+	// otherwise it is a binary search.  While the pattern is being edited each call takes a new snapshot of the
+	// editing objects so is relatively expensive, call compact() first if many lookups are needed.
+
+	public double relativeField(double theAngle) {
+
+		sync();
+
+		if (null == sliceValues) {
+			return sliceLookup(0, 0, angles.length, theAngle);
+		}
+		return sliceLookup(0, sliceStarts[0], sliceStarts[1], theAngle);
+	}
+
+	public double relativeField(double theValue, double theAngle) {
+
+		sync();
+
+		if (null == sliceValues) {
+			return sliceLookup(0, 0, angles.length, theAngle);
+		}
+
+		int ns = sliceValues.length, s0, s1;
+		double v0, v1;
+
+		if (PATTERN_TYPE_VERTICAL == type) {
+
+			theValue = normalizeAzimuth(theValue);
+
+			if ((theValue < sliceValues[0]) || (theValue >= sliceValues[ns - 1])) {
+				s0 = ns - 1;
+				s1 = 0;
+				v0 = sliceValues[s0];
+				v1 = sliceValues[s1] + 360.;
+				if (theValue < sliceValues[0]) {
+					v0 -= 360.;
+					v1 -= 360.;
+				}
+			} else {
+				s0 = bracket(sliceValues, 0, ns, theValue, 0.);
+				s1 = s0 + 1;
+				v0 = sliceValues[s0];
+				v1 = sliceValues[s1];
+			}
+
+		} else {
+
+			if (theValue <= sliceValues[0]) {
+				return sliceLookup(0, sliceStarts[0], sliceStarts[1], theAngle);
+			}
+			if (theValue >= sliceValues[ns - 1]) {
+				return sliceLookup(ns - 1, sliceStarts[ns - 1], sliceStarts[ns], theAngle);
+			}
+			s0 = bracket(sliceValues, 0, ns, theValue, 0.);
+			s1 = s0 + 1;
+			v0 = sliceValues[s0];
+			v1 = sliceValues[s1];
+		}
+
+		double rf0 = sliceLookup(s0, sliceStarts[s0], sliceStarts[s0 + 1], theAngle);
+		double rf1 = sliceLookup(s1, sliceStarts[s1], sliceStarts[s1 + 1], theAngle);
+
+		return rf0 + (((theValue - v0) / (v1 - v0)) * (rf1 - rf0));
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Interpolated lookup in one slice, or the entire simple pattern.  Slice angles are azimuths for horizontal and
+	// receive patterns, vertical angles for vertical patterns.
+
+	private double sliceLookup(int theSlice, int start, int end, double theAngle) {
+
+		int n = end - start;
+		if (0 == n) {
+			return 1.;
+		}
+		if (1 == n) {
+			return fields[start];
+		}
+
+		int last = end - 1, i0, i1;
+		double a0, a1;
+
+		if (PATTERN_TYPE_VERTICAL == type) {
+
+			if (theAngle <= angles[start]) {
+				return fields[start];
+			}
+			if (theAngle >= angles[last]) {
+				return fields[last];
+			}
+			i0 = bracket(angles, start, end, theAngle, sliceStep(theSlice, start, end));
+			i1 = i0 + 1;
+			a0 = angles[i0];
+			a1 = angles[i1];
+
+		} else {
+
+			theAngle = normalizeAzimuth(theAngle);
+
+			if ((theAngle < angles[start]) || (theAngle >= angles[last])) {
+				i0 = last;
+				i1 = start;
+				a0 = angles[i0];
+				a1 = angles[i1] + 360.;
+				if (theAngle < angles[start]) {
+					a0 -= 360.;
+					a1 -= 360.;
+				}
+			} else {
+				i0 = bracket(angles, start, end, theAngle, sliceStep(theSlice, start, end));
+				i1 = i0 + 1;
+				a0 = angles[i0];
+				a1 = angles[i1];
+			}
+		}
+
+		return fields[i0] + (((theAngle - a0) / (a1 - a0)) * (fields[i1] - fields[i0]));
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Find index i such that data[i] <= x < data[i + 1], caller must ensure data[start] <= x < data[end - 1].  If
+	// step is non-zero the data is uniformly spaced so the index is computed directly, with a final adjustment in case
+	// of rounding error in the tabulated values.
+
+	private static int bracket(double[] data, int start, int end, double x, double step) {
+
+		int i, last = end - 2;
+
+		if (step > 0.) {
+			i = start + (int)((x - data[start]) / step);
+			if (i > last) {
+				i = last;
+			}
+			while ((i > start) && (x < data[i])) {
+				i--;
+			}
+			while ((i < last) && (x >= data[i + 1])) {
+				i++;
+			}
+			return i;
+		}
+
+		i = Arrays.binarySearch(data, start, end, x);
+		if (i < 0) {
+			i = -i - 2;
+		}
+		if (i > last) {
+			i = last;
+		}
+		return i;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Determine the uniform angle step for a slice, or 0 if the spacing is irregular.  Cached until the arrays change.
+
+	private static final double STEP_TOLERANCE = 0.0005;
+
+	private double sliceStep(int theSlice, int start, int end) {
+
+		if (null == sliceSteps) {
+			int ns = (null == sliceValues) ? 1 : sliceValues.length;
+			sliceSteps = new double[ns];
+			Arrays.fill(sliceSteps, -1.);
+		}
+
+		if (sliceSteps[theSlice] < 0.) {
+			double step = (angles[end - 1] - angles[start]) / (double)(end - start - 1);
+			for (int i = start + 1; i < end; i++) {
+				if (Math.abs((angles[i] - angles[i - 1]) - step) > STEP_TOLERANCE) {
+					step = 0.;
+					break;
+				}
+			}
+			sliceSteps[theSlice] = step;
+		}
+
+		return sliceSteps[theSlice];
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static double normalizeAzimuth(double theAzimuth) {
+
+		theAzimuth %= 360.;
+		if (theAzimuth < 0.) {
+			theAzimuth += 360.;
+		}
+		return theAzimuth;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Check validity.
 
@@ -402,11 +1015,13 @@ public class AntPattern {
 
 	public boolean isDataValid(ErrorLogger errors) {
 
+		sync();
+
 		switch (type) {
 
 			case PATTERN_TYPE_HORIZONTAL: {
 
-				if (points.size() < PATTERN_REQUIRED_POINTS) {
+				if (angles.length < PATTERN_REQUIRED_POINTS) {
 					if (null != errors) {
 						errors.reportValidationError("Bad azimuth pattern, must have " + PATTERN_REQUIRED_POINTS +
 							" or more points.");
@@ -416,22 +1031,22 @@ public class AntPattern {
 
 				double lastAz = AZIMUTH_MIN - 1.;
 
-				for (AntPoint thePoint : points) {
-					if ((thePoint.angle < AZIMUTH_MIN) || (thePoint.angle > AZIMUTH_MAX)) {
+				for (int i = 0; i < angles.length; i++) {
+					if ((angles[i] < AZIMUTH_MIN) || (angles[i] > AZIMUTH_MAX)) {
 						if (null != errors) {
 							errors.reportValidationError("Bad pattern point azimuth, must be " + AZIMUTH_MIN + " to " +
 								AZIMUTH_MAX + ".");
 						}
 						return false;
 					}
-					if (thePoint.angle <= lastAz) {
+					if (angles[i] <= lastAz) {
 						if (null != errors) {
 							errors.reportValidationError("Bad azimuth pattern, duplicate or out-of-order points.");
 						}
 						return false;
 					}
-					lastAz = thePoint.angle;
-					if ((thePoint.relativeField < FIELD_MIN) || (thePoint.relativeField > FIELD_MAX)) {
+					lastAz = angles[i];
+					if ((fields[i] < FIELD_MIN) || (fields[i] > FIELD_MAX)) {
 						if (null != errors) {
 							errors.reportValidationError("Bad pattern point relative field, must be " + FIELD_MIN +
 								" to " + FIELD_MAX + ".");
@@ -445,11 +1060,12 @@ public class AntPattern {
 
 			case PATTERN_TYPE_VERTICAL: {
 
-				Collection<AntSlice> theSlices;
+				double[] theValues;
+				int[] theStarts;
 
-				if (null == slices) {
+				if (null == sliceValues) {
 
-					if (points.size() < PATTERN_REQUIRED_POINTS) {
+					if (angles.length < PATTERN_REQUIRED_POINTS) {
 						if (null != errors) {
 							errors.reportValidationError("Bad elevation pattern, must have " +
 								PATTERN_REQUIRED_POINTS + " or more points.");
@@ -457,12 +1073,12 @@ public class AntPattern {
 						return false;
 					}
 
-					theSlices = new ArrayList<AntSlice>();
-					theSlices.add(new AntSlice(AZIMUTH_MIN, points));
+					theValues = new double[] {AZIMUTH_MIN};
+					theStarts = new int[] {0, angles.length};
 
 				} else {
 
-					if (slices.size() < PATTERN_REQUIRED_POINTS) {
+					if (sliceValues.length < PATTERN_REQUIRED_POINTS) {
 						if (null != errors) {
 							errors.reportValidationError("Bad matrix elevation pattern, must have " +
 								PATTERN_REQUIRED_POINTS + " or more azimuths.");
@@ -470,21 +1086,22 @@ public class AntPattern {
 						return false;
 					}
 
-					theSlices = slices.values();
+					theValues = sliceValues;
+					theStarts = sliceStarts;
 				}
 
 				double lastDep = 0.;
 
-				for (AntSlice theSlice : theSlices) {
+				for (int s = 0; s < theValues.length; s++) {
 
-					if ((theSlice.value < AZIMUTH_MIN) || (theSlice.value > AZIMUTH_MAX)) {
+					if ((theValues[s] < AZIMUTH_MIN) || (theValues[s] > AZIMUTH_MAX)) {
 						if (null != errors) {
 							errors.reportValidationError("Bad matrix elevation pattern azimuth, must be " +
 								AZIMUTH_MIN + " to " + AZIMUTH_MAX + ".");
 						}
 						return false;
 					}
-					if (theSlice.points.size() < PATTERN_REQUIRED_POINTS) {
+					if ((theStarts[s + 1] - theStarts[s]) < PATTERN_REQUIRED_POINTS) {
 						if (null != errors) {
 							errors.reportValidationError("Bad elevation pattern, must have " +
 								PATTERN_REQUIRED_POINTS + " or more points.");
@@ -494,23 +1111,23 @@ public class AntPattern {
 
 					lastDep = DEPRESSION_MIN - 1.;
 
-					for (AntPoint thePoint : theSlice.points) {
-						if ((thePoint.angle < DEPRESSION_MIN) || (thePoint.angle > DEPRESSION_MAX)) {
+					for (int i = theStarts[s]; i < theStarts[s + 1]; i++) {
+						if ((angles[i] < DEPRESSION_MIN) || (angles[i] > DEPRESSION_MAX)) {
 							if (null != errors) {
 								errors.reportValidationError("Bad pattern point vertical angle, must be " +
 									DEPRESSION_MIN + " to " + DEPRESSION_MAX + ".");
 							}
 							return false;
 						}
-						if (thePoint.angle <= lastDep) {
+						if (angles[i] <= lastDep) {
 							if (null != errors) {
 								errors.reportValidationError("Bad elevation pattern, duplicate or out-of-order " +
 									"points.");
 							}
 							return false;
 						}
-						lastDep = thePoint.angle;
-						if ((thePoint.relativeField < FIELD_MIN) || (thePoint.relativeField > FIELD_MAX)) {
+						lastDep = angles[i];
+						if ((fields[i] < FIELD_MIN) || (fields[i] > FIELD_MAX)) {
 							if (null != errors) {
 								errors.reportValidationError("Bad pattern point relative field, must be " + FIELD_MIN +
 									" to " + FIELD_MAX + ".");
@@ -519,7 +1136,7 @@ public class AntPattern {
 						}
 					}
 				}
-			
+
 				return true;
 			}
 
@@ -538,11 +1155,12 @@ public class AntPattern {
 					return false;
 				}
 
-				Collection<AntSlice> theSlices;
+				double[] theValues;
+				int[] theStarts;
 
-				if (null == slices) {
+				if (null == sliceValues) {
 
-					if (points.size() < PATTERN_REQUIRED_POINTS) {
+					if (angles.length < PATTERN_REQUIRED_POINTS) {
 						if (null != errors) {
 							errors.reportValidationError("Bad receive pattern, must have " + PATTERN_REQUIRED_POINTS +
 								" or more points.");
@@ -550,12 +1168,12 @@ public class AntPattern {
 						return false;
 					}
 
-					theSlices = new ArrayList<AntSlice>();
-					theSlices.add(new AntSlice(FREQUENCY_MIN, points));
+					theValues = new double[] {FREQUENCY_MIN};
+					theStarts = new int[] {0, angles.length};
 
 				} else {
 
-					if (slices.size() < PATTERN_REQUIRED_POINTS) {
+					if (sliceValues.length < PATTERN_REQUIRED_POINTS) {
 						if (null != errors) {
 							errors.reportValidationError("Bad receive pattern, must have " + PATTERN_REQUIRED_POINTS +
 								" or more frequencies.");
@@ -563,21 +1181,22 @@ public class AntPattern {
 						return false;
 					}
 
-					theSlices = slices.values();
+					theValues = sliceValues;
+					theStarts = sliceStarts;
 				}
 
 				double lastAz = 0., patmax = 0.;
 
-				for (AntSlice theSlice : theSlices) {
+				for (int s = 0; s < theValues.length; s++) {
 
-					if ((theSlice.value < FREQUENCY_MIN) || (theSlice.value > FREQUENCY_MAX)) {
+					if ((theValues[s] < FREQUENCY_MIN) || (theValues[s] > FREQUENCY_MAX)) {
 						if (null != errors) {
 							errors.reportValidationError("Bad receive pattern frequency, must be " + FREQUENCY_MIN +
 								" to " + FREQUENCY_MAX + ".");
 						}
 						return false;
 					}
-					if (theSlice.points.size() < PATTERN_REQUIRED_POINTS) {
+					if ((theStarts[s + 1] - theStarts[s]) < PATTERN_REQUIRED_POINTS) {
 						if (null != errors) {
 							errors.reportValidationError("Bad receive pattern, must have " + PATTERN_REQUIRED_POINTS +
 								" or more points.");
@@ -587,30 +1206,30 @@ public class AntPattern {
 
 					lastAz = AZIMUTH_MIN - 1.;
 
-					for (AntPoint thePoint : theSlice.points) {
-						if ((thePoint.angle < AZIMUTH_MIN) || (thePoint.angle > AZIMUTH_MAX)) {
+					for (int i = theStarts[s]; i < theStarts[s + 1]; i++) {
+						if ((angles[i] < AZIMUTH_MIN) || (angles[i] > AZIMUTH_MAX)) {
 							if (null != errors) {
 								errors.reportValidationError("Bad pattern point azimuth, must be " + AZIMUTH_MIN +
 									" to " + AZIMUTH_MAX + ".");
 							}
 							return false;
 						}
-						if (thePoint.angle <= lastAz) {
+						if (angles[i] <= lastAz) {
 							if (null != errors) {
 								errors.reportValidationError("Bad receive pattern, duplicate or out-of-order points.");
 							}
 							return false;
 						}
-						lastAz = thePoint.angle;
-						if ((thePoint.relativeField < FIELD_MIN) || (thePoint.relativeField > FIELD_MAX)) {
+						lastAz = angles[i];
+						if ((fields[i] < FIELD_MIN) || (fields[i] > FIELD_MAX)) {
 							if (null != errors) {
 								errors.reportValidationError("Bad pattern point relative field, must be " + FIELD_MIN +
 									" to " + FIELD_MAX + ".");
 							}
 							return false;
 						}
-						if (thePoint.relativeField > patmax) {
-							patmax = thePoint.relativeField;
+						if (fields[i] > patmax) {
+							patmax = fields[i];
 						}
 					}
 				}
@@ -657,7 +1276,7 @@ public class AntPattern {
 
 		try {
 
-			db.update("LOCK TABLES receive_antenna_index WRITE, antenna_key_sequence WRITE, " +
+			db.update("LOCK TABLES receive_antenna_index WRITE, " +
 				"receive_pattern WRITE, geography_receive_antenna WRITE, study_geography WRITE, study WRITE");
 
 			if (null != key) {
@@ -692,10 +1311,7 @@ public class AntPattern {
 			if (null == errmsg) {
 
 				if (null == key) {
-					db.update("UPDATE antenna_key_sequence SET antenna_key = antenna_key + 1");
-					db.query("SELECT antenna_key FROM antenna_key_sequence");
-					db.next();
-					key = Integer.valueOf(db.getInt(1));
+					key = Integer.valueOf(KeyAllocator.getKey(dbID, KeyAllocator.SEQUENCE_ANTENNA));
 				} else {
 					db.update("DELETE FROM receive_antenna_index WHERE antenna_key = " + key);
 					db.update("DELETE FROM receive_pattern WHERE antenna_key = " + key);
@@ -708,43 +1324,30 @@ public class AntPattern {
 				int startLength = query.length();
 				String sep = " (";
 
-				if (null != points) {
-					for (AntPoint thePoint : points) {
-						query.append(sep);
-						query.append(String.valueOf(key));
-						query.append(",-1,");
-						query.append(String.valueOf(thePoint.angle));
-						query.append(',');
-						query.append(String.valueOf(thePoint.relativeField));
-						if (query.length() > DbCore.MAX_QUERY_LENGTH) {
-							query.append(')');
-							db.update(query.toString());
-							query.setLength(startLength);
-							sep = " (";
-						} else {
-							sep = "),(";
-						}
+				sync();
+
+				int s = 0, ns = (null == sliceValues) ? 0 : sliceValues.length;
+				String theValue = "-1";
+
+				for (int i = 0; i < angles.length; i++) {
+					while ((s < ns) && (i == sliceStarts[s])) {
+						theValue = String.valueOf(sliceValues[s++]);
 					}
-				} else {
-					for (AntSlice theSlice : slices.values()) {
-						for (AntPoint thePoint : theSlice.points) {
-							query.append(sep);
-							query.append(String.valueOf(key));
-							query.append(',');
-							query.append(String.valueOf(theSlice.value));
-							query.append(',');
-							query.append(String.valueOf(thePoint.angle));
-							query.append(',');
-							query.append(String.valueOf(thePoint.relativeField));
-							if (query.length() > DbCore.MAX_QUERY_LENGTH) {
-								query.append(')');
-								db.update(query.toString());
-								query.setLength(startLength);
-								sep = " (";
-							} else {
-								sep = "),(";
-							}
-						}
+					query.append(sep);
+					query.append(String.valueOf(key));
+					query.append(',');
+					query.append(theValue);
+					query.append(',');
+					query.append(String.valueOf(angles[i]));
+					query.append(',');
+					query.append(String.valueOf(fields[i]));
+					if (query.length() > DbCore.MAX_QUERY_LENGTH) {
+						query.append(')');
+						db.update(query.toString());
+						query.setLength(startLength);
+						sep = " (";
+					} else {
+						sep = "),(";
 					}
 				}
 				if (query.length() > startLength) {
@@ -48,6 +48,7 @@ public class AppCore {
 	public static final String ENGINE_RUNCOUNT_KEY = "runcount";
 	public static final String ENGINE_RESULT_KEY = "result";
 	public static final String ENGINE_ERROR_KEY = "error";
+	public static final String ENGINE_FIELDS_KEY = "fields";
 
 	// Message types for logging and reporting.
 
@@ -120,6 +121,8 @@ public class AppCore {
 	public static final String PREF_TVIX_DEFAULT_CP_EXCLUDES_BL = "ixCheckDefaultCPExcludesBL";
 	public static final String PREF_TVIX_DEFAULT_EXCLUDE_NEW_LPTV = "ixCheckDefaultExcludeNewLPTV";
 	public static final String PREF_STUDY_MANAGER_NAME_COLUMN_FIRST = "studyManagerNameColumnFirst";
+	public static final String PREF_ENGINE_CACHE_LIMIT = "engineCacheLimit";
+	public static final String PREF_SLOW_QUERY_THRESHOLD = "slowQueryThreshold";
 
 	public static final String LAST_FILE_DIRECTORY_KEY = "last_file_directory";
 
@@ -227,6 +230,10 @@ public class AppCore {
 			System.setErr(new PrintStream(logStream, true));
 		}
 
+		// Make runtime metrics visible over JMX.
+
+		AppMetrics.registerMBean();
+
 		// Check support files for correct installation and current version.  The list of files and expected versions
 		// are stored in the file "lib/versions.dat".  That file itself has a version number which is checked against
 		// a minimum expected value here.  Many of the files may be updated without any update to the code, but such
@@ -328,11 +335,27 @@ public class AppCore {
 		} catch (Throwable t) {
 		}
 
-		// If this is initializing for a utility function that won't be using the study engine, skip the rest.
+		// If this is initializing for a utility function that won't be using the study engine, skip the rest.  A
+		// utility that decides later it needs the engine may call initializeEngine() directly.
+
+		if (doEngineChecks) {
+			initializeEngine();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Query the study engine, this is part of initialize() but may be called separately.  Only the first call will
+	// query the engine, later calls do nothing.
+
+	private static boolean didEngineInit = false;
 
-		if (!doEngineChecks) {
+	public static synchronized void initializeEngine() {
+
+		if (didEngineInit) {
 			return;
 		}
+		didEngineInit = true;
 
 		// Query the study engine for various information including it's verison number, a maximum process count based
 		// on available memory, and a list of available propagation models.  If this succeeds maxEngineProcessCount is
@@ -547,7 +570,7 @@ public class AppCore {
 	//-----------------------------------------------------------------------------------------------------------------
 	// Utility methods for working with cache and output files and directories.  First get the storage space used by
 	// cache files for a specified database and study.  If the study key is 0, this will return the total size for all
-	// studies in the database.
+	// studies in the database.  Sizes come from the CacheManager index, directories are only walked when changed.
 
 	public static long getStudyCacheSize(String theDbID) {
 		return getStudyCacheSize(theDbID, 0);
@@ -555,21 +578,7 @@ public class AppCore {
 
 	public static long getStudyCacheSize(String theDbID, int studyKey) {
 
-		long newSize = 0L;
-
-		File cacheRoot;
-
-		if (studyKey > 0) {
-			cacheRoot = new File(cacheDirectoryPath + File.separator + theDbID + File.separator + studyKey);
-		} else {
-			cacheRoot = new File(cacheDirectoryPath + File.separator + theDbID);
-		}
-
-		if (cacheRoot.exists() && cacheRoot.isDirectory()) {
-			newSize = sizeOfDirectoryContents(cacheRoot);
-		}
-
-		return newSize;
+		return CacheManager.getStudyCacheSize(theDbID, studyKey);
 	}
 
 
@@ -698,6 +707,8 @@ public class AppCore {
 			result = deleteDirectoryAndContents(cacheRoot);
 		}
 
+		CacheManager.studyCacheDeleted(theDbID, studyKey);
+
 		return result;
 	}
 
@@ -713,6 +724,7 @@ public class AppCore {
 
 		if (cacheRoot.exists() && cacheRoot.isDirectory()) {
 			result = deleteUnusedCacheFiles(cacheRoot, sourceKeyMap);
+			CacheManager.studyCacheChanged(theDbID, studyKey);
 		}
 
 		return result;
@@ -1096,6 +1108,11 @@ public class AppCore {
 		return countFormatter.format(theValue);
 	}
 
+	public static String formatCount(long theValue) {
+
+		return countFormatter.format(theValue);
+	}
+
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Convert a version number string in the form X, X.Y, or X.Y.Z to XYYZZZ format, return -1 if format not valid.
@@ -0,0 +1,554 @@
+//
+//  AppMetrics.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import java.util.*;
+import java.lang.management.*;
+import javax.management.*;
+
+
+//=====================================================================================================================
+// Registry of runtime metrics collected by instrumentation in the core and UI code.  There are three metric types,
+// counters that only increase, gauges that are set to a current value, and timers which are histograms of elapsed
+// times with a fixed set of buckets.  Metrics are identified by name plus an optional set of labels, the labels are
+// given to the recording methods as name-value pairs.  Label values must come from a small fixed set, e.g. a class
+// or table name, never a record key or other unbounded value.  Metrics are created on first use, but the names and
+// descriptions of all metrics are defined here so the instrumented code just uses the constants.
+
+// The registry is exposed over JMX as a single dynamic MBean with one attribute per counter and gauge and count,
+// sum, and maximum attributes for each timer, see registerMBean().  It can also be written in the Prometheus text
+// exposition format, see getPrometheusText(), the API servlet uses that for a metrics scrape operation.  All times
+// are recorded in nanoseconds but reported in seconds.  Recording is cheap, one synchronized map lookup and update.
+
+public class AppMetrics {
+
+	public static final String JMX_OBJECT_NAME = "gov.fcc.tvstudy:type=Metrics";
+
+	// Metric names.
+
+	public static final String DB_STATEMENT_SECONDS = "tvstudy_db_statement_seconds";
+	public static final String DB_STATEMENT_ERRORS = "tvstudy_db_statement_errors_total";
+	public static final String DB_CONNECTIONS_OPEN = "tvstudy_db_connections_open";
+	public static final String DB_CONNECTIONS_IDLE = "tvstudy_db_connections_idle";
+	public static final String DB_CONNECTIONS_CREATED = "tvstudy_db_connections_created_total";
+	public static final String DB_SLOW_STATEMENTS = "tvstudy_db_slow_statements_total";
+	public static final String DB_LOCK_WAIT_SECONDS = "tvstudy_db_lock_wait_seconds";
+
+	public static final String KEYS_ALLOCATED = "tvstudy_keys_allocated_total";
+	public static final String KEY_RESERVE_SECONDS = "tvstudy_key_reserve_seconds";
+
+	public static final String TASK_QUEUE_WAITING = "tvstudy_task_queue_waiting";
+	public static final String TASK_QUEUE_RUNNING = "tvstudy_task_queue_running";
+	public static final String TASK_WAIT_SECONDS = "tvstudy_task_wait_seconds";
+	public static final String TASK_RUN_SECONDS = "tvstudy_task_run_seconds";
+	public static final String TASK_MEMORY_LOAD = "tvstudy_task_memory_load";
+
+	public static final String STUDY_BUILD_PHASE_SECONDS = "tvstudy_study_build_phase_seconds";
+	public static final String STUDY_BUILD_SECONDS = "tvstudy_study_build_seconds";
+
+	public static final String ENGINE_PROCESSES = "tvstudy_engine_processes";
+	public static final String ENGINE_RUN_SECONDS = "tvstudy_engine_run_seconds";
+	public static final String ENGINE_RUN_FAILURES = "tvstudy_engine_run_failures_total";
+	public static final String ENGINE_ITEMS_DONE = "tvstudy_engine_items_done_total";
+	public static final String ENGINE_MEMORY_TOTAL = "tvstudy_engine_memory_total_bytes";
+	public static final String ENGINE_MEMORY_RSS = "tvstudy_engine_memory_rss_bytes";
+	public static final String ENGINE_MEMORY_PEAK = "tvstudy_engine_memory_peak_bytes";
+	public static final String ENGINE_ADMISSIONS = "tvstudy_engine_admissions_total";
+	public static final String ENGINE_ADMISSION_LOAD = "tvstudy_engine_admission_load";
+
+	public static final String IMPORT_ROWS = "tvstudy_import_rows_total";
+	public static final String IMPORT_TABLE_SECONDS = "tvstudy_import_table_seconds";
+
+	public static final String USER_RECORD_LOADS = "tvstudy_user_record_loads_total";
+
+	public static final String SEARCH_CACHE_REQUESTS = "tvstudy_search_cache_requests_total";
+	public static final String SEARCH_CACHE_RECORDS = "tvstudy_search_cache_records";
+
+	public static final String AM_INDEX_REQUESTS = "tvstudy_am_index_requests_total";
+	public static final String AM_INDEX_SITES = "tvstudy_am_index_sites";
+
+	public static final String ANTENNA_CATALOG_REQUESTS = "tvstudy_antenna_catalog_requests_total";
+	public static final String ANTENNA_CATALOG_LOAD_SECONDS = "tvstudy_antenna_catalog_load_seconds";
+
+	public static final String WIRELESS_IMPORT_LINES = "tvstudy_wireless_import_lines_total";
+	public static final String WIRELESS_IMPORT_SECONDS = "tvstudy_wireless_import_seconds";
+
+	private static final int TYPE_COUNTER = 1;
+	private static final int TYPE_GAUGE = 2;
+	private static final int TYPE_TIMER = 3;
+
+	private static final String[] TYPE_NAMES = {"", "counter", "gauge", "histogram"};
+
+	// Timer bucket upper bounds in seconds.  This range covers both individual queries and long study runs.
+
+	private static final double[] TIMER_BUCKETS = {
+		0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1., 2.5, 5., 10., 30., 60., 300., 900., 3600.
+	};
+
+	private static final HashMap<String, String> descriptions = new HashMap<String, String>();
+	private static final HashMap<String, Integer> types = new HashMap<String, Integer>();
+
+	static {
+		define(DB_STATEMENT_SECONDS, TYPE_TIMER, "SQL statement execution time by statement type");
+		define(DB_STATEMENT_ERRORS, TYPE_COUNTER, "SQL statements that failed with an exception");
+		define(DB_CONNECTIONS_OPEN, TYPE_GAUGE, "Pooled database connections currently in use");
+		define(DB_CONNECTIONS_IDLE, TYPE_GAUGE, "Pooled database connections currently idle");
+		define(DB_CONNECTIONS_CREATED, TYPE_COUNTER, "Database connection objects added to the pools");
+		define(DB_SLOW_STATEMENTS, TYPE_COUNTER, "SQL statements over the slow query threshold, see SlowQueryLog");
+		define(DB_LOCK_WAIT_SECONDS, TYPE_TIMER, "Time to acquire LOCK TABLES by first table in the lock list");
+		define(KEYS_ALLOCATED, TYPE_COUNTER, "Keys allocated by KeyAllocator by sequence and source");
+		define(KEY_RESERVE_SECONDS, TYPE_TIMER, "Time to reserve a block of keys in a sequence table");
+		define(TASK_QUEUE_WAITING, TYPE_GAUGE, "Tasks waiting in the AppTask queue");
+		define(TASK_QUEUE_RUNNING, TYPE_GAUGE, "Tasks running under AppTask");
+		define(TASK_WAIT_SECONDS, TYPE_TIMER, "Time tasks waited in the AppTask queue before starting");
+		define(TASK_RUN_SECONDS, TYPE_TIMER, "Time from task start to taskDone()");
+		define(TASK_MEMORY_LOAD, TYPE_GAUGE, "Total memory load of running AppTask tasks, 1 is all system memory");
+		define(STUDY_BUILD_PHASE_SECONDS, TYPE_TIMER, "Study build time by build class and phase");
+		define(STUDY_BUILD_SECONDS, TYPE_TIMER, "Total study build time by build class");
+		define(ENGINE_PROCESSES, TYPE_GAUGE, "Study engine processes currently running");
+		define(ENGINE_RUN_SECONDS, TYPE_TIMER, "Study engine process run time");
+		define(ENGINE_RUN_FAILURES, TYPE_COUNTER, "Study engine processes that failed or were aborted");
+		define(ENGINE_ITEMS_DONE, TYPE_COUNTER, "Study engine run items completed, from run count messages");
+		define(ENGINE_MEMORY_TOTAL, TYPE_GAUGE, "System memory used as the engine admission limit, see EngineMemory");
+		define(ENGINE_MEMORY_RSS, TYPE_GAUGE, "Sampled resident memory of running study engine processes");
+		define(ENGINE_MEMORY_PEAK, TYPE_GAUGE, "Engine memory footprint estimate by study type and cell size");
+		define(ENGINE_ADMISSIONS, TYPE_COUNTER, "Engine task memory loads by basis, default, observed, or raised");
+		define(ENGINE_ADMISSION_LOAD, TYPE_GAUGE, "Last memory load given to an engine task by profile");
+		define(IMPORT_ROWS, TYPE_COUNTER, "Rows copied into data set tables during import by table");
+		define(IMPORT_TABLE_SECONDS, TYPE_TIMER, "Time to create and copy a data set table during import");
+		define(USER_RECORD_LOADS, TYPE_COUNTER, "User record sources loaded by source, cache, binary, or XML");
+		define(SEARCH_CACHE_REQUESTS, TYPE_COUNTER, "SearchAPI result cache lookups by hit or miss");
+		define(SEARCH_CACHE_RECORDS, TYPE_GAUGE, "Records held in the SearchAPI result cache");
+		define(AM_INDEX_REQUESTS, TYPE_COUNTER, "AM station check site index lookups by hit, load, or error");
+		define(AM_INDEX_SITES, TYPE_GAUGE, "Sites in the last AM site index loaded by data set type");
+		define(ANTENNA_CATALOG_REQUESTS, TYPE_COUNTER, "Antenna search catalog lookups by hit, load, or error");
+		define(ANTENNA_CATALOG_LOAD_SECONDS, TYPE_TIMER, "Time to load an antenna search catalog by data set type");
+		define(WIRELESS_IMPORT_LINES, TYPE_COUNTER, "Wireless CSV lines imported by station or pattern file");
+		define(WIRELESS_IMPORT_SECONDS, TYPE_TIMER, "Time to parse and load the tables for a wireless data import");
+	}
+
+	private static void define(String name, int type, String description) {
+
+		types.put(name, Integer.valueOf(type));
+		descriptions.put(name, description);
+	}
+
+	// Metric state keyed by name and formatted label string.  A TreeMap so output is grouped by name.
+
+	private static final TreeMap<String, Metric> metrics = new TreeMap<String, Metric>();
+
+	private static boolean didRegisterMBean;
+
+
+	//=================================================================================================================
+	// State for one metric.  The labels string is already formatted as name="value" pairs separated by commas, or is
+	// empty if the metric has no labels.
+
+	private static class Metric {
+
+		private final String name;
+		private final String labels;
+		private final int type;
+
+		private double value;
+
+		private long count;
+		private long sum;
+		private long max;
+		private long[] bucketCounts;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private Metric(String theName, String theLabels, int theType) {
+
+			name = theName;
+			labels = theLabels;
+			type = theType;
+
+			if (TYPE_TIMER == type) {
+				bucketCounts = new long[TIMER_BUCKETS.length];
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Increment a counter.
+
+	public static void increment(String name, String... labels) {
+		increment(name, 1L, labels);
+	}
+
+	public static synchronized void increment(String name, long delta, String... labels) {
+
+		Metric theMetric = getMetric(name, TYPE_COUNTER, labels);
+		if (null != theMetric) {
+			theMetric.value += (double)delta;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Set or adjust a gauge.
+
+	public static synchronized void setGauge(String name, double value, String... labels) {
+
+		Metric theMetric = getMetric(name, TYPE_GAUGE, labels);
+		if (null != theMetric) {
+			theMetric.value = value;
+		}
+	}
+
+	public static synchronized void addGauge(String name, double delta, String... labels) {
+
+		Metric theMetric = getMetric(name, TYPE_GAUGE, labels);
+		if (null != theMetric) {
+			theMetric.value += delta;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Convenience for external process runs, the source label identifies the code running the process.  Call
+	// engineStarted() after the process starts, the return is the start time to pass to engineFinished() when the
+	// process exits or is killed.  Progress is counted from the engine run count messages, when a new count is seen
+	// the previous count of running items are complete, the caller passes that to engineItemsDone().
+
+	public static long engineStarted(String source) {
+
+		addGauge(ENGINE_PROCESSES, 1., "source", source);
+		return System.nanoTime();
+	}
+
+	public static void engineFinished(String source, long startTime, boolean failed) {
+
+		addGauge(ENGINE_PROCESSES, -1., "source", source);
+		recordTime(ENGINE_RUN_SECONDS, (System.nanoTime() - startTime), "source", source);
+		if (failed) {
+			increment(ENGINE_RUN_FAILURES, "source", source);
+		}
+	}
+
+	public static void engineItemsDone(String source, int count) {
+
+		if (count > 0) {
+			increment(ENGINE_ITEMS_DONE, (long)count, "source", source);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Record an elapsed time in nanoseconds.  Usually the argument is System.nanoTime() minus a start time.
+
+	public static synchronized void recordTime(String name, long nanos, String... labels) {
+
+		Metric theMetric = getMetric(name, TYPE_TIMER, labels);
+		if (null == theMetric) {
+			return;
+		}
+
+		if (nanos < 0L) {
+			nanos = 0L;
+		}
+
+		theMetric.count++;
+		theMetric.sum += nanos;
+		if (nanos > theMetric.max) {
+			theMetric.max = nanos;
+		}
+
+		double seconds = (double)nanos / 1.e9;
+		for (int i = 0; i < TIMER_BUCKETS.length; i++) {
+			if (seconds <= TIMER_BUCKETS[i]) {
+				theMetric.bucketCounts[i]++;
+				break;
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Look up or create a metric.  An undefined name or a type mismatch is a coding error, log it and return null so
+	// the caller just does nothing.  Caller must hold the class lock.
+
+	private static Metric getMetric(String name, int type, String[] labels) {
+
+		Integer theType = types.get(name);
+		if ((null == theType) || (theType.intValue() != type)) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Undefined metric '" + name + "'");
+			return null;
+		}
+
+		String theLabels = formatLabels(labels);
+		String theKey = name + "{" + theLabels + "}";
+
+		Metric theMetric = metrics.get(theKey);
+		if (null == theMetric) {
+			theMetric = new Metric(name, theLabels, type);
+			metrics.put(theKey, theMetric);
+		}
+
+		return theMetric;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Format a label name-value list, escaping the values per the Prometheus text format.
+
+	private static String formatLabels(String[] labels) {
+
+		if ((null == labels) || (labels.length < 2)) {
+			return "";
+		}
+
+		StringBuilder s = new StringBuilder();
+		String value;
+		char c;
+
+		for (int i = 0; i < (labels.length - 1); i += 2) {
+			if (i > 0) {
+				s.append(',');
+			}
+			s.append(labels[i]);
+			s.append("=\"");
+			value = labels[i + 1];
+			if (null == value) {
+				value = "";
+			}
+			for (int j = 0; j < value.length(); j++) {
+				c = value.charAt(j);
+				switch (c) {
+					case '\\': {
+						s.append("\\\\");
+						break;
+					}
+					case '"': {
+						s.append("\\\"");
+						break;
+					}
+					case '\n': {
+						s.append("\\n");
+						break;
+					}
+					default: {
+						s.append(c);
+						break;
+					}
+				}
+			}
+			s.append('"');
+		}
+
+		return s.toString();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Return all metrics in the Prometheus text exposition format, version 0.0.4.
+
+	public static synchronized String getPrometheusText() {
+
+		StringBuilder s = new StringBuilder();
+		String lastName = "";
+		long cumulative;
+
+		for (Metric theMetric : metrics.values()) {
+
+			if (!theMetric.name.equals(lastName)) {
+				s.append("# HELP " + theMetric.name + " " + descriptions.get(theMetric.name) + "\n");
+				s.append("# TYPE " + theMetric.name + " " + TYPE_NAMES[theMetric.type] + "\n");
+				lastName = theMetric.name;
+			}
+
+			if (TYPE_TIMER == theMetric.type) {
+
+				cumulative = 0L;
+				for (int i = 0; i < TIMER_BUCKETS.length; i++) {
+					cumulative += theMetric.bucketCounts[i];
+					s.append(theMetric.name + "_bucket{" + joinLabels(theMetric.labels, "le=\"" +
+						formatNumber(TIMER_BUCKETS[i]) + "\"") + "} " + cumulative + "\n");
+				}
+				s.append(theMetric.name + "_bucket{" + joinLabels(theMetric.labels, "le=\"+Inf\"") + "} " +
+					theMetric.count + "\n");
+				s.append(theMetric.name + "_sum" + wrapLabels(theMetric.labels) + " " +
+					formatNumber((double)theMetric.sum / 1.e9) + "\n");
+				s.append(theMetric.name + "_count" + wrapLabels(theMetric.labels) + " " + theMetric.count + "\n");
+
+			} else {
+
+				s.append(theMetric.name + wrapLabels(theMetric.labels) + " " + formatNumber(theMetric.value) + "\n");
+			}
+		}
+
+		return s.toString();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static String wrapLabels(String labels) {
+
+		if (0 == labels.length()) {
+			return "";
+		}
+		return "{" + labels + "}";
+	}
+
+	private static String joinLabels(String labels, String extra) {
+
+		if (0 == labels.length()) {
+			return extra;
+		}
+		return labels + "," + extra;
+	}
+
+	private static String formatNumber(double value) {
+
+		if ((value == Math.rint(value)) && (Math.abs(value) < 1.e15)) {
+			return String.valueOf((long)value);
+		}
+		return String.valueOf(value);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Register the JMX MBean with the platform server, called from AppCore.initialize().  Failure is not an error,
+	// the registry still works without JMX, e.g. in a servlet container with a restricted security policy.  Another
+	// instance may already be registered if more than one application class loader shares the JVM, that is ignored.
+
+	public static synchronized void registerMBean() {
+
+		if (didRegisterMBean) {
+			return;
+		}
+		didRegisterMBean = true;
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(),
+				new ObjectName(JMX_OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException ie) {
+		} catch (Throwable t) {
+			AppCore.log(AppCore.WARNING_MESSAGE, "Could not register metrics MBean", t);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a snapshot of all values as JMX attribute name-value pairs.  The attribute name is the metric name with any
+	// labels in braces, timers have separate _count, _sum, and _max attributes, the sum and max in seconds.
+
+	private static synchronized TreeMap<String, Object> getAttributeValues() {
+
+		TreeMap<String, Object> result = new TreeMap<String, Object>();
+		String theKey;
+
+		for (Metric theMetric : metrics.values()) {
+			if (TYPE_TIMER == theMetric.type) {
+				theKey = wrapLabels(theMetric.labels);
+				result.put(theMetric.name + "_count" + theKey, Long.valueOf(theMetric.count));
+				result.put(theMetric.name + "_sum" + theKey, Double.valueOf((double)theMetric.sum / 1.e9));
+				result.put(theMetric.name + "_max" + theKey, Double.valueOf((double)theMetric.max / 1.e9));
+			} else {
+				result.put(theMetric.name + wrapLabels(theMetric.labels), Double.valueOf(theMetric.value));
+			}
+		}
+
+		return result;
+	}
+
+
+	//=================================================================================================================
+	// Read-only dynamic MBean over the registry.  The attribute list changes as metrics are created, JMX clients
+	// will see new attributes when they refresh the MBean info.
+
+	private static class MetricsMBean implements DynamicMBean {
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public Object getAttribute(String name) throws AttributeNotFoundException {
+
+			Object value = getAttributeValues().get(name);
+			if (null == value) {
+				throw new AttributeNotFoundException(name);
+			}
+			return value;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public AttributeList getAttributes(String[] names) {
+
+			TreeMap<String, Object> values = getAttributeValues();
+			AttributeList result = new AttributeList();
+			Object value;
+
+			for (String name : names) {
+				value = values.get(name);
+				if (null != value) {
+					result.add(new Attribute(name, value));
+				}
+			}
+
+			return result;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+
+			throw new AttributeNotFoundException("Metrics are read-only");
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public AttributeList setAttributes(AttributeList attributes) {
+
+			return new AttributeList();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+
+			throw new ReflectionException(new NoSuchMethodException(actionName));
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public MBeanInfo getMBeanInfo() {
+
+			TreeMap<String, Object> values = getAttributeValues();
+			MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+
+			int i = 0;
+			String name, baseName, description;
+			int e;
+
+			for (Map.Entry<String, Object> entry : values.entrySet()) {
+				name = entry.getKey();
+				e = name.indexOf('{');
+				baseName = ((e < 0) ? name : name.substring(0, e));
+				description = descriptions.get(baseName);
+				if (null == description) {
+					description = descriptions.get(baseName.substring(0, baseName.lastIndexOf('_')));
+				}
+				attributes[i++] = new MBeanAttributeInfo(name, entry.getValue().getClass().getName(), description,
+					true, false, false);
+			}
+
+			return new MBeanInfo(AppMetrics.class.getName(), "TVStudy runtime metrics", attributes, null, null,
+				null);
+		}
+	}
+}
@@ -28,6 +28,9 @@ import java.util.*;
 // related to a running task are assumed to be an insignificant load.  If the memory load is 0, only the CPU load is
 // checked.  If a task has no significant impact on either memory or CPU, there is no need to use this class.
 
+// The memory load of a task may be changed after it starts, see setMemoryLoad() and raiseMemoryLoad().  Those are
+// used to adjust the load of study engine runs to the measured memory use of the engine, see EngineMemory.
+
 public class AppTask {
 
 	public static final long MAX_WAIT_TIME = 2000L;
@@ -44,6 +47,11 @@ public class AppTask {
 	private int cpuLoad;
 	private long lastPollTime;
 
+	// For metrics, time of the first canTaskStart() call and the start time, see AppMetrics.
+
+	private long firstPollTime;
+	private long startTime;
+
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Check if a task can start.  Returns true if resources are available and no other task higher in the wait queue
@@ -59,6 +67,9 @@ public class AppTask {
 
 		long now = System.currentTimeMillis();
 		theTask.lastPollTime = now;
+		if (0L == theTask.firstPollTime) {
+			theTask.firstPollTime = now;
+		}
 
 		boolean result = true;
 		int pos = waitingQueue.indexOf(theTask);
@@ -94,12 +105,16 @@ public class AppTask {
 			currentMemoryLoad += theTask.memoryLoad;
 			currentCPULoad += theTask.cpuLoad;
 			runningList.add(theTask);
+			theTask.startTime = now;
+			AppMetrics.recordTime(AppMetrics.TASK_WAIT_SECONDS, ((now - theTask.firstPollTime) * 1000000L));
 		} else {
 			if (pos < 0) {
 				waitingQueue.add(theTask);
 			}
 		}
 
+		updateMetrics();
+
 		return result;
 	}
 
@@ -118,6 +133,8 @@ public class AppTask {
 
 		waitingQueue.remove(theTask);
 		waitingQueue.add(0, theTask);
+
+		updateMetrics();
 	}
 
 
@@ -134,7 +151,67 @@ public class AppTask {
 				currentMemoryLoad -= theTask.memoryLoad;
 				currentCPULoad -= theTask.cpuLoad;
 			}
+			AppMetrics.recordTime(AppMetrics.TASK_RUN_SECONDS,
+				((System.currentTimeMillis() - theTask.startTime) * 1000000L));
 		}
+
+		updateMetrics();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Change the memory load of a task.  If the task is running the current load is adjusted, a lower load may allow
+	// waiting tasks to start on the next check.  If the task is waiting or not yet queued the new load will be used
+	// for the start check.
+
+	public static synchronized void setMemoryLoad(AppTask theTask, double theMemLoad) {
+
+		if (theMemLoad < 0.) {
+			theMemLoad = 0.;
+		}
+		if (theMemLoad > 1.) {
+			theMemLoad = 1.;
+		}
+
+		if (runningList.contains(theTask)) {
+			currentMemoryLoad += theMemLoad - theTask.memoryLoad;
+			if (currentMemoryLoad < 0.) {
+				currentMemoryLoad = 0.;
+			}
+		}
+		theTask.memoryLoad = theMemLoad;
+
+		updateMetrics();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Raise the memory load of a task, if the new load is greater than the current.  Returns true if changed.  Note
+	// the total load of running tasks may exceed the maximum as a result, that just holds back other tasks.
+
+	public static synchronized boolean raiseMemoryLoad(AppTask theTask, double theMemLoad) {
+
+		if (theMemLoad > 1.) {
+			theMemLoad = 1.;
+		}
+		if (theMemLoad <= theTask.memoryLoad) {
+			return false;
+		}
+
+		setMemoryLoad(theTask, theMemLoad);
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Update queue gauges, caller must hold the class lock.
+
+	private static void updateMetrics() {
+
+		AppMetrics.setGauge(AppMetrics.TASK_QUEUE_WAITING, (double)waitingQueue.size());
+		AppMetrics.setGauge(AppMetrics.TASK_QUEUE_RUNNING, (double)runningList.size());
+		AppMetrics.setGauge(AppMetrics.TASK_MEMORY_LOAD, currentMemoryLoad);
 	}
 
 
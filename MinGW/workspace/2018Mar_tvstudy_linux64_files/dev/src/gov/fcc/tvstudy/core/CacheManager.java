@@ -0,0 +1,740 @@
+//
+//  CacheManager.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import gov.fcc.tvstudy.core.data.*;
+
+import java.util.*;
+import java.io.*;
+import java.sql.*;
+
+
+//=====================================================================================================================
+// Manager for the study engine cache directories shared by all studies in all databases used from this installation.
+// The engine writes cache files under cache/<dbID>/<studyKey>/{source,desired_cell,undesired_cell}, the content is
+// managed entirely by the engine.  This class keeps a persistent index of per-study cache size and usage so sizes
+// can be reported without walking the directory trees, and enforces an optional global storage limit by deleting
+// the least-recently-used study caches.  The index is a simple text file in the cache root.  Each entry also saves
+// a modification stamp, the newest last-modified time of the study cache directory and its subdirectories.  New
+// cache files change those times, so the stamp is checked with just a few stat calls and the study tree is walked
+// to re-measure only when the stamp has changed.  However the engine also re-writes and appends to existing cache
+// files, which does not change directory times.  So a study is always re-measured when a run finishes, and when the
+// size of a single study is requested.  Totals use the index, new caches created by other processes sharing the
+// same cache, e.g. another application instance or the API servlet, are picked up by the stamp check, but growth of
+// existing caches by other processes is not seen until the study is re-measured here.  The index is a cache of
+// directory state, if it is lost or damaged it is just rebuilt as needed, however run counts will be lost.
+
+// Runs are reported with studyRunStarting() and studyRunFinished().  The engine does not report cache hit or miss
+// statistics back to the application, so the hit rate reported here is the fraction of runs that started with an
+// existing non-empty cache for the study ("warm" runs), which is a reasonable indication of how useful the cache is
+// for a particular study.  The last-used time is the start or finish time of the most recent run.
+
+// The storage limit is set by preference, in gigabytes, zero or undefined means no limit.  The limit is enforced at
+// the end of each run, on a background thread, or explicitly by applyCacheLimit().  A study cache is never deleted
+// while a run of that study is active in this application, and eviction takes the admin lock on the study while
+// deleting files so a run cannot start in any other application during the delete, studies that are locked for any
+// reason are skipped.  Eviction only works on databases that are currently open in this application, since a
+// connection is needed to set the study lock, caches for other databases are counted in the total but left alone.
+
+public class CacheManager {
+
+	public static final String INDEX_FILE_NAME = "cache_index.dat";
+
+	private static final String INDEX_FILE_VERSION = "#version=1";
+
+	private static final String[] STUDY_SUBDIRECTORY_NAMES = {"source", "desired_cell", "undesired_cell"};
+
+	private static final long BYTES_PER_GB = 1000000000L;
+
+	private static HashMap<String, StudyCacheInfo> cacheIndex = null;
+	private static boolean indexChanged = false;
+
+	private static HashMap<String, Integer> activeRuns = new HashMap<String, Integer>();
+
+	private static Thread limitThread = null;
+
+
+	//=================================================================================================================
+	// Index entry for one study cache, also returned by getCacheInfo().  Objects returned outside this class are
+	// copies.  The stamp is 0 if the directory did not exist when last checked.
+
+	public static class StudyCacheInfo {
+
+		public final String dbID;
+		public final int studyKey;
+
+		public long size;
+		public long stamp;
+		public long lastUsed;
+		public int runCount;
+		public int warmRunCount;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public StudyCacheInfo(String theDbID, int theStudyKey) {
+
+			dbID = theDbID;
+			studyKey = theStudyKey;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private StudyCacheInfo copy() {
+
+			StudyCacheInfo theCopy = new StudyCacheInfo(dbID, studyKey);
+
+			theCopy.size = size;
+			theCopy.stamp = stamp;
+			theCopy.lastUsed = lastUsed;
+			theCopy.runCount = runCount;
+			theCopy.warmRunCount = warmRunCount;
+
+			return theCopy;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Hit rate as a fraction, -1 if there have been no runs.
+
+		public double getHitRate() {
+
+			if (runCount <= 0) {
+				return -1.;
+			}
+			return (double)warmRunCount / (double)runCount;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public String getHitRateText() {
+
+			if (runCount <= 0) {
+				return "-";
+			}
+			return String.format(Locale.US, "%.0f%% of %d", (getHitRate() * 100.), runCount);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the current cache limit in bytes from preferences, 0 means no limit.
+
+	public static long getCacheLimit() {
+
+		String str = AppCore.getPreference(AppCore.PREF_ENGINE_CACHE_LIMIT);
+		if (null == str) {
+			return 0L;
+		}
+
+		double lim = 0.;
+		try {
+			lim = Double.parseDouble(str);
+		} catch (NumberFormatException ne) {
+		}
+		if (lim <= 0.) {
+			return 0L;
+		}
+
+		return (long)(lim * (double)BYTES_PER_GB);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get cache size for a study, or if the study key is 0 the total for all studies in the database, or if the
+	// database ID is also null the total for the entire cache.  The index is updated and saved as needed.
+
+	public static synchronized long getStudyCacheSize(String theDbID, int studyKey) {
+
+		loadIndex();
+
+		long result = 0L;
+
+		if ((null != theDbID) && (studyKey > 0)) {
+			StudyCacheInfo theInfo = checkStudy(theDbID, studyKey, false, true);
+			if (null != theInfo) {
+				result = theInfo.size;
+			}
+		} else {
+			for (StudyCacheInfo theInfo : checkAll(theDbID)) {
+				result += theInfo.size;
+			}
+		}
+
+		saveIndex();
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the list of study cache entries for a database, or for all databases if the ID is null, sorted by last-used
+	// time, most recent first.  Entries with no cache files are included if there have been runs.
+
+	public static synchronized ArrayList<StudyCacheInfo> getCacheInfo(String theDbID) {
+
+		loadIndex();
+
+		ArrayList<StudyCacheInfo> result = new ArrayList<StudyCacheInfo>();
+		for (StudyCacheInfo theInfo : checkAll(theDbID)) {
+			result.add(theInfo.copy());
+		}
+
+		saveIndex();
+
+		Collections.sort(result, new Comparator<StudyCacheInfo>() {
+			public int compare(StudyCacheInfo theInfo, StudyCacheInfo otherInfo) {
+				if (theInfo.lastUsed > otherInfo.lastUsed) {
+					return -1;
+				}
+				if (theInfo.lastUsed < otherInfo.lastUsed) {
+					return 1;
+				}
+				return 0;
+			}
+		});
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Called when a study engine run is about to start, after the study has been locked for the run.  Counts the run
+	// as warm if the study has existing cache files.  The active run count protects the study from eviction.
+
+	public static synchronized void studyRunStarting(String theDbID, int studyKey) {
+
+		loadIndex();
+
+		StudyCacheInfo theInfo = checkStudy(theDbID, studyKey, true, false);
+
+		theInfo.runCount++;
+		if (theInfo.size > 0L) {
+			theInfo.warmRunCount++;
+		}
+		theInfo.lastUsed = System.currentTimeMillis();
+		indexChanged = true;
+
+		String theKey = indexKey(theDbID, studyKey);
+		Integer theCount = activeRuns.get(theKey);
+		if (null == theCount) {
+			activeRuns.put(theKey, Integer.valueOf(1));
+		} else {
+			activeRuns.put(theKey, Integer.valueOf(theCount.intValue() + 1));
+		}
+
+		saveIndex();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Called when a run is done, whether or not it succeeded.  Must be matched one-to-one with studyRunStarting().
+	// Re-measures the study cache, then checks the cache limit on a background thread.
+
+	public static void studyRunFinished(String theDbID, int studyKey) {
+
+		synchronized (CacheManager.class) {
+
+			loadIndex();
+
+			String theKey = indexKey(theDbID, studyKey);
+			Integer theCount = activeRuns.get(theKey);
+			if (null != theCount) {
+				if (theCount.intValue() > 1) {
+					activeRuns.put(theKey, Integer.valueOf(theCount.intValue() - 1));
+				} else {
+					activeRuns.remove(theKey);
+				}
+			}
+
+			StudyCacheInfo theInfo = checkStudy(theDbID, studyKey, true, true);
+			theInfo.lastUsed = System.currentTimeMillis();
+			indexChanged = true;
+
+			saveIndex();
+		}
+
+		applyCacheLimitLater();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Called after some cache files are deleted, forces a re-measure for the study on next check.  If the study key is
+	// 0 that applies to all studies in the database.  Run statistics are preserved.
+
+	public static synchronized void studyCacheChanged(String theDbID, int studyKey) {
+
+		loadIndex();
+
+		for (StudyCacheInfo theInfo : cacheIndex.values()) {
+			if (theInfo.dbID.equals(theDbID) && ((0 == studyKey) || (theInfo.studyKey == studyKey))) {
+				theInfo.stamp = -1L;
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Called when cache files are deleted because the study was deleted or the user cleared the cache, removes index
+	// entries entirely.  If the study key is 0 that applies to all studies in the database.
+
+	public static synchronized void studyCacheDeleted(String theDbID, int studyKey) {
+
+		loadIndex();
+
+		Iterator<StudyCacheInfo> it = cacheIndex.values().iterator();
+		StudyCacheInfo theInfo;
+		while (it.hasNext()) {
+			theInfo = it.next();
+			if (theInfo.dbID.equals(theDbID) && ((0 == studyKey) || (theInfo.studyKey == studyKey))) {
+				it.remove();
+				indexChanged = true;
+			}
+		}
+
+		saveIndex();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Start a background thread to apply the cache limit, if a limit is set and the thread is not already running.
+
+	public static synchronized void applyCacheLimitLater() {
+
+		if ((getCacheLimit() <= 0L) || ((null != limitThread) && limitThread.isAlive())) {
+			return;
+		}
+
+		limitThread = new Thread() {
+			public void run() {
+				try {
+					applyCacheLimit(null, null);
+				} catch (Throwable t) {
+					AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error applying cache limit", t);
+				}
+			}
+		};
+		limitThread.setDaemon(true);
+		limitThread.start();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Apply the cache limit, evicting least-recently-used study caches until the total is below the limit.  Returns
+	// the number of bytes freed.  Evicted studies are reported to the status logger if provided.  Errors are reported
+	// but do not stop the process, the study involved is just skipped.  The work is done outside the class lock,
+	// eviction may take a long time, the admin lock on the study protects the directory while files are deleted.
+
+	public static long applyCacheLimit(StatusLogger status, ErrorLogger errors) {
+
+		long theLimit = getCacheLimit();
+		if (theLimit <= 0L) {
+			return 0L;
+		}
+
+		ArrayList<StudyCacheInfo> candidates = new ArrayList<StudyCacheInfo>();
+		long totalSize = 0L;
+
+		synchronized (CacheManager.class) {
+			loadIndex();
+			for (StudyCacheInfo theInfo : checkAll(null)) {
+				totalSize += theInfo.size;
+				if ((theInfo.size > 0L) && !activeRuns.containsKey(indexKey(theInfo.dbID, theInfo.studyKey))) {
+					candidates.add(theInfo.copy());
+				}
+			}
+			saveIndex();
+		}
+
+		if (totalSize <= theLimit) {
+			return 0L;
+		}
+
+		Collections.sort(candidates, new Comparator<StudyCacheInfo>() {
+			public int compare(StudyCacheInfo theInfo, StudyCacheInfo otherInfo) {
+				if (theInfo.lastUsed < otherInfo.lastUsed) {
+					return -1;
+				}
+				if (theInfo.lastUsed > otherInfo.lastUsed) {
+					return 1;
+				}
+				return 0;
+			}
+		});
+
+		long freedSize = 0L;
+
+		for (StudyCacheInfo theInfo : candidates) {
+
+			if (totalSize <= theLimit) {
+				break;
+			}
+
+			synchronized (CacheManager.class) {
+				if (activeRuns.containsKey(indexKey(theInfo.dbID, theInfo.studyKey))) {
+					continue;
+				}
+			}
+
+			if (evictStudyCache(theInfo.dbID, theInfo.studyKey, errors)) {
+
+				totalSize -= theInfo.size;
+				freedSize += theInfo.size;
+
+				if (null != status) {
+					status.logMessage("Deleted cache for study key " + theInfo.studyKey + ", " +
+						AppCore.formatBytes(theInfo.size));
+				}
+			}
+		}
+
+		if (freedSize > 0L) {
+			AppCore.log(AppCore.INFORMATION_MESSAGE, "Cache limit applied, " + AppCore.formatBytes(freedSize) +
+				" deleted");
+		}
+
+		return freedSize;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Delete the cache for one study, setting the admin lock on the study during the delete.  If the study is locked
+	// return false.  If the database is not open in this application return false.  If the study no longer exists
+	// the cache is an orphan and is deleted without a lock.  Run statistics in the index are kept.
+
+	private static boolean evictStudyCache(String theDbID, int studyKey, ErrorLogger errors) {
+
+		DbConnection db = DbCore.connectDb(theDbID);
+		if (null == db) {
+			return false;
+		}
+
+		boolean doDelete = false, lockSet = false, error = false;
+		int lockCount = 0;
+
+		try {
+
+			db.update("LOCK TABLES study WRITE");
+
+			db.query("SELECT study_lock, lock_count FROM study WHERE study_key = " + studyKey);
+
+			if (db.next()) {
+				if (Study.LOCK_NONE == db.getInt(1)) {
+					lockCount = db.getInt(2) + 1;
+					db.update("UPDATE study SET study_lock = " + Study.LOCK_ADMIN +
+						", lock_count = lock_count + 1, share_count = 0 WHERE study_key = " + studyKey);
+					lockSet = true;
+					doDelete = true;
+				}
+			} else {
+				doDelete = true;
+			}
+
+		} catch (SQLException se) {
+			error = true;
+			DbConnection.reportError(errors, se);
+		}
+
+		try {
+			db.update("UNLOCK TABLES");
+		} catch (SQLException se) {
+			db.reportError(se);
+		}
+
+		if (doDelete && !error) {
+			AppCore.deleteDirectoryAndContents(new File(AppCore.cacheDirectoryPath + File.separator + theDbID +
+				File.separator + studyKey));
+			studyCacheChanged(theDbID, studyKey);
+		}
+
+		// Release the lock, if the lock was modified do nothing, that should not happen but the other holder is
+		// responsible for it in any case.
+
+		if (lockSet) {
+
+			try {
+
+				db.update("LOCK TABLES study WRITE");
+
+				db.query("SELECT study_lock, lock_count FROM study WHERE study_key = " + studyKey);
+
+				if (db.next() && (Study.LOCK_ADMIN == db.getInt(1)) && (lockCount == db.getInt(2))) {
+					db.update("UPDATE study SET study_lock = " + Study.LOCK_NONE +
+						", lock_count = lock_count + 1, share_count = 0 WHERE study_key = " + studyKey);
+				}
+
+			} catch (SQLException se) {
+				DbConnection.reportError(errors, se);
+			}
+
+			try {
+				db.update("UNLOCK TABLES");
+			} catch (SQLException se) {
+				db.reportError(se);
+			}
+		}
+
+		DbCore.releaseDb(db);
+
+		return (doDelete && !error);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Check the index entry for a study against the directory, re-measure if the stamp has changed or if remeasure
+	// is true, see comments above.  If there is no entry and no directory return null unless create is true.  Entries
+	// with no directory and no run history are removed.  Caller must hold the class lock and have called loadIndex().
+
+	private static StudyCacheInfo checkStudy(String theDbID, int studyKey, boolean create, boolean remeasure) {
+
+		String theKey = indexKey(theDbID, studyKey);
+		StudyCacheInfo theInfo = cacheIndex.get(theKey);
+
+		File theDir = new File(AppCore.cacheDirectoryPath + File.separator + theDbID + File.separator + studyKey);
+		long theStamp = directoryStamp(theDir);
+
+		if (null == theInfo) {
+			if ((0L == theStamp) && !create) {
+				return null;
+			}
+			theInfo = new StudyCacheInfo(theDbID, studyKey);
+			theInfo.stamp = -1L;
+			theInfo.lastUsed = theDir.lastModified();
+			cacheIndex.put(theKey, theInfo);
+			indexChanged = true;
+		}
+
+		if (remeasure || (theStamp != theInfo.stamp)) {
+			if (theStamp > 0L) {
+				theInfo.size = AppCore.sizeOfDirectoryContents(theDir);
+			} else {
+				theInfo.size = 0L;
+			}
+			theInfo.stamp = theStamp;
+			indexChanged = true;
+		}
+
+		if ((0L == theStamp) && (0 == theInfo.runCount) && !create) {
+			cacheIndex.remove(theKey);
+			indexChanged = true;
+			return null;
+		}
+
+		return theInfo;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Check all studies in a database, or all databases if the ID is null.  This lists the database and study
+	// directories in the cache root to find caches created by other processes, and also checks existing entries so
+	// deleted caches are noticed.  Caller must hold the class lock and have called loadIndex().
+
+	private static ArrayList<StudyCacheInfo> checkAll(String theDbID) {
+
+		HashSet<String> theKeys = new HashSet<String>();
+
+		ArrayList<String> dbIDs = new ArrayList<String>();
+		if (null != theDbID) {
+			dbIDs.add(theDbID);
+		} else {
+			File[] contents = (new File(AppCore.cacheDirectoryPath)).listFiles();
+			if (null != contents) {
+				for (int i = 0; i < contents.length; i++) {
+					if (contents[i].isDirectory()) {
+						dbIDs.add(contents[i].getName());
+					}
+				}
+			}
+		}
+
+		int studyKey;
+
+		for (String dbID : dbIDs) {
+			File[] contents = (new File(AppCore.cacheDirectoryPath + File.separator + dbID)).listFiles();
+			if (null != contents) {
+				for (int i = 0; i < contents.length; i++) {
+					if (contents[i].isDirectory()) {
+						studyKey = 0;
+						try {
+							studyKey = Integer.parseInt(contents[i].getName());
+						} catch (NumberFormatException ne) {
+						}
+						if (studyKey > 0) {
+							theKeys.add(indexKey(dbID, studyKey));
+						}
+					}
+				}
+			}
+		}
+
+		for (StudyCacheInfo theInfo : cacheIndex.values()) {
+			if ((null == theDbID) || theInfo.dbID.equals(theDbID)) {
+				theKeys.add(indexKey(theInfo.dbID, theInfo.studyKey));
+			}
+		}
+
+		ArrayList<StudyCacheInfo> result = new ArrayList<StudyCacheInfo>();
+
+		StudyCacheInfo theInfo;
+		int e;
+
+		for (String theKey : theKeys) {
+			e = theKey.lastIndexOf('/');
+			theInfo = checkStudy(theKey.substring(0, e), Integer.parseInt(theKey.substring(e + 1)), false,
+				false);
+			if (null != theInfo) {
+				result.add(theInfo);
+			}
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The stamp for a study cache directory is the newest modification time of the directory and the subdirectories
+	// the engine creates, 0 if the directory does not exist.
+
+	private static long directoryStamp(File theDir) {
+
+		long theStamp = theDir.lastModified();
+		if (0L == theStamp) {
+			return 0L;
+		}
+
+		long subStamp;
+		for (int i = 0; i < STUDY_SUBDIRECTORY_NAMES.length; i++) {
+			subStamp = (new File(theDir, STUDY_SUBDIRECTORY_NAMES[i])).lastModified();
+			if (subStamp > theStamp) {
+				theStamp = subStamp;
+			}
+		}
+
+		return theStamp;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static String indexKey(String theDbID, int studyKey) {
+
+		return theDbID + "/" + studyKey;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Load the index file if not already loaded.  Errors are ignored, any entries that don't parse are skipped, if
+	// the version line does not match the whole file is ignored.  Caller must hold the class lock.
+
+	private static void loadIndex() {
+
+		if (null != cacheIndex) {
+			return;
+		}
+
+		cacheIndex = new HashMap<String, StudyCacheInfo>();
+		indexChanged = false;
+
+		File theFile = new File(AppCore.cacheDirectoryPath + File.separator + INDEX_FILE_NAME);
+		if (!theFile.exists()) {
+			return;
+		}
+
+		BufferedReader reader = null;
+		try {
+
+			reader = new BufferedReader(new FileReader(theFile));
+
+			String line = reader.readLine();
+			if ((null == line) || !line.equals(INDEX_FILE_VERSION)) {
+				reader.close();
+				return;
+			}
+
+			String[] parts;
+			StudyCacheInfo theInfo;
+
+			while (null != (line = reader.readLine())) {
+				parts = line.split("\t");
+				if (7 != parts.length) {
+					continue;
+				}
+				try {
+					theInfo = new StudyCacheInfo(parts[0], Integer.parseInt(parts[1]));
+					theInfo.size = Long.parseLong(parts[2]);
+					theInfo.stamp = Long.parseLong(parts[3]);
+					theInfo.lastUsed = Long.parseLong(parts[4]);
+					theInfo.runCount = Integer.parseInt(parts[5]);
+					theInfo.warmRunCount = Integer.parseInt(parts[6]);
+				} catch (NumberFormatException ne) {
+					continue;
+				}
+				if (theInfo.studyKey > 0) {
+					cacheIndex.put(indexKey(theInfo.dbID, theInfo.studyKey), theInfo);
+				}
+			}
+
+			reader.close();
+
+		} catch (IOException ie) {
+			if (null != reader) {
+				try {
+					reader.close();
+				} catch (IOException ie2) {
+				}
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Save the index if changed.  Write to a temporary file then rename, so another process reading the file never
+	// sees a partial write.  If the cache root does not exist yet there is nothing to save.  Caller must hold the
+	// class lock.
+
+	private static void saveIndex() {
+
+		if (!indexChanged) {
+			return;
+		}
+
+		File theDir = new File(AppCore.cacheDirectoryPath);
+		if (!theDir.exists()) {
+			return;
+		}
+
+		File theFile = new File(theDir, INDEX_FILE_NAME);
+		File tempFile = new File(theDir, INDEX_FILE_NAME + ".tmp");
+
+		try {
+
+			BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile));
+
+			writer.write(INDEX_FILE_VERSION);
+			writer.newLine();
+
+			for (StudyCacheInfo theInfo : cacheIndex.values()) {
+				writer.write(theInfo.dbID + "\t" + theInfo.studyKey + "\t" + theInfo.size + "\t" + theInfo.stamp +
+					"\t" + theInfo.lastUsed + "\t" + theInfo.runCount + "\t" + theInfo.warmRunCount);
+				writer.newLine();
+			}
+
+			writer.close();
+
+			theFile.delete();
+			if (tempFile.renameTo(theFile)) {
+				indexChanged = false;
+			}
+
+		} catch (IOException ie) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Could not save cache index", ie);
+			tempFile.delete();
+		}
+	}
+}
@@ -217,7 +217,9 @@ public class DbConnection {
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Execute a query that returns a result set.  When there is an exception, the canLinger flag is cleared so the
-	// next close() really closes regardless of the caller's request, in case the problem is connection rot.
+	// next close() really closes regardless of the caller's request, in case the problem is connection rot.  The
+	// execution time is recorded in AppMetrics, that does not include time to read the result set.  Statements that
+	// exceed the SlowQueryLog threshold are logged, see logSlowStatement().
 
 	public synchronized void query(String theQuery) throws SQLException {
 
@@ -229,6 +231,8 @@ public class DbConnection {
 			throw new SQLException("DbConnection.query(): transaction was opened on a different thread");
 		}
 
+		long startTime = System.nanoTime();
+
 		try {
 
 			if (null == statement) {
@@ -236,9 +240,18 @@ public class DbConnection {
 			}
 			resultSet = statement.executeQuery(theQuery);
 
+			long elapsedTime = System.nanoTime() - startTime, threshold = SlowQueryLog.getThreshold();
+			if ((threshold > 0L) && (elapsedTime > threshold)) {
+				logSlowStatement(theQuery, true, elapsedTime, -1);
+			}
+
 		} catch (SQLException se) {
 			canLinger = false;
+			AppMetrics.increment(AppMetrics.DB_STATEMENT_ERRORS, "type", "query");
 			throw se;
+
+		} finally {
+			AppMetrics.recordTime(AppMetrics.DB_STATEMENT_SECONDS, (System.nanoTime() - startTime), "type", "query");
 		}
 	}
 
@@ -258,6 +271,8 @@ public class DbConnection {
 
 		int result = 0;
 
+		long startTime = System.nanoTime();
+
 		try {
 
 			if (null == statement) {
@@ -265,15 +280,121 @@ public class DbConnection {
 			}
 			result = statement.executeUpdate(theQuery);
 
+			long elapsedTime = System.nanoTime() - startTime, threshold = SlowQueryLog.getThreshold();
+			if ((threshold > 0L) && (elapsedTime > threshold)) {
+				logSlowStatement(theQuery, false, elapsedTime, result);
+			}
+
 		} catch (SQLException se) {
 			canLinger = false;
+			AppMetrics.increment(AppMetrics.DB_STATEMENT_ERRORS, "type", "update");
 			throw se;
+
+		} finally {
+			long elapsedTime = System.nanoTime() - startTime;
+			AppMetrics.recordTime(AppMetrics.DB_STATEMENT_SECONDS, elapsedTime, "type", "update");
+			if (theQuery.startsWith("LOCK TABLES ")) {
+				recordLockWait(theQuery, elapsedTime);
+			}
 		}
 
 		return result;
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// The time to execute LOCK TABLES is mostly time waiting for other connections to release the locks.  Record
+	// that labelled by the first table in the list, which identifies the kind of operation well enough.
+
+	private static void recordLockWait(String theQuery, long elapsedTime) {
+
+		String theTable = theQuery.substring(12).trim();
+		int e = theTable.indexOf(' ');
+		if (e > 0) {
+			theTable = theTable.substring(0, e);
+		}
+		AppMetrics.recordTime(AppMetrics.DB_LOCK_WAIT_SECONDS, elapsedTime, "table", theTable);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Log a slow statement.  For a query get the row count by scrolling the result set to the end and back, the set
+	// is scrollable and the drivers buffer it so that is cheap.  For a SELECT on MySQL or PostgreSQL also run EXPLAIN
+	// using a separate statement so the caller's result set is not disturbed, but not inside a transaction because
+	// on PostgreSQL an error would abort the transaction.  This must never throw, errors just leave details out.
+
+	private void logSlowStatement(String theQuery, boolean isQuery, long elapsedTime, int rowCount) {
+
+		if (isQuery) {
+			try {
+				if (resultSet.last()) {
+					rowCount = resultSet.getRow();
+				} else {
+					rowCount = 0;
+				}
+				resultSet.beforeFirst();
+			} catch (SQLException se) {
+				rowCount = -1;
+			}
+		}
+
+		String thePlan = null;
+
+		if (isQuery && (null == inTransactionForThread) && theQuery.trim().toUpperCase().startsWith("SELECT") &&
+				(driver.contains("mysql") || driver.contains("postgresql"))) {
+
+			Statement explainStatement = null;
+			try {
+
+				explainStatement = connection.createStatement();
+				ResultSet explainResult = explainStatement.executeQuery("EXPLAIN " + theQuery);
+
+				ResultSetMetaData theMeta = explainResult.getMetaData();
+				int i, columnCount = theMeta.getColumnCount();
+				StringBuilder plan = new StringBuilder();
+				if (columnCount > 1) {
+					for (i = 1; i <= columnCount; i++) {
+						if (i > 1) {
+							plan.append('\t');
+						}
+						plan.append(theMeta.getColumnLabel(i));
+					}
+					plan.append('\n');
+				}
+				String value;
+				while (explainResult.next()) {
+					for (i = 1; i <= columnCount; i++) {
+						if (i > 1) {
+							plan.append('\t');
+						}
+						value = explainResult.getString(i);
+						plan.append((null != value) ? value : "NULL");
+					}
+					plan.append('\n');
+				}
+				thePlan = plan.toString();
+
+			} catch (SQLException se) {
+				thePlan = "EXPLAIN failed: " + se.getMessage();
+
+			} finally {
+				if (null != explainStatement) {
+					try {
+						explainStatement.close();
+					} catch (SQLException se) {
+					}
+				}
+			}
+		}
+
+		try {
+			SlowQueryLog.logStatement(dbName, theQuery, isQuery, elapsedTime, rowCount, thePlan);
+		} catch (Throwable t) {
+			AppCore.log(AppCore.WARNING_MESSAGE, "Slow query log failed", t);
+		}
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Wrappers around methods in the result set object.  In general if there is no result set these will throw a null
 	// pointer exception, however next() checks first since that should always be called before any others.
@@ -297,6 +418,10 @@ public class DbConnection {
 		return resultSet.getString(fieldName);
 	}
 
+	public byte[] getBytes(int fieldIndex) throws SQLException {
+		return resultSet.getBytes(fieldIndex);
+	}
+
 	public boolean getBoolean(int fieldIndex) throws SQLException {
 		return resultSet.getBoolean(fieldIndex);
 	}
@@ -660,6 +785,29 @@ public class DbConnection {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Make binary data into a hexadecimal literal for a query, a null array becomes NULL.
+
+	public static String hexLiteral(byte[] theData) {
+
+		if (null == theData) {
+			return "NULL";
+		}
+
+		StringBuilder result = new StringBuilder((theData.length * 2) + 3);
+		String digits = "0123456789ABCDEF";
+
+		result.append("X'");
+		for (int i = 0; i < theData.length; i++) {
+			result.append(digits.charAt((theData[i] >> 4) & 0x0F));
+			result.append(digits.charAt(theData[i] & 0x0F));
+		}
+		result.append('\'');
+
+		return result.toString();
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Make a set of integer keys into a comma-separated string for a query.
 
@@ -33,7 +33,7 @@ public class DbCore {
 	// 2.2.3, the database has one more level of versioning than the application, e.g. 2.2.3.1, so multiple database
 	// updates can occur within the development cycle of a given application version.
 
-	public static final int DATABASE_VERSION = 20200502;
+	public static final int DATABASE_VERSION = 20200505;
 
 	// Default root database name.  The term "database" here is a bit ambiguous, in addition to a specific database on
 	// a specific server, it also refers to a collection of such databases on one server sharing a common name prefix.
@@ -458,7 +458,7 @@ public class DbCore {
 			String theName;
 			long theModTime, theLength;
 
-			BufferedReader xml;
+			Reader xml;
 			Integer tempKey;
 			Geography geo;
 
@@ -478,11 +478,12 @@ public class DbCore {
 
 				try {
 
-					xml = new BufferedReader(new FileReader(theFile));
+					xml = ImportXML.openReader(theFile);
 					tempKey = TemplateEditData.readTemplateFromXML(theInfo.dbID, xml, true);
 
 					if (null == tempKey) {
-						xml.reset();
+						xml.close();
+						xml = ImportXML.openReader(theFile);
 						geo = Geography.readGeographyFromXML(theInfo.dbID, xml);
 						if (null != geo) {
 							geo.save();
@@ -573,9 +574,11 @@ public class DbCore {
 		DbConnection db = dbPools.get(theDbID).poll();
 		if (null == db) {
 			db = dbs.get(theDbID).db.copy();
+			AppMetrics.increment(AppMetrics.DB_CONNECTIONS_CREATED);
 		}
 
 		openDbs.put(db, theDbID);
+		updateConnectionMetrics();
 
 		if (!db.connect(errors)) {
 			releaseDb(db);
@@ -604,6 +607,22 @@ public class DbCore {
 		if (null != theDbID) {
 			dbPools.get(theDbID).push(db);
 		}
+		updateConnectionMetrics();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Update connection count gauges for all databases.  Caller must hold the class lock.
+
+	private static void updateConnectionMetrics() {
+
+		int idleCount = 0;
+		for (ArrayDeque<DbConnection> thePool : dbPools.values()) {
+			idleCount += thePool.size();
+		}
+
+		AppMetrics.setGauge(AppMetrics.DB_CONNECTIONS_OPEN, (double)openDbs.size());
+		AppMetrics.setGauge(AppMetrics.DB_CONNECTIONS_IDLE, (double)idleCount);
 	}
 
 
@@ -704,6 +723,9 @@ public class DbCore {
 
 		ExtDb.closeDb(theDbID);
 		ExtDbRecordTV.closeDb(theDbID);
+		KeyAllocator.closeDb(theDbID);
+		SourceEditData.clearUserRecordCache(theDbID);
+		Template.closeDb(theDbID);
 
 		dbs.remove(theDbID);
 
@@ -1133,6 +1155,9 @@ public class DbCore {
 			case 20200401:
 			case 20200500:
 			case 20200501:
+			case 20200502:
+			case 20200503:
+			case 20200504:
 				return true;
 		}
 
@@ -1534,7 +1559,9 @@ public class DbCore {
 			"output_config_map_codes VARCHAR(255) NOT NULL," +
 			"report_preamble MEDIUMTEXT NOT NULL," +
 			"parameter_summary MEDIUMTEXT NOT NULL," +
-			"ix_rule_summary MEDIUMTEXT NOT NULL)");
+			"ix_rule_summary MEDIUMTEXT NOT NULL," +
+			"mod_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+			"INDEX (mod_time))");
 
 		// A one-row table used to simulate a sequence for generating primary keys.  The process of creating various
 		// new objects including studies, station data sets, and templates requires obtaining a new primary key before
@@ -1550,7 +1577,8 @@ public class DbCore {
 		db.update("CREATE TABLE folder (" +
 			"folder_key INT NOT NULL PRIMARY KEY," +
 			"name VARCHAR(255) NOT NULL," +
-			"parent_folder_key INT NOT NULL DEFAULT 0)");
+			"parent_folder_key INT NOT NULL DEFAULT 0," +
+			"mod_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP)");
 
 		// The external station data index table, and key sequence table.
 
@@ -1673,16 +1701,18 @@ public class DbCore {
 		// Table to index study templates providing presets for parameters and interference rules.  This defines one
 		// default template that will always be present, a set of interference rules for that default template are
 		// added in the data update method, parameter values are set as the parameter table is populated.  See
-		// comments in Template regarding the various flags.
+		// comments in Template regarding the various flags.  The modification count is incremented on every change to
+		// the template or its parameter and rule data, that is checked by the template cache, see Template.
 
 		db.update("CREATE TABLE template (" +
 			"template_key INT NOT NULL PRIMARY KEY," +
 			"name VARCHAR(255) NOT NULL," +
 			"permanent BOOLEAN NOT NULL," +
 			"locked BOOLEAN NOT NULL," +
-			"locked_in_study BOOLEAN NOT NULL)");
+			"locked_in_study BOOLEAN NOT NULL," +
+			"mod_count INT NOT NULL DEFAULT 0)");
 
-		db.update("INSERT INTO template VALUES (1, \"Default\", true, true, false)");
+		db.update("INSERT INTO template VALUES (1, \"Default\", true, true, false, 0)");
 
 		// Key sequence table for templates.
 
@@ -1949,7 +1979,8 @@ public class DbCore {
 			"(6, 40, 0, 180, 70)");
 
 		// Table for user-created record storage outside study context, source data is stored as XML but some fields
-		// also exist as separate properties for searching.
+		// also exist as separate properties for searching.  The XML may also be stored in a compact binary encoding
+		// for faster loading, see BinaryXML, that is optional and may be re-created from the XML at any time.
 
 		db.update("CREATE TABLE user_record (" +
 			"user_record_id INT PRIMARY KEY," +
@@ -1964,7 +1995,8 @@ public class DbCore {
 			"state CHAR(2) NOT NULL," +
 			"country CHAR(2) NOT NULL," +
 			"file_number VARCHAR(255) NOT NULL," +
-			"comment VARCHAR(10000) NOT NULL)");
+			"comment VARCHAR(10000) NOT NULL," +
+			"bin_data MEDIUMBLOB)");
 
 		db.update("CREATE TABLE user_record_id_sequence (" +
 			"user_record_id INT NOT NULL)");
@@ -4450,6 +4482,10 @@ public class DbCore {
 
 		// End of parameters.
 		// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+
+		// Parameter definitions are merged into every template when loaded, so all templates have changed.
+
+		db.update("UPDATE template SET mod_count = mod_count + 1");
 	}
 
 
@@ -4506,6 +4542,15 @@ public class DbCore {
 
 			case 20200501:
 				updateData = true;
+
+			case 20200502:
+				update20200503(theInfo);
+
+			case 20200503:
+				update20200504(theInfo);
+
+			case 20200504:
+				update20200505(theInfo);
 		}
 
 		// Do final updates as needed; update root data, set needs_update on all studies so engine clears caches and
@@ -4884,4 +4929,47 @@ public class DbCore {
 
 		db.update("DELETE FROM geography_receive_antenna WHERE geo_key NOT IN (SELECT geo_key FROM geography)");
 	}
+
+	// Update from 2.2.5.2 to 2.2.5.3
+
+	private static void update20200503(DbInfo theInfo) throws SQLException {
+
+		DbConnection db = theInfo.db;
+
+		db.setDatabase(theInfo.dbName);
+
+		// Add column for binary-encoded user record data.  Existing records are encoded as they are loaded.
+
+		db.update("ALTER TABLE user_record ADD COLUMN bin_data MEDIUMBLOB AFTER comment");
+	}
+
+	// Update from 2.2.5.3 to 2.2.5.4
+
+	private static void update20200504(DbInfo theInfo) throws SQLException {
+
+		DbConnection db = theInfo.db;
+
+		db.setDatabase(theInfo.dbName);
+
+		// Add modification timestamps to the study and folder index tables, maintained by the server on every change
+		// to a row, so the study manager can refresh incrementally, see StudyManager.checkForChanges().
+
+		db.update("ALTER TABLE study ADD COLUMN mod_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP " +
+			"ON UPDATE CURRENT_TIMESTAMP, ADD INDEX (mod_time)");
+		db.update("ALTER TABLE folder ADD COLUMN mod_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP " +
+			"ON UPDATE CURRENT_TIMESTAMP");
+	}
+
+	// Update from 2.2.5.4 to 2.2.5.5
+
+	private static void update20200505(DbInfo theInfo) throws SQLException {
+
+		DbConnection db = theInfo.db;
+
+		db.setDatabase(theInfo.dbName);
+
+		// Add a modification count to the template table, checked by the template cache, see Template.
+
+		db.update("ALTER TABLE template ADD COLUMN mod_count INT NOT NULL DEFAULT 0");
+	}
 }
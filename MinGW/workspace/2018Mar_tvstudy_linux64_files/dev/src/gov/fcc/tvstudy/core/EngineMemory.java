@@ -0,0 +1,399 @@
+//
+//  EngineMemory.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import gov.fcc.tvstudy.core.data.*;
+
+import java.util.*;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Field;
+import java.sql.*;
+
+
+//=====================================================================================================================
+// Measured memory use of study engine processes, used to size AppTask memory loads for engine runs.  By default an
+// engine run reserves a fixed fraction of system memory, the reciprocal of AppCore.maxEngineProcessCount or the
+// fraction the user selected, regardless of the size of the study.  That wastes capacity for small studies like an
+// IX check, and may still overcommit memory for a large study.  Instead, while an engine process is running this
+// samples the resident set size from /proc/<pid>/status, and when the process exits successfully the peak is recorded
+// in a footprint profile keyed by study type and cell size, since those mostly determine the engine's memory needs.
+// Later runs with the same profile reserve the observed footprint plus a margin rather than the fixed fraction, so
+// the task queue admits more or fewer concurrent engines as appropriate, see getMemoryLoad().  A running process that
+// grows beyond the reservation of its task has the reservation raised to match, so other tasks are held back until
+// memory is actually available.  The profile estimate decays slowly toward newer observations but always covers the
+// most recent peak.  Profiles are not persistent, each application run starts with the default behavior.
+
+// This depends on the Linux /proc filesystem.  If that is not available (or a process ID cannot be determined) all
+// methods here do nothing and getMemoryLoad() always returns the default.  Total memory, sampled engine memory, the
+// profile estimates and the loads given to tasks are all visible in AppMetrics.
+
+public class EngineMemory {
+
+	public static final long SAMPLE_INTERVAL = 2000L;   // milliseconds
+
+	// The reservation is the observed footprint times this margin.  The minimum load keeps a lower bound on the
+	// reservation even for a very small footprint, CPU load will usually be the limit in that case anyway.
+
+	private static final double ADMISSION_MARGIN = 1.25;
+	private static final double MIN_MEMORY_LOAD = 0.02;
+
+	// Weight of a new observation in the decaying profile estimate.
+
+	private static final double PROFILE_WEIGHT = 0.25;
+
+	private static final String PROC_DIRECTORY = "/proc";
+
+	private static long totalMemory = -1L;
+
+	private static HashMap<String, Long> profiles = new HashMap<String, Long>();
+	private static ArrayList<Monitor> monitors = new ArrayList<Monitor>();
+
+	private static Thread samplerThread;
+
+
+	//=================================================================================================================
+	// State for one running process.  The task may be null, in that case the sample is used only for the profile.
+
+	public static class Monitor {
+
+		private long processID;
+		private String profileKey;
+		private AppTask task;
+
+		private long currentBytes;
+		private long peakBytes;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Total system memory in bytes from /proc/meminfo, checked once, 0 if not available.
+
+	private static synchronized long getTotalMemory() {
+
+		if (totalMemory < 0L) {
+
+			totalMemory = 0L;
+
+			HashMap<String, Long> theValues = readProcFile(PROC_DIRECTORY + File.separator + "meminfo");
+			if (null != theValues) {
+				Long theValue = theValues.get("MemTotal");
+				if (null != theValue) {
+					totalMemory = theValue.longValue();
+				}
+			}
+
+			AppMetrics.setGauge(AppMetrics.ENGINE_MEMORY_TOTAL, (double)totalMemory);
+		}
+
+		return totalMemory;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Profile key for a study type and cell size, the cell size may be null if not known.
+
+	public static String getProfileKey(int theStudyType, String theCellSize) {
+
+		String theSize = "*";
+		if (null != theCellSize) {
+			try {
+				theSize = AppCore.formatDecimal(Double.parseDouble(theCellSize), 2);
+			} catch (NumberFormatException ne) {
+			}
+		}
+
+		return String.valueOf(theStudyType) + "/" + theSize;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Profile key for an existing study, the cell size is queried from the study parameters.  This is a single-row
+	// query, but any error is ignored and the key just does not include the cell size.
+
+	public static String getStudyProfileKey(String theDbID, int theStudyKey, int theStudyType) {
+
+		String theCellSize = null;
+
+		DbConnection db = DbCore.connectDb(theDbID);
+		if (null != db) {
+			try {
+				db.query("SELECT value FROM " + DbCore.getDbName(theDbID) + "_" + theStudyKey +
+					".parameter_data WHERE parameter_key = " + Parameter.PARAM_CELL_SIZE + " AND value_index = 0");
+				if (db.next()) {
+					theCellSize = db.getString(1);
+				}
+			} catch (SQLException se) {
+				db.reportError(se);
+			}
+			DbCore.releaseDb(db);
+		}
+
+		return getProfileKey(theStudyType, theCellSize);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the memory load for an AppTask that will run a number of engine processes with the given profile.  If there
+	// is no observed footprint for the profile, or memory cannot be measured, return the default.
+
+	public static double getMemoryLoad(String theProfileKey, int theEngineCount, double theDefaultLoad) {
+
+		long theTotal = getTotalMemory();
+
+		Long thePeak = null;
+		if ((theTotal > 0L) && (null != theProfileKey)) {
+			synchronized (EngineMemory.class) {
+				thePeak = profiles.get(theProfileKey);
+			}
+		}
+
+		if (null == thePeak) {
+			AppMetrics.increment(AppMetrics.ENGINE_ADMISSIONS, "basis", "default");
+			return theDefaultLoad;
+		}
+
+		if (theEngineCount < 1) {
+			theEngineCount = 1;
+		}
+
+		double theLoad = ((double)thePeak.longValue() * ADMISSION_MARGIN * (double)theEngineCount) / (double)theTotal;
+		if (theLoad < MIN_MEMORY_LOAD) {
+			theLoad = MIN_MEMORY_LOAD;
+		}
+		if (theLoad > 1.) {
+			theLoad = 1.;
+		}
+
+		AppMetrics.increment(AppMetrics.ENGINE_ADMISSIONS, "basis", "observed");
+		AppMetrics.setGauge(AppMetrics.ENGINE_ADMISSION_LOAD, theLoad, "profile", theProfileKey);
+
+		return theLoad;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Start monitoring a process that was just started.  Returns null if monitoring is not possible, otherwise the
+	// return must be passed to finishMonitor() when the process exits or is killed.
+
+	public static Monitor startMonitor(Process theProcess, String theProfileKey, AppTask theTask) {
+
+		if ((null == theProcess) || (getTotalMemory() <= 0L)) {
+			return null;
+		}
+
+		long theID = getProcessID(theProcess);
+		if (theID <= 0L) {
+			return null;
+		}
+
+		Monitor theMonitor = new Monitor();
+		theMonitor.processID = theID;
+		theMonitor.profileKey = theProfileKey;
+		theMonitor.task = theTask;
+
+		synchronized (EngineMemory.class) {
+
+			monitors.add(theMonitor);
+
+			if (null == samplerThread) {
+				samplerThread = new Thread() {
+					public void run() {
+						while (true) {
+							try {sleep(SAMPLE_INTERVAL);} catch (InterruptedException ie) {};
+							sampleProcesses();
+						}
+					}
+				};
+				samplerThread.setDaemon(true);
+				samplerThread.start();
+			}
+		}
+
+		return theMonitor;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Stop monitoring a process.  If the process did not fail the peak is recorded in the profile.  Failed processes
+	// are not recorded since they may have exited before reaching a typical peak.  A final sample is not possible, the
+	// process is gone, so a process that ran for less than the sample interval is not recorded either.
+
+	public static void finishMonitor(Monitor theMonitor, boolean failed) {
+
+		if (null == theMonitor) {
+			return;
+		}
+
+		synchronized (EngineMemory.class) {
+
+			monitors.remove(theMonitor);
+
+			if (!failed && (null != theMonitor.profileKey) && (theMonitor.peakBytes > 0L)) {
+
+				long thePeak = theMonitor.peakBytes;
+				Long theOld = profiles.get(theMonitor.profileKey);
+				if (null != theOld) {
+					long theDecayed = (long)(((1. - PROFILE_WEIGHT) * (double)theOld.longValue()) +
+						(PROFILE_WEIGHT * (double)thePeak));
+					if (theDecayed > thePeak) {
+						thePeak = theDecayed;
+					}
+				}
+				profiles.put(theMonitor.profileKey, Long.valueOf(thePeak));
+
+				AppMetrics.setGauge(AppMetrics.ENGINE_MEMORY_PEAK, (double)thePeak, "profile", theMonitor.profileKey);
+			}
+
+			updateMetrics();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Sample all monitored processes, called from the sampler thread.  If the total current memory of the processes
+	// running under a task exceeds the task's reservation, raise the reservation.  The AppTask calls are made after
+	// releasing the lock here.
+
+	private static void sampleProcesses() {
+
+		long theTotal = getTotalMemory();
+
+		HashMap<AppTask, Long> taskBytes = new HashMap<AppTask, Long>();
+
+		synchronized (EngineMemory.class) {
+
+			HashMap<String, Long> theValues;
+			Long theValue, theSum;
+
+			for (Monitor theMonitor : monitors) {
+
+				theValues = readProcFile(PROC_DIRECTORY + File.separator + theMonitor.processID + File.separator +
+					"status");
+				if (null == theValues) {
+					continue;
+				}
+
+				theValue = theValues.get("VmRSS");
+				if (null != theValue) {
+					theMonitor.currentBytes = theValue.longValue();
+					if (theMonitor.currentBytes > theMonitor.peakBytes) {
+						theMonitor.peakBytes = theMonitor.currentBytes;
+					}
+				}
+				theValue = theValues.get("VmHWM");
+				if ((null != theValue) && (theValue.longValue() > theMonitor.peakBytes)) {
+					theMonitor.peakBytes = theValue.longValue();
+				}
+
+				if (null != theMonitor.task) {
+					theSum = taskBytes.get(theMonitor.task);
+					taskBytes.put(theMonitor.task, Long.valueOf(((null == theSum) ? 0L : theSum.longValue()) +
+						theMonitor.currentBytes));
+				}
+			}
+
+			updateMetrics();
+		}
+
+		for (Map.Entry<AppTask, Long> theEntry : taskBytes.entrySet()) {
+			double theLoad = ((double)theEntry.getValue().longValue() * ADMISSION_MARGIN) / (double)theTotal;
+			if (AppTask.raiseMemoryLoad(theEntry.getKey(), theLoad)) {
+				AppMetrics.increment(AppMetrics.ENGINE_ADMISSIONS, "basis", "raised");
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Update gauges, caller must hold the class lock.
+
+	private static void updateMetrics() {
+
+		long theBytes = 0L;
+		for (Monitor theMonitor : monitors) {
+			theBytes += theMonitor.currentBytes;
+		}
+
+		AppMetrics.setGauge(AppMetrics.ENGINE_MEMORY_RSS, (double)theBytes);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Read a /proc file with "name: value kB" lines, return a map of values converted to bytes.  Lines that do not
+	// have a numeric value are ignored.  Returns null if the file cannot be read.
+
+	private static HashMap<String, Long> readProcFile(String thePath) {
+
+		HashMap<String, Long> result = new HashMap<String, Long>();
+
+		BufferedReader theReader = null;
+
+		try {
+
+			theReader = new BufferedReader(new FileReader(thePath));
+
+			String theLine;
+			String[] parts;
+			int c;
+			long theValue;
+
+			while (null != (theLine = theReader.readLine())) {
+
+				c = theLine.indexOf(':');
+				if (c <= 0) {
+					continue;
+				}
+
+				parts = theLine.substring(c + 1).trim().split("\\s+");
+				try {
+					theValue = Long.parseLong(parts[0]);
+				} catch (NumberFormatException ne) {
+					continue;
+				}
+				if ((parts.length > 1) && parts[1].equalsIgnoreCase("kB")) {
+					theValue *= 1024L;
+				}
+
+				result.put(theLine.substring(0, c).trim(), Long.valueOf(theValue));
+			}
+
+		} catch (IOException ie) {
+			result = null;
+
+		} finally {
+			if (null != theReader) {
+				try {theReader.close();} catch (IOException ie) {}
+			}
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the host OS process ID.  Process.pid() does not exist until Java 9, so try that by reflection, and if not
+	// found try the private pid field in the Java 8 UNIXProcess implementation.  Returns 0 if neither works.
+
+	private static long getProcessID(Process theProcess) {
+
+		try {
+			Method theMethod = Process.class.getMethod("pid");
+			return ((Long)theMethod.invoke(theProcess)).longValue();
+		} catch (Throwable t) {
+		}
+
+		try {
+			Field theField = theProcess.getClass().getDeclaredField("pid");
+			theField.setAccessible(true);
+			return theField.getLong(theProcess);
+		} catch (Throwable t) {
+		}
+
+		return 0L;
+	}
+}
@@ -11,6 +11,7 @@ import gov.fcc.tvstudy.core.editdata.*;
 import gov.fcc.tvstudy.core.geo.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.text.*;
 import java.sql.*;
 import java.io.*;
@@ -1250,7 +1251,7 @@ public class ExtDb {
 
 
 	//=================================================================================================================
-	// Item for antenna search results.
+	// Item for antenna search results.  The pattern point count is -1 if not known.
 
 	public static class AntennaID {
 
@@ -1260,6 +1261,8 @@ public class ExtDb {
 
 		public String antennaID;
 		public String name;
+
+		public int patternPointCount = -1;
 	}
 
 
@@ -1269,7 +1272,9 @@ public class ExtDb {
 	// search string converts to a positive number match the numeric antenna ID in CDBS or wireless, or the descriptive
 	// ID in LMS.  Otherwise, for CDBS or LMS if the search string is short enough to be a manufacturer code match the
 	// make, and always match the model for CDBS/LMS or the name for wireless.  All the matches are combined with OR.
-	// This returns null on error.
+	// This returns null on error.  Except for generic data sets the search is done in memory using an antenna catalog
+	// loaded on first use, see AntennaCatalog, and results are ranked by match quality.  Generic data sets can be
+	// added to by later imports so those are always searched by query, with results in name order.
 
 	public static ArrayList<AntennaID> findAntennas(String theDbID, Integer extDbKey, String search,
 			boolean searchElevation) {
@@ -1286,8 +1291,6 @@ public class ExtDb {
 
 		ArrayList<AntennaID> theItems = new ArrayList<AntennaID>();
 
-		// Compose the query.
-
 		String str = DbConnection.clean(search.trim().toUpperCase().replace('*', '%'));
 		if (0 == str.length()) {
 			return theItems;
@@ -1299,106 +1302,19 @@ public class ExtDb {
 		} catch (NumberFormatException ne) {
 		}
 
-		StringBuilder query = new StringBuilder();
-
-		switch (extDb.type) {
-
-			case DB_TYPE_CDBS:
-			case DB_TYPE_CDBS_FM: {
-
-				String fld = "", tbl = "";
-				if (searchElevation) {
-					fld = "elevation_antenna_id";
-					tbl = "elevation_ant_make";
-				} else {
-					fld = "antenna_id";
-					tbl = "ant_make";
-				}
-
-				query.append("SELECT ");
-				query.append(fld);
-				query.append(", ");
-				query.append(fld);
-				query.append(", CONCAT(ant_make, '-', ant_model_num) FROM ");
-				query.append(tbl);
-				query.append(" WHERE ");
-
-				if (id > 0) {
-					query.append("(");
-					query.append(fld);
-					query.append(" = ");
-					query.append(String.valueOf(id));
-					query.append(") ");
-				} else {
-					if (search.length() <= 3) {
-						query.append("(UPPER(ant_make) LIKE '%");
-						query.append(str);
-						query.append("%') OR ");
-					}
-					query.append("(UPPER(ant_model_num) LIKE '%");
-					query.append(str);
-					query.append("%') ");
-				}
-
-				query.append("ORDER BY 3");
-
-				break;
-			}
-
-			case DB_TYPE_LMS:
-			case DB_TYPE_LMS_LIVE: {
-
-				query.append("SELECT aant_antenna_record_id, aant_antenna_id, ");
-				query.append("CONCAT(aant_make, '-', aant_model) FROM ");
-				if (DB_TYPE_LMS_LIVE == extDb.type) {
-					query.append("mass_media.");
-				}
-				query.append("app_antenna WHERE ");
-
-				if (id > 0) {
-					query.append("(aant_antenna_id = '");
-					query.append(String.valueOf(id));
-					query.append("') ");
-				} else {
-					if (search.length() <= 3) {
-						query.append("(UPPER(aant_make) LIKE '%");
-						query.append(str);
-						query.append("%') OR ");
-					}
-					query.append("(UPPER(aant_model) LIKE '%");
-					query.append(str);
-					query.append("%') ");
-				}
-
-				query.append("ORDER BY 3");
-
-				break;
+		if (AntennaCatalog.isCatalogType(extDb.type)) {
+			AntennaCatalog theCatalog = getAntennaCatalog(extDb, searchElevation, errors);
+			if (null == theCatalog) {
+				return null;
 			}
+			return theCatalog.search(extDb, search, id);
+		}
 
-			case DB_TYPE_WIRELESS: {
-
-				query.append("SELECT ant_id, ant_id, name FROM antenna_index WHERE " );
-
-				if (searchElevation) {
-					query.append("(pat_type = 'E') AND ");
-				} else {
-					query.append("(pat_type = 'A') AND ");
-				}
-
-				if (id > 0) {
-					query.append("(ant_id = ");
-					query.append(String.valueOf(id));
-					query.append(") ");
-				} else {
-					query.append("(UPPER(name) LIKE '%");
-					query.append(str);
-					query.append("%') ");
-				}
+		// Compose the query for a generic data set.
 
-				query.append("ORDER BY 3");
+		StringBuilder query = new StringBuilder();
 
-				break;
-			}
+		switch (extDb.type) {
 
 			// For generic data sets, stored in the Source record format, match the source_key if the search string is
 			// numeric (that is the antennaRecordID for these), or the appropriate name by substring match.
@@ -1477,369 +1393,1278 @@ public class ExtDb {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Do an auxiliary search for AM stations within specified distance of a set of coordinates, append results to a
-	// text report.  Used by automated-run study types e.g. interference check.  It is here rather than in the study
-	// engine because it needs direct access to the external station data tables.  This does not fail; if the data set
-	// does not support AM, or if any error happens during the query, this simply writes in the report that the check
-	// could not be performed.  Note such failures would include the relevant tables not existing in the data set; the
-	// files for these are optional on import and so may not always be present even if the version supports them.
+	// Do an antenna search only if the catalog for the data set is already loaded, for type-ahead searching in the UI.
+	// This never queries the data set.  Returns null if the catalog is not loaded or not used for the data set type.
 
-	public static void checkForAMStations(ExtDb extDb, GeoPoint targetLocation, double searchDistanceND,
-			double searchDistanceDA, double kilometersPerDegree, StringBuilder report) {
+	public static ArrayList<AntennaID> findAntennasInCatalog(String theDbID, Integer extDbKey, String search,
+			boolean searchElevation) {
 
-		boolean error = false;
+		ExtDb extDb = getExtDb(theDbID, extDbKey);
+		if ((null == extDb) || !AntennaCatalog.isCatalogType(extDb.type)) {
+			return null;
+		}
 
-		if (!extDb.hasAM()) {
-			error = true;
-		} else {
+		AntennaCatalog theCatalog;
+		synchronized (antennaCatalogLock) {
+			theCatalog = getCachedAntennaCatalog(extDb, searchElevation);
+		}
+		if (null == theCatalog) {
+			return null;
+		}
 
-			DbConnection db = extDb.connectDb();
-			if (null == db) {
-				error = true;
-			} else {
+		if (0 == search.trim().length()) {
+			return new ArrayList<AntennaID>();
+		}
 
-				GeoPoint point = new GeoPoint();
-				String dir;
-				boolean foundND = false, foundDA = false;
-				StringBuilder repND = new StringBuilder(), repDA = new StringBuilder();
-				String mode;
+		int id = 0;
+		try {
+			id = Integer.parseInt(search);
+		} catch (NumberFormatException ne) {
+		}
 
-				try {
+		return theCatalog.search(extDb, search, id);
+	}
 
-					switch (extDb.type) {
-
-						case DB_TYPE_CDBS: {
-							db.query(
-							"SELECT " +
-								"am_ant_sys.lat_dir," +
-								"am_ant_sys.lat_deg," +
-								"am_ant_sys.lat_min," +
-								"am_ant_sys.lat_sec," +
-								"am_ant_sys.lon_dir," +
-								"am_ant_sys.lon_deg," +
-								"am_ant_sys.lon_min," +
-								"am_ant_sys.lon_sec," +
-								"facility.fac_callsign, " +
-								"application.fac_frequency, " +
-								"am_ant_sys.am_dom_status," +
-								"CONCAT(am_ant_sys.ant_mode, ' ', am_ant_sys.hours_operation)," +
-								"facility.comm_city, " +
-								"facility.comm_state, " +
-								"application.file_prefix, " +
-								"application.app_arn " +
-							"FROM " +
-								"am_ant_sys " +
-								"JOIN application USING (application_id) " +
-								"JOIN facility USING (facility_id) " +
-							"WHERE " +
-								"(am_ant_sys.eng_record_type NOT IN ('P','A','R')) " +
-							"ORDER BY " +
-								"14, 13, 10, 12");
-							break;
-						}
 
-						case DB_TYPE_LMS: {
-							db.query(
-							"SELECT " +
-								"gis_am_ant_sys.lat_dir," +
-								"gis_am_ant_sys.lat_deg," +
-								"gis_am_ant_sys.lat_min," +
-								"gis_am_ant_sys.lat_sec," +
-								"gis_am_ant_sys.lon_dir," +
-								"gis_am_ant_sys.lon_deg," +
-								"gis_am_ant_sys.lon_min," +
-								"gis_am_ant_sys.lon_sec," +
-								"gis_facility.fac_callsign, " +
-								"gis_application.fac_frequency, " +
-								"gis_am_ant_sys.am_dom_status," +
-								"CONCAT(gis_am_ant_sys.ant_mode, ' ', gis_am_ant_sys.hours_operation)," +
-								"gis_facility.comm_city, " +
-								"gis_facility.comm_state, " +
-								"gis_application.file_prefix, " +
-								"gis_application.app_arn " +
-							"FROM " +
-								"gis_am_ant_sys " +
-								"JOIN gis_application USING (application_id) " +
-								"JOIN gis_facility USING (facility_id) " +
-							"WHERE " +
-								"(gis_am_ant_sys.eng_record_type NOT IN ('P','A','R')) " +
-							"ORDER BY " +
-								"14, 13, 10, 12");
-							break;
-						}
+	//=================================================================================================================
+	// In-memory catalog of antennas in a data set for findAntennas().  This is loaded once per data set and pattern
+	// type, see getAntennaCatalog().  Antennas are stored in parallel arrays in name order as loaded, along with the
+	// make and model (or name for wireless) normalized to upper case for matching, and the number of pattern points
+	// for the antenna if known.  A trigram index over the normalized make and model strings finds candidates for a
+	// search, any literal search segment of three or more characters must have all its trigrams in the candidate's
+	// string.  A shorter search has no trigrams, those are checked against all entries which is still fast.  There is
+	// also an index of entries by antenna ID for numeric searches.
+
+	// Search matching is the same as the SQL query it replaces.  The search is a case-insensitive substring match on
+	// the model, with '*' as a multi-character wildcard.  A search of three or fewer characters is also matched to
+	// the make.  A search that is a positive number matches the antenna ID only.  Results are ranked by match
+	// quality; first an exact match to the model, then a prefix, then a match starting at a word boundary, then any
+	// substring, then a match to the make only.  Within the same rank antennas with no pattern points are last, then
+	// order is by name.
+
+	private static class AntennaCatalog {
+
+		private static final int RANK_EXACT = 0;
+		private static final int RANK_PREFIX = 1;
+		private static final int RANK_WORD = 2;
+		private static final int RANK_SUBSTRING = 3;
+		private static final int RANK_MAKE = 4;
+
+		private String[] recordID;
+		private String[] antennaID;
+		private String[] name;
+		private String[] make;
+		private String[] model;
+		private int[] pointCount;
+
+		private HashMap<String, int[]> idIndex;
+		private HashMap<String, int[]> makeTrigrams;
+		private HashMap<String, int[]> modelTrigrams;
+
+		private long loadTime;
 
-						case DB_TYPE_LMS_LIVE: {
-							db.query(
-							"SELECT " +
-								"gis_am_ant_sys.lat_dir," +
-								"gis_am_ant_sys.lat_deg," +
-								"gis_am_ant_sys.lat_min," +
-								"gis_am_ant_sys.lat_sec," +
-								"gis_am_ant_sys.lon_dir," +
-								"gis_am_ant_sys.lon_deg," +
-								"gis_am_ant_sys.lon_min," +
-								"gis_am_ant_sys.lon_sec," +
-								"gis_facility.fac_callsign, " +
-								"gis_application.fac_frequency, " +
-								"gis_am_ant_sys.am_dom_status," +
-								"gis_am_ant_sys.ant_mode || ' ' || gis_application.hours_operation," +
-								"gis_facility.comm_city, " +
-								"gis_facility.comm_state, " +
-								"gis_application.file_prefix, " +
-								"gis_application.app_arn " +
-							"FROM " +
-								"mass_media.gis_am_ant_sys " +
-								"JOIN mass_media.gis_application USING (application_id) " +
-								"JOIN mass_media.gis_facility USING (facility_id) " +
-							"WHERE " +
-								"(gis_am_ant_sys.eng_record_type NOT IN ('P','A','R')) " +
-							"ORDER BY " +
-								"14, 13, 10, 12");
-							break;
-						}
 
-						default: {
-							error = true;
-							break;
-						}
-					}
+		//-------------------------------------------------------------------------------------------------------------
+		// Types for which a catalog is used.
 
-					if (!error) {
+		private static boolean isCatalogType(int theType) {
 
-						while (db.next()) {
+			switch (theType) {
+				case DB_TYPE_CDBS:
+				case DB_TYPE_CDBS_FM:
+				case DB_TYPE_LMS:
+				case DB_TYPE_LMS_LIVE:
+				case DB_TYPE_WIRELESS:
+					return true;
+			}
+			return false;
+		}
 
-							point.latitudeNS = 0;
-							dir = db.getString(1);
-							if ((null != dir) && dir.equalsIgnoreCase("S")) {
-								point.latitudeNS = 1;
-							}
-							point.latitudeDegrees = db.getInt(2);
-							point.latitudeMinutes = db.getInt(3);
-							point.latitudeSeconds = db.getDouble(4);
-
-							point.longitudeWE = 0;
-							dir = db.getString(5);
-							if ((null != dir) && dir.equalsIgnoreCase("E")) {
-								point.longitudeWE = 1;
-							}
-							point.longitudeDegrees = db.getInt(6);
-							point.longitudeMinutes = db.getInt(7);
-							point.longitudeSeconds = db.getDouble(8);
 
-							point.updateLatLon();
-							point.convertFromNAD27();
+		//-------------------------------------------------------------------------------------------------------------
+		// Build the catalog and indices from loaded lists.  The make list may contain nulls, for wireless it is all
+		// nulls.  The point count map is keyed by record ID, antennas not in the map have no points, but if the map
+		// is null the counts are unknown.
 
-							mode = db.getString(12);
+		private AntennaCatalog(ArrayList<String> theRecordIDs, ArrayList<String> theAntennaIDs,
+				ArrayList<String> theNames, ArrayList<String> theMakes, ArrayList<String> theModels,
+				HashMap<String, Integer> thePointCounts) {
 
-							if (mode.startsWith("ND")) {
+			int entryCount = theRecordIDs.size();
 
-								if (targetLocation.distanceTo(point, kilometersPerDegree) <= searchDistanceND) {
-									if (!foundND) {
-										repND.append(String.format(Locale.US,
-											"Non-directional AM stations within %.1f km:\n", searchDistanceND));
-										foundND = true;
-									}
-									repND.append(db.getString(9) + " " + db.getInt(10) + " " + db.getString(11) +
-										" " + mode + " " + db.getString(13) + ", " + db.getString(14) + " " +
-										db.getString(15) + db.getString(16) + "\n");
-								}
+			recordID = new String[entryCount];
+			antennaID = new String[entryCount];
+			name = new String[entryCount];
+			make = new String[entryCount];
+			model = new String[entryCount];
+			pointCount = new int[entryCount];
 
-							} else {
+			HashMap<String, ArrayList<Integer>> theIDs = new HashMap<String, ArrayList<Integer>>();
+			HashMap<String, ArrayList<Integer>> theMakeTrigrams = new HashMap<String, ArrayList<Integer>>();
+			HashMap<String, ArrayList<Integer>> theModelTrigrams = new HashMap<String, ArrayList<Integer>>();
 
-								if (targetLocation.distanceTo(point, kilometersPerDegree) <= searchDistanceDA) {
-									if (!foundDA) {
-										repDA.append(String.format(Locale.US,
-											"Directional AM stations within %.1f km:\n", searchDistanceDA));
-										foundDA = true;
-									}
-									repDA.append(db.getString(9) + " " + db.getInt(10) + " " + db.getString(11) +
-										" " + mode + " " + db.getString(13) + ", " + db.getString(14) + " " +
-										db.getString(15) + db.getString(16) + "\n");
-								}
-							}
-						}
+			String str;
+			Integer theCount;
 
-						if (foundND) {
-							repND.append("\n");
-						} else {
-							repND.append(String.format(Locale.US,
-								"No non-directional AM stations found within %.1f km\n\n", searchDistanceND));
-						}
-						report.append(repND);
+			for (int i = 0; i < entryCount; i++) {
 
-						if (foundDA) {
-							repDA.append("\n");
-						} else {
-							repDA.append(String.format(Locale.US,
-								"No directional AM stations found within %.1f km\n\n", searchDistanceDA));
-						}
-						report.append(repDA);
-					}
+				recordID[i] = theRecordIDs.get(i);
+				antennaID[i] = theAntennaIDs.get(i);
+				name[i] = theNames.get(i);
 
-				} catch (SQLException se) {
-					DbConnection.reportError(se);
-					error = true;
+				str = theMakes.get(i);
+				if (null != str) {
+					make[i] = str.trim().toUpperCase();
+					addTrigrams(theMakeTrigrams, make[i], i);
 				}
 
-				extDb.releaseDb(db);
+				str = theModels.get(i);
+				if (null != str) {
+					model[i] = str.trim().toUpperCase();
+					addTrigrams(theModelTrigrams, model[i], i);
+				}
+
+				if (null == thePointCounts) {
+					pointCount[i] = -1;
+				} else {
+					theCount = thePointCounts.get(recordID[i]);
+					if (null != theCount) {
+						pointCount[i] = theCount.intValue();
+					}
+				}
+
+				if (null != antennaID[i]) {
+					addPosting(theIDs, antennaID[i].trim(), i);
+				}
 			}
-		}
 
-		if (error) {
-			report.append("Data is not available for AM station check\n\n");
-		}
-	}
+			idIndex = toIndex(theIDs);
+			makeTrigrams = toIndex(theMakeTrigrams);
+			modelTrigrams = toIndex(theModelTrigrams);
 
+			loadTime = System.currentTimeMillis();
+		}
 
-	//-----------------------------------------------------------------------------------------------------------------
-	// Create a new generic import data set database, which stores data in a table structure created by the Source
-	// class, identical to what is used in an actual study database.  Searches are managed by SourceEditData rather
-	// than ExtDbRecord.  The database is initially empty, the caller will populate it by creating SourceEditData
-	// objects and saving those directly.  It is possible to add to a generic data set with multiple imports.
 
-	public static Integer createNewGenericDatabase(String theDbID, int dataType, String theName) {
-		return createNewGenericDatabase(theDbID, dataType, theName, null);
-	}
+		//-------------------------------------------------------------------------------------------------------------
+		// Index building utilities.  Posting lists are built in entry order so they end up sorted, a string that
+		// repeats a trigram only adds the entry once.
 
-	public static Integer createNewGenericDatabase(String theDbID, int dataType, String theName, ErrorLogger errors) {
+		private static void addTrigrams(HashMap<String, ArrayList<Integer>> theIndex, String str, int entry) {
 
-		if (!isGeneric(dataType)) {
-			if (null != errors) {
-				errors.reportError("Cannot create station data, unknown or unsupported data type.");
+			for (int j = 0; j <= (str.length() - 3); j++) {
+				addPosting(theIndex, str.substring(j, j + 3), entry);
 			}
-			return null;
 		}
 
-		// Open database connection, lock tables, get a new key for the data set.
+		private static void addPosting(HashMap<String, ArrayList<Integer>> theIndex, String theKey, int entry) {
 
-		DbConnection db = DbCore.connectDb(theDbID, errors);
-		if (null == db) {
-			return null;
+			ArrayList<Integer> thePostings = theIndex.get(theKey);
+			if (null == thePostings) {
+				thePostings = new ArrayList<Integer>();
+				theIndex.put(theKey, thePostings);
+			}
+			int n = thePostings.size();
+			if ((0 == n) || (thePostings.get(n - 1).intValue() != entry)) {
+				thePostings.add(Integer.valueOf(entry));
+			}
 		}
 
-		String errmsg = null, theDbName = null, rootName = DbCore.getDbName(theDbID);
-		boolean error = false;
-		int newKey = 0;
-
-		try {
-
-			db.update("LOCK TABLES ext_db_key_sequence WRITE");
+		private static HashMap<String, int[]> toIndex(HashMap<String, ArrayList<Integer>> theLists) {
 
-			db.update("UPDATE ext_db_key_sequence SET ext_db_key = ext_db_key + 1");
-			db.query("SELECT ext_db_key FROM ext_db_key_sequence");
-			db.next();
-			newKey = db.getInt(1);
-
-			// A range of keys is reserved for internally-composed objects, skip if needed.
+			HashMap<String, int[]> result = new HashMap<String, int[]>();
+			ArrayList<Integer> theList;
+			int[] thePostings;
 
-			if (RESERVED_KEY_RANGE_START == newKey) {
-				newKey = RESERVED_KEY_RANGE_END + 1;
-				db.update("UPDATE ext_db_key_sequence SET ext_db_key = " + newKey);
+			for (Map.Entry<String, ArrayList<Integer>> e : theLists.entrySet()) {
+				theList = e.getValue();
+				thePostings = new int[theList.size()];
+				for (int i = 0; i < thePostings.length; i++) {
+					thePostings[i] = theList.get(i).intValue();
+				}
+				result.put(e.getKey(), thePostings);
 			}
 
-			db.update("UNLOCK TABLES");
+			return result;
+		}
 
-			// Create the database and tables.
 
-			theDbName = makeDbName(rootName, dataType, Integer.valueOf(newKey));
-			db.update("CREATE DATABASE " + theDbName + " CHARACTER SET latin1");
-			Source.createTables(db, theDbName);
+		//-------------------------------------------------------------------------------------------------------------
+		// Do a search, see comments above.  The ID argument is the numeric value of the search string, or 0.
 
-			// Generate ID string and save the index record.
+		private ArrayList<AntennaID> search(ExtDb extDb, String search, int id) {
 
-			String theID = AppCore.formatDateTime(new java.util.Date());
+			ArrayList<AntennaID> theItems = new ArrayList<AntennaID>();
 
-			if (null == theName) {
-				theName = "";
-			}
+			int[] theEntries;
+			int[] theRanks = null;
 
-			db.setDatabase(rootName);
+			if (id > 0) {
 
-			// Check the ID and name for uniqueness, append the key as a suffix if needed.  Save the new index entry in
-			// the ext_db table.
+				theEntries = idIndex.get(String.valueOf(id));
+				if (null == theEntries) {
+					return theItems;
+				}
 
-			db.update("LOCK TABLES ext_db WRITE");
+			} else {
 
-			db.query("SELECT ext_db_key FROM ext_db WHERE (id = '" + db.clean(theID) + "')");
-			if (db.next()) {
-				theID = theID + " " + String.valueOf(DbCore.NAME_UNIQUE_CHAR) + String.valueOf(newKey);
-			}
+				String str = search.trim().toUpperCase();
+				String[] segments = str.split("\\*+", -1);
+				boolean checkMake = (search.length() <= 3);
 
-			if (theName.length() > 0) {
-				db.query("SELECT ext_db_key FROM ext_db WHERE (UPPER(name) = '" +
-					db.clean(theName.toUpperCase()) + "')");
-				if (db.next()) {
-					theName = theName + " " + String.valueOf(DbCore.NAME_UNIQUE_CHAR) + String.valueOf(newKey);
+				int[] modelCandidates = findCandidates(modelTrigrams, segments, model.length);
+				int[] makeCandidates = null;
+				if (checkMake) {
+					makeCandidates = findCandidates(makeTrigrams, segments, make.length);
 				}
-			}
 
-			db.update(
-			"INSERT INTO ext_db (" +
-				"ext_db_key, " +
-				"db_type, " +
-				"db_date, " +
-				"version, " +
-				"id, " +
-				"name, " +
-				"deleted, " +
-				"locked, " +
-				"is_download) "+
-			"VALUES (" +
-				newKey + ", "  +
-				dataType + ", " +
-				"NOW(), " +
-				"0, " +
-				"'" + db.clean(theID) + "', " +
-				"'" + db.clean(theName) + "', " +
-				"false, " +
-				"false, " +
-				"false)");
+				// Merge the candidate lists, both are sorted.  Check the matches and assign ranks.
 
-		} catch (SQLException se) {
-			errmsg = "A database error occurred:\n" + se;
-			error = true;
-			db.reportError(se);
-		}
+				theEntries = new int[modelCandidates.length + ((null != makeCandidates) ? makeCandidates.length : 0)];
+				theRanks = new int[theEntries.length];
 
-		// Make sure table locks are released, if an error occurred also drop the database.
+				int entryCount = 0, i = 0, j = 0, entry, rank;
+				while ((i < modelCandidates.length) || ((null != makeCandidates) && (j < makeCandidates.length))) {
 
-		try {
-			db.update("UNLOCK TABLES");
-			if (error && (null != theDbName)) {
-				db.update("DROP DATABASE IF EXISTS " + theDbName);
+					if ((null == makeCandidates) || (j >= makeCandidates.length)) {
+						entry = modelCandidates[i++];
+					} else {
+						if ((i >= modelCandidates.length) || (makeCandidates[j] < modelCandidates[i])) {
+							entry = makeCandidates[j++];
+						} else {
+							entry = modelCandidates[i++];
+							if (makeCandidates[j] == entry) {
+								j++;
+							}
+						}
+					}
+
+					rank = matchRank(model[entry], segments, (segments.length == 1));
+					if ((rank < 0) && checkMake && (matchRank(make[entry], segments, false) >= 0)) {
+						rank = RANK_MAKE;
+					}
+					if (rank >= 0) {
+						theEntries[entryCount] = entry;
+						theRanks[entryCount++] = rank;
+					}
+				}
+
+				if (entryCount < theEntries.length) {
+					theEntries = Arrays.copyOf(theEntries, entryCount);
+					theRanks = Arrays.copyOf(theRanks, entryCount);
+				}
 			}
-		} catch (SQLException se) {
-			db.reportError(se);
-		}
 
-		DbCore.releaseDb(db);
+			// Sort by rank, then entries with no pattern points last, then entry order which is name order.
 
-		if ((null != errmsg) && (null != errors)) {
-			if (error) {
-				errors.reportError(errmsg);
-			} else {
-				errors.reportWarning(errmsg);
+			final int[] sortRanks = new int[theEntries.length];
+			Integer[] order = new Integer[theEntries.length];
+			int i;
+			for (i = 0; i < theEntries.length; i++) {
+				sortRanks[i] = ((null != theRanks) ? (theRanks[i] * 2) : 0) +
+					((0 == pointCount[theEntries[i]]) ? 1 : 0);
+				order[i] = Integer.valueOf(i);
 			}
-		}
 
-		if (error) {
-			return null;
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer one, Integer two) {
+					int result = Integer.compare(sortRanks[one.intValue()], sortRanks[two.intValue()]);
+					if (0 == result) {
+						result = one.compareTo(two);
+					}
+					return result;
+				}
+			});
+
+			AntennaID theItem;
+			int entry;
+
+			for (i = 0; i < order.length; i++) {
+				entry = theEntries[order[i].intValue()];
+				theItem = new AntennaID();
+				theItem.dbID = extDb.dbID;
+				theItem.extDbKey = extDb.key;
+				theItem.antennaRecordID = recordID[entry];
+				theItem.antennaID = antennaID[entry];
+				theItem.name = name[entry];
+				theItem.patternPointCount = pointCount[entry];
+				theItems.add(theItem);
+			}
+
+			return theItems;
 		}
 
-		reloadCache(theDbID);
 
-		return Integer.valueOf(newKey);
-	}
+		//-------------------------------------------------------------------------------------------------------------
+		// Find candidate entries from a trigram index.  Use the longest literal segment, intersect the posting lists
+		// for all its trigrams starting with the shortest list.  If no segment is at least three characters long, all
+		// entries are candidates.  Returns a sorted list.
 
+		private static int[] findCandidates(HashMap<String, int[]> theIndex, String[] segments, int entryCount) {
 
-	//-----------------------------------------------------------------------------------------------------------------
-	// Wrapper around createNewDatabase() for creating a new wireless database.  The source files are in CSV format
-	// and are first translated into temporary SQL-format data files, then imported normally as with other data types,
-	// see below.  The data in the CSV files is often manually-composed so errors are much more likely than in typical
-	// SQL dump files, and this approach means errors are detected and reported before starting the SQL session.
-	// Returns the key for the new database, or null on error.
+			String longest = "";
+			for (String segment : segments) {
+				if (segment.length() > longest.length()) {
+					longest = segment;
+				}
+			}
 
-	public static Integer createNewWirelessDatabase(String theDbID, File stationFile, File patternFile,
+			if (longest.length() < 3) {
+				int[] result = new int[entryCount];
+				for (int i = 0; i < entryCount; i++) {
+					result[i] = i;
+				}
+				return result;
+			}
+
+			ArrayList<int[]> theLists = new ArrayList<int[]>();
+			int[] thePostings;
+			for (int j = 0; j <= (longest.length() - 3); j++) {
+				thePostings = theIndex.get(longest.substring(j, j + 3));
+				if (null == thePostings) {
+					return new int[0];
+				}
+				theLists.add(thePostings);
+			}
+
+			Collections.sort(theLists, new Comparator<int[]>() {
+				public int compare(int[] one, int[] two) {
+					return Integer.compare(one.length, two.length);
+				}
+			});
+
+			int[] result = theLists.get(0).clone();
+			int resultCount = result.length, newCount, i, k;
+
+			for (int j = 1; (j < theLists.size()) && (resultCount > 0); j++) {
+				thePostings = theLists.get(j);
+				newCount = 0;
+				k = 0;
+				for (i = 0; i < resultCount; i++) {
+					while ((k < thePostings.length) && (thePostings[k] < result[i])) {
+						k++;
+					}
+					if (k >= thePostings.length) {
+						break;
+					}
+					if (thePostings[k] == result[i]) {
+						result[newCount++] = result[i];
+					}
+				}
+				resultCount = newCount;
+			}
+
+			return Arrays.copyOf(result, resultCount);
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Check for a match of the search segments in order anywhere in the string, return the rank or -1 for no
+		// match.  An exact match is only possible with a single segment, meaning there were no wildcards.
+
+		private static int matchRank(String str, String[] segments, boolean canBeExact) {
+
+			if (null == str) {
+				return -1;
+			}
+
+			int start = -1, pos = 0, index;
+			for (String segment : segments) {
+				if (0 == segment.length()) {
+					continue;
+				}
+				index = str.indexOf(segment, pos);
+				if (index < 0) {
+					return -1;
+				}
+				if (start < 0) {
+					start = index;
+				}
+				pos = index + segment.length();
+			}
+
+			if (start <= 0) {
+				if (canBeExact && (str.length() == segments[0].length())) {
+					return RANK_EXACT;
+				}
+				return RANK_PREFIX;
+			}
+			if (!Character.isLetterOrDigit(str.charAt(start - 1))) {
+				return RANK_WORD;
+			}
+			return RANK_SUBSTRING;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the antenna catalog for a data set and pattern type, loading it on first use.  The cache and the locking are
+	// the same as for the AM site index, see getAMSiteIndex(), including a per-catalog load lock and a timeout to
+	// re-load catalogs from the live LMS server.  The pattern type only matters for CDBS and wireless, for LMS the
+	// antenna list is the same for both types but the point counts are different so a separate catalog is still
+	// loaded.  Returns null on error.
+
+	private static final long ANTENNA_CATALOG_LIVE_TIMEOUT = 3600000L;   // milliseconds
+
+	private static final Object antennaCatalogLock = new Object();
+	private static HashMap<String, HashMap<String, AntennaCatalog>> antennaCatalogCache =
+		new HashMap<String, HashMap<String, AntennaCatalog>>();
+	private static HashMap<String, HashMap<String, Object>> antennaCatalogLoadLocks =
+		new HashMap<String, HashMap<String, Object>>();
+
+	private static AntennaCatalog getAntennaCatalog(ExtDb extDb, boolean searchElevation, ErrorLogger errors) {
+
+		String catalogKey = extDb.key + (searchElevation ? "E" : "A");
+
+		AntennaCatalog theCatalog;
+		Object loadLock;
+
+		synchronized (antennaCatalogLock) {
+
+			theCatalog = getCachedAntennaCatalog(extDb, searchElevation);
+			if (null != theCatalog) {
+				AppMetrics.increment(AppMetrics.ANTENNA_CATALOG_REQUESTS, "result", "hit");
+				return theCatalog;
+			}
+
+			HashMap<String, Object> theLocks = antennaCatalogLoadLocks.get(extDb.dbID);
+			if (null == theLocks) {
+				theLocks = new HashMap<String, Object>();
+				antennaCatalogLoadLocks.put(extDb.dbID, theLocks);
+			}
+			loadLock = theLocks.get(catalogKey);
+			if (null == loadLock) {
+				loadLock = new Object();
+				theLocks.put(catalogKey, loadLock);
+			}
+		}
+
+		synchronized (loadLock) {
+
+			// Another thread may have loaded the catalog while this one waited on the load lock.
+
+			synchronized (antennaCatalogLock) {
+				theCatalog = getCachedAntennaCatalog(extDb, searchElevation);
+				if (null != theCatalog) {
+					AppMetrics.increment(AppMetrics.ANTENNA_CATALOG_REQUESTS, "result", "hit");
+					return theCatalog;
+				}
+			}
+
+			long startTime = System.nanoTime();
+
+			theCatalog = loadAntennaCatalog(extDb, searchElevation, errors);
+
+			synchronized (antennaCatalogLock) {
+
+				HashMap<String, AntennaCatalog> theCache = antennaCatalogCache.get(extDb.dbID);
+				if (null == theCache) {
+					theCache = new HashMap<String, AntennaCatalog>();
+					antennaCatalogCache.put(extDb.dbID, theCache);
+				}
+
+				if (null == theCatalog) {
+					theCache.remove(catalogKey);
+					AppMetrics.increment(AppMetrics.ANTENNA_CATALOG_REQUESTS, "result", "error");
+					return null;
+				}
+
+				theCache.put(catalogKey, theCatalog);
+			}
+
+			AppMetrics.increment(AppMetrics.ANTENNA_CATALOG_REQUESTS, "result", "load");
+			AppMetrics.recordTime(AppMetrics.ANTENNA_CATALOG_LOAD_SECONDS, (System.nanoTime() - startTime),
+				"db_type", String.valueOf(extDb.type));
+
+			return theCatalog;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a catalog from the cache if present and not timed out, else return null.  Caller must hold the lock.
+
+	private static AntennaCatalog getCachedAntennaCatalog(ExtDb extDb, boolean searchElevation) {
+
+		HashMap<String, AntennaCatalog> theCache = antennaCatalogCache.get(extDb.dbID);
+		if (null == theCache) {
+			return null;
+		}
+
+		AntennaCatalog theCatalog = theCache.get(extDb.key + (searchElevation ? "E" : "A"));
+		if ((null != theCatalog) && ((DB_TYPE_LMS_LIVE != extDb.type) ||
+				((System.currentTimeMillis() - theCatalog.loadTime) < ANTENNA_CATALOG_LIVE_TIMEOUT))) {
+			return theCatalog;
+		}
+
+		return null;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Query the antenna list for a catalog, and the pattern point counts.  Failure of the point count query is not an
+	// error, the counts are just unknown; the pattern tables might be empty or missing in some data sets.  Counts are
+	// not queried from the live LMS server, that would scan the entire pattern table on a shared server.
+
+	private static AntennaCatalog loadAntennaCatalog(ExtDb extDb, boolean searchElevation, ErrorLogger errors) {
+
+		String antennaQuery = null, countQuery = null;
+
+		switch (extDb.type) {
+
+			case DB_TYPE_CDBS:
+			case DB_TYPE_CDBS_FM: {
+
+				if (searchElevation) {
+					antennaQuery = "SELECT elevation_antenna_id, elevation_antenna_id, " +
+						"CONCAT(ant_make, '-', ant_model_num), ant_make, ant_model_num FROM elevation_ant_make " +
+						"ORDER BY 3";
+					countQuery = "SELECT elevation_antenna_id, COUNT(*) FROM elevation_pattern GROUP BY 1";
+				} else {
+					antennaQuery = "SELECT antenna_id, antenna_id, CONCAT(ant_make, '-', ant_model_num), ant_make, " +
+						"ant_model_num FROM ant_make ORDER BY 3";
+					countQuery = "SELECT antenna_id, COUNT(*) FROM ant_pattern GROUP BY 1";
+				}
+
+				break;
+			}
+
+			case DB_TYPE_LMS:
+			case DB_TYPE_LMS_LIVE: {
+
+				String prefix = "";
+				if (DB_TYPE_LMS_LIVE == extDb.type) {
+					prefix = "mass_media.";
+				}
+
+				antennaQuery = "SELECT aant_antenna_record_id, aant_antenna_id, CONCAT(aant_make, '-', aant_model), " +
+					"aant_make, aant_model FROM " + prefix + "app_antenna ORDER BY 3";
+
+				if (DB_TYPE_LMS == extDb.type) {
+					if (searchElevation) {
+						countQuery = "SELECT aaep_antenna_record_id, COUNT(*) FROM app_antenna_elevation_pattern " +
+							"WHERE (aaep_azimuth = 0.) GROUP BY 1";
+					} else {
+						countQuery = "SELECT aafv_aant_antenna_record_id, COUNT(*) FROM app_antenna_field_value " +
+							"GROUP BY 1";
+					}
+				}
+
+				break;
+			}
+
+			case DB_TYPE_WIRELESS: {
+
+				antennaQuery = "SELECT ant_id, ant_id, name, NULL, name FROM antenna_index WHERE (pat_type = '" +
+					(searchElevation ? "E" : "A") + "') ORDER BY 3";
+				countQuery = "SELECT ant_id, COUNT(*) FROM " + WIRELESS_PATTERN_TABLE + " GROUP BY 1";
+
+				break;
+			}
+
+			default: {
+				return null;
+			}
+		}
+
+		ArrayList<String> theRecordIDs = new ArrayList<String>();
+		ArrayList<String> theAntennaIDs = new ArrayList<String>();
+		ArrayList<String> theNames = new ArrayList<String>();
+		ArrayList<String> theMakes = new ArrayList<String>();
+		ArrayList<String> theModels = new ArrayList<String>();
+		HashMap<String, Integer> thePointCounts = null;
+
+		DbConnection db = extDb.connectDb(errors);
+		if (null == db) {
+			return null;
+		}
+
+		try {
+
+			db.query(antennaQuery);
+
+			while (db.next()) {
+				theRecordIDs.add(db.getString(1));
+				theAntennaIDs.add(db.getString(2));
+				theNames.add(db.getString(3));
+				theMakes.add(db.getString(4));
+				theModels.add(db.getString(5));
+			}
+
+		} catch (SQLException se) {
+			extDb.releaseDb(db);
+			DbConnection.reportError(errors, se);
+			return null;
+		}
+
+		if (null != countQuery) {
+			try {
+
+				db.query(countQuery);
+
+				thePointCounts = new HashMap<String, Integer>();
+				while (db.next()) {
+					thePointCounts.put(db.getString(1), Integer.valueOf(db.getInt(2)));
+				}
+
+			} catch (SQLException se) {
+				thePointCounts = null;
+			}
+		}
+
+		extDb.releaseDb(db);
+
+		return new AntennaCatalog(theRecordIDs, theAntennaIDs, theNames, theMakes, theModels, thePointCounts);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Do an auxiliary search for AM stations within specified distance of a set of coordinates, append results to a
+	// text report.  Used by automated-run study types e.g. interference check.  It is here rather than in the study
+	// engine because it needs direct access to the external station data tables.  This does not fail; if the data set
+	// does not support AM, or if any error happens during the query, this simply writes in the report that the check
+	// could not be performed.  Note such failures would include the relevant tables not existing in the data set; the
+	// files for these are optional on import and so may not always be present even if the version supports them.
+	// The AM sites are loaded once per data set into a spatial index, see getAMSiteIndex(), so this only has to check
+	// distance to sites in grid cells around the target.  The report order is the same as the original query order.
+
+	public static void checkForAMStations(ExtDb extDb, GeoPoint targetLocation, double searchDistanceND,
+			double searchDistanceDA, double kilometersPerDegree, StringBuilder report) {
+
+		AMSiteIndex theIndex = getAMSiteIndex(extDb);
+		if (null == theIndex) {
+			report.append("Data is not available for AM station check\n\n");
+			return;
+		}
+
+		boolean foundND = false, foundDA = false;
+		StringBuilder repND = new StringBuilder(), repDA = new StringBuilder();
+
+		double searchDistance = ((searchDistanceND > searchDistanceDA) ? searchDistanceND : searchDistanceDA);
+
+		for (int siteIndex : theIndex.findSites(targetLocation, searchDistance, kilometersPerDegree)) {
+
+			if (theIndex.nonDirectional[siteIndex]) {
+
+				if (targetLocation.distanceTo(theIndex.latitude[siteIndex], theIndex.longitude[siteIndex],
+						kilometersPerDegree) <= searchDistanceND) {
+					if (!foundND) {
+						repND.append(String.format(Locale.US, "Non-directional AM stations within %.1f km:\n",
+							searchDistanceND));
+						foundND = true;
+					}
+					repND.append(theIndex.reportLine[siteIndex]);
+				}
+
+			} else {
+
+				if (targetLocation.distanceTo(theIndex.latitude[siteIndex], theIndex.longitude[siteIndex],
+						kilometersPerDegree) <= searchDistanceDA) {
+					if (!foundDA) {
+						repDA.append(String.format(Locale.US, "Directional AM stations within %.1f km:\n",
+							searchDistanceDA));
+						foundDA = true;
+					}
+					repDA.append(theIndex.reportLine[siteIndex]);
+				}
+			}
+		}
+
+		if (foundND) {
+			repND.append("\n");
+		} else {
+			repND.append(String.format(Locale.US, "No non-directional AM stations found within %.1f km\n\n",
+				searchDistanceND));
+		}
+		report.append(repND);
+
+		if (foundDA) {
+			repDA.append("\n");
+		} else {
+			repDA.append(String.format(Locale.US, "No directional AM stations found within %.1f km\n\n",
+				searchDistanceDA));
+		}
+		report.append(repDA);
+	}
+
+
+	//=================================================================================================================
+	// Spatial index of AM sites in a data set for checkForAMStations().  Sites are stored in parallel arrays in the
+	// original query order, with coordinates already converted to NAD83 decimal degrees and the report line already
+	// formatted.  Sites are bucketed in a grid of fixed-size latitude-longitude cells, each cell has a list of site
+	// indices in ascending order.  A search returns indices of sites in all cells that overlap a bounding box around
+	// the target, in ascending order; that is only a candidate list, the caller must still check actual distance.
+
+	private static class AMSiteIndex {
+
+		private static final double CELL_SIZE = 0.25;   // degrees
+		private static final int LATITUDE_CELLS = 720;
+		private static final int LONGITUDE_CELLS = 1440;
+
+		private double[] latitude;
+		private double[] longitude;
+		private boolean[] nonDirectional;
+		private String[] reportLine;
+
+		private HashMap<Integer, int[]> cells;
+
+		private long loadTime;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Build the grid from the site arrays.
+
+		private AMSiteIndex(ArrayList<Double> theLats, ArrayList<Double> theLons, ArrayList<Boolean> theNDs,
+				ArrayList<String> theLines) {
+
+			int siteCount = theLats.size();
+
+			latitude = new double[siteCount];
+			longitude = new double[siteCount];
+			nonDirectional = new boolean[siteCount];
+			reportLine = new String[siteCount];
+
+			HashMap<Integer, ArrayList<Integer>> theCells = new HashMap<Integer, ArrayList<Integer>>();
+			ArrayList<Integer> theCell;
+			Integer cellKey;
+
+			for (int i = 0; i < siteCount; i++) {
+
+				latitude[i] = theLats.get(i).doubleValue();
+				longitude[i] = theLons.get(i).doubleValue();
+				nonDirectional[i] = theNDs.get(i).booleanValue();
+				reportLine[i] = theLines.get(i);
+
+				cellKey = Integer.valueOf((latitudeCell(latitude[i]) * LONGITUDE_CELLS) +
+					longitudeCell(longitude[i]));
+				theCell = theCells.get(cellKey);
+				if (null == theCell) {
+					theCell = new ArrayList<Integer>();
+					theCells.put(cellKey, theCell);
+				}
+				theCell.add(Integer.valueOf(i));
+			}
+
+			cells = new HashMap<Integer, int[]>();
+			int[] cellSites;
+			for (Map.Entry<Integer, ArrayList<Integer>> e : theCells.entrySet()) {
+				theCell = e.getValue();
+				cellSites = new int[theCell.size()];
+				for (int i = 0; i < cellSites.length; i++) {
+					cellSites[i] = theCell.get(i).intValue();
+				}
+				cells.put(e.getKey(), cellSites);
+			}
+
+			loadTime = System.currentTimeMillis();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Cell index functions.  Longitude wraps, latitude is clamped so the poles fall in the end cells.
+
+		private static int latitudeCell(double lat) {
+
+			int cell = (int)Math.floor((lat + 90.) / CELL_SIZE);
+			if (cell < 0) {
+				return 0;
+			}
+			if (cell >= LATITUDE_CELLS) {
+				return LATITUDE_CELLS - 1;
+			}
+			return cell;
+		}
+
+		private static int longitudeCell(double lon) {
+
+			int cell = (int)Math.floor((lon + 180.) / CELL_SIZE) % LONGITUDE_CELLS;
+			if (cell < 0) {
+				cell += LONGITUDE_CELLS;
+			}
+			return cell;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Find candidate sites within a distance of a point.  The latitude range of the bounding box is just the
+		// search distance in degrees of arc.  The longitude range is the maximum longitude difference to any point
+		// within that distance, which grows with latitude; if the search circle reaches a pole all longitudes are
+		// included.  A small pad is added to the ranges so rounding never excludes a site that is on the boundary.
+
+		private int[] findSites(GeoPoint targetLocation, double searchDistance, double kilometersPerDegree) {
+
+			double arc = (searchDistance / kilometersPerDegree) + 1.e-6;
+
+			int latCell1 = latitudeCell(targetLocation.latitude - arc);
+			int latCell2 = latitudeCell(targetLocation.latitude + arc);
+
+			int lonCell1 = 0, lonCellCount = LONGITUDE_CELLS;
+			double cosLat = Math.cos(targetLocation.latitude * GeoPoint.DEGREES_TO_RADIANS);
+			double sinArc = Math.sin(arc * GeoPoint.DEGREES_TO_RADIANS);
+			if ((arc < 90.) && ((Math.abs(targetLocation.latitude) + arc) < 90.) && (sinArc < cosLat)) {
+				double lonArc = (Math.asin(sinArc / cosLat) * GeoPoint.RADIANS_TO_DEGREES) + 1.e-6;
+				lonCell1 = longitudeCell(targetLocation.longitude - lonArc);
+				lonCellCount = longitudeCell(targetLocation.longitude + lonArc) - lonCell1 + 1;
+				if (lonCellCount <= 0) {
+					lonCellCount += LONGITUDE_CELLS;
+				}
+				if (lonCellCount > LONGITUDE_CELLS) {
+					lonCellCount = LONGITUDE_CELLS;
+				}
+			}
+
+			ArrayList<int[]> theCells = new ArrayList<int[]>();
+			int[] cellSites;
+			int siteCount = 0, latCell, lonCell, i;
+
+			for (latCell = latCell1; latCell <= latCell2; latCell++) {
+				for (i = 0; i < lonCellCount; i++) {
+					lonCell = (lonCell1 + i) % LONGITUDE_CELLS;
+					cellSites = cells.get(Integer.valueOf((latCell * LONGITUDE_CELLS) + lonCell));
+					if (null != cellSites) {
+						theCells.add(cellSites);
+						siteCount += cellSites.length;
+					}
+				}
+			}
+
+			int[] result = new int[siteCount];
+			siteCount = 0;
+			for (int[] sites : theCells) {
+				System.arraycopy(sites, 0, result, siteCount, sites.length);
+				siteCount += sites.length;
+			}
+			if (theCells.size() > 1) {
+				Arrays.sort(result);
+			}
+
+			return result;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the AM site index for a data set, loading it on first use.  Index objects are cached by database ID and data
+	// set key, the cache is cleared in closeDb().  Imported data sets do not change so those are loaded just once.
+	// The live LMS server does change, so an index for that is re-loaded after a timeout.  The global lock only guards
+	// the cache maps and is never held during a load.  Each index has its own load lock, so concurrent checks on a new
+	// data set wait for one load rather than all doing it, while checks on other data sets are not blocked.  Returns
+	// null if the data set does not have AM tables or an error occurs, in that case nothing is cached and the next
+	// check will try again.
+
+	private static final long AM_INDEX_LIVE_TIMEOUT = 3600000L;   // milliseconds
+
+	private static final Object amIndexLock = new Object();
+	private static HashMap<String, HashMap<Integer, AMSiteIndex>> amIndexCache =
+		new HashMap<String, HashMap<Integer, AMSiteIndex>>();
+	private static HashMap<String, HashMap<Integer, Object>> amIndexLoadLocks =
+		new HashMap<String, HashMap<Integer, Object>>();
+
+	private static AMSiteIndex getAMSiteIndex(ExtDb extDb) {
+
+		if (!extDb.hasAM()) {
+			return null;
+		}
+
+		AMSiteIndex theIndex;
+		Object loadLock;
+
+		synchronized (amIndexLock) {
+
+			theIndex = getCachedAMSiteIndex(extDb);
+			if (null != theIndex) {
+				AppMetrics.increment(AppMetrics.AM_INDEX_REQUESTS, "result", "hit");
+				return theIndex;
+			}
+
+			HashMap<Integer, Object> theLocks = amIndexLoadLocks.get(extDb.dbID);
+			if (null == theLocks) {
+				theLocks = new HashMap<Integer, Object>();
+				amIndexLoadLocks.put(extDb.dbID, theLocks);
+			}
+			loadLock = theLocks.get(extDb.key);
+			if (null == loadLock) {
+				loadLock = new Object();
+				theLocks.put(extDb.key, loadLock);
+			}
+		}
+
+		synchronized (loadLock) {
+
+			// Another thread may have loaded the index while this one waited on the load lock.
+
+			synchronized (amIndexLock) {
+				theIndex = getCachedAMSiteIndex(extDb);
+				if (null != theIndex) {
+					AppMetrics.increment(AppMetrics.AM_INDEX_REQUESTS, "result", "hit");
+					return theIndex;
+				}
+			}
+
+			theIndex = loadAMSiteIndex(extDb);
+
+			synchronized (amIndexLock) {
+
+				HashMap<Integer, AMSiteIndex> theCache = amIndexCache.get(extDb.dbID);
+				if (null == theCache) {
+					theCache = new HashMap<Integer, AMSiteIndex>();
+					amIndexCache.put(extDb.dbID, theCache);
+				}
+
+				if (null == theIndex) {
+					theCache.remove(extDb.key);
+					AppMetrics.increment(AppMetrics.AM_INDEX_REQUESTS, "result", "error");
+					return null;
+				}
+
+				theCache.put(extDb.key, theIndex);
+			}
+
+			AppMetrics.increment(AppMetrics.AM_INDEX_REQUESTS, "result", "load");
+			AppMetrics.setGauge(AppMetrics.AM_INDEX_SITES, (double)theIndex.latitude.length, "db_type",
+				String.valueOf(extDb.type));
+
+			return theIndex;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get an index from the cache if present and not timed out, else return null.  Caller must hold the lock.
+
+	private static AMSiteIndex getCachedAMSiteIndex(ExtDb extDb) {
+
+		HashMap<Integer, AMSiteIndex> theCache = amIndexCache.get(extDb.dbID);
+		if (null == theCache) {
+			return null;
+		}
+
+		AMSiteIndex theIndex = theCache.get(extDb.key);
+		if ((null != theIndex) && ((DB_TYPE_LMS_LIVE != extDb.type) ||
+				((System.currentTimeMillis() - theIndex.loadTime) < AM_INDEX_LIVE_TIMEOUT))) {
+			return theIndex;
+		}
+
+		return null;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Query all AM sites in a data set and build the index.  Returns null on error.
+
+	private static AMSiteIndex loadAMSiteIndex(ExtDb extDb) {
+
+		DbConnection db = extDb.connectDb();
+		if (null == db) {
+			return null;
+		}
+
+		ArrayList<Double> theLats = new ArrayList<Double>();
+		ArrayList<Double> theLons = new ArrayList<Double>();
+		ArrayList<Boolean> theNDs = new ArrayList<Boolean>();
+		ArrayList<String> theLines = new ArrayList<String>();
+
+		GeoPoint point = new GeoPoint();
+		String dir;
+		String mode;
+		boolean error = false;
+
+		try {
+
+			switch (extDb.type) {
+
+				case DB_TYPE_CDBS: {
+					db.query(
+					"SELECT " +
+						"am_ant_sys.lat_dir," +
+						"am_ant_sys.lat_deg," +
+						"am_ant_sys.lat_min," +
+						"am_ant_sys.lat_sec," +
+						"am_ant_sys.lon_dir," +
+						"am_ant_sys.lon_deg," +
+						"am_ant_sys.lon_min," +
+						"am_ant_sys.lon_sec," +
+						"facility.fac_callsign, " +
+						"application.fac_frequency, " +
+						"am_ant_sys.am_dom_status," +
+						"CONCAT(am_ant_sys.ant_mode, ' ', am_ant_sys.hours_operation)," +
+						"facility.comm_city, " +
+						"facility.comm_state, " +
+						"application.file_prefix, " +
+						"application.app_arn " +
+					"FROM " +
+						"am_ant_sys " +
+						"JOIN application USING (application_id) " +
+						"JOIN facility USING (facility_id) " +
+					"WHERE " +
+						"(am_ant_sys.eng_record_type NOT IN ('P','A','R')) " +
+					"ORDER BY " +
+						"14, 13, 10, 12");
+					break;
+				}
+
+				case DB_TYPE_LMS: {
+					db.query(
+					"SELECT " +
+						"gis_am_ant_sys.lat_dir," +
+						"gis_am_ant_sys.lat_deg," +
+						"gis_am_ant_sys.lat_min," +
+						"gis_am_ant_sys.lat_sec," +
+						"gis_am_ant_sys.lon_dir," +
+						"gis_am_ant_sys.lon_deg," +
+						"gis_am_ant_sys.lon_min," +
+						"gis_am_ant_sys.lon_sec," +
+						"gis_facility.fac_callsign, " +
+						"gis_application.fac_frequency, " +
+						"gis_am_ant_sys.am_dom_status," +
+						"CONCAT(gis_am_ant_sys.ant_mode, ' ', gis_am_ant_sys.hours_operation)," +
+						"gis_facility.comm_city, " +
+						"gis_facility.comm_state, " +
+						"gis_application.file_prefix, " +
+						"gis_application.app_arn " +
+					"FROM " +
+						"gis_am_ant_sys " +
+						"JOIN gis_application USING (application_id) " +
+						"JOIN gis_facility USING (facility_id) " +
+					"WHERE " +
+						"(gis_am_ant_sys.eng_record_type NOT IN ('P','A','R')) " +
+					"ORDER BY " +
+						"14, 13, 10, 12");
+					break;
+				}
+
+				case DB_TYPE_LMS_LIVE: {
+					db.query(
+					"SELECT " +
+						"gis_am_ant_sys.lat_dir," +
+						"gis_am_ant_sys.lat_deg," +
+						"gis_am_ant_sys.lat_min," +
+						"gis_am_ant_sys.lat_sec," +
+						"gis_am_ant_sys.lon_dir," +
+						"gis_am_ant_sys.lon_deg," +
+						"gis_am_ant_sys.lon_min," +
+						"gis_am_ant_sys.lon_sec," +
+						"gis_facility.fac_callsign, " +
+						"gis_application.fac_frequency, " +
+						"gis_am_ant_sys.am_dom_status," +
+						"gis_am_ant_sys.ant_mode || ' ' || gis_application.hours_operation," +
+						"gis_facility.comm_city, " +
+						"gis_facility.comm_state, " +
+						"gis_application.file_prefix, " +
+						"gis_application.app_arn " +
+					"FROM " +
+						"mass_media.gis_am_ant_sys " +
+						"JOIN mass_media.gis_application USING (application_id) " +
+						"JOIN mass_media.gis_facility USING (facility_id) " +
+					"WHERE " +
+						"(gis_am_ant_sys.eng_record_type NOT IN ('P','A','R')) " +
+					"ORDER BY " +
+						"14, 13, 10, 12");
+					break;
+				}
+
+				default: {
+					error = true;
+					break;
+				}
+			}
+
+			if (!error) {
+
+				while (db.next()) {
+
+					point.latitudeNS = 0;
+					dir = db.getString(1);
+					if ((null != dir) && dir.equalsIgnoreCase("S")) {
+						point.latitudeNS = 1;
+					}
+					point.latitudeDegrees = db.getInt(2);
+					point.latitudeMinutes = db.getInt(3);
+					point.latitudeSeconds = db.getDouble(4);
+
+					point.longitudeWE = 0;
+					dir = db.getString(5);
+					if ((null != dir) && dir.equalsIgnoreCase("E")) {
+						point.longitudeWE = 1;
+					}
+					point.longitudeDegrees = db.getInt(6);
+					point.longitudeMinutes = db.getInt(7);
+					point.longitudeSeconds = db.getDouble(8);
+
+					point.updateLatLon();
+					point.convertFromNAD27();
+
+					mode = db.getString(12);
+					if (null == mode) {
+						mode = "";
+					}
+
+					theLats.add(Double.valueOf(point.latitude));
+					theLons.add(Double.valueOf(point.longitude));
+					theNDs.add(Boolean.valueOf(mode.startsWith("ND")));
+					theLines.add(db.getString(9) + " " + db.getInt(10) + " " + db.getString(11) + " " + mode + " " +
+						db.getString(13) + ", " + db.getString(14) + " " + db.getString(15) + db.getString(16) + "\n");
+				}
+			}
+
+		} catch (SQLException se) {
+			DbConnection.reportError(se);
+			error = true;
+		}
+
+		extDb.releaseDb(db);
+
+		if (error) {
+			return null;
+		}
+
+		return new AMSiteIndex(theLats, theLons, theNDs, theLines);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Create a new generic import data set database, which stores data in a table structure created by the Source
+	// class, identical to what is used in an actual study database.  Searches are managed by SourceEditData rather
+	// than ExtDbRecord.  The database is initially empty, the caller will populate it by creating SourceEditData
+	// objects and saving those directly.  It is possible to add to a generic data set with multiple imports.
+
+	public static Integer createNewGenericDatabase(String theDbID, int dataType, String theName) {
+		return createNewGenericDatabase(theDbID, dataType, theName, null);
+	}
+
+	public static Integer createNewGenericDatabase(String theDbID, int dataType, String theName, ErrorLogger errors) {
+
+		if (!isGeneric(dataType)) {
+			if (null != errors) {
+				errors.reportError("Cannot create station data, unknown or unsupported data type.");
+			}
+			return null;
+		}
+
+		// Open database connection, lock tables, get a new key for the data set.
+
+		DbConnection db = DbCore.connectDb(theDbID, errors);
+		if (null == db) {
+			return null;
+		}
+
+		String errmsg = null, theDbName = null, rootName = DbCore.getDbName(theDbID);
+		boolean error = false;
+		int newKey = 0;
+
+		try {
+
+			newKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_EXT_DB);
+
+			// A range of keys is reserved for internally-composed objects, skip if needed.
+
+			if ((newKey >= RESERVED_KEY_RANGE_START) && (newKey <= RESERVED_KEY_RANGE_END)) {
+				KeyAllocator.skipKeys(theDbID, KeyAllocator.SEQUENCE_EXT_DB, (RESERVED_KEY_RANGE_END + 1));
+				newKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_EXT_DB);
+			}
+
+			// Create the database and tables.
+
+			theDbName = makeDbName(rootName, dataType, Integer.valueOf(newKey));
+			db.update("CREATE DATABASE " + theDbName + " CHARACTER SET latin1");
+			Source.createTables(db, theDbName);
+
+			// Generate ID string and save the index record.
+
+			String theID = AppCore.formatDateTime(new java.util.Date());
+
+			if (null == theName) {
+				theName = "";
+			}
+
+			db.setDatabase(rootName);
+
+			// Check the ID and name for uniqueness, append the key as a suffix if needed.  Save the new index entry in
+			// the ext_db table.
+
+			db.update("LOCK TABLES ext_db WRITE");
+
+			db.query("SELECT ext_db_key FROM ext_db WHERE (id = '" + db.clean(theID) + "')");
+			if (db.next()) {
+				theID = theID + " " + String.valueOf(DbCore.NAME_UNIQUE_CHAR) + String.valueOf(newKey);
+			}
+
+			if (theName.length() > 0) {
+				db.query("SELECT ext_db_key FROM ext_db WHERE (UPPER(name) = '" +
+					db.clean(theName.toUpperCase()) + "')");
+				if (db.next()) {
+					theName = theName + " " + String.valueOf(DbCore.NAME_UNIQUE_CHAR) + String.valueOf(newKey);
+				}
+			}
+
+			db.update(
+			"INSERT INTO ext_db (" +
+				"ext_db_key, " +
+				"db_type, " +
+				"db_date, " +
+				"version, " +
+				"id, " +
+				"name, " +
+				"deleted, " +
+				"locked, " +
+				"is_download) "+
+			"VALUES (" +
+				newKey + ", "  +
+				dataType + ", " +
+				"NOW(), " +
+				"0, " +
+				"'" + db.clean(theID) + "', " +
+				"'" + db.clean(theName) + "', " +
+				"false, " +
+				"false, " +
+				"false)");
+
+		} catch (SQLException se) {
+			errmsg = "A database error occurred:\n" + se;
+			error = true;
+			db.reportError(se);
+		}
+
+		// Make sure table locks are released, if an error occurred also drop the database.
+
+		try {
+			db.update("UNLOCK TABLES");
+			if (error && (null != theDbName)) {
+				db.update("DROP DATABASE IF EXISTS " + theDbName);
+			}
+		} catch (SQLException se) {
+			db.reportError(se);
+		}
+
+		DbCore.releaseDb(db);
+
+		if ((null != errmsg) && (null != errors)) {
+			if (error) {
+				errors.reportError(errmsg);
+			} else {
+				errors.reportWarning(errmsg);
+			}
+		}
+
+		if (error) {
+			return null;
+		}
+
+		reloadCache(theDbID);
+
+		return Integer.valueOf(newKey);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Wrapper around createNewDatabase() for creating a new wireless database.  The source files are in CSV format,
+	// lines are validated and translated into table rows in parallel and inserted directly into the new database, see
+	// WirelessImport.  The data in the CSV files is often manually-composed so errors are much more likely than in
+	// typical SQL dump files.  Any error stops the import, errors and messages identify the file and line.  Since lines
+	// are validated during the insert, a bad line is not found until after the new database has been created, so on
+	// error the database is created and then dropped.  Returns the key for the new database, or null on error.
+
+	public static Integer createNewWirelessDatabase(String theDbID, File stationFile, File patternFile,
 			String theName) {
 		return createNewWirelessDatabase(theDbID, stationFile, patternFile, theName, null, null);
 	}
@@ -1849,597 +2674,1009 @@ public class ExtDb {
 		return createNewWirelessDatabase(theDbID, stationFile, patternFile, theName, null, errors);
 	}
 
-	public static Integer createNewWirelessDatabase(String theDbID, File stationFile, File patternFile, String theName,
-			StatusLogger status) {
-		return createNewWirelessDatabase(theDbID, stationFile, patternFile, theName, status, null);
-	}
+	public static Integer createNewWirelessDatabase(String theDbID, File stationFile, File patternFile, String theName,
+			StatusLogger status) {
+		return createNewWirelessDatabase(theDbID, stationFile, patternFile, theName, status, null);
+	}
+
+	public static Integer createNewWirelessDatabase(String theDbID, File stationFile, File patternFile, String theName,
+			StatusLogger status, ErrorLogger errors) {
+
+		String errmsg = null;
+
+		BufferedReader stationReader = null, patternReader = null;
+
+		// Open the CSV input files.
+
+		try {
+			stationReader = new BufferedReader(new FileReader(stationFile));
+		} catch (FileNotFoundException fe) {
+			errmsg = "Data file '" + stationFile.getName() + "' could not be opened";
+		}
+
+		if (null == errmsg) {
+			try {
+				patternReader = new BufferedReader(new FileReader(patternFile));
+			} catch (FileNotFoundException fe) {
+				errmsg = "Data file '" + patternFile.getName() + "' could not be opened";
+			}
+		}
+
+		// Create the database.
+
+		Integer result = null;
+
+		if (null == errmsg) {
+			WirelessImport theImport = new WirelessImport(stationReader, stationFile.getName(), patternReader,
+				patternFile.getName(), errors);
+			result = createNewDatabase(theDbID, DB_TYPE_WIRELESS, null, theImport, theName, status, false, errors);
+		}
+
+		// Close files.
+
+		if (null != stationReader) {
+			try {stationReader.close();} catch (IOException ie) {};
+		}
+		if (null != patternReader) {
+			try {patternReader.close();} catch (IOException ie) {};
+		}
+
+		if ((null != errmsg) && (null != errors)) {
+			errors.reportError(errmsg);
+		}
+
+		return result;
+	}
+
+
+	//=================================================================================================================
+	// Import of wireless station and pattern CSV files directly into the tables of a new database, see
+	// createNewWirelessDatabase() and createNewDatabase().  A reader thread reads the station file then the pattern
+	// file and groups lines into chunks, keeping the line numbers.  Parser threads validate the lines in a chunk and
+	// translate them into multi-row INSERT statements.  Statements are executed on the calling thread, which owns the
+	// connection, in file order.  The queues between stages are bounded so memory use does not depend on file size.
+	// Messages and any error from a chunk are reported when that chunk is reached in order, so messages appear in
+	// line order and the error reported is the first by line, as with a sequential parse.
+
+	// Each station line becomes one base table row.  Assign a key to each row, just use the line number.  In other
+	// types of station data the primary key is persistent across different imports but that isn't possible here, so
+	// the keys are valid only within a specific import.  The keys will never be exported.  Each pattern line becomes
+	// an index row with the ID, type, and name, and a separate pattern table row for each pattern point.
+
+	private static class WirelessImport {
+
+		private static final int CHUNK_LINES = 1000;
+		private static final int CHUNK_LENGTH = 500000;   // characters
+		private static final int QUEUE_SIZE = 20;   // chunks
+		private static final int MAX_PARSER_COUNT = 4;
+		private static final long POLL_TIME = 100L;   // milliseconds
+		private static final long STATUS_INTERVAL = 1000L;   // milliseconds
+
+		// Table indices, in the order of makeWirelessTableFiles().
+
+		private static final int BASE_TABLE = 0;
+		private static final int INDEX_TABLE = 1;
+		private static final int PATTERN_TABLE = 2;
+		private static final int TABLE_COUNT = 3;
+
+		private static final String[] TABLE_NAMES = {
+			WIRELESS_BASE_TABLE, WIRELESS_INDEX_TABLE, WIRELESS_PATTERN_TABLE
+		};
+
+		private BufferedReader stationReader;
+		private String stationFileName;
+		private BufferedReader patternReader;
+		private String patternFileName;
+		private ErrorLogger errors;
+
+		// Pipeline state.
+
+		private ArrayBlockingQueue<Chunk> parseQueue;
+		private ArrayBlockingQueue<Chunk> writeQueue;
+
+		private volatile boolean readDone;
+		private volatile boolean stopped;
+
+		// Set by importTables(), canceled is true if the import stopped on a cancel from the status logger.
+
+		private boolean canceled;
+		private int stationLineCount;
+		private int patternLineCount;
+
+
+		//=============================================================================================================
+		// A block of lines from one file, and the results of parsing those.  Statements are complete INSERTs, each
+		// with the number of the last line contributing rows for error reporting.  The parsed flag is protected by
+		// the chunk lock, it is set by the parser after all results are set.  The reader sends a chunk with the last
+		// flag set at the end of input.  An I/O error in the reader is sent as a chunk with the error already set.
+
+		private static class Chunk {
+
+			private boolean isPattern;
+			private boolean isLast;
+
+			private String[] lines;
+			private int[] lineNumbers;
+			private int lineCount;
+			private int length;
+
+			private StringBuilder[] queries;
+			private ArrayList<String> statements;
+			private ArrayList<Integer> statementLines;
+			private int[] rowCounts;
+
+			private ArrayList<String> messages;
+			private String errmsg;
+
+			private boolean parsed;
+
+
+			//---------------------------------------------------------------------------------------------------------
+
+			private Chunk(boolean theIsPattern) {
+
+				isPattern = theIsPattern;
+
+				lines = new String[CHUNK_LINES];
+				lineNumbers = new int[CHUNK_LINES];
+
+				queries = new StringBuilder[TABLE_COUNT];
+				statements = new ArrayList<String>();
+				statementLines = new ArrayList<Integer>();
+				rowCounts = new int[TABLE_COUNT];
+
+				messages = new ArrayList<String>();
+			}
+
+
+			//---------------------------------------------------------------------------------------------------------
+			// Add a row of values to the INSERT for a table.  If the query string gets too long it becomes a
+			// statement and a new query is started with the next row.
+
+			private void addRow(int theTable, CharSequence theValues, int lineNumber) {
+
+				StringBuilder query = queries[theTable];
+				if (null == query) {
+					query = new StringBuilder("INSERT INTO " + TABLE_NAMES[theTable] + " VALUES (");
+					queries[theTable] = query;
+				} else {
+					query.append(",(");
+				}
+				query.append(theValues);
+				query.append(')');
 
-	public static Integer createNewWirelessDatabase(String theDbID, File stationFile, File patternFile, String theName,
-			StatusLogger status, ErrorLogger errors) {
+				rowCounts[theTable]++;
 
-		String errmsg = null;
+				if (query.length() > DbCore.MAX_QUERY_LENGTH) {
+					statements.add(query.toString());
+					statementLines.add(Integer.valueOf(lineNumber));
+					queries[theTable] = null;
+				}
+			}
 
-		BufferedReader stationReader = null, patternReader = null;
-		File theDirectory = null, baseFile = null, patIndexFile = null, patFile = null;
-		BufferedWriter baseWriter = null, patIndexWriter = null, patWriter = null;
 
-		// Open the CSV input files.
+			//---------------------------------------------------------------------------------------------------------
+			// Finish all queries as statements.
 
-		try {
-			stationReader = new BufferedReader(new FileReader(stationFile));
-		} catch (FileNotFoundException fe) {
-			errmsg = "Data file '" + stationFile.getName() + "' could not be opened";
-		}
+			private void finish(int lineNumber) {
 
-		if (null == errmsg) {
-			try {
-				patternReader = new BufferedReader(new FileReader(patternFile));
-			} catch (FileNotFoundException fe) {
-				errmsg = "Data file '" + patternFile.getName() + "' could not be opened";
+				for (int i = 0; i < TABLE_COUNT; i++) {
+					if (null != queries[i]) {
+						statements.add(queries[i].toString());
+						statementLines.add(Integer.valueOf(lineNumber));
+						queries[i] = null;
+					}
+				}
 			}
 		}
 
-		// Create a temporary directory and the output table files.
 
-		if (null == errmsg) {
+		//-------------------------------------------------------------------------------------------------------------
 
-			try {
+		private WirelessImport(BufferedReader theStationReader, String theStationFileName,
+				BufferedReader thePatternReader, String thePatternFileName, ErrorLogger theErrors) {
 
-				theDirectory = Files.createTempDirectory("wl_import").toFile();
+			stationReader = theStationReader;
+			stationFileName = theStationFileName;
+			patternReader = thePatternReader;
+			patternFileName = thePatternFileName;
+			errors = theErrors;
+		}
 
-				baseFile = new File(theDirectory, ExtDb.WIRELESS_BASE_FILE);
-				baseWriter = new BufferedWriter(new FileWriter(baseFile));
 
-				patIndexFile = new File(theDirectory, ExtDb.WIRELESS_INDEX_FILE);
-				patIndexWriter = new BufferedWriter(new FileWriter(patIndexFile));
+		//-------------------------------------------------------------------------------------------------------------
+		// Create and load the tables, the connection must be set to the new database.  Returns null on success or on
+		// cancel, else an error message.  Tables are not dropped on error, the caller will drop the database.
 
-				patFile = new File(theDirectory, ExtDb.WIRELESS_PATTERN_FILE);
-				patWriter = new BufferedWriter(new FileWriter(patFile));
+		private String importTables(DbConnection db, StatusLogger status) {
 
-			} catch (IOException ie) {
-				errmsg = "Could not create temporary files for data transfer";
-			}
-		}
+			long startTime = System.nanoTime();
 
-		// Copy data from the main station file.  Assign a key to each row, just use the line counter.  In other types
-		// of station data the primary key is persistent across different imports but that isn't possible here, so the
-		// keys are valid only within a specific import.  The keys will never be exported.
+			parseQueue = new ArrayBlockingQueue<Chunk>(QUEUE_SIZE);
+			writeQueue = new ArrayBlockingQueue<Chunk>(QUEUE_SIZE);
 
-		if (null == errmsg) {
+			readDone = false;
+			stopped = false;
 
-			String fileName = "", line, str;
-			AppCore.Counter lineCount = new AppCore.Counter(0);
-			String[] fields;
+			canceled = false;
+			stationLineCount = 0;
+			patternLineCount = 0;
+
+			String errmsg = null;
 
 			try {
+				for (TableFile theFile : makeWirelessTableFiles(null, null)) {
+					errmsg = createTable(db, theFile, theFile.fieldNames, theFile.fieldNames.length,
+						new boolean[theFile.fieldNames.length]);
+					if (null != errmsg) {
+						return errmsg;
+					}
+				}
+			} catch (SQLException se) {
+				db.reportError(se);
+				return "A database error occurred:\n" + se;
+			}
 
-				fileName = stationFile.getName();
+			// Start the parsers and the reader.  As in ImportXML, the parser count leaves one processor for the reader
+			// and one for this thread, which mostly waits on the server.
 
-				String cellSiteID, sectorID, referenceNumber, city, state, country;
-				double cellLat, cellLon, rcAMSL, haat, erp, orientation, eTilt, mTilt, mTiltOrientation;
-				int azAntID, elAntID;
+			int parserCount = Math.max(1, Math.min(MAX_PARSER_COUNT, (AppCore.availableCPUCount - 2)));
 
-				while (true) {
+			ArrayList<Thread> threads = new ArrayList<Thread>();
+			Thread theThread;
 
-					line = AppCore.readLineSkipComments(stationReader, lineCount);
-					if (null == line) {
-						break;
-					}
-					if (line.contains("|")) {
-						errmsg = "Illegal character '|' in '" + fileName + "' at line " + lineCount;
-						break;
+			for (int i = 0; i < parserCount; i++) {
+				theThread = new Thread() {
+					public void run() {
+						runParser();
 					}
-					fields = line.split(",");
+				};
+				theThread.setName("WirelessImport parser " + (i + 1));
+				theThread.setDaemon(true);
+				threads.add(theThread);
+				theThread.start();
+			}
+
+			theThread = new Thread() {
+				public void run() {
+					runReader();
+				}
+			};
+			theThread.setName("WirelessImport reader");
+			theThread.setDaemon(true);
+			threads.add(theThread);
+			theThread.start();
+
+			// Take chunks in order, wait for each to be parsed.  Report messages, stop on an error, else execute the
+			// statements.  Check for cancel and update status along the way.
+
+			String fileName = stationFileName;
+			int lineNumber = 0, i;
+			boolean isPattern = false;
+			long lastStatusTime = 0L, now;
+			int[] rowCounts = new int[TABLE_COUNT];
+
+			if (null != status) {
+				status.logMessage("Importing data file " + stationFileName + "...");
+			}
+
+			try {
+
+				Chunk theChunk;
 
-					// The reference number, city, state, and country fields at the end of the line are optional and
-					// may all be missing or empty if present.
+				while (true) {
 
-					if ((fields.length < 13) || (fields.length > 17)) {
-						errmsg = "Bad field count in '" + fileName + "' at line " + lineCount;
+					if ((null != status) && status.isCanceled()) {
+						canceled = true;
 						break;
 					}
 
-					// The cell site ID string must not be empty, the sector ID may be.  The site and sector IDs have
-					// limited length, if exceeded truncate and log an informational message.  Neither may contain a
-					// '|' character as that is used in the SQL data file as field separator.
-
-					cellSiteID = fields[0].trim();
-					if (0 == cellSiteID.length()) {
-						errmsg = "Missing cell site ID in '" + fileName + "' at line " + lineCount;
+					theChunk = writeQueue.poll(POLL_TIME, TimeUnit.MILLISECONDS);
+					if (null == theChunk) {
+						continue;
+					}
+					if (theChunk.isLast) {
 						break;
 					}
-					if (cellSiteID.length() > Source.MAX_CALL_SIGN_LENGTH) {
-						cellSiteID = cellSiteID.substring(0, Source.MAX_CALL_SIGN_LENGTH);
-						if (null != errors) {
-							errors.logMessage("Cell site ID too long, truncated, in '" + fileName + "' at line " +
-								lineCount);
+
+					synchronized (theChunk) {
+						while (!theChunk.parsed) {
+							theChunk.wait(POLL_TIME);
 						}
 					}
 
-					sectorID = fields[1].trim();
-					if (sectorID.length() > Source.MAX_SECTOR_ID_LENGTH) {
-						sectorID = sectorID.substring(0, Source.MAX_SECTOR_ID_LENGTH);
-						if (null != errors) {
-							errors.logMessage("Sector ID too long, truncated, in '" + fileName + "' at line " +
-								lineCount);
+					if (theChunk.isPattern && !isPattern) {
+						isPattern = true;
+						fileName = patternFileName;
+						if (null != status) {
+							status.logMessage("Importing data file " + patternFileName + "...");
 						}
 					}
 
-					// Check for valid numbers in latitude, longitude, AMSL height, HAAT, and ERP.
-
-					cellLat = Source.LATITUDE_MIN - 1.;
-					str = fields[2].trim();
-					if (str.length() > 0) {
-						try {
-							cellLat = Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
+					if (null != errors) {
+						for (String theMessage : theChunk.messages) {
+							errors.logMessage(theMessage);
 						}
 					}
-					if ((cellLat < Source.LATITUDE_MIN) || (cellLat > Source.LATITUDE_MAX)) {
-						errmsg = "Missing or bad latitude in '" + fileName + "' at line " + lineCount;
+
+					if (null != theChunk.errmsg) {
+						errmsg = theChunk.errmsg;
 						break;
 					}
 
-					// Longitude is negative west in this data, reverse the sign.
+					for (i = 0; i < theChunk.statements.size(); i++) {
+						lineNumber = theChunk.statementLines.get(i).intValue();
+						db.update(theChunk.statements.get(i));
+					}
 
-					cellLon = Source.LONGITUDE_MIN - 1.;
-					str = fields[3].trim();
-					if (str.length() > 0) {
-						try {
-							cellLon = -Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
-						}
+					for (i = 0; i < TABLE_COUNT; i++) {
+						rowCounts[i] += theChunk.rowCounts[i];
 					}
-					if ((cellLon < Source.LONGITUDE_MIN) || (cellLon > Source.LONGITUDE_MAX)) {
-						errmsg = "Missing or bad longitude in '" + fileName + "' at line " + lineCount;
-						break;
+					if (theChunk.isPattern) {
+						patternLineCount += theChunk.lineCount;
+					} else {
+						stationLineCount += theChunk.lineCount;
 					}
 
-					rcAMSL = Source.HEIGHT_MIN - 1.;
-					str = fields[4].trim();
-					if (str.length() > 0) {
-						try {
-							rcAMSL = Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
-						}
-					}
-					if ((rcAMSL < Source.HEIGHT_MIN) || (rcAMSL > Source.HEIGHT_MAX)) {
-						errmsg = "Missing or bad AMSL height in '" + fileName + "' at line " + lineCount;
-						break;
+					now = System.currentTimeMillis();
+					if ((null != status) && ((now - lastStatusTime) > STATUS_INTERVAL)) {
+						lastStatusTime = now;
+						status.reportStatus("Imported " + AppCore.formatCount(stationLineCount) + " station and " +
+							AppCore.formatCount(patternLineCount) + " pattern lines...");
 					}
+				}
+
+			} catch (SQLException se) {
+				errmsg = "A database error occurred on data file '" + fileName + "' at line " + lineNumber + ":\n" +
+					se;
+				db.reportError(se);
+
+			} catch (Throwable t) {
+				errmsg = "An unexpected error occurred on data file '" + fileName + "' at line " + lineNumber + ":\n" +
+					t;
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+			}
+
+			// Stop the other stages if needed and wait for them to exit.
+
+			stopped = true;
+
+			for (Thread aThread : threads) {
+				try {
+					aThread.join();
+				} catch (InterruptedException ie) {
+				}
+			}
+
+			if ((null != errmsg) || canceled) {
+				return errmsg;
+			}
+
+			// Report throughput.
+
+			long elapsedTime = System.nanoTime() - startTime;
+
+			AppMetrics.increment(AppMetrics.WIRELESS_IMPORT_LINES, (long)stationLineCount, "file", "station");
+			AppMetrics.increment(AppMetrics.WIRELESS_IMPORT_LINES, (long)patternLineCount, "file", "pattern");
+			AppMetrics.recordTime(AppMetrics.WIRELESS_IMPORT_SECONDS, elapsedTime);
+			for (i = 0; i < TABLE_COUNT; i++) {
+				AppMetrics.increment(AppMetrics.IMPORT_ROWS, (long)rowCounts[i], "table", TABLE_NAMES[i]);
+			}
+
+			if (null != status) {
+				double seconds = (double)elapsedTime / 1.e9;
+				int lineCount = stationLineCount + patternLineCount;
+				String rate = "";
+				if (seconds > 0.) {
+					rate = ", " + AppCore.formatCount((long)((double)lineCount / seconds)) + " lines per second";
+				}
+				status.logMessage("Imported " + AppCore.formatCount(stationLineCount) + " station and " +
+					AppCore.formatCount(patternLineCount) + " pattern lines in " +
+					String.format(Locale.US, "%.1f", seconds) + " seconds" + rate);
+			}
+
+			return null;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Reader thread.  Read the station file then the pattern file, grouping lines into chunks by line count and
+		// total length.  When the reader stops for any reason the last chunk is sent so the writer always finishes.
+
+		private void runReader() {
+
+			Chunk theChunk = null;
+			String fileName = stationFileName, line;
+			AppCore.Counter lineCount = new AppCore.Counter(0);
+			BufferedReader theReader = stationReader;
+			boolean isPattern = false;
+
+			try {
+
+				while (!stopped) {
+
+					line = AppCore.readLineSkipComments(theReader, lineCount);
 
-					haat = Source.HEIGHT_MIN - 1.;
-					str = fields[5].trim();
-					if (str.length() > 0) {
-						try {
-							haat = Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
+					if (null == line) {
+						if (null != theChunk) {
+							sendChunk(theChunk);
+							theChunk = null;
 						}
-					}
-					if ((haat < Source.HEIGHT_MIN) || (haat > Source.HEIGHT_MAX)) {
-						errmsg = "Missing or bad HAAT in '" + fileName + "' at line " + lineCount;
-						break;
+						if (isPattern) {
+							break;
+						}
+						isPattern = true;
+						fileName = patternFileName;
+						theReader = patternReader;
+						lineCount.reset();
+						continue;
 					}
 
-					erp = Source.ERP_MIN - 1.;
-					str = fields[6].trim();
-					if (str.length() > 0) {
-						try {
-							erp = Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
-						}
+					if (null == theChunk) {
+						theChunk = new Chunk(isPattern);
 					}
-					if ((erp < Source.ERP_MIN) || (erp > Source.ERP_MAX)) {
-						errmsg = "Bad ERP in '" + fileName + "' at line " + lineCount;
-						break;
+					theChunk.lines[theChunk.lineCount] = line;
+					theChunk.lineNumbers[theChunk.lineCount++] = lineCount.get();
+					theChunk.length += line.length();
+
+					if ((CHUNK_LINES == theChunk.lineCount) || (theChunk.length >= CHUNK_LENGTH)) {
+						sendChunk(theChunk);
+						theChunk = null;
 					}
+				}
 
-					azAntID = 0;
-					str = fields[7].trim();
-					if (str.length() > 0) {
-						azAntID = -1;
-						try {
-							azAntID = Integer.parseInt(str);
-						} catch (NumberFormatException ne) {
-						}
-						if (azAntID < 0) {
-							errmsg = "Bad azimuth antenna ID in '" + fileName + "' at line " + lineCount;
-							break;
-						}
+			} catch (IOException ie) {
+				theChunk = new Chunk(isPattern);
+				theChunk.errmsg = "An I/O error occurred in '" + fileName + "' at line " + lineCount + ":\n" + ie;
+				theChunk.parsed = true;
+				sendChunk(theChunk);
+
+			} catch (Throwable t) {
+				theChunk = new Chunk(isPattern);
+				theChunk.errmsg = "An unexpected error occurred in '" + fileName + "' at line " + lineCount + ":\n" + t;
+				theChunk.parsed = true;
+				sendChunk(theChunk);
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+			}
+
+			theChunk = new Chunk(isPattern);
+			theChunk.isLast = true;
+			theChunk.parsed = true;
+			sendChunk(theChunk);
+
+			readDone = true;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Queue a chunk for the writer first so order is preserved, then for the parsers if needed.  Gives up if the
+		// import is stopped.
+
+		private void sendChunk(Chunk theChunk) {
+
+			try {
+
+				while (!writeQueue.offer(theChunk, POLL_TIME, TimeUnit.MILLISECONDS)) {
+					if (stopped) {
+						return;
 					}
+				}
 
-					// Orientation and tilt values are always parsed even if pattern ID indicates omni, and all default
-					// to 0 if the field is empty, again regardless of omni.
-
-					orientation = 0.;
-					str = fields[8].trim();
-					if (str.length() > 0) {
-						try {
-							orientation = Math.IEEEremainder(Double.parseDouble(str), 360.);
-							if (orientation < 0.) orientation += 360.;
-						} catch (NumberFormatException ne) {
-							errmsg = "Bad pattern orientation in '" + fileName + "' at line " + lineCount;
-							break;
+				if (!theChunk.parsed) {
+					while (!parseQueue.offer(theChunk, POLL_TIME, TimeUnit.MILLISECONDS)) {
+						if (stopped) {
+							return;
 						}
 					}
+				}
 
-					elAntID = 0;
-					str = fields[9].trim();
-					if (str.length() > 0) {
-						elAntID = -1;
-						try {
-							elAntID = Integer.parseInt(str);
-						} catch (NumberFormatException ne) {
-						}
-						if (elAntID < 0) {
-							errmsg = "Bad elevation antenna ID in '" + fileName + "' at line " + lineCount;
-							break;
-						}
+			} catch (InterruptedException ie) {
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Parser thread.  Take chunks until the reader is done and the queue is empty, parse each line in the chunk
+		// until an error occurs, then mark the chunk parsed.  The line text is released once parsed.
+
+		private void runParser() {
+
+			Chunk theChunk;
+			int i, lineNumber = 0;
+
+			while (!stopped) {
+
+				try {
+					theChunk = parseQueue.poll(POLL_TIME, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException ie) {
+					break;
+				}
+				if (null == theChunk) {
+					if (readDone && parseQueue.isEmpty()) {
+						break;
 					}
+					continue;
+				}
 
-					eTilt = 0.;
-					str = fields[10].trim();
-					if (str.length() > 0) {
-						eTilt = AntPattern.TILT_MIN - 1.;
-						try {
-							eTilt = Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
+				try {
+
+					for (i = 0; i < theChunk.lineCount; i++) {
+						lineNumber = theChunk.lineNumbers[i];
+						if (theChunk.isPattern) {
+							theChunk.errmsg = parsePatternLine(theChunk, theChunk.lines[i], lineNumber);
+						} else {
+							theChunk.errmsg = parseStationLine(theChunk, theChunk.lines[i], lineNumber);
 						}
-						if ((eTilt < AntPattern.TILT_MIN) || (eTilt > AntPattern.TILT_MAX)) {
-							errmsg = "Bad electrical tilt in '" + fileName + "' at line " + lineCount;
+						if (null != theChunk.errmsg) {
 							break;
 						}
 					}
 
-					mTilt = 0.;
-					str = fields[11].trim();
-					if (str.length() > 0) {
-						mTilt = AntPattern.TILT_MIN - 1.;
-						try {
-							mTilt = Double.parseDouble(str);
-						} catch (NumberFormatException ne) {
-						}
-						if ((mTilt < AntPattern.TILT_MIN) || (mTilt > AntPattern.TILT_MAX)) {
-							errmsg = "Bad mechanical tilt in '" + fileName + "' at line " + lineCount;
-							break;
-						}
+					if (null == theChunk.errmsg) {
+						theChunk.finish(lineNumber);
 					}
 
-					// The tilt orientation defaults to the pattern orientation.
+				} catch (Throwable t) {
+					theChunk.errmsg = "An unexpected error occurred in '" +
+						(theChunk.isPattern ? patternFileName : stationFileName) + "' at line " + lineNumber + ":\n" +
+						t;
+					AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+				}
 
-					mTiltOrientation = orientation;
-					str = fields[12].trim();
-					if (str.length() > 0) {
-						try {
-							mTiltOrientation = Math.IEEEremainder(Double.parseDouble(str), 360.);
-							if (mTiltOrientation < 0.) mTiltOrientation += 360.;
-						} catch (NumberFormatException ne) {
-							errmsg = "Bad mechanical tilt orientation in '" + fileName + "' at line " + lineCount;
-							break;
-						}
-					}
+				theChunk.lines = null;
+
+				synchronized (theChunk) {
+					theChunk.parsed = true;
+					theChunk.notifyAll();
+				}
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Parse a line from the station file and add the row to the chunk.  Returns null on success, else an error
+		// message.  Informational messages are added to the chunk.
+
+		private String parseStationLine(Chunk theChunk, String line, int lineCount) {
+
+			String fileName = stationFileName, str;
+			String[] fields;
+
+			String cellSiteID, sectorID, referenceNumber, city, state, country;
+			double cellLat, cellLon, rcAMSL, haat, erp, orientation, eTilt, mTilt, mTiltOrientation;
+			int azAntID, elAntID;
+
+			fields = line.split(",");
+
+			// The reference number, city, state, and country fields at the end of the line are optional and may all
+			// be missing or empty if present.
+
+			if ((fields.length < 13) || (fields.length > 17)) {
+				return "Bad field count in '" + fileName + "' at line " + lineCount;
+			}
+
+			// The cell site ID string must not be empty, the sector ID may be.  The site and sector IDs have limited
+			// length, if exceeded truncate and log an informational message.
+
+			cellSiteID = fields[0].trim();
+			if (0 == cellSiteID.length()) {
+				return "Missing cell site ID in '" + fileName + "' at line " + lineCount;
+			}
+			if (cellSiteID.length() > Source.MAX_CALL_SIGN_LENGTH) {
+				cellSiteID = cellSiteID.substring(0, Source.MAX_CALL_SIGN_LENGTH);
+				theChunk.messages.add("Cell site ID too long, truncated, in '" + fileName + "' at line " + lineCount);
+			}
+
+			sectorID = fields[1].trim();
+			if (sectorID.length() > Source.MAX_SECTOR_ID_LENGTH) {
+				sectorID = sectorID.substring(0, Source.MAX_SECTOR_ID_LENGTH);
+				theChunk.messages.add("Sector ID too long, truncated, in '" + fileName + "' at line " + lineCount);
+			}
+
+			// Check for valid numbers in latitude, longitude, AMSL height, HAAT, and ERP.
 
-					// Optional reference number, city, state, and country; if present there are length restrictions
-					// however truncation is not logged for these, this is secondary identifying information.
+			cellLat = Source.LATITUDE_MIN - 1.;
+			str = fields[2].trim();
+			if (str.length() > 0) {
+				try {
+					cellLat = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+			}
+			if ((cellLat < Source.LATITUDE_MIN) || (cellLat > Source.LATITUDE_MAX)) {
+				return "Missing or bad latitude in '" + fileName + "' at line " + lineCount;
+			}
+
+			// Longitude is negative west in this data, reverse the sign.
+
+			cellLon = Source.LONGITUDE_MIN - 1.;
+			str = fields[3].trim();
+			if (str.length() > 0) {
+				try {
+					cellLon = -Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+			}
+			if ((cellLon < Source.LONGITUDE_MIN) || (cellLon > Source.LONGITUDE_MAX)) {
+				return "Missing or bad longitude in '" + fileName + "' at line " + lineCount;
+			}
+
+			rcAMSL = Source.HEIGHT_MIN - 1.;
+			str = fields[4].trim();
+			if (str.length() > 0) {
+				try {
+					rcAMSL = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+			}
+			if ((rcAMSL < Source.HEIGHT_MIN) || (rcAMSL > Source.HEIGHT_MAX)) {
+				return "Missing or bad AMSL height in '" + fileName + "' at line " + lineCount;
+			}
+
+			haat = Source.HEIGHT_MIN - 1.;
+			str = fields[5].trim();
+			if (str.length() > 0) {
+				try {
+					haat = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+			}
+			if ((haat < Source.HEIGHT_MIN) || (haat > Source.HEIGHT_MAX)) {
+				return "Missing or bad HAAT in '" + fileName + "' at line " + lineCount;
+			}
+
+			erp = Source.ERP_MIN - 1.;
+			str = fields[6].trim();
+			if (str.length() > 0) {
+				try {
+					erp = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+			}
+			if ((erp < Source.ERP_MIN) || (erp > Source.ERP_MAX)) {
+				return "Bad ERP in '" + fileName + "' at line " + lineCount;
+			}
+
+			azAntID = 0;
+			str = fields[7].trim();
+			if (str.length() > 0) {
+				azAntID = -1;
+				try {
+					azAntID = Integer.parseInt(str);
+				} catch (NumberFormatException ne) {
+				}
+				if (azAntID < 0) {
+					return "Bad azimuth antenna ID in '" + fileName + "' at line " + lineCount;
+				}
+			}
+
+			// Orientation and tilt values are always parsed even if pattern ID indicates omni, and all default to 0 if
+			// the field is empty, again regardless of omni.
+
+			orientation = 0.;
+			str = fields[8].trim();
+			if (str.length() > 0) {
+				try {
+					orientation = Math.IEEEremainder(Double.parseDouble(str), 360.);
+					if (orientation < 0.) orientation += 360.;
+				} catch (NumberFormatException ne) {
+					return "Bad pattern orientation in '" + fileName + "' at line " + lineCount;
+				}
+			}
+
+			elAntID = 0;
+			str = fields[9].trim();
+			if (str.length() > 0) {
+				elAntID = -1;
+				try {
+					elAntID = Integer.parseInt(str);
+				} catch (NumberFormatException ne) {
+				}
+				if (elAntID < 0) {
+					return "Bad elevation antenna ID in '" + fileName + "' at line " + lineCount;
+				}
+			}
+
+			eTilt = 0.;
+			str = fields[10].trim();
+			if (str.length() > 0) {
+				eTilt = AntPattern.TILT_MIN - 1.;
+				try {
+					eTilt = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+				if ((eTilt < AntPattern.TILT_MIN) || (eTilt > AntPattern.TILT_MAX)) {
+					return "Bad electrical tilt in '" + fileName + "' at line " + lineCount;
+				}
+			}
+
+			mTilt = 0.;
+			str = fields[11].trim();
+			if (str.length() > 0) {
+				mTilt = AntPattern.TILT_MIN - 1.;
+				try {
+					mTilt = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+				}
+				if ((mTilt < AntPattern.TILT_MIN) || (mTilt > AntPattern.TILT_MAX)) {
+					return "Bad mechanical tilt in '" + fileName + "' at line " + lineCount;
+				}
+			}
+
+			// The tilt orientation defaults to the pattern orientation.
+
+			mTiltOrientation = orientation;
+			str = fields[12].trim();
+			if (str.length() > 0) {
+				try {
+					mTiltOrientation = Math.IEEEremainder(Double.parseDouble(str), 360.);
+					if (mTiltOrientation < 0.) mTiltOrientation += 360.;
+				} catch (NumberFormatException ne) {
+					return "Bad mechanical tilt orientation in '" + fileName + "' at line " + lineCount;
+				}
+			}
+
+			// Optional reference number, city, state, and country; if present there are length restrictions however
+			// truncation is not logged for these, this is secondary identifying information.
+
+			referenceNumber = "";
+			if (fields.length >= 14) {
+				referenceNumber = fields[13].trim();
+				if (referenceNumber.length() > Source.MAX_FILE_NUMBER_LENGTH) {
+					referenceNumber = referenceNumber.substring(0, Source.MAX_FILE_NUMBER_LENGTH);
+				}
+			}
+
+			city = "";
+			if (fields.length >= 15) {
+				city = fields[14].trim();
+				if (city.length() > Source.MAX_CITY_LENGTH) {
+					city = city.substring(0, Source.MAX_CITY_LENGTH);
+				}
+			}
+
+			state = "";
+			if (fields.length >= 16) {
+				state = fields[15].trim();
+				if (state.length() > Source.MAX_STATE_LENGTH) {
+					state = state.substring(0, Source.MAX_STATE_LENGTH);
+				}
+			}
 
-					referenceNumber = "";
-					if (fields.length >= 14) {
-						referenceNumber = fields[13].trim();
-						if (referenceNumber.length() > Source.MAX_FILE_NUMBER_LENGTH) {
-							referenceNumber = referenceNumber.substring(0, Source.MAX_FILE_NUMBER_LENGTH);
-						}
-					}
+			country = "";
+			if (fields.length >= 17) {
+				country = fields[16].trim();
+				if (country.length() > 2) {
+					country = country.substring(0, 2);
+				}
+			}
 
-					city = "";
-					if (fields.length >= 15) {
-						city = fields[14].trim();
-						if (city.length() > Source.MAX_CITY_LENGTH) {
-							city = city.substring(0, Source.MAX_CITY_LENGTH);
-						}
-					}
+			// Add the row.
+
+			StringBuilder values = new StringBuilder();
+			values.append(lineCount);               // cell_key
+			values.append(',');
+			appendText(values, cellSiteID);         // cell_site_id
+			values.append(',');
+			appendText(values, sectorID);           // sector_id
+			values.append(',');
+			values.append(cellLat);                 // cell_lat
+			values.append(',');
+			values.append(cellLon);                 // cell_lon
+			values.append(',');
+			values.append(rcAMSL);                  // rc_amsl
+			values.append(',');
+			values.append(haat);                    // haat
+			values.append(',');
+			values.append(erp);                     // erp
+			values.append(',');
+			values.append(azAntID);                 // az_ant_id
+			values.append(',');
+			values.append(orientation);             // orientation
+			values.append(',');
+			values.append(elAntID);                 // el_ant_id
+			values.append(',');
+			values.append(eTilt);                   // e_tilt
+			values.append(',');
+			values.append(mTilt);                   // m_tilt
+			values.append(',');
+			values.append(mTiltOrientation);        // m_tilt_orientation
+			values.append(',');
+			appendText(values, referenceNumber);    // reference_number
+			values.append(',');
+			appendText(values, city);               // city
+			values.append(',');
+			appendText(values, state);              // state
+			values.append(',');
+			appendText(values, country);            // country
+			theChunk.addRow(BASE_TABLE, values, lineCount);
 
-					state = "";
-					if (fields.length >= 16) {
-						state = fields[15].trim();
-						if (state.length() > Source.MAX_STATE_LENGTH) {
-							state = state.substring(0, Source.MAX_STATE_LENGTH);
-						}
-					}
+			return null;
+		}
 
-					country = "";
-					if (fields.length >= 17) {
-						country = fields[16].trim();
-						if (country.length() > 2) {
-							country = country.substring(0, 2);
-						}
-					}
 
-					// Write the row.
-
-					baseWriter.write(String.valueOf(lineCount));          // cell_key
-					baseWriter.write('|');
-					baseWriter.write(cellSiteID);                         // cell_site_id
-					baseWriter.write('|');
-					baseWriter.write(sectorID);                           // sector_id
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(cellLat));            // cell_lat
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(cellLon));            // cell_lon
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(rcAMSL));             // rc_amsl
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(haat));               // haat
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(erp));                // erp
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(azAntID));            // az_ant_id
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(orientation));        // orientation
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(elAntID));            // el_ant_id
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(eTilt));              // e_tilt
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(mTilt));              // m_tilt
-					baseWriter.write('|');
-					baseWriter.write(String.valueOf(mTiltOrientation));   // m_tilt_orientation
-					baseWriter.write('|');
-					baseWriter.write(referenceNumber);                    // reference_number
-					baseWriter.write('|');
-					baseWriter.write(city);                               // city
-					baseWriter.write('|');
-					baseWriter.write(state);                              // state
-					baseWriter.write('|');
-					baseWriter.write(country);                            // country
-					baseWriter.write("|^|");
-					baseWriter.newLine();
-				}
-
-				// If all went well with station data, copy the pattern data.  In the input the full pattern tabulation
-				// for each pattern is on a single line, break that out into an index of IDs, types, and names, and a
-				// separate data table with one pattern point per row.  Each pattern point has the degree and field
-				// values separated by a semicolon, with the points separated by commas. There must be at least 2
-				// points in a pattern.  Degree and field values are range-checked, and degree values are checked for
-				// correct order and for duplication.  Also check for a 1.0 field value, if not found log a warning
-				// message but continue.
-
-				if (null == errmsg) {
-
-					fileName = patternFile.getName();
-					lineCount.reset();
-
-					int antID, i;
-					char patType;
-					boolean isAzPat;
-					String patName, theID;
-					String[] patFields;
-					double degree, field, lastDegree, fieldMax;
-
-					while (true) {
-
-						line = AppCore.readLineSkipComments(patternReader, lineCount);
-						if (null == line) {
-							break;
-						}
-						fields = line.split(",");
-						if (fields.length < (AntPattern.PATTERN_REQUIRED_POINTS + 3)) {
-							errmsg = "Bad field count in '" + fileName + "' at line " + lineCount;
-							break;
-						}
+		//-------------------------------------------------------------------------------------------------------------
+		// Parse a line from the pattern file and add the rows to the chunk.  In the input the full pattern tabulation
+		// for each pattern is on a single line, break that out into an index row with the ID, type, and name, and
+		// one pattern table row per point.  Each pattern point has the degree and field values separated by a
+		// semicolon, with the points separated by commas.  There must be at least 2 points in a pattern.  Degree and
+		// field values are range-checked, and degree values are checked for correct order and for duplication.  Also
+		// check for a 1.0 field value, if not found log a message but continue.  Returns null on success, else an
+		// error message.
 
-						// Write to the pattern index, the ID and type are checked, the name must not be empty.
+		private String parsePatternLine(Chunk theChunk, String line, int lineCount) {
 
-						antID = -1;
-						str = fields[0].trim();
-						if (str.length() > 0) {
-							try {
-								antID = Integer.parseInt(str);
-							} catch (NumberFormatException ne) {
-							}
-						}
-						if (antID <= 0) {
-							errmsg = "Missing or bad antenna ID in '" + fileName + "' at line " + lineCount;
-							break;
-						}
-						theID = String.valueOf(antID);
+			String fileName = patternFileName, str;
+			String[] fields;
 
-						patType = ' ';
-						str = fields[1].trim();
-						if (str.length() > 0) {
-							patType = str.toUpperCase().charAt(0);
-						}
-						if (('A' != patType) && ('E' != patType)) {
-							errmsg = "Missing or bad pattern type in '" + fileName + "' at line " + lineCount;
-							break;
-						}
-						isAzPat = ('A' == patType);
+			int antID, i;
+			char patType;
+			boolean isAzPat;
+			String patName;
+			String[] patFields;
+			double degree, field, lastDegree, fieldMax;
 
-						patName = fields[2].trim();
-						if (0 == patName.length()) {
-							errmsg = "Missing pattern name in '" + fileName + "' at line " + lineCount;
-							break;
-						}
-						if (patName.length() > Source.MAX_PATTERN_NAME_LENGTH) {
-							patName = patName.substring(0, Source.MAX_PATTERN_NAME_LENGTH);
-							if (null != errors) {
-								errors.logMessage("Pattern name too long, truncated, in '" + fileName + "' at line " +
-									lineCount);
-							}
-						}
-						if (patName.contains("|")) {
-							errmsg = "Illegal character '|' in pattern name in '" + fileName + "' at line " +
-								lineCount;
-							break;
-						}
+			fields = line.split(",");
+			if (fields.length < (AntPattern.PATTERN_REQUIRED_POINTS + 3)) {
+				return "Bad field count in '" + fileName + "' at line " + lineCount;
+			}
 
-						// Write the index row.
+			// The ID and type are checked, the name must not be empty.
 
-						patIndexWriter.write(theID);     // ant_id
-						patIndexWriter.write('|');
-						patIndexWriter.write(patType);   // pat_type
-						patIndexWriter.write('|');
-						patIndexWriter.write(patName);   // name
-						patIndexWriter.write("|^|");
-						patIndexWriter.newLine();
+			antID = -1;
+			str = fields[0].trim();
+			if (str.length() > 0) {
+				try {
+					antID = Integer.parseInt(str);
+				} catch (NumberFormatException ne) {
+				}
+			}
+			if (antID <= 0) {
+				return "Missing or bad antenna ID in '" + fileName + "' at line " + lineCount;
+			}
 
-						// Copy the data points, check values.
+			patType = ' ';
+			str = fields[1].trim();
+			if (str.length() > 0) {
+				patType = str.toUpperCase().charAt(0);
+			}
+			if (('A' != patType) && ('E' != patType)) {
+				return "Missing or bad pattern type in '" + fileName + "' at line " + lineCount;
+			}
+			isAzPat = ('A' == patType);
 
-						if (isAzPat) {
-							lastDegree = AntPattern.AZIMUTH_MIN - 1.;
-						} else {
-							lastDegree = AntPattern.DEPRESSION_MIN - 1.;
-						}
-						fieldMax = 0.;
+			patName = fields[2].trim();
+			if (0 == patName.length()) {
+				return "Missing pattern name in '" + fileName + "' at line " + lineCount;
+			}
+			if (patName.length() > Source.MAX_PATTERN_NAME_LENGTH) {
+				patName = patName.substring(0, Source.MAX_PATTERN_NAME_LENGTH);
+				theChunk.messages.add("Pattern name too long, truncated, in '" + fileName + "' at line " + lineCount);
+			}
 
-						for (i = 3; i < fields.length; i++) {
+			// Add the index row.
 
-							patFields = fields[i].split(";");
-							if (patFields.length != 2) {
-								errmsg = "Bad pattern point format in '" + fileName + "' at line " + lineCount +
-									" point " + (i - 2);
-								break;
-							}
+			StringBuilder values = new StringBuilder();
+			values.append(antID);                          // ant_id
+			values.append(',');
+			appendText(values, String.valueOf(patType));   // pat_type
+			values.append(',');
+			appendText(values, patName);                   // name
+			theChunk.addRow(INDEX_TABLE, values, lineCount);
 
-							str = patFields[0].trim();
-							if (isAzPat) {
-								degree = AntPattern.AZIMUTH_MIN - 1.;
-							} else {
-								degree = AntPattern.DEPRESSION_MIN - 1.;
-							}
-							if (str.length() > 0) {
-								try {
-									degree = Double.parseDouble(str);
-								} catch (NumberFormatException ne) {
-								}
-							}
-							if (isAzPat) {
-								if ((degree < AntPattern.AZIMUTH_MIN) || (degree > AntPattern.AZIMUTH_MAX)) {
-									errmsg = "Bad azimuth in '" + fileName + "' at line " + lineCount + " point " +
-										(i - 2);
-									break;
-								}
-							} else {
-								if ((degree < AntPattern.DEPRESSION_MIN) || (degree > AntPattern.DEPRESSION_MAX)) {
-									errmsg = "Bad vertical angle in '" + fileName + "' at line " + lineCount +
-										" point " + (i - 2);
-									break;
-								}
-							}
-							if (degree <= lastDegree) {
-								errmsg = "Pattern points out of order or duplicated in '" + fileName + "' at line " +
-									lineCount + " point " + (i - 2);
-								break;
-							}
-							lastDegree = degree;
-
-							// This does not use the FIELD_MIN, FIELD_MAX, and FIELD_MAX_CHECK constants as in other
-							// code.  Here the field just has to be greater than 0, the FIELD_MIN limit will be applied
-							// when the pattern is loaded from the SQL table, see ExtDbRecord.  For the max check an
-							// exact 1.0 is expected here, FIELD_MAX_CHECK is a value somewhat less than 1 to reduce
-							// the frequency of the warning with CDBS/LMS data.  But a stricter test is appropriate
-							// here since this is assumed to be user-generated data not a dump from another database.
-
-							field = -1.;
-							str = patFields[1].trim();
-							if (str.length() > 0) {
-								try {
-									field = Double.parseDouble(str);
-								} catch (NumberFormatException ne) {
-								}
-							}
-							if ((field <= 0.) || (field > 1.)) {
-								errmsg = "Bad relative field in '" + fileName + "' at line " + lineCount + " point " +
-									(i - 2);
-								break;
-							}
-							if (field > fieldMax) {
-								fieldMax = field;
-							}
+			// Copy the data points, check values.
 
-							// Write the row.
+			if (isAzPat) {
+				lastDegree = AntPattern.AZIMUTH_MIN - 1.;
+			} else {
+				lastDegree = AntPattern.DEPRESSION_MIN - 1.;
+			}
+			fieldMax = 0.;
 
-							patWriter.write(theID);                    // ant_id
-							patWriter.write('|');
-							patWriter.write(String.valueOf(degree));   // degree
-							patWriter.write('|');
-							patWriter.write(String.valueOf(field));    // relative_field
-							patWriter.write("|^|");
-							patWriter.newLine();
-						}
+			for (i = 3; i < fields.length; i++) {
 
-						if (null != errmsg) {
-							break;
-						}
+				patFields = fields[i].split(";");
+				if (patFields.length != 2) {
+					return "Bad pattern point format in '" + fileName + "' at line " + lineCount + " point " + (i - 2);
+				}
 
-						if (fieldMax < 1.) {
-							if (null != errors) {
-								errors.logMessage("Pattern does not contain a 1 for antenna ID " + theID + " in '" +
-									fileName + "' at line " + lineCount);
-							}
-						}
+				str = patFields[0].trim();
+				if (isAzPat) {
+					degree = AntPattern.AZIMUTH_MIN - 1.;
+				} else {
+					degree = AntPattern.DEPRESSION_MIN - 1.;
+				}
+				if (str.length() > 0) {
+					try {
+						degree = Double.parseDouble(str);
+					} catch (NumberFormatException ne) {
+					}
+				}
+				if (isAzPat) {
+					if ((degree < AntPattern.AZIMUTH_MIN) || (degree > AntPattern.AZIMUTH_MAX)) {
+						return "Bad azimuth in '" + fileName + "' at line " + lineCount + " point " + (i - 2);
+					}
+				} else {
+					if ((degree < AntPattern.DEPRESSION_MIN) || (degree > AntPattern.DEPRESSION_MAX)) {
+						return "Bad vertical angle in '" + fileName + "' at line " + lineCount + " point " + (i - 2);
+					}
+				}
+				if (degree <= lastDegree) {
+					return "Pattern points out of order or duplicated in '" + fileName + "' at line " +
+						lineCount + " point " + (i - 2);
+				}
+				lastDegree = degree;
+
+				// This does not use the FIELD_MIN, FIELD_MAX, and FIELD_MAX_CHECK constants as in other code.  Here the
+				// field just has to be greater than 0, the FIELD_MIN limit will be applied when the pattern is loaded
+				// from the SQL table, see ExtDbRecord.  For the max check an exact 1.0 is expected here,
+				// FIELD_MAX_CHECK is a value somewhat less than 1 to reduce the frequency of the warning with CDBS/LMS
+				// data.  But a stricter test is appropriate here since this is assumed to be user-generated data not a
+				// dump from another database.
+
+				field = -1.;
+				str = patFields[1].trim();
+				if (str.length() > 0) {
+					try {
+						field = Double.parseDouble(str);
+					} catch (NumberFormatException ne) {
 					}
 				}
+				if ((field <= 0.) || (field > 1.)) {
+					return "Bad relative field in '" + fileName + "' at line " + lineCount + " point " + (i - 2);
+				}
+				if (field > fieldMax) {
+					fieldMax = field;
+				}
 
-			} catch (IOException ie) {
-				errmsg = "An I/O error occurred in '" + fileName + "' at line " + lineCount + ":\n" + ie;
+				// Add the row.
 
-			} catch (Throwable t) {
-				errmsg = "An unexpected error occurred in '" + fileName + "' at line " + lineCount + ":\n" + t;
-				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+				values.setLength(0);
+				values.append(antID);    // ant_id
+				values.append(',');
+				values.append(degree);   // degree
+				values.append(',');
+				values.append(field);    // relative_field
+				theChunk.addRow(PATTERN_TABLE, values, lineCount);
 			}
-		}
-
-		// Close files.
-
-		if (null != stationReader) {
-			try {stationReader.close();} catch (IOException ie) {};
-		}
-		if (null != patternReader) {
-			try {patternReader.close();} catch (IOException ie) {};
-		}
-		if (null != baseWriter) {
-			try {baseWriter.close();} catch (IOException ie) {};
-		}
-		if (null != patIndexWriter) {
-			try {patIndexWriter.close();} catch (IOException ie) {};
-		}
-		if (null != patWriter) {
-			try {patWriter.close();} catch (IOException ie) {};
-		}
-
-		// If an error occurred, delete the temporary output files and directory and return the error.
 
-		if (null != errmsg) {
-			if (null != baseWriter) {
-				baseFile.delete();
-			}
-			if (null != patIndexWriter) {
-				patIndexFile.delete();
-			}
-			if (null != patWriter) {
-				patFile.delete();
-			}
-			if (null != theDirectory) {
-				theDirectory.delete();
-			}
-			if (null != errors) {
-				errors.reportError(errmsg);
+			if (fieldMax < 1.) {
+				theChunk.messages.add("Pattern does not contain a 1 for antenna ID " + antID + " in '" + fileName +
+					"' at line " + lineCount);
 			}
+
 			return null;
 		}
 
-		// Create the database.
 
-		Integer result = createNewDatabase(theDbID, DB_TYPE_WIRELESS, theDirectory, theName, status, errors);
+		//-------------------------------------------------------------------------------------------------------------
+		// Append a quoted text value, escaping quotes and backslashes as in createAndCopyTable().
 
-		// Delete the temporary files.
+		private static void appendText(StringBuilder values, String theText) {
 
-		baseFile.delete();
-		patIndexFile.delete();
-		patFile.delete();
-		theDirectory.delete();
+			values.append('\'');
 
-		return result;
+			char c;
+			for (int i = 0; i < theText.length(); i++) {
+				c = theText.charAt(i);
+				switch (c) {
+					case '\'': {
+						values.append("''");
+						break;
+					}
+					case '\\': {
+						values.append("\\\\");
+						break;
+					}
+					default: {
+						values.append(c);
+						break;
+					}
+				}
+			}
+
+			values.append('\'');
+		}
 	}
 
 
@@ -2619,20 +3856,31 @@ public class ExtDb {
 
 	private static Integer createNewDatabase(String theDbID, int dataType, File fileSource, String theName,
 			StatusLogger status, boolean isDownload, ErrorLogger errors) {
+		return createNewDatabase(theDbID, dataType, fileSource, null, theName, status, isDownload, errors);
+	}
+
+	// For a direct wireless import the file source is null and the import object creates and loads the tables, see
+	// createNewWirelessDatabase().
+
+	private static Integer createNewDatabase(String theDbID, int dataType, File fileSource,
+			WirelessImport wirelessImport, String theName, StatusLogger status, boolean isDownload,
+			ErrorLogger errors) {
 
 		File fileDirectory = null;
 		ZipFile zipFile = null;
 
-		if (fileSource.isDirectory()) {
-			fileDirectory = fileSource;
-		} else {
-			try {
-				zipFile = new ZipFile(fileSource);
-			} catch (IOException ie) {
-				if (null != errors) {
-					errors.reportError(ie.toString());
+		if (null != fileSource) {
+			if (fileSource.isDirectory()) {
+				fileDirectory = fileSource;
+			} else {
+				try {
+					zipFile = new ZipFile(fileSource);
+				} catch (IOException ie) {
+					if (null != errors) {
+						errors.reportError(ie.toString());
+					}
+					return null;
 				}
-				return null;
 			}
 		}
 
@@ -2651,7 +3899,11 @@ public class ExtDb {
 			}
 
 			case DB_TYPE_WIRELESS: {
-				tableFiles = openWirelessTableFiles(fileDirectory, zipFile, errors);
+				if (null != wirelessImport) {
+					tableFiles = new ArrayList<TableFile>();
+				} else {
+					tableFiles = openWirelessTableFiles(fileDirectory, zipFile, errors);
+				}
 				break;
 			}
 
@@ -2694,23 +3946,16 @@ public class ExtDb {
 
 		try {
 
-			db.update("LOCK TABLES ext_db_key_sequence WRITE");
-
-			db.update("UPDATE ext_db_key_sequence SET ext_db_key = ext_db_key + 1");
-			db.query("SELECT ext_db_key FROM ext_db_key_sequence");
-			db.next();
-			newKey = db.getInt(1);
+			newKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_EXT_DB);
 
 			// A range of keys is reserved for internally-composed objects, e.g. see getLMSLiveExtDb().  The range
 			// start is not likely to ever be reached but if it is advance past the range.
 
-			if (RESERVED_KEY_RANGE_START == newKey) {
-				newKey = RESERVED_KEY_RANGE_END + 1;
-				db.update("UPDATE ext_db_key_sequence SET ext_db_key = " + newKey);
+			if ((newKey >= RESERVED_KEY_RANGE_START) && (newKey <= RESERVED_KEY_RANGE_END)) {
+				KeyAllocator.skipKeys(theDbID, KeyAllocator.SEQUENCE_EXT_DB, (RESERVED_KEY_RANGE_END + 1));
+				newKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_EXT_DB);
 			}
 
-			db.update("UNLOCK TABLES");
-
 			// Create the database, copy all the tables.
 
 			theDbName = makeDbName(rootName, dataType, Integer.valueOf(newKey));
@@ -2747,6 +3992,16 @@ public class ExtDb {
 			db.update("CREATE DATABASE " + theDbName + " CHARACTER SET latin1");
 			db.setDatabase(theDbName);
 
+			// A wireless import has no table files, the CSV files are read, validated, and inserted into the new
+			// database here, see WirelessImport.  An error in any line stops the import.
+
+			if (null != wirelessImport) {
+				errmsg = wirelessImport.importTables(db, status);
+				if ((null != errmsg) || wirelessImport.canceled) {
+					error = true;
+				}
+			}
+
 			// This now supports a limited detection of past versions, in cases where the only change was adding some
 			// additional fields and the query code still has fallback support.  If a field is flagged with a version
 			// number and is not found in the file, no error occurs during import.  Check for that here and adjust the
@@ -3647,12 +4902,47 @@ public class ExtDb {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Open files for a wireless database.  The structure here is entirely defined by this application, the "dump"
-	// files are actually temporary files translated from CSV data, see createNewWirelessDatabase().
+	// Open files for a wireless database.  The structure here is entirely defined by this application.  Wireless data
+	// is normally imported from CSV files directly, see createNewWirelessDatabase(), this supports importing a set of
+	// SQL-format dump files in the same structure.
 
 	private static ArrayList<TableFile> openWirelessTableFiles(File fileDirectory, ZipFile zipFile,
 			ErrorLogger errors) {
 
+		ArrayList<TableFile> tableFiles = makeWirelessTableFiles(fileDirectory, zipFile);
+
+		// Open all the files.
+
+		String errmsg = null;
+		for (TableFile theFile : tableFiles) {
+			if (!theFile.openFile()) {
+				if (theFile.required) {
+					errmsg = "Data file '" + theFile.fileName + "' could not be opened";
+					break;
+				}
+			}
+		}
+
+		if (null != errmsg) {
+			for (TableFile theFile : tableFiles) {
+				theFile.closeFile();
+			}
+			if (null != errors) {
+				errors.reportError(errmsg);
+			}
+			return null;
+		}
+
+		return tableFiles;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Define the wireless table structures, the files are not opened here.  The directory and ZIP file may be null
+	// when only the table definitions are needed, see WirelessImport.
+
+	private static ArrayList<TableFile> makeWirelessTableFiles(File fileDirectory, ZipFile zipFile) {
+
 		ArrayList<TableFile> tableFiles = new ArrayList<TableFile>();
 		TableFile tableFile;
 		{
@@ -3701,28 +4991,6 @@ public class ExtDb {
 			tableFiles.add(tableFile);
 		}
 
-		// Open all the files.
-
-		String errmsg = null;
-		for (TableFile theFile : tableFiles) {
-			if (!theFile.openFile()) {
-				if (theFile.required) {
-					errmsg = "Data file '" + theFile.fileName + "' could not be opened";
-					break;
-				}
-			}
-		}
-
-		if (null != errmsg) {
-			for (TableFile theFile : tableFiles) {
-				theFile.closeFile();
-			}
-			if (null != errors) {
-				errors.reportError(errmsg);
-			}
-			return null;
-		}
-
 		return tableFiles;
 	}
 
@@ -4008,8 +5276,9 @@ public class ExtDb {
 	private static String createAndCopyTable(DbConnection db, TableFile tableFile, DateCounter dateCounter) {
 
 		String errmsg = null;
-		int i, j, lineCount = 1;
+		int i, j, lineCount = 1, firstDataLine = 1;
 		boolean didCreate = false;
+		long startTime = System.nanoTime();
 
 		try {
 
@@ -4021,6 +5290,7 @@ public class ExtDb {
 			if (null == fieldNames) {
 				fieldNames = tableFile.reader.readLine().split("\\" + TableFile.SEPARATOR);
 				lineCount++;
+				firstDataLine = lineCount;
 				fieldCount = fieldNames.length - 1;
 			} else {
 				fieldCount = fieldNames.length;
@@ -4051,68 +5321,21 @@ public class ExtDb {
 				return "Missing or bad field names list for data file '" + tableFile.fileName + "'";
 			}
 
-			// Compose the table definition.  Along the way build an array of flags indicating fields that contain
-			// text, those will have content quoted during the copy, see below.
-
-			for (TableField field : tableFile.requiredFields) {
-				field.index = -1;
-			}
+			// Create the table.  Along the way build an array of flags indicating fields that contain text, those will
+			// have content quoted during the copy, see below.
 
 			boolean[] textFlags = new boolean[fieldCount];
-
-			StringBuilder query = new StringBuilder("CREATE TABLE ");
-			query.append(tableFile.tableName);
-			query.append(' ');
-
-			String type;
-			char sep = '(';
-
-			for (i = 0; i < fieldCount; i++) {
-
-				type = "VARCHAR(255)";
-				textFlags[i] = true;
-
-				for (TableField field : tableFile.requiredFields) {
-					if ((field.index < 0) && field.name.equals(fieldNames[i])) {
-						type = field.type;
-						textFlags[i] = field.isText;
-						field.index = i;
-						break;
-					}
-				}
-
-				query.append(sep);
-				query.append(fieldNames[i]);
-				query.append(' ');
-				query.append(type);
-				sep = ',';
-			}
-
-			// Check for missing fields.
-
-			for (TableField field : tableFile.requiredFields) {
-				if ((0 == field.version) && (field.index < 0)) {
-					return "Required field '" + field.name + "' not found in data file '" + tableFile.fileName + "'";
-				}
-			}
-
-			// Create the table.
-
-			if ((null != tableFile.extraDefinitions) && (tableFile.extraDefinitions.length() > 0)) {
-				query.append(sep);
-				query.append(tableFile.extraDefinitions);
+			errmsg = createTable(db, tableFile, fieldNames, fieldCount, textFlags);
+			if (null != errmsg) {
+				return errmsg;
 			}
-			query.append(')');
-
-			db.update(query.toString());
 			didCreate = true;
 
 			// Copy file contents into the table.  The lines have an explicit line termination sequence of separator-
 			// terminator-separator characters.  Newline and carriage return characters are ignored regardless of
 			// context.  No nulls are inserted; blank text fields get empty strings, non-text get 0.
 
-			query.setLength(0);
-			query.append("INSERT INTO " + tableFile.tableName + " VALUES (");
+			StringBuilder query = new StringBuilder("INSERT INTO " + tableFile.tableName + " VALUES (");
 			int startLength = query.length();
 
 			int fieldIndex = 0, ci = -1, termstate = 0, dateFieldIndex = -1;
@@ -4309,9 +5532,79 @@ public class ExtDb {
 			}
 		}
 
+		if (null == errmsg) {
+			AppMetrics.increment(AppMetrics.IMPORT_ROWS, (long)(lineCount - firstDataLine), "table",
+				tableFile.tableName);
+			AppMetrics.recordTime(AppMetrics.IMPORT_TABLE_SECONDS, (System.nanoTime() - startTime), "table",
+				tableFile.tableName);
+		}
+
 		return errmsg;
 	}
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Create a table for import, see createAndCopyTable().  The field names and count are as used in the data file,
+	// the required fields set the type for named fields, all other fields are typed generically.  The required field
+	// indices are set, and textFlags is set to indicate fields that contain text.  Returns null on success, else an
+	// error message if a required field is missing in which case the table was not created.
+
+	private static String createTable(DbConnection db, TableFile tableFile, String[] fieldNames, int fieldCount,
+			boolean[] textFlags) throws SQLException {
+
+		for (TableField field : tableFile.requiredFields) {
+			field.index = -1;
+		}
+
+		StringBuilder query = new StringBuilder("CREATE TABLE ");
+		query.append(tableFile.tableName);
+		query.append(' ');
+
+		String type;
+		char sep = '(';
+		int i;
+
+		for (i = 0; i < fieldCount; i++) {
+
+			type = "VARCHAR(255)";
+			textFlags[i] = true;
+
+			for (TableField field : tableFile.requiredFields) {
+				if ((field.index < 0) && field.name.equals(fieldNames[i])) {
+					type = field.type;
+					textFlags[i] = field.isText;
+					field.index = i;
+					break;
+				}
+			}
+
+			query.append(sep);
+			query.append(fieldNames[i]);
+			query.append(' ');
+			query.append(type);
+			sep = ',';
+		}
+
+		// Check for missing fields.
+
+		for (TableField field : tableFile.requiredFields) {
+			if ((0 == field.version) && (field.index < 0)) {
+				return "Required field '" + field.name + "' not found in data file '" + tableFile.fileName + "'";
+			}
+		}
+
+		// Create the table.
+
+		if ((null != tableFile.extraDefinitions) && (tableFile.extraDefinitions.length() > 0)) {
+			query.append(sep);
+			query.append(tableFile.extraDefinitions);
+		}
+		query.append(')');
+
+		db.update(query.toString());
+
+		return null;
+	}
+
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Rename a database.  The new name is assumed to have been checked for length and reserved characters, uniqueness
@@ -4503,5 +5796,14 @@ public class ExtDb {
 		dbCache.remove(theDbID);
 		mrCache.remove(theDbID);
 		lmsLiveDbCache.remove(theDbID);
+
+		synchronized (amIndexLock) {
+			amIndexCache.remove(theDbID);
+			amIndexLoadLocks.remove(theDbID);
+		}
+		synchronized (antennaCatalogLock) {
+			antennaCatalogCache.remove(theDbID);
+			antennaCatalogLoadLocks.remove(theDbID);
+		}
 	}
 }
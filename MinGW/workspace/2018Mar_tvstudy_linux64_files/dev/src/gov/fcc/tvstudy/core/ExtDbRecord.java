@@ -104,8 +104,10 @@ public abstract class ExtDbRecord implements Record {
 	// station data set.  The query string is the WHERE clause only, usually composed with the add*Query() methods
 	// below, also a center point and radius may be provided to limit the search, a radius of 0 means unlimited.
 	// Return is null on error, an empty array if no match.  Returns a LinkedList because that is better for post-
-	// processing large search results.  Note generic import data sets are not handled here because those data sets
-	// do not vend objects of an ExtDbRecord subclass; see SourceEditData.findImportRecords().
+	// processing large search results.  A listener may be provided to receive records as they are found, see
+	// RecordListener, that may also stop the search early.  If the search fails the listener may already have
+	// received records, those must be discarded.  Note generic import data sets are not handled here because those
+	// data sets do not vend objects of an ExtDbRecord subclass; see SourceEditData.findImportRecords().
 
 	public static LinkedList<ExtDbRecord> findRecords(String theDbID, Integer extDbKey, String query) {
 		return findRecords(theDbID, extDbKey, query, null, 0., 0., null);
@@ -145,21 +147,34 @@ public abstract class ExtDbRecord implements Record {
 
 	public static LinkedList<ExtDbRecord> findRecords(ExtDb theExtDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findRecords(theExtDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	public static LinkedList<ExtDbRecord> findRecords(ExtDb theExtDb, String query, RecordListener listener,
+			ErrorLogger errors) {
+		return findRecords(theExtDb, query, null, 0., 0., listener, errors);
+	}
+
+	public static LinkedList<ExtDbRecord> findRecords(ExtDb theExtDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 
 		switch (theExtDb.type) {
 
 			case ExtDb.DB_TYPE_CDBS:
 			case ExtDb.DB_TYPE_LMS:
 			case ExtDb.DB_TYPE_LMS_LIVE: {
-				return ExtDbRecordTV.findRecordsImpl(theExtDb, query, searchCenter, searchRadius, kmPerDegree, errors);
+				return ExtDbRecordTV.findRecordsImpl(theExtDb, query, searchCenter, searchRadius, kmPerDegree,
+					listener, errors);
 			}
 
 			case ExtDb.DB_TYPE_WIRELESS: {
-				return ExtDbRecordWL.findRecordsImpl(theExtDb, query, searchCenter, searchRadius, kmPerDegree, errors);
+				return ExtDbRecordWL.findRecordsImpl(theExtDb, query, searchCenter, searchRadius, kmPerDegree,
+					listener, errors);
 			}
 
 			case ExtDb.DB_TYPE_CDBS_FM: {
-				return ExtDbRecordFM.findRecordsImpl(theExtDb, query, searchCenter, searchRadius, kmPerDegree, errors);
+				return ExtDbRecordFM.findRecordsImpl(theExtDb, query, searchCenter, searchRadius, kmPerDegree,
+					listener, errors);
 			}
 		}
 
@@ -76,8 +76,13 @@ public class ExtDbRecordFM extends ExtDbRecord implements Record {
 
 	public static LinkedList<ExtDbRecord> findRecordsImpl(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findRecordsImpl(extDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	public static LinkedList<ExtDbRecord> findRecordsImpl(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 		LinkedList<ExtDbRecordFM> records = findRecordsFM(extDb, query, searchCenter, searchRadius, kmPerDegree,
-			errors);
+			listener, errors);
 		if (null != records) {
 			return new LinkedList<ExtDbRecord>(records);
 		}
@@ -94,6 +99,11 @@ public class ExtDbRecordFM extends ExtDbRecord implements Record {
 
 	private static LinkedList<ExtDbRecordFM> findRecordsFM(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findRecordsFM(extDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	private static LinkedList<ExtDbRecordFM> findRecordsFM(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 
 		if (ExtDb.DB_TYPE_CDBS_FM != extDb.type) {
 			return new LinkedList<ExtDbRecordFM>();
@@ -407,6 +417,10 @@ public class ExtDbRecordFM extends ExtDbRecord implements Record {
 					}
 
 					result.add(theRecord);
+
+					if ((null != listener) && !listener.recordFound(theRecord)) {
+						break;
+					}
 				}
 
 				extDb.releaseDb(db);
@@ -1578,7 +1592,7 @@ public class ExtDbRecordFM extends ExtDbRecord implements Record {
 					theSource.antennaID = antennaID;
 					theSource.hasHorizontalPattern = true;
 					theSource.horizontalPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_HORIZONTAL,
-						theName, thePoints);
+						theName, thePoints).intern();
 					theSource.horizontalPatternChanged = true;
 
 				} else {
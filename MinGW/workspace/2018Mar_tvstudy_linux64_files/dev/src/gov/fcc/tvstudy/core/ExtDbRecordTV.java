@@ -92,7 +92,41 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 	// then if the facility ID is in this list the record is assumed to be a guest and ignored, else it is a host.
 
 	private static final String SHARING_GUEST_FILE_NAME = "sharing_guests.dat";
-	private static HashSet<Integer> sharingGuestFacilityIDs;
+	private static volatile HashSet<Integer> sharingGuestFacilityIDs;
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Load the sharing guest list.  Searches may run concurrently so the list is loaded completely before it is set,
+	// and the lock keeps it from being loaded more than once.
+
+	private static synchronized void loadSharingGuestFacilityIDs() {
+
+		if (null != sharingGuestFacilityIDs) {
+			return;
+		}
+
+		HashSet<Integer> theIDs = new HashSet<Integer>();
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(new File(AppCore.libDirectoryPath +
+				File.separator + SHARING_GUEST_FILE_NAME)));
+			String id;
+			while (true) {
+				id = AppCore.readLineSkipComments(reader);
+				if (null == id) {
+					break;
+				}
+				try {
+					theIDs.add(Integer.valueOf(id));
+				} catch (NumberFormatException nfe) {
+				}
+			}
+			reader.close();
+		} catch (FileNotFoundException fe) {
+		} catch (IOException ie) {
+		}
+
+		sharingGuestFacilityIDs = theIDs;
+	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
@@ -105,10 +139,20 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 	// record set.  During that search recursive calls are made with a non-null dtsParent to get the DTS transmitter
 	// records matching a particular parent.  If the database type does not support TV records return an empty list.
 
+	// If a listener is provided non-DTS records are delivered as they are read, DTS parent records are delivered
+	// after the secondary search confirms they are kept.  If the listener stops the search any DTS parents not yet
+	// resolved are removed from the results.  If an SQL error occurs in the main or a secondary search the return is
+	// null, records already delivered to the listener must then be discarded, see RecordListener.
+
 	public static LinkedList<ExtDbRecord> findRecordsImpl(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findRecordsImpl(extDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	public static LinkedList<ExtDbRecord> findRecordsImpl(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 		LinkedList<ExtDbRecordTV> records = findRecordsTV(extDb, query, searchCenter, searchRadius, kmPerDegree, null,
-			errors);
+			listener, errors);
 		if (null != records) {
 			return new LinkedList<ExtDbRecord>(records);
 		}
@@ -125,6 +169,12 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 
 	private static LinkedList<ExtDbRecordTV> findRecordsTV(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ExtDbRecordTV dtsParent, ErrorLogger errors) {
+		return findRecordsTV(extDb, query, searchCenter, searchRadius, kmPerDegree, dtsParent, null, errors);
+	}
+
+	private static LinkedList<ExtDbRecordTV> findRecordsTV(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, ExtDbRecordTV dtsParent, RecordListener listener,
+			ErrorLogger errors) {
 
 		boolean isCDBS = (ExtDb.DB_TYPE_CDBS == extDb.type);
 		if (!isCDBS && (ExtDb.DB_TYPE_LMS != extDb.type) && (ExtDb.DB_TYPE_LMS_LIVE != extDb.type)) {
@@ -134,25 +184,7 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 		// Load sharing guest facility ID list on first call.
 
 		if (null == sharingGuestFacilityIDs) {
-			sharingGuestFacilityIDs = new HashSet<Integer>();
-			try {
-				BufferedReader reader = new BufferedReader(new FileReader(new File(AppCore.libDirectoryPath +
-					File.separator + SHARING_GUEST_FILE_NAME)));
-				String id;
-				while (true) {
-					id = AppCore.readLineSkipComments(reader);
-					if (null == id) {
-						break;
-					}
-					try {
-						sharingGuestFacilityIDs.add(Integer.valueOf(id));
-					} catch (NumberFormatException nfe) {
-					}
-				}
-				reader.close();
-			} catch (FileNotFoundException fe) {
-			} catch (IOException ie) {
-			}
+			loadSharingGuestFacilityIDs();
 		}
 
 		// Compose the query, first the field and table lists that are the same regardless of import version or DTS
@@ -509,7 +541,7 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 		// Connect and run the query.
 
 		LinkedList<ExtDbRecordTV> result = null;
-		boolean hasDTS = false;
+		boolean hasDTS = false, stopped = false;
 
 		DbConnection db = extDb.connectDb(errors);
 		if (null != db) {
@@ -1006,6 +1038,11 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 
 					if (theService.isDTS) {
 						hasDTS = true;
+					} else {
+						if ((null != listener) && !listener.recordFound(theRecord)) {
+							stopped = true;
+							break;
+						}
 					}
 				}
 
@@ -1036,6 +1073,11 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 					continue;
 				}
 
+				if (stopped) {
+					lit.remove();
+					continue;
+				}
+
 				theRecord.dtsRecords = findRecordsTV(extDb, query, searchCenter, searchRadius, kmPerDegree, theRecord,
 					errors);
 
@@ -1053,6 +1095,10 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 
 						if ((null != searchCenter) && (searchRadius > 0.) && !theRecord.inSearchRadius) {
 							lit.remove();
+						} else {
+							if ((null != listener) && !listener.recordFound(theRecord)) {
+								stopped = true;
+							}
 						}
 					}
 				}
@@ -4255,7 +4301,7 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 					theSource.antennaID = antennaID;
 					theSource.hasHorizontalPattern = true;
 					theSource.horizontalPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_HORIZONTAL,
-						theName, thePoints);
+						theName, thePoints).intern();
 					theSource.horizontalPatternChanged = true;
 
 				} else {
@@ -4414,7 +4460,7 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 
 						theSource.hasMatrixPattern = true;
 						theSource.matrixPattern = new AntPattern(theSource.dbID, theName,
-							AntPattern.PATTERN_TYPE_VERTICAL, theSlices);
+							AntPattern.PATTERN_TYPE_VERTICAL, theSlices).intern();
 						theSource.matrixPatternChanged = true;
 
 					} else {
@@ -4436,7 +4482,7 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 
 						theSource.hasVerticalPattern = true;
 						theSource.verticalPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_VERTICAL,
-							theName, thePoints);
+							theName, thePoints).intern();
 						theSource.verticalPatternChanged = true;
 
 					} else {
@@ -4473,36 +4519,48 @@ public class ExtDbRecordTV extends ExtDbRecord implements Record {
 
 		if (theSource.hasMatrixPattern) {
 
-			ArrayList<AntPattern.AntPoint> newHpat = new ArrayList<AntPattern.AntPoint>();
-			AntPattern.AntPoint maxPoint;
+			AntPattern thePattern = theSource.matrixPattern;
+			int ns = thePattern.getSliceCount(), np = thePattern.getPointCount(), s, i;
+			double[] hpatAngles = new double[ns], hpatFields = new double[ns];
+			double maxField;
 			boolean usePat = false;
 
-			for (AntPattern.AntSlice theSlice : theSource.matrixPattern.getSlices()) {
-				maxPoint = null;
-				for (AntPattern.AntPoint thePoint : theSlice.points) {
-					if ((null == maxPoint) || (thePoint.relativeField > maxPoint.relativeField)) {
-						maxPoint = thePoint;
+			for (s = 0; s < ns; s++) {
+				maxField = thePattern.getRelativeField(thePattern.getSliceStart(s));
+				for (i = thePattern.getSliceStart(s) + 1; i < thePattern.getSliceEnd(s); i++) {
+					if (thePattern.getRelativeField(i) > maxField) {
+						maxField = thePattern.getRelativeField(i);
 					}
 				}
-				newHpat.add(new AntPattern.AntPoint(theSlice.value, maxPoint.relativeField));
-				if (maxPoint.relativeField < 1.) {
+				hpatAngles[s] = thePattern.getSliceValue(s);
+				hpatFields[s] = maxField;
+				if (maxField < 1.) {
 					usePat = true;
 				}
 			}
 
 			if (usePat) {
 
-				for (AntPattern.AntPoint hPoint : newHpat) {
-					for (AntPattern.AntPoint vPoint :
-							theSource.matrixPattern.getSlicePoints(Double.valueOf(hPoint.angle))) {
-						vPoint.relativeField /= hPoint.relativeField;
+				double[] sliceValues = new double[ns], angles = new double[np], fields = new double[np];
+				int[] sliceStarts = new int[ns + 1];
+
+				for (s = 0; s < ns; s++) {
+					sliceValues[s] = hpatAngles[s];
+					sliceStarts[s] = thePattern.getSliceStart(s);
+					for (i = thePattern.getSliceStart(s); i < thePattern.getSliceEnd(s); i++) {
+						angles[i] = thePattern.getAngle(i);
+						fields[i] = thePattern.getRelativeField(i) / hpatFields[s];
 					}
 				}
+				sliceStarts[ns] = np;
+
+				theSource.matrixPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_VERTICAL,
+					thePattern.name, sliceValues, sliceStarts, angles, fields).intern();
 
 				theSource.antennaID = null;
 				theSource.hasHorizontalPattern = true;
 				theSource.horizontalPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_HORIZONTAL,
-					"(matrix derived)", newHpat);
+					"(matrix derived)", hpatAngles, hpatFields).intern();
 				theSource.horizontalPatternChanged = true;
 				theSource.horizontalPatternOrientation = 0.;
 			}
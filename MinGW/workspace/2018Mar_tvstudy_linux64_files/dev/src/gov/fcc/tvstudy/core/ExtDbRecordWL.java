@@ -30,8 +30,13 @@ public class ExtDbRecordWL extends ExtDbRecord implements Record {
 
 	public static LinkedList<ExtDbRecord> findRecordsImpl(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findRecordsImpl(extDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	public static LinkedList<ExtDbRecord> findRecordsImpl(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 		LinkedList<ExtDbRecordWL> records = findRecordsWL(extDb, query, searchCenter, searchRadius, kmPerDegree,
-			errors);
+			listener, errors);
 		if (null != records) {
 			return new LinkedList<ExtDbRecord>(records);
 		}
@@ -48,6 +53,11 @@ public class ExtDbRecordWL extends ExtDbRecord implements Record {
 
 	private static LinkedList<ExtDbRecordWL> findRecordsWL(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findRecordsWL(extDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	private static LinkedList<ExtDbRecordWL> findRecordsWL(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 
 		if (ExtDb.DB_TYPE_WIRELESS != extDb.type) {
 			return new LinkedList<ExtDbRecordWL>();
@@ -198,6 +208,10 @@ public class ExtDbRecordWL extends ExtDbRecord implements Record {
 					}
 
 					result.add(theRecord);
+
+					if ((null != listener) && !listener.recordFound(theRecord)) {
+						break;
+					}
 				}
 
 				extDb.releaseDb(db);
@@ -751,7 +765,7 @@ public class ExtDbRecordWL extends ExtDbRecord implements Record {
 					theSource.antennaID = antennaID;
 					theSource.hasHorizontalPattern = true;
 					theSource.horizontalPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_HORIZONTAL,
-						theName, thePoints);
+						theName, thePoints).intern();
 					theSource.horizontalPatternChanged = true;
 
 				} else {
@@ -815,7 +829,7 @@ public class ExtDbRecordWL extends ExtDbRecord implements Record {
 
 					theSource.hasVerticalPattern = true;
 					theSource.verticalPattern = new AntPattern(theSource.dbID, AntPattern.PATTERN_TYPE_VERTICAL,
-						theName, thePoints);
+						theName, thePoints).intern();
 					theSource.verticalPatternChanged = true;
 
 				} else {
@@ -0,0 +1,266 @@
+//
+//  KeyAllocator.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.sql.*;
+
+
+//=====================================================================================================================
+// Allocator for new primary keys from the *_key_sequence tables in the root database.  Previously each new key was
+// a LOCK TABLES, UPDATE, SELECT sequence on the caller's connection, which serialized unrelated work on table locks.
+// Now keys are reserved from the sequence table in blocks with a single atomic statement using MySQL's
+// LAST_INSERT_ID(expr) idiom, which is per-connection so no table lock is needed, and handed out from memory by
+// incrementing an AtomicLong.  Only when a block is used up does a thread synchronize to reserve the next one.
+
+// Keys are unique but not necessarily sequential across processes, and keys in a reserved block that are not used
+// before the application exits are lost.  Callers must tolerate gaps, none of the keys have meaning beyond
+// uniqueness.  The block sizes are set per sequence based on how often keys are needed and how visible they are,
+// e.g. station data keys appear in the UI and are rarely needed so those are allocated one at a time.  The sequence
+// row values stay compatible with older code still using the locking pattern, those just see a larger increment.
+
+// The reservation runs on a separate pooled connection, so callers may hold LOCK TABLES on other tables when
+// requesting a key, but the sequence table must not be in the caller's lock list.  Errors are thrown as
+// SQLException for the caller's existing error handling.
+
+public class KeyAllocator {
+
+	// Sequence codes.
+
+	public static final int SEQUENCE_STUDY = 0;
+	public static final int SEQUENCE_EXT_DB = 1;
+	public static final int SEQUENCE_TEMPLATE = 2;
+	public static final int SEQUENCE_GEOGRAPHY = 3;
+	public static final int SEQUENCE_ANTENNA = 4;
+	public static final int SEQUENCE_USER_RECORD = 5;
+	public static final int SEQUENCE_IX_CHECK_NAME = 6;
+
+	private static final String[] SEQUENCE_TABLES = {
+		"study_key_sequence",
+		"ext_db_key_sequence",
+		"template_key_sequence",
+		"geo_key_sequence",
+		"antenna_key_sequence",
+		"user_record_id_sequence",
+		"ix_check_name_sequence"
+	};
+
+	private static final String[] SEQUENCE_COLUMNS = {
+		"study_key",
+		"ext_db_key",
+		"template_key",
+		"geo_key",
+		"antenna_key",
+		"user_record_id",
+		"name_key"
+	};
+
+	private static final int[] BLOCK_SIZES = {10, 1, 1, 20, 10, 20, 20};
+
+	// State for each database and sequence, keyed by database ID and sequence code.
+
+	private static final ConcurrentHashMap<String, SequenceState> sequences =
+		new ConcurrentHashMap<String, SequenceState>();
+
+
+	//=================================================================================================================
+	// A reserved block of keys.  Keys are handed out with getAndIncrement() on nextKey, when that passes lastKey the
+	// block is exhausted.  Blocks are never re-used so once exhausted the increments are harmless.
+
+	private static class KeyBlock {
+
+		private final AtomicLong nextKey;
+		private final long lastKey;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private KeyBlock(long theFirstKey, long theLastKey) {
+
+			nextKey = new AtomicLong(theFirstKey);
+			lastKey = theLastKey;
+		}
+	}
+
+
+	//=================================================================================================================
+	// Current block for a sequence.  The object is also the lock for reserving a new block.
+
+	private static class SequenceState {
+
+		private volatile KeyBlock block;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a new key from a sequence.
+
+	public static int getKey(String theDbID, int theSequence) throws SQLException {
+
+		String theName = SEQUENCE_TABLES[theSequence];
+
+		SequenceState theState = sequences.get(theDbID + "." + theSequence);
+		if (null == theState) {
+			theState = new SequenceState();
+			SequenceState oldState = sequences.putIfAbsent(theDbID + "." + theSequence, theState);
+			if (null != oldState) {
+				theState = oldState;
+			}
+		}
+
+		long theKey = takeKey(theState.block);
+		if (theKey > 0L) {
+			AppMetrics.increment(AppMetrics.KEYS_ALLOCATED, "sequence", theName, "source", "memory");
+			return (int)theKey;
+		}
+
+		// The block is used up, reserve a new one.  Check again after synchronizing, another thread may already have
+		// done the reservation.  The first key of the new block goes to this caller.
+
+		synchronized (theState) {
+
+			theKey = takeKey(theState.block);
+			if (theKey > 0L) {
+				AppMetrics.increment(AppMetrics.KEYS_ALLOCATED, "sequence", theName, "source", "memory");
+				return (int)theKey;
+			}
+
+			int theBlockSize = BLOCK_SIZES[theSequence];
+			theKey = reserveKeys(theDbID, theSequence, theBlockSize);
+			if (theBlockSize > 1) {
+				theState.block = new KeyBlock((theKey + 1L), (theKey + (long)theBlockSize - 1L));
+			} else {
+				theState.block = null;
+			}
+		}
+
+		AppMetrics.increment(AppMetrics.KEYS_ALLOCATED, "sequence", theName, "source", "database");
+		return (int)theKey;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a contiguous range of keys, return the first.  This always reserves directly from the sequence table and
+	// does not affect the current block.
+
+	public static int getKeys(String theDbID, int theSequence, int theCount) throws SQLException {
+
+		if (theCount < 1) {
+			throw new SQLException("KeyAllocator.getKeys(): invalid key count " + theCount);
+		}
+
+		int theKey = (int)reserveKeys(theDbID, theSequence, theCount);
+
+		AppMetrics.increment(AppMetrics.KEYS_ALLOCATED, (long)theCount, "sequence", SEQUENCE_TABLES[theSequence],
+			"source", "database");
+
+		return theKey;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Advance a sequence so the next key is at least minKey, used to skip over reserved ranges.  The current block is
+	// discarded so the next getKey() goes to the database.
+
+	public static void skipKeys(String theDbID, int theSequence, int minKey) throws SQLException {
+
+		SequenceState theState = sequences.get(theDbID + "." + theSequence);
+		if (null != theState) {
+			synchronized (theState) {
+				theState.block = null;
+			}
+		}
+
+		DbConnection db = DbCore.connectDb(theDbID);
+		if (null == db) {
+			throw new SQLException("KeyAllocator.skipKeys(): database connection failed");
+		}
+
+		String theColumn = SEQUENCE_COLUMNS[theSequence];
+
+		try {
+			db.update("UPDATE " + SEQUENCE_TABLES[theSequence] + " SET " + theColumn + " = GREATEST(" + theColumn +
+				", " + (minKey - 1) + ")");
+		} finally {
+			DbCore.releaseDb(db);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Discard all blocks for a database, called from DbCore.closeDb().  If the database is later re-opened the
+	// sequences may have been reset by an uninstall and re-install so cached blocks cannot be trusted.
+
+	public static void closeDb(String theDbID) {
+
+		String thePrefix = theDbID + ".";
+
+		Iterator<String> it = sequences.keySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().startsWith(thePrefix)) {
+				it.remove();
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Take a key from a block, return 0 if the block is null or exhausted.  Keys are always positive.
+
+	private static long takeKey(KeyBlock theBlock) {
+
+		if (null == theBlock) {
+			return 0L;
+		}
+
+		long theKey = theBlock.nextKey.getAndIncrement();
+		if (theKey > theBlock.lastKey) {
+			return 0L;
+		}
+
+		return theKey;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Reserve a range of keys in the sequence table, return the first key in the range.  The update is atomic and
+	// LAST_INSERT_ID() returns the value set by this connection regardless of other updates.
+
+	private static long reserveKeys(String theDbID, int theSequence, int theCount) throws SQLException {
+
+		DbConnection db = DbCore.connectDb(theDbID);
+		if (null == db) {
+			throw new SQLException("KeyAllocator: database connection failed");
+		}
+
+		String theTable = SEQUENCE_TABLES[theSequence], theColumn = SEQUENCE_COLUMNS[theSequence];
+		long theLastKey = 0L, startTime = System.nanoTime();
+
+		try {
+
+			db.update("UPDATE " + theTable + " SET " + theColumn + " = LAST_INSERT_ID(" + theColumn + " + " +
+				theCount + ")");
+			db.query("SELECT LAST_INSERT_ID()");
+			if (db.next()) {
+				theLastKey = db.getLong(1);
+			}
+
+		} finally {
+			DbCore.releaseDb(db);
+			AppMetrics.recordTime(AppMetrics.KEY_RESERVE_SECONDS, (System.nanoTime() - startTime), "sequence",
+				theTable);
+		}
+
+		if (theLastKey < (long)theCount) {
+			throw new SQLException("KeyAllocator: key reservation failed for " + theTable);
+		}
+
+		return theLastKey - (long)theCount + 1L;
+	}
+}
@@ -0,0 +1,26 @@
+//
+//  RecordListener.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+
+//=====================================================================================================================
+// Interface for objects that want records from a search as they are found rather than waiting for the complete
+// result list, see ExtDbRecord.findRecords() and SourceEditData.findUserRecords().  The search still returns the full
+// list when done, a listener is an addition not a replacement.
+
+public interface RecordListener {
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Called for each record found, on the thread performing the search.  Records are delivered only once any post-
+	// processing that could remove them from the results is complete, so every record delivered will also be in the
+	// returned list.  Return false to stop the search, in that case the records found so far are returned.  If the
+	// search fails it returns null, records may have been delivered before the failure and those must be discarded.
+	// The failure has been reported to the error logger given to the search.
+
+	public boolean recordFound(Record theRecord);
+}
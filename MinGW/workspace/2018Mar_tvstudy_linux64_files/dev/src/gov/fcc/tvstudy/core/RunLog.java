@@ -0,0 +1,508 @@
+//
+//  RunLog.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import java.util.*;
+import java.util.regex.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+
+//=====================================================================================================================
+// Append-only store for process output text, used for study engine run output by ProcessPanel.  There is nothing
+// GUI-specific here, so the class may be used by headless runs as well.  Text is written to a sequence of temporary
+// segment files with an in-memory index of line start offsets, so any line of the full history can be retrieved by
+// number with getLine() or getLines(), lines can be searched by regular expression with findLines(), and the entire
+// log can be copied to a channel with transferTo() without passing the content through the heap.
+
+// Reads use positional FileChannel reads of just the bytes needed.  Segments are never memory-mapped, so the files
+// can be deleted as soon as the channels are closed on every platform.  Lines never span segments, a new segment is
+// started when a new line would not fit in the current one (a single line longer than the segment size is allowed
+// to overflow).  Text is stored as UTF-8.  Public methods are synchronized, the log may be appended on one thread
+// while being read on another, except findLines() only holds the lock to take a snapshot of the line count and
+// segment lengths, the scan is done without the lock so it does not block appends.  The files are not created until
+// the first append.  Call delete() when done with the
+// log, that closes and removes the files, after that the log is empty and further appends are ignored.
+
+public class RunLog {
+
+	private static final long SEGMENT_SIZE = 67108864L;   // bytes
+	private static final int INITIAL_INDEX_SIZE = 4096;
+	private static final int WRITE_CHUNK_SIZE = 1048576;
+
+	private String namePrefix;
+
+	private ArrayList<Segment> segments;
+
+	// Line index, segment number and starting byte offset within the segment for each line.  The end of a line is the
+	// start of the next line in the same segment, or the end of the segment.
+
+	private int[] lineSegments;
+	private int[] lineOffsets;
+	private int lineCount;
+	private boolean partialLine;
+
+	private boolean failed;
+	private boolean deleted;
+
+
+	//=================================================================================================================
+	// A segment file.  The channel is read-write, used both for appending and for positional reads.
+
+	private static class Segment {
+
+		private File file;
+		private FileChannel channel;
+		private long length;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The name prefix is used for the temporary file names, if null or too short "run" is used.
+
+	public RunLog(String theNamePrefix) {
+
+		if ((null == theNamePrefix) || (theNamePrefix.length() < 3)) {
+			namePrefix = "run";
+		} else {
+			namePrefix = theNamePrefix;
+		}
+
+		segments = new ArrayList<Segment>();
+
+		lineSegments = new int[INITIAL_INDEX_SIZE];
+		lineOffsets = new int[INITIAL_INDEX_SIZE];
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Append text, which may contain any number of lines.  Text following the last newline starts a partial line
+	// which will be continued by the next append.  Returns false if the text could not be written, after any error
+	// writing files the log stops accepting new text but what was already written remains readable.
+
+	public synchronized boolean append(String theText) {
+
+		if (failed || deleted) {
+			return false;
+		}
+		if ((null == theText) || (0 == theText.length())) {
+			return true;
+		}
+
+		int start = 0, end, length = theText.length();
+
+		try {
+
+			while (start < length) {
+
+				end = theText.indexOf('\n', start);
+				if (end < 0) {
+					end = length;
+				} else {
+					end++;
+				}
+
+				byte[] theBytes = theText.substring(start, end).getBytes(StandardCharsets.UTF_8);
+				start = end;
+
+				Segment theSegment = null;
+				if (!segments.isEmpty()) {
+					theSegment = segments.get(segments.size() - 1);
+				}
+
+				if (!partialLine) {
+
+					if ((null == theSegment) ||
+							((theSegment.length > 0) && ((theSegment.length + theBytes.length) > SEGMENT_SIZE))) {
+						theSegment = openSegment();
+					}
+
+					if (lineCount == lineOffsets.length) {
+						lineSegments = Arrays.copyOf(lineSegments, (lineCount * 2));
+						lineOffsets = Arrays.copyOf(lineOffsets, (lineCount * 2));
+					}
+					lineSegments[lineCount] = segments.size() - 1;
+					lineOffsets[lineCount] = (int)theSegment.length;
+					lineCount++;
+				}
+
+				ByteBuffer theBuffer = ByteBuffer.wrap(theBytes);
+				while (theBuffer.hasRemaining()) {
+					theSegment.length += theSegment.channel.write(theBuffer, theSegment.length);
+				}
+
+				partialLine = ('\n' != theBytes[theBytes.length - 1]);
+			}
+
+		} catch (IOException ie) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Could not write run log", ie);
+			failed = true;
+			return false;
+		}
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private Segment openSegment() throws IOException {
+
+		Segment theSegment = new Segment();
+		theSegment.file = File.createTempFile(namePrefix, ".log");
+		theSegment.channel = new RandomAccessFile(theSegment.file, "rw").getChannel();
+
+		segments.add(theSegment);
+
+		return theSegment;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public synchronized int getLineCount() {
+
+		return lineCount;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public synchronized long getLength() {
+
+		long theLength = 0L;
+		for (Segment theSegment : segments) {
+			theLength += theSegment.length;
+		}
+		return theLength;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a line by number, without the terminating newline.  Returns null if the line number is out of range or the
+	// segment cannot be read.
+
+	public synchronized String getLine(int theIndex) {
+
+		if ((theIndex < 0) || (theIndex >= lineCount)) {
+			return null;
+		}
+
+		try {
+			return decodeLine(theIndex);
+		} catch (IOException ie) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Could not read run log", ie);
+			return null;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a range of lines, for scrollback display.  The range is clipped to the available lines.
+
+	public synchronized ArrayList<String> getLines(int fromIndex, int theCount) {
+
+		ArrayList<String> result = new ArrayList<String>();
+
+		if (fromIndex < 0) {
+			theCount += fromIndex;
+			fromIndex = 0;
+		}
+		int toIndex = Math.min(lineCount, (fromIndex + theCount));
+
+		try {
+			for (int i = fromIndex; i < toIndex; i++) {
+				result.add(decodeLine(i));
+			}
+		} catch (IOException ie) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Could not read run log", ie);
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Search for lines matching a pattern, starting at a given line.  The pattern is applied with find() so it may
+	// match anywhere in the line.  Returns the line numbers of up to maxCount matches, maxCount <= 0 means no limit.
+	// This may take a while on a large log so it should not be called on the event thread.  Only lines present when
+	// the search starts are searched.  Segments are read sequentially in chunks, existing content never changes so
+	// that is safe while appends continue.  The status logger is optional, if canceled the search stops and returns
+	// the matches found so far.  If the log is deleted during the search the result is also partial.
+
+	public ArrayList<Integer> findLines(Pattern thePattern, int fromIndex, int maxCount, StatusLogger status) {
+
+		ArrayList<Integer> result = new ArrayList<Integer>();
+
+		int theLineCount, startSegment;
+		long startOffset;
+		Segment[] theSegments;
+		long[] theLengths;
+
+		synchronized (this) {
+
+			if (fromIndex < 0) {
+				fromIndex = 0;
+			}
+			if (fromIndex >= lineCount) {
+				return result;
+			}
+
+			theLineCount = lineCount;
+			startSegment = lineSegments[fromIndex];
+			startOffset = lineOffsets[fromIndex];
+
+			theSegments = segments.toArray(new Segment[segments.size()]);
+			theLengths = new long[theSegments.length];
+			for (int i = 0; i < theSegments.length; i++) {
+				theLengths[i] = theSegments[i].length;
+			}
+		}
+
+		Matcher theMatcher = thePattern.matcher("");
+		ByteBuffer theBuffer = ByteBuffer.allocate(WRITE_CHUNK_SIZE);
+		byte[] theBytes = theBuffer.array();
+		ByteArrayOutputStream theLine = new ByteArrayOutputStream();
+
+		int lineIndex = fromIndex, count, start, i;
+		long position;
+
+		try {
+
+			for (int segIndex = startSegment; (segIndex < theSegments.length) && (lineIndex < theLineCount);
+					segIndex++) {
+
+				if (segIndex == startSegment) {
+					position = startOffset;
+				} else {
+					position = 0L;
+				}
+				theLine.reset();
+
+				while ((position < theLengths[segIndex]) && (lineIndex < theLineCount)) {
+
+					if ((null != status) && status.isCanceled()) {
+						return result;
+					}
+
+					count = (int)Math.min(theBuffer.capacity(), (theLengths[segIndex] - position));
+					theBuffer.clear();
+					theBuffer.limit(count);
+					readFully(theSegments[segIndex], theBuffer, position);
+					position += count;
+
+					start = 0;
+					for (i = 0; i < count; i++) {
+						if ('\n' == theBytes[i]) {
+							theLine.write(theBytes, start, (i - start));
+							start = i + 1;
+							if (matchLine(theMatcher, theLine)) {
+								result.add(Integer.valueOf(lineIndex));
+								if ((maxCount > 0) && (result.size() >= maxCount)) {
+									return result;
+								}
+							}
+							theLine.reset();
+							if (++lineIndex >= theLineCount) {
+								break;
+							}
+						}
+					}
+					if ((lineIndex < theLineCount) && (start < count)) {
+						theLine.write(theBytes, start, (count - start));
+					}
+				}
+
+				// The last line in the log may not have a newline yet.
+
+				if ((lineIndex < theLineCount) && (theLine.size() > 0)) {
+					if (matchLine(theMatcher, theLine)) {
+						result.add(Integer.valueOf(lineIndex));
+						if ((maxCount > 0) && (result.size() >= maxCount)) {
+							return result;
+						}
+					}
+					lineIndex++;
+				}
+			}
+
+		} catch (IOException ie) {
+			if (!isDeleted()) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Could not read run log", ie);
+			}
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static boolean matchLine(Matcher theMatcher, ByteArrayOutputStream theLine) {
+
+		return theMatcher.reset(new String(theLine.toByteArray(), StandardCharsets.UTF_8)).find();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Decode a line from the segment file, caller must hold the lock and check the index.
+
+	private String decodeLine(int theIndex) throws IOException {
+
+		int segIndex = lineSegments[theIndex];
+		Segment theSegment = segments.get(segIndex);
+
+		int start = lineOffsets[theIndex], end;
+		if (((theIndex + 1) < lineCount) && (lineSegments[theIndex + 1] == segIndex)) {
+			end = lineOffsets[theIndex + 1];
+		} else {
+			end = (int)theSegment.length;
+		}
+
+		ByteBuffer theBuffer = ByteBuffer.allocate(end - start);
+		readFully(theSegment, theBuffer, start);
+
+		int theLength = end - start;
+		if ((theLength > 0) && ('\n' == theBuffer.get(theLength - 1))) {
+			theLength--;
+		}
+
+		return new String(theBuffer.array(), 0, theLength, StandardCharsets.UTF_8);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Fill a buffer from a segment starting at a file position.  Positional reads do not move the channel position
+	// used for appending.
+
+	private static void readFully(Segment theSegment, ByteBuffer theBuffer, long position) throws IOException {
+
+		int count;
+		while (theBuffer.hasRemaining()) {
+			count = theSegment.channel.read(theBuffer, position);
+			if (count < 0) {
+				throw new EOFException("Run log segment truncated");
+			}
+			position += count;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Copy the entire log to a channel, the content is transferred directly from the segment files.
+
+	public synchronized void transferTo(WritableByteChannel theChannel) throws IOException {
+
+		long position, count;
+
+		for (Segment theSegment : segments) {
+			position = 0L;
+			while (position < theSegment.length) {
+				count = theSegment.channel.transferTo(position, (theSegment.length - position), theChannel);
+				if (count <= 0L) {
+					throw new IOException("Run log transfer failed");
+				}
+				position += count;
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Copy the entire log to a character writer, for combining with other text.  Prefer transferTo() when possible.
+
+	public synchronized void writeTo(Writer theWriter) throws IOException {
+
+		CharsetDecoder theDecoder = StandardCharsets.UTF_8.newDecoder();
+		theDecoder.onMalformedInput(CodingErrorAction.REPLACE);
+		theDecoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		ByteBuffer theBytes = ByteBuffer.allocate(WRITE_CHUNK_SIZE);
+		CharBuffer theChars = CharBuffer.allocate(WRITE_CHUNK_SIZE);
+		CoderResult theResult;
+		long position;
+		int count;
+		boolean endOfInput;
+
+		for (Segment theSegment : segments) {
+
+			// The decoder is streaming, a multi-byte sequence split at the end of a chunk stays in the byte buffer
+			// and is completed by the next read, so chunks do not need to end on a line boundary.
+
+			theDecoder.reset();
+			theBytes.clear();
+
+			position = 0L;
+			endOfInput = false;
+			while (true) {
+
+				if (!endOfInput) {
+					count = (int)Math.min(theBytes.remaining(), (theSegment.length - position));
+					theBytes.limit(theBytes.position() + count);
+					readFully(theSegment, theBytes, position);
+					theBytes.limit(theBytes.capacity());
+					position += count;
+					endOfInput = (position >= theSegment.length);
+				}
+
+				theBytes.flip();
+				do {
+					theResult = theDecoder.decode(theBytes, theChars, endOfInput);
+					flushChars(theChars, theWriter);
+				} while (theResult.isOverflow());
+				theBytes.compact();
+
+				if (endOfInput) {
+					do {
+						theResult = theDecoder.flush(theChars);
+						flushChars(theChars, theWriter);
+					} while (theResult.isOverflow());
+					break;
+				}
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static void flushChars(CharBuffer theChars, Writer theWriter) throws IOException {
+
+		theChars.flip();
+		if (theChars.hasRemaining()) {
+			theWriter.write(theChars.array(), theChars.arrayOffset() + theChars.position(), theChars.remaining());
+		}
+		theChars.clear();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Close and delete the files.  The log is empty after this and will not accept new text.
+
+	public synchronized void delete() {
+
+		for (Segment theSegment : segments) {
+			try {theSegment.channel.close();} catch (IOException ie) {};
+			theSegment.file.delete();
+		}
+
+		segments.clear();
+		lineCount = 0;
+		partialLine = false;
+		deleted = true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public synchronized boolean isDeleted() {
+
+		return deleted;
+	}
+}
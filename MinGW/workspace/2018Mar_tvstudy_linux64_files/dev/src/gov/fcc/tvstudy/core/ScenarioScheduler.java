@@ -0,0 +1,246 @@
+//
+//  ScenarioScheduler.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import java.util.*;
+
+
+//=====================================================================================================================
+// Dispatches pair study scenarios to multiple study engine processes with spatial locality.  Each engine caches
+// terrain and cell data for the sources it has studied, so a scenario near those the engine has already run is much
+// cheaper than one far away.  Scenarios arrive ordered along a Hilbert curve through the study area, see
+// StudyBuildPair.ScenarioSortItem, and are divided into one contiguous partition per engine, balanced by source
+// count, so each engine works through a compact region.  An engine takes scenarios from the head of its own
+// partition.  When that is empty the engine steals from the tail of the partition with the most sources remaining,
+// the tail being farthest from where the owner of that partition is working.  A scenario can be put back with
+// requeue() if an engine fails before running it, it goes back to the head of that engine's partition, if the engine
+// does not continue other engines will eventually steal it.
+
+// Statistics are accumulated per engine; scenarios and sources dispatched, scenarios stolen, elapsed time, and field
+// counts read from cache and calculated as reported by the engine, see addFieldCounts().  The fraction of fields read
+// from cache is the engine's cache hit rate.  See getStatistics().  All methods are synchronized.
+
+public class ScenarioScheduler {
+
+	private ArrayList<ArrayDeque<StudyBuildPair.ScenarioSortItem>> partitions;
+	private int[] partitionSourceCounts;
+	private int remainingCount;
+
+	private EngineStats[] engineStats;
+
+
+	//=================================================================================================================
+	// Per-engine statistics.
+
+	private static class EngineStats {
+
+		private int scenarioCount;
+		private int sourceCount;
+		private int stolenCount;
+
+		private long cacheFieldCount;
+		private long calcFieldCount;
+
+		private long startTime;
+		private long lastTime;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The items must be in curve order.  Partition boundaries are placed so each has approximately the same share of
+	// the total source count, which is a better measure of run time than the scenario count.
+
+	public ScenarioScheduler(Collection<StudyBuildPair.ScenarioSortItem> theItems, int theEngineCount) {
+
+		if (theEngineCount < 1) {
+			theEngineCount = 1;
+		}
+
+		partitions = new ArrayList<ArrayDeque<StudyBuildPair.ScenarioSortItem>>(theEngineCount);
+		partitionSourceCounts = new int[theEngineCount];
+		engineStats = new EngineStats[theEngineCount];
+
+		for (int i = 0; i < theEngineCount; i++) {
+			partitions.add(new ArrayDeque<StudyBuildPair.ScenarioSortItem>());
+			engineStats[i] = new EngineStats();
+		}
+
+		long totalSources = 0L;
+		for (StudyBuildPair.ScenarioSortItem theItem : theItems) {
+			totalSources += theItem.sourceCount;
+		}
+
+		int partIndex = 0;
+		long sourceSum = 0L;
+
+		for (StudyBuildPair.ScenarioSortItem theItem : theItems) {
+
+			while ((partIndex < (theEngineCount - 1)) &&
+					(sourceSum >= ((totalSources * (long)(partIndex + 1)) / (long)theEngineCount))) {
+				partIndex++;
+			}
+
+			partitions.get(partIndex).add(theItem);
+			partitionSourceCounts[partIndex] += theItem.sourceCount;
+			sourceSum += theItem.sourceCount;
+			remainingCount++;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public int getEngineCount() {
+
+		return engineStats.length;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the next scenario for an engine, returns null when there are no more scenarios anywhere.
+
+	public synchronized StudyBuildPair.ScenarioSortItem next(int theEngine) {
+
+		if (0 == remainingCount) {
+			return null;
+		}
+
+		EngineStats theStats = engineStats[theEngine];
+
+		long now = System.currentTimeMillis();
+		if (0L == theStats.startTime) {
+			theStats.startTime = now;
+		}
+		theStats.lastTime = now;
+
+		int partIndex = theEngine;
+		StudyBuildPair.ScenarioSortItem theItem = partitions.get(partIndex).pollFirst();
+
+		if (null == theItem) {
+
+			partIndex = -1;
+			int maxSources = -1;
+
+			for (int i = 0; i < partitions.size(); i++) {
+				if (!partitions.get(i).isEmpty() && (partitionSourceCounts[i] > maxSources)) {
+					partIndex = i;
+					maxSources = partitionSourceCounts[i];
+				}
+			}
+
+			if (partIndex < 0) {
+				return null;
+			}
+
+			theItem = partitions.get(partIndex).pollLast();
+			theStats.stolenCount++;
+		}
+
+		partitionSourceCounts[partIndex] -= theItem.sourceCount;
+		remainingCount--;
+
+		theStats.scenarioCount++;
+		theStats.sourceCount += theItem.sourceCount;
+
+		return theItem;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Return a scenario that was not run, it goes back to the head of the engine's partition.  The scenario is no
+	// longer counted in the engine's statistics.
+
+	public synchronized void requeue(int theEngine, StudyBuildPair.ScenarioSortItem theItem) {
+
+		partitions.get(theEngine).addFirst(theItem);
+		partitionSourceCounts[theEngine] += theItem.sourceCount;
+		remainingCount++;
+
+		EngineStats theStats = engineStats[theEngine];
+		theStats.scenarioCount--;
+		theStats.sourceCount -= theItem.sourceCount;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Remove all remaining scenarios, engines will be told to exit at their next request.
+
+	public synchronized void clear() {
+
+		for (int i = 0; i < partitions.size(); i++) {
+			partitions.get(i).clear();
+			partitionSourceCounts[i] = 0;
+		}
+		remainingCount = 0;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public synchronized int getRemainingCount() {
+
+		return remainingCount;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public synchronized boolean isEmpty() {
+
+		return (0 == remainingCount);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accumulate field counts reported by an engine, the number of fields read from the engine's cache and the number
+	// that had to be calculated.  Also marks the time of the engine's latest activity for the throughput figure.
+
+	public synchronized void addFieldCounts(int theEngine, long theCacheCount, long theCalcCount) {
+
+		EngineStats theStats = engineStats[theEngine];
+
+		theStats.cacheFieldCount += theCacheCount;
+		theStats.calcFieldCount += theCalcCount;
+		theStats.lastTime = System.currentTimeMillis();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Return a one-line summary of an engine's statistics for logging.  Throughput is scenarios per minute over the
+	// time from the first request to the last activity.  The cache hit rate is shown only if the engine reported
+	// field counts.
+
+	public synchronized String getStatistics(int theEngine) {
+
+		EngineStats theStats = engineStats[theEngine];
+
+		StringBuilder theMessage = new StringBuilder();
+
+		theMessage.append("Engine ");
+		theMessage.append(String.valueOf(theEngine + 1));
+		theMessage.append(": ");
+		theMessage.append(AppCore.formatCount(theStats.scenarioCount));
+		theMessage.append(" scenarios, ");
+		theMessage.append(AppCore.formatCount(theStats.sourceCount));
+		theMessage.append(" sources, ");
+		theMessage.append(AppCore.formatCount(theStats.stolenCount));
+		theMessage.append(" stolen");
+
+		double minutes = (double)(theStats.lastTime - theStats.startTime) / 60000.;
+		if ((theStats.scenarioCount > 0) && (minutes > 0.)) {
+			theMessage.append(String.format(", %.1f scenarios/minute", ((double)theStats.scenarioCount / minutes)));
+		}
+
+		long totalFields = theStats.cacheFieldCount + theStats.calcFieldCount;
+		if (totalFields > 0L) {
+			theMessage.append(String.format(", cache hit rate %.1f%% of %s fields",
+				(((double)theStats.cacheFieldCount / (double)totalFields) * 100.), AppCore.formatCount(totalFields)));
+		}
+
+		return theMessage.toString();
+	}
+}
@@ -0,0 +1,344 @@
+//
+//  SlowQueryLog.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import java.util.*;
+import java.text.*;
+import java.io.*;
+
+
+//=====================================================================================================================
+// Log of SQL statements that exceed a time threshold.  DbConnection times every statement and calls logStatement()
+// for any that take longer than getThreshold(), along with the row count and, for SELECT queries on MySQL or
+// PostgreSQL, the output of EXPLAIN run on the same connection.  Each entry is appended to a log file in the lib
+// directory as a block of "key: value" lines so the file can be parsed or grepped.  Entries are also aggregated in
+// memory by normalized SQL, with literal values replaced by "?" so the same search with different arguments falls
+// together, see getTopQueries().  The aggregate is limited in size, when full the entry with the lowest total time
+// is discarded.  The threshold is a preference in seconds, 0 disables the log.  The preference is re-checked
+// periodically so changes from any source take effect without a restart.
+
+public class SlowQueryLog {
+
+	public static final String LOG_FILE_NAME = "tvstudy_slow_query.log";
+
+	public static final double DEFAULT_THRESHOLD = 5.;   // seconds
+
+	private static final long THRESHOLD_CHECK_INTERVAL = 30000L;   // milliseconds
+
+	private static final int MAX_AGGREGATE_COUNT = 200;
+
+	private static volatile long thresholdNanos;
+	private static volatile long lastThresholdCheck;
+
+	private static final HashMap<String, QueryStats> aggregate = new HashMap<String, QueryStats>();
+
+	private static final Object logFileLock = new Object();
+
+
+	//=================================================================================================================
+	// Aggregate statistics for one normalized statement.  The last-seen values are from the most recent occurrence.
+
+	public static class QueryStats {
+
+		public final String normalizedSQL;
+
+		public int count;
+		public long totalNanos;
+		public long maxNanos;
+
+		public String lastSQL;
+		public String lastCaller;
+		public String lastDatabase;
+		public int lastRowCount;
+		public long lastTime;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private QueryStats(String theSQL) {
+
+			normalizedSQL = theSQL;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public double getTotalSeconds() {
+
+			return (double)totalNanos / 1.e9;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public double getMaxSeconds() {
+
+			return (double)maxNanos / 1.e9;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public double getAverageSeconds() {
+
+			if (0 == count) {
+				return 0.;
+			}
+			return ((double)totalNanos / 1.e9) / (double)count;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private QueryStats copy() {
+
+			QueryStats theCopy = new QueryStats(normalizedSQL);
+
+			theCopy.count = count;
+			theCopy.totalNanos = totalNanos;
+			theCopy.maxNanos = maxNanos;
+			theCopy.lastSQL = lastSQL;
+			theCopy.lastCaller = lastCaller;
+			theCopy.lastDatabase = lastDatabase;
+			theCopy.lastRowCount = lastRowCount;
+			theCopy.lastTime = lastTime;
+
+			return theCopy;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get the threshold in nanoseconds, 0 means disabled.  This is called for every statement so the preference is
+	// only looked up occasionally.  Races here are harmless, worst case the preference is read twice.
+
+	public static long getThreshold() {
+
+		long now = System.currentTimeMillis();
+		if ((now - lastThresholdCheck) > THRESHOLD_CHECK_INTERVAL) {
+			lastThresholdCheck = now;
+			thresholdNanos = (long)(getThresholdPreference() * 1.e9);
+		}
+		return thresholdNanos;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get or set the threshold preference in seconds.  A missing or invalid value means the default, a negative value
+	// is 0.  Setting the preference through here also resets the cached threshold.
+
+	public static double getThresholdPreference() {
+
+		double theThreshold = DEFAULT_THRESHOLD;
+
+		String str = null;
+		try {
+			str = AppCore.getPreference(AppCore.PREF_SLOW_QUERY_THRESHOLD);
+		} catch (Throwable t) {
+		}
+		if (null != str) {
+			try {
+				theThreshold = Double.parseDouble(str);
+			} catch (NumberFormatException ne) {
+			}
+		}
+
+		if (theThreshold < 0.) {
+			theThreshold = 0.;
+		}
+
+		return theThreshold;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public static void setThresholdPreference(double theThreshold) {
+
+		if (theThreshold < 0.) {
+			theThreshold = 0.;
+		}
+		AppCore.setPreference(AppCore.PREF_SLOW_QUERY_THRESHOLD, String.valueOf(theThreshold));
+		lastThresholdCheck = 0L;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Log a slow statement.  The caller is the first stack frame outside DbConnection and this class.  The row count
+	// is the result set size for a query or the affected rows for an update, -1 if unknown.  The plan may be null.
+
+	public static void logStatement(String theDatabase, String theSQL, boolean isQuery, long elapsedNanos,
+			int rowCount, String thePlan) {
+
+		String theCaller = findCaller();
+		long now = System.currentTimeMillis();
+
+		AppMetrics.increment(AppMetrics.DB_SLOW_STATEMENTS, "type", (isQuery ? "query" : "update"));
+
+		String normalizedSQL = normalizeSQL(theSQL);
+
+		synchronized (aggregate) {
+
+			QueryStats theStats = aggregate.get(normalizedSQL);
+			if (null == theStats) {
+				if (aggregate.size() >= MAX_AGGREGATE_COUNT) {
+					QueryStats minStats = null;
+					for (QueryStats otherStats : aggregate.values()) {
+						if ((null == minStats) || (otherStats.totalNanos < minStats.totalNanos)) {
+							minStats = otherStats;
+						}
+					}
+					aggregate.remove(minStats.normalizedSQL);
+				}
+				theStats = new QueryStats(normalizedSQL);
+				aggregate.put(normalizedSQL, theStats);
+			}
+
+			theStats.count++;
+			theStats.totalNanos += elapsedNanos;
+			if (elapsedNanos > theStats.maxNanos) {
+				theStats.maxNanos = elapsedNanos;
+			}
+			theStats.lastSQL = theSQL;
+			theStats.lastCaller = theCaller;
+			theStats.lastDatabase = theDatabase;
+			theStats.lastRowCount = rowCount;
+			theStats.lastTime = now;
+		}
+
+		// Write the log entry.  The file is opened for each entry, these should be rare.  Multi-line values (the SQL
+		// may contain newlines, the plan always will) are indented so entry boundaries are unambiguous.
+
+		StringBuilder entry = new StringBuilder();
+
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+		entry.append("time: ");
+		entry.append(dateFormat.format(new java.util.Date(now)));
+		entry.append('\n');
+		entry.append(String.format(Locale.US, "elapsed: %.3f\n", ((double)elapsedNanos / 1.e9)));
+		entry.append("type: ");
+		entry.append(isQuery ? "query" : "update");
+		entry.append('\n');
+		entry.append("rows: ");
+		entry.append(String.valueOf(rowCount));
+		entry.append('\n');
+		entry.append("database: ");
+		entry.append((null != theDatabase) ? theDatabase : "");
+		entry.append('\n');
+		entry.append("caller: ");
+		entry.append(theCaller);
+		entry.append('\n');
+		entry.append("sql: ");
+		entry.append(theSQL.trim().replace("\n", "\n  "));
+		entry.append('\n');
+		if (null != thePlan) {
+			entry.append("explain:\n  ");
+			entry.append(thePlan.trim().replace("\n", "\n  "));
+			entry.append('\n');
+		}
+		entry.append('\n');
+
+		synchronized (logFileLock) {
+			FileWriter theWriter = null;
+			try {
+				theWriter = new FileWriter(AppCore.libDirectoryPath + File.separator + LOG_FILE_NAME, true);
+				theWriter.write(entry.toString());
+			} catch (IOException ie) {
+				AppCore.log(AppCore.WARNING_MESSAGE, "Could not write slow query log: " + ie);
+			} finally {
+				if (null != theWriter) {
+					try {
+						theWriter.close();
+					} catch (IOException ie) {
+					}
+				}
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Return up to maxCount aggregate entries in order of decreasing total time.  The entries are copies.
+
+	public static ArrayList<QueryStats> getTopQueries(int maxCount) {
+
+		ArrayList<QueryStats> result = new ArrayList<QueryStats>();
+
+		synchronized (aggregate) {
+			for (QueryStats theStats : aggregate.values()) {
+				result.add(theStats.copy());
+			}
+		}
+
+		Collections.sort(result, new Comparator<QueryStats>() {
+			public int compare(QueryStats theStats, QueryStats otherStats) {
+				if (theStats.totalNanos > otherStats.totalNanos) {
+					return -1;
+				}
+				if (theStats.totalNanos < otherStats.totalNanos) {
+					return 1;
+				}
+				return 0;
+			}
+		});
+
+		while (result.size() > maxCount) {
+			result.remove(result.size() - 1);
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public static void clearTopQueries() {
+
+		synchronized (aggregate) {
+			aggregate.clear();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Normalize SQL for aggregation, replace quoted strings and numbers with "?", collapse lists of values to a single
+	// "?, ..." so key lists of different lengths match, and collapse whitespace.
+
+	public static String normalizeSQL(String theSQL) {
+
+		String result = theSQL.replaceAll("'(?:[^'\\\\]|''|\\\\.)*'", "?");
+		result = result.replaceAll("(?<![A-Za-z_0-9.])-?[0-9]+(?:\\.[0-9]*)?(?:[eE][-+]?[0-9]+)?", "?");
+		result = result.replaceAll("\\?(?:\\s*,\\s*\\?)+", "?, ...");
+		result = result.replaceAll("\\s+", " ").trim();
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Find the first stack frame outside the database layer, formatted as class.method(file:line).
+
+	private static String findCaller() {
+
+		String dbClass = DbConnection.class.getName(), thisClass = SlowQueryLog.class.getName(), theClass;
+
+		for (StackTraceElement theElement : Thread.currentThread().getStackTrace()) {
+			theClass = theElement.getClassName();
+			if (theClass.equals(dbClass) || theClass.equals(thisClass) || theClass.startsWith("java.")) {
+				continue;
+			}
+			int i = theClass.lastIndexOf('.');
+			if (i >= 0) {
+				theClass = theClass.substring(i + 1);
+			}
+			return theClass + "." + theElement.getMethodName() + "(" + theElement.getFileName() + ":" +
+				theElement.getLineNumber() + ")";
+		}
+
+		return "(unknown)";
+	}
+}
@@ -43,6 +43,12 @@ public abstract class StudyBuild {
 
 	private boolean aborted;
 
+	// Build phase timing for metrics, see startBuildPhase().
+
+	private String currentPhase;
+	private long phaseStartTime;
+	private long buildStartTime;
+
 
 	//-----------------------------------------------------------------------------------------------------------------
 
@@ -119,6 +125,43 @@ public abstract class StudyBuild {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Subclasses call startBuildPhase() at the start of each major step of buildStudy(), e.g. "sources", "scenarios",
+	// "save", and endBuildPhases() when the build is done.  The elapsed time of each phase and of the overall build
+	// is recorded in AppMetrics labelled with the subclass name.  If the build exits early on an error the timing is
+	// not recorded, failed builds would just skew the histograms.
+
+	protected void startBuildPhase(String thePhase) {
+
+		long now = System.nanoTime();
+		if (null == currentPhase) {
+			buildStartTime = now;
+		} else {
+			AppMetrics.recordTime(AppMetrics.STUDY_BUILD_PHASE_SECONDS, (now - phaseStartTime), "build",
+				getClass().getSimpleName(), "phase", currentPhase);
+		}
+		currentPhase = thePhase;
+		phaseStartTime = now;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	protected void endBuildPhases() {
+
+		if (null == currentPhase) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		String theBuild = getClass().getSimpleName();
+		AppMetrics.recordTime(AppMetrics.STUDY_BUILD_PHASE_SECONDS, (now - phaseStartTime), "build", theBuild,
+			"phase", currentPhase);
+		AppMetrics.recordTime(AppMetrics.STUDY_BUILD_SECONDS, (now - buildStartTime), "build", theBuild);
+		currentPhase = null;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Prefix a message with a timestamp formatted to match the study engine logs.  If the log start time is not set
 	// just return the argument.
@@ -1021,12 +1021,9 @@ public class StudyBuildIxCheck extends StudyBuild {
 
 				// Generate the new study name.
 
-				db.update("LOCK TABLES ix_check_status WRITE, ix_check_name_sequence WRITE");
+				studyName = STUDY_NAME_PREFIX + KeyAllocator.getKey(dbID, KeyAllocator.SEQUENCE_IX_CHECK_NAME);
 
-				db.update("UPDATE ix_check_name_sequence SET name_key = name_key + 1");
-				db.query("SELECT name_key FROM ix_check_name_sequence");
-				db.next();
-				studyName = STUDY_NAME_PREFIX + db.getString(1);
+				db.update("LOCK TABLES ix_check_status WRITE");
 
 				// Update the output path and create the output directory.
 
@@ -1077,9 +1074,10 @@ public class StudyBuildIxCheck extends StudyBuild {
 	// of all the identifying information and study settings for the run.  For a data set record, or a source based on
 	// a data set record, the station data key and record ID identify the record.  For a source saved as a user record,
 	// it is the user record ID.  If the proposal is neither a data set record nor a user record, it cannot be studied
-	// by a web request since there is no way to form a persistent, unique identifier for the study output.
+	// by a web request since there is no way to form a persistent, unique identifier for the study output.  This is
+	// also used to recognize identical requests in a batch run, see IxCheckBatch in the database utility.
 
-	private String makeStudyID() {
+	public String makeStudyID() {
 
 		if (!initialized) {
 			return null;
@@ -1197,6 +1195,40 @@ public class StudyBuildIxCheck extends StudyBuild {
 
 	public boolean runStudy(StatusLogger status, ErrorLogger errors) {
 
+		if (!canRunStudy(errors)) {
+			return false;
+		}
+
+		// Use the task queue to manage how many studies may be running simultaneously, using the max process count
+		// limited by CPU cores and memory, see AppCore.initialize(), or the observed engine memory footprint for the
+		// cell size if known, see EngineMemory.  Wait here until the task queue allows this to start, as mentioned
+		// this is assumed to be running on a background thread so blocking is not a concern.
+
+		AppTask task = new AppTask(getMemoryLoad());
+		while (!AppTask.canTaskStart(task)) {
+			try {Thread.currentThread().sleep(500);} catch (Exception e) {};
+		}
+
+		boolean result = false;
+
+		Study theStudy = buildRunStudy(status, errors);
+		if (null != theStudy) {
+			result = runBuiltStudy(theStudy, task, status, errors);
+		}
+
+		AppTask.taskDone(task);
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Check state before a build or run.  If the maxEngineProcessCount is less than 1 either there is not enough
+	// memory for even one engine process, or the engine executable is non-functional.  In those cases earlier checks
+	// should mean this is never even reached, but do a check anyway to be safe.
+
+	private boolean canRunStudy(ErrorLogger errors) {
+
 		if (!initialized) {
 			if (null != errors) {
 				errors.reportError("Study build has not been initialized.");
@@ -1211,22 +1243,27 @@ public class StudyBuildIxCheck extends StudyBuild {
 			return false;
 		}
 
-		// Use the task queue to manage how many studies may be running simultaneously, using the max process count
-		// limited by CPU cores and memory, see AppCore.initialize().  Wait here until the task queue allows this to
-		// start, as mentioned this is assumed to be running on a background thread so blocking is not a concern.
-		// If the maxEngineProcessCount is less than 1 either there is not enough memory for even one engine process,
-		// or the engine executable is non-functional.  In those cases earlier checks should mean this is never even
-		// reached, but do a check anyway to be safe.
-
 		if (AppCore.maxEngineProcessCount < 1) {
 			if (null != errors) {
 				errors.reportError("Study run failed, study engine unavailable.");
 			}
 			return false;
 		}
-		AppTask task = new AppTask(1. / (double)(AppCore.maxEngineProcessCount));
-		while (!AppTask.canTaskStart(task)) {
-			try {Thread.currentThread().sleep(500);} catch (Exception e) {};
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// First stage of runStudy(), build the study and change the lock for the engine run.  This does not use the task
+	// queue so a caller running many studies can overlap builds with engine runs, see IxCheckBatch in the database
+	// utility; the caller must then use the task queue around runBuiltStudy().  Returns the study ready to pass to
+	// runBuiltStudy(), or null on error in which case the study database, if any was created, has been deleted.
+
+	public Study buildRunStudy(StatusLogger status, ErrorLogger errors) {
+
+		if (!canRunStudy(errors)) {
+			return null;
 		}
 
 		// Create a log file.  Logging of errors and other messages from the study build goes to this.  Later, the full
@@ -1240,8 +1277,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 			if (null != errors) {
 				errors.reportError("Study build failed, cannot create log file:\n" + e);
 			}
-			AppTask.taskDone(task);
-			return false;
+			return null;
 		}
 
 		// Object to dispatch status and log messages from the build method.  Status goes to the caller's status
@@ -1290,8 +1326,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 			if (null != errors) {
 				errors.reportError("Study build failed, see log file for details.");
 			}
-			AppTask.taskDone(task);
-			return false;
+			return null;
 		}
 
 		// Change the study lock from edit to an exclusive run lock.
@@ -1348,9 +1383,53 @@ public class StudyBuildIxCheck extends StudyBuild {
 			error = true;
 		}
 
+		if (error) {
+			Study.deleteStudy(dbID, theStudy.key, theStudy.lockCount);
+			return null;
+		}
+
+		return theStudy;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Memory load for the AppTask used to run this study, and the key for the engine memory profile, see EngineMemory.
+	// Meaningful only after initialize() as that sets the cell size.
+
+	public String getMemoryProfileKey() {
+
+		return EngineMemory.getProfileKey(Study.STUDY_TYPE_TV_IX, cellSize);
+	}
+
+	public double getMemoryLoad() {
+
+		return EngineMemory.getMemoryLoad(getMemoryProfileKey(), 1, (1. / (double)(AppCore.maxEngineProcessCount)));
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Second stage of runStudy(), run the study engine on a study from buildRunStudy().  The study database is always
+	// deleted before this returns.  The caller is responsible for the task queue, the task is passed so engine memory
+	// monitoring can adjust the task memory load, that may be null.  Returns false on error.
+
+	public boolean runBuiltStudy(Study theStudy, StatusLogger status, ErrorLogger errors) {
+		return runBuiltStudy(theStudy, null, status, errors);
+	}
+
+	public boolean runBuiltStudy(Study theStudy, AppTask theTask, StatusLogger status, ErrorLogger errors) {
+
+		if (!canRunStudy(errors)) {
+			Study.deleteStudy(dbID, theStudy.key, theStudy.lockCount);
+			return false;
+		}
+
+		boolean error = false;
+
 		// Build argument list, start the engine process.
 
 		Process process = null;
+		long engineStartTime = 0L;
+		EngineMemory.Monitor memoryMonitor = null;
 
 		if (!error) {
 
@@ -1402,6 +1481,8 @@ public class StudyBuildIxCheck extends StudyBuild {
 				ProcessBuilder pb = new ProcessBuilder(arguments);
 				pb.redirectErrorStream(true);
 				process = pb.start();
+				engineStartTime = AppMetrics.engineStarted("ixcheck");
+				memoryMonitor = EngineMemory.startMonitor(process, getMemoryProfileKey(), theTask);
 			} catch (Throwable t) {
 				error = true;
 				AppCore.log(AppCore.ERROR_MESSAGE, "Could not start process", t);
@@ -1497,6 +1578,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 									studyReport.append('\n');
 								} else {
 									if (key.equals(AppCore.ENGINE_RUNCOUNT_KEY)) {
+										AppMetrics.engineItemsDone("ixcheck", running);
 										runStatusDone += running;
 										running = 0;
 										try {
@@ -1530,13 +1612,14 @@ public class StudyBuildIxCheck extends StudyBuild {
 			}
 		}
 
-		// Delete the study database, done.
-
-		if (null != theStudy) {
-			Study.deleteStudy(dbID, theStudy.key, theStudy.lockCount);
+		if (null != process) {
+			AppMetrics.engineFinished("ixcheck", engineStartTime, error);
+			EngineMemory.finishMonitor(memoryMonitor, error);
 		}
 
-		AppTask.taskDone(task);
+		// Delete the study database, done.
+
+		Study.deleteStudy(dbID, theStudy.key, theStudy.lockCount);
 
 		return !error;
 	}
@@ -1567,6 +1650,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 		// Create the new study and open it.  Start the log timestamp sequence.
 
 		setLogStartTime();
+		startBuildPhase("create");
 
 		if (null != status) {
 			status.reportStatus("Building study...");
@@ -1598,6 +1682,8 @@ public class StudyBuildIxCheck extends StudyBuild {
 			study.description = studyDescription;
 			rules = study.ixRuleData.getRules();
 
+			startBuildPhase("sources");
+
 			if (null != source) {
 				proposalSource = (SourceEditDataTV)source.deriveSource(study, true, errors);
 			} else {
@@ -1662,6 +1748,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 					// Generate scenarios.  For a full build also report the results and do AM check on the proposal
 					// record.  Then save the study.
 
+					startBuildPhase("scenarios");
 					if (buildStudyScenarios(status, errors)) {
 
 						if (buildFullStudy) {
@@ -1681,6 +1768,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 							status.logMessage(timestampMessage("Build complete, saving study"));
 						}
 
+						startBuildPhase("save");
 						study.isDataChanged();
 						if (study.save(errors, studyReport.toString())) {
 
@@ -1724,6 +1812,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 		}
 
 		if (result) {
+			endBuildPhases();
 			return theStudy;
 		}
 
@@ -2853,10 +2942,13 @@ public class StudyBuildIxCheck extends StudyBuild {
 
 		arguments.add("\""+String.valueOf(theStudy.key)+"\"");
 
+		long engineStartTime;
+
 		try {
 			ProcessBuilder pb = new ProcessBuilder(arguments);
 			pb.redirectErrorStream(true);
 			process = pb.start();
+			engineStartTime = AppMetrics.engineStarted("ixcheck_probe");
 		} catch (Throwable t) {
 			AppCore.log(AppCore.ERROR_MESSAGE, "Could not start study engine process", t);
 			if (null != errors) {
@@ -2890,6 +2982,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 						errors.reportError("Could not start study engine process.");
 					}
 					process.destroyForcibly();
+					AppMetrics.engineFinished("ixcheck_probe", engineStartTime, true);
 					return null;
 				}
 			} while (wait);
@@ -2904,6 +2997,7 @@ public class StudyBuildIxCheck extends StudyBuild {
 				errors.reportError("Could not start study engine process: " + ie.getMessage());
 			}
 			process.destroyForcibly();
+			AppMetrics.engineFinished("ixcheck_probe", engineStartTime, true);
 			return null;
 		}
 
@@ -2966,13 +3060,14 @@ public class StudyBuildIxCheck extends StudyBuild {
 									}
 								} else {
 									if (key.equals(AppCore.ENGINE_RUNCOUNT_KEY)) {
+										AppMetrics.engineItemsDone("ixcheck_probe", running);
+										runDone += running;
+										running = 0;
+										try {
+											running = Integer.parseInt(line.substring(e + 1));
+										} catch (NumberFormatException nfe) {
+										}
 										if (null != status) {
-											runDone += running;
-											running = 0;
-											try {
-												running = Integer.parseInt(line.substring(e + 1));
-											} catch (NumberFormatException nfe) {
-											}
 											if (runDone < runCount) {
 												status.reportStatus(runDesc + ", " + runDone + " of " + runCount +
 													" items done");
@@ -2998,6 +3093,9 @@ public class StudyBuildIxCheck extends StudyBuild {
 			}
 		}
 
+		AppMetrics.engineFinished("ixcheck_probe", engineStartTime,
+			(isAborted() || (null != errmsg) || (process.exitValue() != 0)));
+
 		if (isAborted()) {
 			return null;
 		}
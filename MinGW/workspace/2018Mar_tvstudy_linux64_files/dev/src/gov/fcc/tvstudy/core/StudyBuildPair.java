@@ -43,14 +43,23 @@ public class StudyBuildPair extends StudyBuild {
 	public int baselineScenarioKey;
 	public int baselineSourceCount;
 
-	// Scenario information generated during the build process.  The sorted scenario list is retrieved with accessor
-	// getScenarioRunList(), which returns an ArrayDeque the caller can use to dispatch scenarios to multiple engines.
+	// Scenario information generated during the build process.  The sorted scenario list is dispatched to engines by
+	// the scheduler from getScenarioScheduler(), which partitions the list between engines, see ScenarioScheduler.
 
 	public int scenarioCount;
 	public int scenarioSourceCount;
 
 	private TreeSet<ScenarioSortItem> sortedScenarios;
 
+	// Mapping of coordinates to the Hilbert curve grid used to order scenarios, see curveIndex().
+
+	private static final int CURVE_GRID_SIZE = 65536;
+
+	private double curveMinLatitude;
+	private double curveMinLongitude;
+	private double curveLongitudeScale;
+	private double curveGridScale;
+
 	// State used during build.
 
 	private static final int MIN_SCENARIOS_PER_RUN = 5;
@@ -310,6 +319,8 @@ public class StudyBuildPair extends StudyBuild {
 
 		boolean error = true;
 
+		startBuildPhase("scenarios");
+
 		if (createStudyScenarios(errors)) {
 			if (0 == scenarioCount) {
 				if (null != errors) {
@@ -317,6 +328,7 @@ public class StudyBuildPair extends StudyBuild {
 				}
 			} else {
 				if (!isAborted()) {
+					startBuildPhase("save");
 					study.isDataChanged();
 					if (study.save(errors)) {
 						baseStudy = study.study;
@@ -335,23 +347,18 @@ public class StudyBuildPair extends StudyBuild {
 			return null;
 		}
 
+		endBuildPhases();
+
 		return baseStudy;
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Return a list of the scenarios to run.
+	// Return a scheduler to dispatch the scenarios to a number of engine processes.
 
-	public ArrayDeque<ScenarioSortItem> getScenarioRunList() {
+	public ScenarioScheduler getScenarioScheduler(int theEngineCount) {
 
-		ArrayDeque<ScenarioSortItem> scenarioRunList = new ArrayDeque<ScenarioSortItem>();
-
-		Iterator<ScenarioSortItem> scenarioIterator = sortedScenarios.iterator();
-		while (scenarioIterator.hasNext()) {
-			scenarioRunList.add(scenarioIterator.next());
-		}
-
-		return scenarioRunList;
+		return new ScenarioScheduler(sortedScenarios, theEngineCount);
 	}
 
 
@@ -447,29 +454,86 @@ public class StudyBuildPair extends StudyBuild {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Set up the coordinate mapping for curveIndex() from the bounds of the study area.  The area is mapped to a square
+	// grid using the larger dimension, with longitude scaled by cos(latitude) at the center so grid cells are roughly
+	// square on the ground.
+
+	private void setCurveBounds(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+
+		curveMinLatitude = minLatitude;
+		curveMinLongitude = minLongitude;
+		curveLongitudeScale = Math.cos(((minLatitude + maxLatitude) / 2.) * GeoPoint.DEGREES_TO_RADIANS);
+
+		double span = maxLatitude - minLatitude;
+		double lonSpan = (maxLongitude - minLongitude) * curveLongitudeScale;
+		if (lonSpan > span) {
+			span = lonSpan;
+		}
+		if (span > 0.) {
+			curveGridScale = (double)(CURVE_GRID_SIZE - 1) / span;
+		} else {
+			curveGridScale = 0.;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Return the distance along a Hilbert curve through the study area grid for a location.  Locations that are close
+	// on the curve are always close on the ground, so the sort order keeps nearby scenarios together in two dimensions
+	// rather than just one as with a sort on latitude or longitude.
+
+	private long curveIndex(GeoPoint theLocation) {
+
+		int x = (int)((theLocation.longitude - curveMinLongitude) * curveLongitudeScale * curveGridScale);
+		int y = (int)((theLocation.latitude - curveMinLatitude) * curveGridScale);
+		x = Math.max(0, Math.min((CURVE_GRID_SIZE - 1), x));
+		y = Math.max(0, Math.min((CURVE_GRID_SIZE - 1), y));
+
+		long d = 0L;
+		int rx, ry, t;
+
+		for (int s = CURVE_GRID_SIZE / 2; s > 0; s /= 2) {
+
+			rx = ((x & s) > 0) ? 1 : 0;
+			ry = ((y & s) > 0) ? 1 : 0;
+			d += (long)s * (long)s * (long)((3 * rx) ^ ry);
+
+			if (0 == ry) {
+				if (1 == rx) {
+					x = CURVE_GRID_SIZE - 1 - x;
+					y = CURVE_GRID_SIZE - 1 - y;
+				}
+				t = x;
+				x = y;
+				y = t;
+			}
+		}
+
+		return d;
+	}
+
+
 	//=================================================================================================================
 	// Data class used with a TreeSet to sort scenarios created in createStudyScenarios().  Comparison first checks
-	// the coordinate value, if equal, forwards to the scenario key.  Hash code and equality always forward to the key.
+	// the position on the Hilbert curve, if equal, forwards to the scenario key.  Hash code and equality always
+	// forward to the key.
 
 	public static class ScenarioSortItem implements Comparable {
 
 		public Integer key;
 		public int sourceCount;
 
-		private double coordinate;
+		private long curveIndex;
 
 
 		//-------------------------------------------------------------------------------------------------------------
 
-		private ScenarioSortItem(ScenarioEditData theScenario, SourceEditDataTV theSource, boolean useLatitude) {
+		private ScenarioSortItem(ScenarioEditData theScenario, long theCurveIndex) {
 
 			key = theScenario.key;
 
-			if (useLatitude) {
-				coordinate = theSource.location.latitude;
-			} else {
-				coordinate = theSource.location.longitude;
-			}
+			curveIndex = theCurveIndex;
 
 			sourceCount = theScenario.sourceData.getRowCount();
 		}
@@ -500,10 +564,10 @@ public class StudyBuildPair extends StudyBuild {
 			}
 
 			ScenarioSortItem theOther = (ScenarioSortItem)other;
-			if (coordinate < theOther.coordinate) {
+			if (curveIndex < theOther.curveIndex) {
 				return -1;
 			} else {
-				if (coordinate > theOther.coordinate) {
+				if (curveIndex > theOther.curveIndex) {
 					return 1;
 				} else {
 					return key.compareTo(theOther.key);
@@ -574,8 +638,8 @@ public class StudyBuildPair extends StudyBuild {
 		// This builds a list of scenario keys that will be studied by the engine processes.  The scenarios will be fed
 		// to the engines interactively using the ProcessController interface, see ProcessPanel and getResponse(), so
 		// load is dynamically balanced between multiple engines for minimum run-time.  The scenarios are sorted by
-		// coordinates of the study station, using either latitude or longitude depending on which spans the greater
-		// range, to optimize use of the various caches in the study engine.
+		// position of the study station along a Hilbert curve through the study area, see curveIndex(), to optimize
+		// use of the various caches in the study engine.
 
 		sortedScenarios.clear();
 
@@ -596,10 +660,7 @@ public class StudyBuildPair extends StudyBuild {
 			}
 		}
 
-		boolean useLatitude = false;
-		if ((maxLatitude - minLatitude) > (maxLongitude - minLongitude)) {
-			useLatitude = true;
-		}
+		setCurveBounds(minLatitude, maxLatitude, minLongitude, maxLongitude);
 
 		ScenarioSortItem theItem;
 
@@ -872,7 +933,7 @@ public class StudyBuildPair extends StudyBuild {
 					newScenario = new ScenarioEditData(study, "Pair", "Pair study", newSourceItems);
 					study.scenarioData.addOrReplace(newScenario);
 
-					theItem = new ScenarioSortItem(newScenario, studySource, useLatitude);
+					theItem = new ScenarioSortItem(newScenario, curveIndex(studySource.location));
 					sortedScenarios.add(theItem);
 
 					scenarioCount++;
@@ -1091,7 +1152,7 @@ public class StudyBuildPair extends StudyBuild {
 				newScenario = new ScenarioEditData(study, "Pair", "Pair study", newSourceItems);
 				study.scenarioData.addOrReplace(newScenario);
 
-				theItem = new ScenarioSortItem(newScenario, studySource, useLatitude);
+				theItem = new ScenarioSortItem(newScenario, curveIndex(studySource.location));
 				sortedScenarios.add(theItem);
 
 				scenarioCount++;
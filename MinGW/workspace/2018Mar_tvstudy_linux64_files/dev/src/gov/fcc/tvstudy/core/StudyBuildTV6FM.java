@@ -103,6 +103,8 @@ public class StudyBuildTV6FM extends StudyBuild {
 
 		// Create and open the new study.
 
+		startBuildPhase("create");
+
 		Integer defExtDbKey = null;
 		if (null != record) {
 			defExtDbKey = record.extDb.key;
@@ -135,6 +137,8 @@ public class StudyBuildTV6FM extends StudyBuild {
 
 			study = new StudyEditData(theStudy);
 
+			startBuildPhase("sources");
+
 			if (null != source) {
 				targetSource = (SourceEditDataTV)source.deriveSource(study, source.isLocked, errors);
 			} else {
@@ -159,8 +163,10 @@ public class StudyBuildTV6FM extends StudyBuild {
 
 					// Build the scenario, save the study.
 
+					startBuildPhase("scenarios");
 					if (buildScenario(errors)) {
 						study.isDataChanged();
+						startBuildPhase("save");
 						if (study.save(errors)) {
 							result = true;
 							theStudy = study.study;
@@ -192,6 +198,7 @@ public class StudyBuildTV6FM extends StudyBuild {
 		}
 
 		if (result) {
+			endBuildPhases();
 			return theStudy;
 		}
 
@@ -227,49 +234,21 @@ public class StudyBuildTV6FM extends StudyBuild {
 			study.description = studyDescription;
 		}
 
-		// First add third-party undesired TV records that may interfere with the target, can do this with the normal
-		// undesireds method in ExtDbRecordTV.  The scenario will only have one desired TV, the target.  There will be
-		// a separate search later specifically for other TV channel 6 records that may interfere with desired FMs.
-		// This is optional, this and the later TV6 search may be skipped.
-
-		StringBuilder q;
-
-		if (null != tvExtDb) {
-
-			q = new StringBuilder();
-
-			try {
-				ExtDbRecordTV.addServiceTypeQueryTV(tvExtDb.type, tvExtDb.version, ExtDbRecord.FLAG_MATCH_SET,
-					ExtDbRecord.FLAG_MATCH_ANY, q, false);
-				ExtDbRecordTV.addRecordTypeQueryTV(tvExtDb.type, tvExtDb.version, false, q, true);
-			} catch (IllegalArgumentException ie) {
-			}
-
-			if (ExtDbRecordTV.addRecords(tvExtDb, false, scenario, ExtDbSearch.SEARCH_TYPE_UNDESIREDS, q.toString(),
-					null, 0., 0, 0, false, true, true, true, errors) < 0) {
-				return false;
-			}
-
-			// Check for an abort, this is usually running on a secondary thread.
-
-			if (isAborted()) {
-				return false;
-			}
-		}
-
-		// Do a search for FM records to pick up both undesireds to the target TV and desireds that need protection
-		// from the target.  Both directions consider at least all NCE FM channels but apply different per-channel
-		// culling distances.  For the undesired test, those are distances in a parameter table with defaults from FCC
-		// rules 73.525.  Although those were developed for analog TV, they are reasonable for the distance check in
-		// either case.  However the D/U curve-lookup portion of 73.525 may or may not be used for a digital, see the
-		// study engine code for details.  To identify protected FMs from the TV as undesired, if the TV is analog it
-		// is studied as a full-service FM on channel 199 using the normal FM-to-FM interference rules.  Note that may
-		// include channels outside the NCE FM range due to the 53/54-channel rules.  For that case a culling distance
-		// table is built first from the rules, that is built even if the target is digital because the table will also
-		// be needed later in the search for other undesired TV channel 6 records.  If the TV is digital, parameters
-		// provide a DTV to FM culling distance table, with defaults from the National Public Radio study "Comparison
-		// of FM Broadcast Signal Interference Areas with Current Digital Television Receivers on Channel 6 to Analog
-		// TV Receivers Assumed in 47 CFR 73.525", September 5, 2008.
+		// Build the search queries first so all of the searches can be started at once.  The searches are independent
+		// and run in parallel on separate connections, see SearchThread.  First is a search for FM records to pick
+		// up both undesireds to the target TV and desireds that need protection from the target.  Both directions
+		// consider at least all NCE FM channels but apply different per-channel culling distances.  For the undesired
+		// test, those are distances in a parameter table with defaults from FCC rules 73.525.  Although those were
+		// developed for analog TV, they are reasonable for the distance check in either case.  However the D/U curve-
+		// lookup portion of 73.525 may or may not be used for a digital, see the study engine code for details.  To
+		// identify protected FMs from the TV as undesired, if the TV is analog it is studied as a full-service FM on
+		// channel 199 using the normal FM-to-FM interference rules.  Note that may include channels outside the NCE FM
+		// range due to the 53/54-channel rules.  For that case a culling distance table is built first from the rules,
+		// that is built even if the target is digital because the table will also be needed later in the search for
+		// other undesired TV channel 6 records.  If the TV is digital, parameters provide a DTV to FM culling distance
+		// table, with defaults from the National Public Radio study "Comparison of FM Broadcast Signal Interference
+		// Areas with Current Digital Television Receivers on Channel 6 to Analog TV Receivers Assumed in 47 CFR
+		// 73.525", September 5, 2008.
 
 		double[] cullToTV = study.getTV6FMDistance();
 
@@ -293,8 +272,8 @@ public class StudyBuildTV6FM extends StudyBuild {
 			cullToFM = cullTVtoFM;
 		}
 
-		// Build the search query.  Include all channels which have a non-zero culling distance in the FM to TV table,
-		// or whichever of the DTV to FM or TV to FM tables apply to the target.  Exclude archived records.
+		// Build the FM search query.  Include all channels which have a non-zero culling distance in the FM to TV
+		// table, or whichever of the DTV to FM or TV to FM tables apply to the target.  Exclude archived records.
 
 		StringBuilder chans = new StringBuilder();
 		char sep = '(';
@@ -307,7 +286,7 @@ public class StudyBuildTV6FM extends StudyBuild {
 		}
 		chans.append(')');
 
-		q = new StringBuilder();
+		StringBuilder q = new StringBuilder();
 
 		try {
 			ExtDbRecordFM.addMultipleChannelQueryFM(fmExtDb.type, fmExtDb.version, chans.toString(), q, false);
@@ -316,50 +295,75 @@ public class StudyBuildTV6FM extends StudyBuild {
 		} catch (IllegalArgumentException ie) {
 		}
 
-		// Do the search.
+		ArrayList<SearchThread> searches = new ArrayList<SearchThread>();
 
-		LinkedList<ExtDbRecordFM> fmRecords = ExtDbRecordFM.findRecordsFM(fmExtDb, q.toString(), errors);
-		if (null == fmRecords) {
-			return false;
+		SearchThread fmSearch = new SearchThread(fmExtDb, q.toString(), errors);
+		searches.add(fmSearch);
+
+		// If TV records are included, build the query for a search for TV channel 6 records that may be undesireds to
+		// the desired FMs.  That is processed later after the FM desireds are identified.
+
+		SearchThread tvSearch = null;
+
+		if (null != tvExtDb) {
+
+			q = new StringBuilder();
+
+			try {
+				ExtDbRecordTV.addChannelQueryTV(tvExtDb.type, tvExtDb.version, 6, 0, 0, q, false);
+				ExtDbRecordTV.addServiceTypeQueryTV(tvExtDb.type, tvExtDb.version, ExtDbRecord.FLAG_MATCH_SET,
+					ExtDbRecord.FLAG_MATCH_ANY, q, true);
+				ExtDbRecordTV.addRecordTypeQueryTV(tvExtDb.type, tvExtDb.version, false, q, true);
+			} catch (IllegalArgumentException ie) {
+			}
+
+			tvSearch = new SearchThread(tvExtDb, q.toString(), errors);
+			searches.add(tvSearch);
 		}
 
-		if (isAborted()) {
-			return false;
+		for (SearchThread theSearch : searches) {
+			theSearch.start();
 		}
 
-		// Apply an MX selection process, see comments in ExtDbRecordTV.removeAllMX().
+		// While those run, add third-party undesired TV records that may interfere with the target, can do this with
+		// the normal undesireds method in ExtDbRecordTV.  The scenario will only have one desired TV, the target.
+		// This is optional, this and the TV channel 6 search may be skipped.
 
-		Comparator<ExtDbRecordFM> fmComp = new Comparator<ExtDbRecordFM>() {
-			public int compare(ExtDbRecordFM theRecord, ExtDbRecordFM otherRecord) {
-				if (theRecord.isPreferredRecord(otherRecord, true)) {
-					return -1;
-				}
-				return 1;
-			}
-		};
+		if (null != tvExtDb) {
 
-		Collections.sort(fmRecords, fmComp);
+			q = new StringBuilder();
 
-		ExtDbRecordFM fmRecord;
-		ListIterator<ExtDbRecordFM> fmLit;
+			try {
+				ExtDbRecordTV.addServiceTypeQueryTV(tvExtDb.type, tvExtDb.version, ExtDbRecord.FLAG_MATCH_SET,
+					ExtDbRecord.FLAG_MATCH_ANY, q, false);
+				ExtDbRecordTV.addRecordTypeQueryTV(tvExtDb.type, tvExtDb.version, false, q, true);
+			} catch (IllegalArgumentException ie) {
+			}
 
-		int recCount = fmRecords.size() - 1;
-		for (int recIndex = 0; recIndex < recCount; recIndex++) {
-			fmRecord = fmRecords.get(recIndex);
-			fmLit = fmRecords.listIterator(recIndex + 1);
-			while (fmLit.hasNext()) {
-				if (ExtDbRecordFM.areRecordsMX(fmRecord, fmLit.next(), true, 0., 0.)) {
-					fmLit.remove();
-					recCount--;
-				}
+			if (ExtDbRecordTV.addRecords(tvExtDb, false, scenario, ExtDbSearch.SEARCH_TYPE_UNDESIREDS, q.toString(),
+					null, 0., 0, 0, false, true, true, true, errors) < 0) {
+				finishSearches(searches, true);
+				return false;
 			}
 		}
 
+		// Wait for the searches.  Check for an abort, this is usually running on a secondary thread.
+
+		if (!finishSearches(searches, isAborted())) {
+			return false;
+		}
+
+		LinkedList<ExtDbRecordFM> fmRecords = fmSearch.fmRecords;
+		if (null == fmRecords) {
+			return false;
+		}
+
 		// Scan the list and add records based on either/both of the culling distances.  If the distance passes either
 		// distance check the record will be an undesired, if it passes the TV to FM check it is also a desired.  Keep
 		// a separate list of the records that will be desireds to use those in the channel 6 search below.  Note the
 		// FM to TV check is a straight site-to-site distance test.  The TV to FM check is a site-to-point check so
-		// the rule-extra-distance (worst-case contour distance) is added to the culling distance.
+		// the rule-extra-distance (worst-case contour distance) is added to the culling distance.  The MX selection
+		// was already done by the search thread.
 
 		double distToFM, distToTV, dist;
 		boolean include, isDesired;
@@ -443,31 +447,14 @@ public class StudyBuildTV6FM extends StudyBuild {
 			return false;
 		}
 
-		// Next, search for TV channel 6 records that are undesireds to the desired FMs.  Optional.
+		// Next, process the search for TV channel 6 records that are undesireds to the desired FMs.  Optional.
 
-		if (null != tvExtDb) {
+		if (null != tvSearch) {
 
-			q = new StringBuilder();
-
-			try {
-				ExtDbRecordTV.addChannelQueryTV(tvExtDb.type, tvExtDb.version, 6, 0, 0, q, false);
-				ExtDbRecordTV.addServiceTypeQueryTV(tvExtDb.type, tvExtDb.version, ExtDbRecord.FLAG_MATCH_SET,
-					ExtDbRecord.FLAG_MATCH_ANY, q, true);
-				ExtDbRecordTV.addRecordTypeQueryTV(tvExtDb.type, tvExtDb.version, false, q, true);
-			} catch (IllegalArgumentException ie) {
-			}
-
-			// Do the search.
-
-			LinkedList<ExtDbRecordTV> tvRecords = ExtDbRecordTV.findRecordsTV(tvExtDb, q.toString(), errors);
+			LinkedList<ExtDbRecordTV> tvRecords = tvSearch.tvRecords;
 			if (null == tvRecords) {
 				return false;
 			}
-
-			if (isAborted()) {
-				return false;
-			}
-
 			// Apply an MX selection process, see comments in ExtDbRecordTV.removeAllMX(), this time also exclude
 			// records already in the scenario, or those MX to anything already in the scenario.
 
@@ -500,7 +487,7 @@ public class StudyBuildTV6FM extends StudyBuild {
 
 			Collections.sort(tvRecords, tvComp);
 
-			recCount = tvRecords.size() - 1;
+			int recCount = tvRecords.size() - 1;
 			for (int recIndex = 0; recIndex < recCount; recIndex++) {
 				tvRecord = tvRecords.get(recIndex);
 				tvLit = tvRecords.listIterator(recIndex + 1);
@@ -591,4 +578,150 @@ public class StudyBuildTV6FM extends StudyBuild {
 
 		return true;
 	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Wait for search threads to finish.  If the cancel argument is true the searches are told to stop first.  If
+	// this thread is interrupted while waiting, the searches are canceled and the wait continues, an interrupt will
+	// be the result of an abort so the searches will stop quickly.  Returns false if the searches were canceled or
+	// the build was aborted, in that case results should not be used.
+
+	private boolean finishSearches(ArrayList<SearchThread> searches, boolean cancel) {
+
+		if (cancel) {
+			for (SearchThread theSearch : searches) {
+				theSearch.canceled = true;
+			}
+		}
+
+		boolean interrupted = false;
+
+		for (SearchThread theSearch : searches) {
+			while (theSearch.isAlive()) {
+				try {
+					theSearch.join();
+				} catch (InterruptedException ie) {
+					interrupted = true;
+					cancel = true;
+					for (SearchThread otherSearch : searches) {
+						otherSearch.canceled = true;
+					}
+				}
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return (!cancel && !isAborted());
+	}
+
+
+	//=================================================================================================================
+	// Thread to run a record search in parallel with other steps of the scenario build.  Each search gets a separate
+	// connection from the data set.  The search stops early if the build is aborted or the search is canceled, see
+	// recordFound().  For FM records the MX selection is also done here since that depends only on the search
+	// results, see comments in ExtDbRecordTV.removeAllMX().  The TV channel 6 records are not MX-checked here,
+	// that has to first exclude records already in the scenario which is not known until the undesired TV search is
+	// done.  The error logger is shared, that is thread-safe.  Results are null on error.
+
+	private class SearchThread extends Thread implements RecordListener {
+
+		private ExtDb extDb;
+		private String query;
+		private ErrorLogger errors;
+
+		private volatile boolean canceled;
+
+		private LinkedList<ExtDbRecordFM> fmRecords;
+		private LinkedList<ExtDbRecordTV> tvRecords;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private SearchThread(ExtDb theExtDb, String theQuery, ErrorLogger theErrors) {
+
+			extDb = theExtDb;
+			query = theQuery;
+			errors = theErrors;
+
+			setName("StudyBuildTV6FM search " + extDb.key);
+			setDaemon(true);
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public boolean recordFound(Record theRecord) {
+
+			return (!canceled && !isAborted());
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void run() {
+
+			try {
+
+				LinkedList<ExtDbRecord> theRecords = ExtDbRecord.findRecords(extDb, query, this, errors);
+				if ((null == theRecords) || canceled || isAborted()) {
+					return;
+				}
+
+				if (Source.RECORD_TYPE_FM == extDb.recordType) {
+
+					LinkedList<ExtDbRecordFM> theFMRecords = new LinkedList<ExtDbRecordFM>();
+					for (ExtDbRecord theRecord : theRecords) {
+						theFMRecords.add((ExtDbRecordFM)theRecord);
+					}
+
+					Collections.sort(theFMRecords, new Comparator<ExtDbRecordFM>() {
+						public int compare(ExtDbRecordFM theRecord, ExtDbRecordFM otherRecord) {
+							if (theRecord.isPreferredRecord(otherRecord, true)) {
+								return -1;
+							}
+							return 1;
+						}
+					});
+
+					ExtDbRecordFM fmRecord;
+					ListIterator<ExtDbRecordFM> fmLit;
+
+					int recCount = theFMRecords.size() - 1;
+					for (int recIndex = 0; recIndex < recCount; recIndex++) {
+						fmRecord = theFMRecords.get(recIndex);
+						fmLit = theFMRecords.listIterator(recIndex + 1);
+						while (fmLit.hasNext()) {
+							if (ExtDbRecordFM.areRecordsMX(fmRecord, fmLit.next(), true, 0., 0.)) {
+								fmLit.remove();
+								recCount--;
+							}
+						}
+						if (canceled || isAborted()) {
+							return;
+						}
+					}
+
+					fmRecords = theFMRecords;
+
+				} else {
+
+					LinkedList<ExtDbRecordTV> theTVRecords = new LinkedList<ExtDbRecordTV>();
+					for (ExtDbRecord theRecord : theRecords) {
+						theTVRecords.add((ExtDbRecordTV)theRecord);
+					}
+
+					tvRecords = theTVRecords;
+				}
+
+			} catch (Throwable t) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+				if (null != errors) {
+					errors.reportError("Station data search failed, unexpected error: " + t);
+				}
+			}
+		}
+	}
 }
@@ -119,6 +119,8 @@ public class StudyBuildWireless extends StudyBuild {
 			return null;
 		}
 
+		startBuildPhase("create");
+
 		Integer defExtDbKey = null;
 		if (null != record) {
 			defExtDbKey = record.extDb.key;
@@ -152,6 +154,8 @@ public class StudyBuildWireless extends StudyBuild {
 
 			study = new StudyEditData(theStudy);
 
+			startBuildPhase("sources");
+
 			SourceEditDataTV theSource = null;
 			if (null != source) {
 				theSource = (SourceEditDataTV)source.deriveSource(study, source.isLocked, errors);
@@ -217,6 +221,8 @@ public class StudyBuildWireless extends StudyBuild {
 
 					int wlCount = 0, tvCount = 0;
 
+					startBuildPhase("search");
+
 					if (!isAborted()) {
 						wlCount = ExtDbRecordWL.addRecords(wirelessExtDb, scenario, ExtDbSearch.SEARCH_TYPE_UNDESIREDS,
 							"", null, 0., errors);
@@ -233,6 +239,7 @@ public class StudyBuildWireless extends StudyBuild {
 					}
 
 					if (!isAborted() && (wlCount >= 0) && (tvCount >= 0)) {
+						startBuildPhase("save");
 						study.isDataChanged();
 						if (study.save(errors)) {
 							result = true;
@@ -265,6 +272,7 @@ public class StudyBuildWireless extends StudyBuild {
 		}
 
 		if (result) {
+			endBuildPhases();
 			return theStudy;
 		}
 
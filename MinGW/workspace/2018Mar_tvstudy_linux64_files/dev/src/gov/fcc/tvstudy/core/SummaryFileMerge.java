@@ -0,0 +1,263 @@
+//
+//  SummaryFileMerge.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core;
+
+import java.util.*;
+import java.io.*;
+import java.nio.channels.*;
+
+
+//=====================================================================================================================
+// Merge summary output files from a study run that used several study engine processes in parallel.  Each engine is
+// given the -j option which activates partial summary output, so the summary report, CSV, and cell files are written
+// with the engine's run number appended to the name, and an index file records the byte range of each scenario's
+// output in each of those files.  The report and CSV files start with a preamble and table header, that is copied
+// once from the first part file then the scenario ranges follow in the order the scenarios were requested, so the
+// merged file is the same as a single engine would have written.  The cell file has no preamble.  The settings file
+// is identical from every engine so one part is just renamed.  This must be in sync with run_scenario() in study.c.
+
+// The index file has one line per scenario run, "scenarioKey,start,end,start,end,start,end" for the report, CSV, and
+// cell files in that order, with -1 for a file that was not being written.  A scenario that does not appear in any
+// index was not run or the engine failed before completing it, that is left out of the merge.
+
+public class SummaryFileMerge {
+
+	public static final String REPORT_FILE_NAME = "tvstudy.txt";
+	public static final String CSV_FILE_NAME = "tvstudy.csv";
+	public static final String CELL_FILE_NAME = "tvstudy.cel";
+	public static final String SETTING_FILE_NAME = "tvstudy_settings.txt";
+	public static final String INDEX_FILE_NAME = "tvstudy_index";
+
+	private static final String[] MERGE_FILE_NAMES = {REPORT_FILE_NAME, CSV_FILE_NAME, CELL_FILE_NAME};
+
+	private static final int FILE_COUNT = 3;
+
+
+	//=================================================================================================================
+	// Index entry for one scenario.
+
+	private static class IndexEntry {
+
+		private int runNumber;
+		private long[] start = new long[FILE_COUNT];
+		private long[] end = new long[FILE_COUNT];
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Merge the part files in a study output directory.  The run numbers are the -n arguments given to the engines,
+	// the first in the list supplies the preamble and header.  The scenario keys are in the desired output order.
+	// Returns the number of scenarios merged, or -1 on error in which case the part files are not deleted.  Part files
+	// are always deleted after a successful merge.
+
+	public static int mergeFiles(File theDirectory, List<Integer> runNumbers, List<Integer> scenarioKeys,
+			ErrorLogger errors) {
+
+		HashMap<Integer, IndexEntry> theIndex = new HashMap<Integer, IndexEntry>();
+		ArrayList<File> partFiles = new ArrayList<File>();
+
+		File theFile;
+		String theLine;
+		String[] fields;
+		IndexEntry theEntry;
+		Integer theKey;
+		int i;
+
+		// Read the index files.  If a scenario somehow appears in more than one index the first one is used.
+
+		for (Integer runNumber : runNumbers) {
+
+			theFile = new File(theDirectory, INDEX_FILE_NAME + "." + runNumber);
+			if (!theFile.exists()) {
+				continue;
+			}
+			partFiles.add(theFile);
+
+			BufferedReader theReader = null;
+
+			try {
+
+				theReader = new BufferedReader(new FileReader(theFile));
+
+				while (null != (theLine = theReader.readLine())) {
+
+					fields = theLine.trim().split(",");
+					if (fields.length != ((FILE_COUNT * 2) + 1)) {
+						continue;
+					}
+
+					theEntry = new IndexEntry();
+					theEntry.runNumber = runNumber.intValue();
+					theKey = Integer.valueOf(fields[0]);
+					for (i = 0; i < FILE_COUNT; i++) {
+						theEntry.start[i] = Long.parseLong(fields[(i * 2) + 1]);
+						theEntry.end[i] = Long.parseLong(fields[(i * 2) + 2]);
+					}
+
+					if (!theIndex.containsKey(theKey)) {
+						theIndex.put(theKey, theEntry);
+					}
+				}
+
+			} catch (IOException ie) {
+				if (null != errors) {
+					errors.reportError("Could not read output index file:\n" + ie.getMessage());
+				}
+				return -1;
+
+			} catch (NumberFormatException ne) {
+				if (null != errors) {
+					errors.reportError("Bad data in output index file " + theFile.getName());
+				}
+				return -1;
+
+			} finally {
+				if (null != theReader) {
+					try {theReader.close();} catch (IOException ie) {}
+				}
+			}
+		}
+
+		// Merge each file type for which there are part files.  The preamble and header are everything in the first
+		// part file before the earliest scenario range from that run.  If that run did not complete any scenarios the
+		// entire part file is the preamble.
+
+		int mergeCount = 0;
+
+		for (i = 0; i < FILE_COUNT; i++) {
+
+			HashMap<Integer, FileChannel> partChannels = new HashMap<Integer, FileChannel>();
+			FileChannel outChannel = null;
+			int firstRun = -1;
+
+			try {
+
+				for (Integer runNumber : runNumbers) {
+					theFile = new File(theDirectory, MERGE_FILE_NAMES[i] + "." + runNumber);
+					if (theFile.exists()) {
+						partFiles.add(theFile);
+						partChannels.put(runNumber, new FileInputStream(theFile).getChannel());
+						if (firstRun < 0) {
+							firstRun = runNumber.intValue();
+						}
+					}
+				}
+
+				if (partChannels.isEmpty()) {
+					continue;
+				}
+
+				outChannel = new FileOutputStream(new File(theDirectory, MERGE_FILE_NAMES[i])).getChannel();
+
+				FileChannel firstChannel = partChannels.get(Integer.valueOf(firstRun));
+				long headLength = firstChannel.size();
+				for (IndexEntry anEntry : theIndex.values()) {
+					if ((anEntry.runNumber == firstRun) && (anEntry.start[i] >= 0L) &&
+							(anEntry.start[i] < headLength)) {
+						headLength = anEntry.start[i];
+					}
+				}
+				copyRange(firstChannel, 0L, headLength, outChannel);
+
+				int fileMergeCount = 0;
+
+				for (Integer scenarioKey : scenarioKeys) {
+					theEntry = theIndex.get(scenarioKey);
+					if ((null == theEntry) || (theEntry.start[i] < 0L)) {
+						continue;
+					}
+					FileChannel partChannel = partChannels.get(Integer.valueOf(theEntry.runNumber));
+					if (null == partChannel) {
+						throw new IOException("Missing output part file for run " + theEntry.runNumber);
+					}
+					copyRange(partChannel, theEntry.start[i], theEntry.end[i], outChannel);
+					fileMergeCount++;
+				}
+
+				if (fileMergeCount > mergeCount) {
+					mergeCount = fileMergeCount;
+				}
+
+			} catch (IOException ie) {
+				if (null != errors) {
+					errors.reportError("Could not merge output file " + MERGE_FILE_NAMES[i] + ":\n" +
+						ie.getMessage());
+				}
+				mergeCount = -1;
+
+			} finally {
+				for (FileChannel partChannel : partChannels.values()) {
+					try {partChannel.close();} catch (IOException ie) {}
+				}
+				if (null != outChannel) {
+					try {outChannel.close();} catch (IOException ie) {}
+				}
+			}
+
+			if (mergeCount < 0) {
+				return -1;
+			}
+		}
+
+		// Keep the first settings file, delete the rest.
+
+		boolean settingsDone = false;
+		for (Integer runNumber : runNumbers) {
+			theFile = new File(theDirectory, SETTING_FILE_NAME + "." + runNumber);
+			if (theFile.exists()) {
+				if (!settingsDone) {
+					File settingsFile = new File(theDirectory, SETTING_FILE_NAME);
+					settingsFile.delete();
+					if (theFile.renameTo(settingsFile)) {
+						settingsDone = true;
+						continue;
+					}
+				}
+				partFiles.add(theFile);
+			}
+		}
+
+		for (File partFile : partFiles) {
+			partFile.delete();
+		}
+
+		// Check that all scenarios were merged, this is not an error but report it.
+
+		if (null != errors) {
+			int missingCount = 0;
+			for (Integer scenarioKey : scenarioKeys) {
+				if (!theIndex.containsKey(scenarioKey)) {
+					missingCount++;
+				}
+			}
+			if (missingCount > 0) {
+				errors.logMessage("Output for " + missingCount + ((1 == missingCount) ? " scenario" : " scenarios") +
+					" not found, those were not run or did not complete");
+			}
+		}
+
+		return mergeCount;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Copy a byte range between channels, transferTo() may copy less than requested so repeat until done.
+
+	private static void copyRange(FileChannel fromChannel, long start, long end, FileChannel toChannel)
+			throws IOException {
+
+		long count;
+
+		while (start < end) {
+			count = fromChannel.transferTo(start, (end - start), toChannel);
+			if (count <= 0L) {
+				throw new IOException("Output file transfer failed");
+			}
+			start += count;
+		}
+	}
+}
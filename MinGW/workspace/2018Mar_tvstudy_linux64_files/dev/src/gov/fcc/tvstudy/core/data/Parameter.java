@@ -955,12 +955,90 @@ public class Parameter extends KeyedRecord {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Retrieve parameters for a study database using a template already loaded, see Template.getTemplate().  This is
+	// the same as getParameters() with a database name, except the parameter structure and defaults are copied from
+	// the template rather than queried.  The template parameters were loaded with no database name, so their values
+	// are the template values with defaults applied from the default template, those are the defaults for a study.
+	// The template objects are shared so they are not modified, each is copied.
+
+	public static ArrayList<Parameter> getParameters(DbConnection db, String theDbName, String rootName,
+			Template theTemplate, int studyType) throws SQLException {
+
+		db.setDatabase(rootName);
+
+		HashSet<Integer> studyTypeKeys = new HashSet<Integer>();
+
+		db.query("SELECT parameter_key FROM parameter_study_type WHERE study_type = " + studyType);
+
+		while (db.next()) {
+			studyTypeKeys.add(Integer.valueOf(db.getInt(1)));
+		}
+
+		int valueIndex;
+		Parameter theParameter;
+		ArrayList<Parameter> parameterList = new ArrayList<Parameter>();
+		HashMap<Integer, Parameter> parameterMap = new HashMap<Integer, Parameter>();
+
+		for (Parameter templateParameter : theTemplate.parameters) {
+			if (templateParameter.isScenario || !studyTypeKeys.contains(Integer.valueOf(templateParameter.key))) {
+				continue;
+			}
+			theParameter = templateParameter.copy();
+			for (valueIndex = 0; valueIndex < theParameter.valueCount; valueIndex++) {
+				theParameter.defaultValue[valueIndex] = templateParameter.value[valueIndex];
+				theParameter.value[valueIndex] = null;
+			}
+			parameterList.add(theParameter);
+			parameterMap.put(Integer.valueOf(theParameter.key), theParameter);
+		}
+
+		db.setDatabase(theDbName);
+
+		db.query(
+		"SELECT " +
+			"parameter_key, " +
+			"value_index, " +
+			"value " +
+		"FROM " +
+			"parameter_data");
+
+		while (db.next()) {
+			theParameter = parameterMap.get(Integer.valueOf(db.getInt(1)));
+			if (null != theParameter) {
+				valueIndex = db.getInt(2);
+				if ((valueIndex >= 0) && (valueIndex < theParameter.valueCount)) {
+					theParameter.value[valueIndex] = db.getString(3);
+				}
+			}
+		}
+
+		db.setDatabase(rootName);
+
+		Iterator<Parameter> it = parameterList.iterator();
+		while (it.hasNext()) {
+			theParameter = it.next();
+			if (!theParameter.checkValues()) {
+				it.remove();
+			}
+		}
+
+		return parameterList;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Retrieve the scenario parameters for a given database.  This is done in bulk for all scenarios to make the load
-	// more efficient.  The set of parameters and defaults is the same for every scenario, only the values vary.
+	// more efficient.  The set of parameters and defaults is the same for every scenario, only the values vary.  The
+	// load may be restricted to some scenarios by a WHERE clause on the scenario table, see ExportXML.
 
 	public static HashMap<Integer, ArrayList<Parameter>> getScenarioParameters(DbConnection db, String theDbName,
 			String rootName, int templateKey, int studyType) throws SQLException {
+		return getScenarioParameters(db, theDbName, rootName, templateKey, studyType, null);
+	}
+
+	public static HashMap<Integer, ArrayList<Parameter>> getScenarioParameters(DbConnection db, String theDbName,
+			String rootName, int templateKey, int studyType, String theQuery) throws SQLException {
 
 		HashMap<Integer, ArrayList<Parameter>> result = new HashMap<Integer, ArrayList<Parameter>>();
 
@@ -975,6 +1053,11 @@ public class Parameter extends KeyedRecord {
 		// then called and if that succeeds the parameter is added to the list for a scenario.  If all parameters fail
 		// checkValues() no entry will exist in the map for the scenario.
 
+		String whrStr = "";
+		if ((null != theQuery) && (theQuery.length() > 0)) {
+			whrStr = "AND (" + theQuery + ") ";
+		}
+
 		db.setDatabase(theDbName);
 
 		db.query(
@@ -992,6 +1075,7 @@ public class Parameter extends KeyedRecord {
 		"WHERE " +
 			"(parameter_study_type.study_type = " + studyType + ") " +
 			"AND parameter.is_scenario_parameter " +
+			whrStr +
 		"ORDER BY " +
 			"1, 2, 3");
 
@@ -352,7 +352,7 @@ public abstract class Source extends KeyedRecord {
 			return null;
 		}
 
-		return new AntPattern(dbID, AntPattern.PATTERN_TYPE_HORIZONTAL, horizontalPatternName, thePoints);
+		return new AntPattern(dbID, AntPattern.PATTERN_TYPE_HORIZONTAL, horizontalPatternName, thePoints).intern();
 	}
 
 
@@ -413,7 +413,7 @@ public abstract class Source extends KeyedRecord {
 			return null;
 		}
 
-		return new AntPattern(dbID, AntPattern.PATTERN_TYPE_VERTICAL, verticalPatternName, thePoints);
+		return new AntPattern(dbID, AntPattern.PATTERN_TYPE_VERTICAL, verticalPatternName, thePoints).intern();
 	}
 
 
@@ -487,7 +487,7 @@ public abstract class Source extends KeyedRecord {
 			return null;
 		}
 
-		return new AntPattern(dbID, matrixPatternName, AntPattern.PATTERN_TYPE_VERTICAL, theSlices);
+		return new AntPattern(dbID, matrixPatternName, AntPattern.PATTERN_TYPE_VERTICAL, theSlices).intern();
 	}
 
 
@@ -173,7 +173,8 @@ public class SourceTV extends Source {
 	// might appear in the restricted main query (search conditions apply to the parent not the secondaries).  But
 	// it's not too bad given that DTS records are a relatively small subset in any given database, at least for the
 	// moment.  It's not that hard to fix, do the main query first then build a list of parent keys to match and load
-	// DTS secondaries after, but it's time I don't have right now.
+	// DTS secondaries after, but it's time I don't have right now.  Meanwhile a caller that knows which parents the
+	// main query can match may provide a separate WHERE clause for the DTS query, see ExportXML.
 
 	public static void getSources(DbConnection db, String theDbID, String theDbName, List<Source> sources)
 			throws SQLException {
@@ -182,6 +183,11 @@ public class SourceTV extends Source {
 
 	public static void getSources(DbConnection db, String theDbID, String theDbName, String theQuery,
 			List<Source> sources) throws SQLException {
+		getSources(db, theDbID, theDbName, theQuery, null, sources);
+	}
+
+	public static void getSources(DbConnection db, String theDbID, String theDbName, String theQuery,
+			String theDTSQuery, List<Source> sources) throws SQLException {
 
 		int theKey, lastParentKey = 0;
 		Integer theRecID, theExtDbKey, theOriginalKey, theParentKey;
@@ -192,6 +198,11 @@ public class SourceTV extends Source {
 		ArrayList<SourceTV> theDTSSources = null;
 		HashMap<Integer, ArrayList<SourceTV>> dtsMap = new HashMap<Integer, ArrayList<SourceTV>>();
 
+		String dtsWhrStr = "";
+		if ((null != theDTSQuery) && (theDTSQuery.length() > 0)) {
+			dtsWhrStr = "AND (" + theDTSQuery + ") ";
+		}
+
 		db.setDatabase(theDbName);
 
 		db.query(
@@ -247,6 +258,7 @@ public class SourceTV extends Source {
 		"WHERE " +
 			"record_type = " + RECORD_TYPE_TV + " " +
 			"AND (parent_source_key > 0) " +
+			dtsWhrStr +
 		"ORDER BY " +
 			"parent_source_key, site_number, source_key");
 
@@ -453,6 +453,19 @@ public class Study extends KeyedRecord {
 						SourceWL.getSources(db, theDbID, theDbName, theSources);
 						SourceFM.getSources(db, theDbID, theDbName, theSources);
 
+						// Parameter defaults come from the template, use the cached template if it can be loaded.
+						// Interference rules are entirely in the study database so do not involve the template.
+
+						ArrayList<Parameter> theParameters;
+						Template theTemplate = Template.getTemplate(theDbID, theTemplateKey);
+						if (null != theTemplate) {
+							theParameters =
+								Parameter.getParameters(db, theDbName, rootName, theTemplate, theStudyType);
+						} else {
+							theParameters =
+								Parameter.getParameters(db, theDbName, rootName, theTemplateKey, theStudyType);
+						}
+
 						result = new Study(
 							theDbID,
 							theKey,
@@ -468,7 +481,7 @@ public class Study extends KeyedRecord {
 							thePropModel,
 							theAreaMode,
 							theAreaGeoKey,
-							Parameter.getParameters(db, theDbName, rootName, theTemplateKey, theStudyType),
+							theParameters,
 							IxRule.getIxRules(db, theDbName, rootName, theTemplateKey, theStudyType),
 							theSources,
 							Scenario.getScenarios(db, theDbName, rootName, theTemplateKey, theStudyType,
@@ -617,7 +630,7 @@ public class Study extends KeyedRecord {
 
 		try {
 
-			db.update("LOCK TABLES study WRITE, template WRITE, study_key_sequence WRITE, folder WRITE");
+			db.update("LOCK TABLES study WRITE, template WRITE, folder WRITE");
 
 			db.query("SELECT template_key FROM template WHERE template_key = " + templateKey);
 			if (!db.next()) {
@@ -627,10 +640,7 @@ public class Study extends KeyedRecord {
 
 				// Get the new study key.  Check for name uniqueness, append the key if needed.
 
-				db.update("UPDATE study_key_sequence SET study_key = study_key + 1");
-				db.query("SELECT study_key FROM study_key_sequence");
-				db.next();
-				studyKey = db.getInt(1);
+				studyKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_STUDY);
 
 				db.query("SELECT study_key FROM study WHERE UPPER(name) = '" +
 					db.clean(studyName.toUpperCase()) + "'");
@@ -796,7 +806,7 @@ public class Study extends KeyedRecord {
 
 		try {
 
-			db.update("LOCK TABLES study WRITE, version WRITE, template WRITE, study_key_sequence WRITE");
+			db.update("LOCK TABLES study WRITE, version WRITE, template WRITE");
 
 			db.query(
 			"SELECT " +
@@ -864,10 +874,7 @@ public class Study extends KeyedRecord {
 						lockSet = true;
 						lockCount++;
 
-						db.update("UPDATE study_key_sequence SET study_key = study_key + 1");
-						db.query("SELECT study_key FROM study_key_sequence");
-						db.next();
-						studyKey = db.getInt(1);
+						studyKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_STUDY);
 
 						db.update("UNLOCK TABLES");
 
@@ -888,7 +895,7 @@ public class Study extends KeyedRecord {
 						// memory if needed, since the study record hasn't been written yet.  This will also add to
 						// study_geography for all keys in use, including global geographies that aren't duplicated.
 
-						Geography.duplicateStudyGeographies(db, rootName, studyKey, geoKeys);
+						Geography.duplicateStudyGeographies(theDbID, db, rootName, studyKey, geoKeys);
 
 						// Check the lock to be sure it did not change, check name for uniqueness and modify if needed,
 						// and write the new study record.
@@ -29,6 +29,15 @@ import java.sql.*;
 // only be set if locked is set, and like locked, once set it cannot be cleared.  Also it cannot be set if locked is
 // already set, they must be set together in the same UI action.
 
+// Templates loaded by getTemplate() are cached, keyed by database ID and template key.  Each load checks the template
+// table row, if the mod_count column has not changed since the cached object was loaded the cached object is returned
+// without loading parameters and rules.  Every change to a template increments mod_count, so that check works across
+// applications sharing the database.  Study loads use the cached template for parameter defaults, see Study.getStudy()
+// and Parameter.getParameters().  Methods here that change templates also remove the cache entry directly, as
+// does TemplateEditData.save().  Cached objects are shared across threads, so the parameter and rule lists are not
+// modifiable, and Parameter and IxRule objects must never be modified; ParameterEditData and IxRuleEditData always
+// make copies for editing.  See also getTemplateInfo().
+
 public class Template extends KeyedRecord {
 
 	// Permanent name assigned to the default template.
@@ -52,8 +61,19 @@ public class Template extends KeyedRecord {
 	public final boolean isPermanent;
 	public final boolean isLocked;
 	public final boolean isLockedInStudy;
-	public final ArrayList<Parameter> parameters;
-	public final ArrayList<IxRule> ixRules;
+	public final List<Parameter> parameters;
+	public final List<IxRule> ixRules;
+
+	// Template cache, see getTemplate().
+
+	private static class CacheEntry {
+
+		private Template template;
+		private int modCount;
+	}
+
+	private static HashMap<String, HashMap<Integer, CacheEntry>> templateCache =
+		new HashMap<String, HashMap<Integer, CacheEntry>>();
 
 
 	//-----------------------------------------------------------------------------------------------------------------
@@ -68,13 +88,13 @@ public class Template extends KeyedRecord {
 		isPermanent = thePermanent;
 		isLocked = theLocked;
 		isLockedInStudy = theLockedInStudy;
-		parameters = theParameters;
-		ixRules = theIxRules;
+		parameters = Collections.unmodifiableList(theParameters);
+		ixRules = Collections.unmodifiableList(theIxRules);
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Load a template by key.
+	// Load a template by key.  The returned object may be shared, see comments above.
 
 	public static Template getTemplate(String theDbID, int theKey) {
 		return getTemplate(theDbID, theKey, null);
@@ -93,7 +113,7 @@ public class Template extends KeyedRecord {
 
 		boolean error = false, thePermanent = false, theLocked = false, theLockedInStudy = false;
 		String errmsg = "", theName = String.valueOf(theKey), theTemplateName = "";
-		int errtyp = AppCore.ERROR_MESSAGE;
+		int errtyp = AppCore.ERROR_MESSAGE, theModCount = 0;
 
 		try {
 
@@ -102,7 +122,8 @@ public class Template extends KeyedRecord {
 				"name, " +
 				"permanent, " +
 				"locked, " +
-				"locked_in_study " +
+				"locked_in_study, " +
+				"mod_count " +
 			"FROM " +
 				"template " +
 			"WHERE " +
@@ -115,20 +136,29 @@ public class Template extends KeyedRecord {
 				thePermanent = db.getBoolean(2);
 				theLocked = db.getBoolean(3);
 				theLockedInStudy = db.getBoolean(4);
+				theModCount = db.getInt(5);
+
+				result = getCachedTemplate(theDbID, theKey, theModCount);
+
+				if (null == result) {
 
-				result = new Template(
-					theDbID,
-					theKey,
-					theTemplateName,
-					thePermanent,
-					theLocked,
-					theLockedInStudy,
-					Parameter.getParameters(db, null, rootName, theKey, 0),
-					IxRule.getIxRules(db, null, rootName, theKey, 0));
+					result = new Template(
+						theDbID,
+						theKey,
+						theTemplateName,
+						thePermanent,
+						theLocked,
+						theLockedInStudy,
+						Parameter.getParameters(db, null, rootName, theKey, 0),
+						IxRule.getIxRules(db, null, rootName, theKey, 0));
+
+					putCachedTemplate(result, theModCount);
+				}
 
 			} else {
 				error = true;
 				errmsg = "The template does not exist.";
+				invalidateCache(theDbID, theKey);
 			}
 
 		} catch (SQLException se) {
@@ -150,6 +180,88 @@ public class Template extends KeyedRecord {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Cache access methods.  An entry with a different modification count is stale, it is removed.
+
+	private static synchronized Template getCachedTemplate(String theDbID, int theKey, int theModCount) {
+
+		HashMap<Integer, CacheEntry> theCache = templateCache.get(theDbID);
+		if (null == theCache) {
+			return null;
+		}
+
+		CacheEntry theEntry = theCache.get(Integer.valueOf(theKey));
+		if (null == theEntry) {
+			return null;
+		}
+
+		if (theEntry.modCount != theModCount) {
+			theCache.remove(Integer.valueOf(theKey));
+			return null;
+		}
+
+		return theEntry.template;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static synchronized void putCachedTemplate(Template theTemplate, int theModCount) {
+
+		HashMap<Integer, CacheEntry> theCache = templateCache.get(theTemplate.dbID);
+		if (null == theCache) {
+			theCache = new HashMap<Integer, CacheEntry>();
+			templateCache.put(theTemplate.dbID, theCache);
+		}
+
+		CacheEntry theEntry = new CacheEntry();
+		theEntry.template = theTemplate;
+		theEntry.modCount = theModCount;
+
+		theCache.put(Integer.valueOf(theTemplate.key), theEntry);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Get a template from the cache without any database check.  Used by getTemplateInfo() for locked templates.
+
+	private static synchronized Template peekCachedTemplate(String theDbID, int theKey) {
+
+		HashMap<Integer, CacheEntry> theCache = templateCache.get(theDbID);
+		if (null == theCache) {
+			return null;
+		}
+
+		CacheEntry theEntry = theCache.get(Integer.valueOf(theKey));
+		if (null == theEntry) {
+			return null;
+		}
+
+		return theEntry.template;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Remove a template from the cache, called by any code that changes a template.
+
+	public static synchronized void invalidateCache(String theDbID, int theKey) {
+
+		HashMap<Integer, CacheEntry> theCache = templateCache.get(theDbID);
+		if (null != theCache) {
+			theCache.remove(Integer.valueOf(theKey));
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Remove cache state when closing a database, see DbCore.closeDb().
+
+	public static synchronized void closeDb(String theDbID) {
+
+		templateCache.remove(theDbID);
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Find the template key for a template name, return 0 if not found, -1 on error.
 
@@ -204,6 +316,14 @@ public class Template extends KeyedRecord {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// Get information for one template.  If the template is locked and in the cache the information comes from the
+	// cache with no database query.  On a cache miss, if the template turns out to be locked it is loaded and cached
+	// with getTemplate(), so later calls and the study build that usually follows will not query again.  The locked
+	// flags can never be cleared once set, and parameters and rules in a locked template cannot change, so those are
+	// always current.  The name could be stale if another application
+	// renamed the template, or the template may have been deleted by another application, but the only use of this
+	// for a locked template is to check the flags before building a study and a deleted template will cause an error
+	// when the study is created.
 
 	public static Info getTemplateInfo(String theDbID, int theKey) {
 		return getTemplateInfo(theDbID, theKey, null);
@@ -213,27 +333,45 @@ public class Template extends KeyedRecord {
 
 		Info result = null;
 
-		DbConnection db = DbCore.connectDb(theDbID, errors);
-		if (null != db) {
-			try {
+		Template theTemplate = peekCachedTemplate(theDbID, theKey);
 
-				db.query("SELECT name, locked, locked_in_study FROM template WHERE template_key = " +
-					String.valueOf(theKey));
-				if (db.next()) {
-					result = new Info(theKey, db.getString(1));
-					result.isLocked = db.getBoolean(2);
-					result.isLockedInStudy = db.getBoolean(3);
+		if ((null == theTemplate) || !theTemplate.isLocked) {
+
+			DbConnection db = DbCore.connectDb(theDbID, errors);
+			if (null != db) {
+				try {
+
+					db.query("SELECT name, locked, locked_in_study FROM template WHERE template_key = " +
+						String.valueOf(theKey));
+					if (db.next()) {
+						result = new Info(theKey, db.getString(1));
+						result.isLocked = db.getBoolean(2);
+						result.isLockedInStudy = db.getBoolean(3);
+					}
+
+					DbCore.releaseDb(db);
+
+				} catch (SQLException se) {
+					DbCore.releaseDb(db);
+					result = null;
+					DbConnection.reportError(errors, se);
 				}
+			}
 
-				DbCore.releaseDb(db);
+			if ((null == result) || !result.isLocked) {
+				return result;
+			}
 
-			} catch (SQLException se) {
-				DbCore.releaseDb(db);
-				result = null;
-				DbConnection.reportError(errors, se);
+			theTemplate = getTemplate(theDbID, theKey, errors);
+			if (null == theTemplate) {
+				return null;
 			}
 		}
 
+		result = new Info(theKey, theTemplate.name);
+		result.isLocked = theTemplate.isLocked;
+		result.isLockedInStudy = theTemplate.isLockedInStudy;
+
 		return result;
 	}
 
@@ -398,7 +536,8 @@ public class Template extends KeyedRecord {
 				newName = newName + " " + DbCore.NAME_UNIQUE_CHAR + templateKey;
 			}
 
-			db.update("UPDATE template SET name = '" + db.clean(newName) + "' WHERE template_key = " + templateKey);
+			db.update("UPDATE template SET name = '" + db.clean(newName) + "', mod_count = mod_count + 1 " +
+				"WHERE template_key = " + templateKey);
 
 		} catch (SQLException se) {
 			errmsg = "A database error occurred:\n" + se;
@@ -413,6 +552,8 @@ public class Template extends KeyedRecord {
 
 		DbCore.releaseDb(db);
 
+		invalidateCache(dbID, templateKey);
+
 		if (null != errmsg) {
 			if (null != errors) {
 				errors.reportError(errmsg);
@@ -449,7 +590,7 @@ public class Template extends KeyedRecord {
 
 		try {
 
-			db.update("LOCK TABLES template WRITE, template_key_sequence WRITE, " +
+			db.update("LOCK TABLES template WRITE, " +
 				"template_parameter_data WRITE, template_parameter_data AS old_param READ, " +
 				"template_ix_rule WRITE, template_ix_rule AS old_rule READ");
 
@@ -461,10 +602,7 @@ public class Template extends KeyedRecord {
 					"'");
 				boolean appendKey = db.next();
 
-				db.update("UPDATE template_key_sequence SET template_key = template_key + 1");
-				db.query("SELECT template_key FROM template_key_sequence");
-				db.next();
-				newKey = db.getInt(1);
+				newKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_TEMPLATE);
 				if (appendKey) {
 					newName = newName + " " + DbCore.NAME_UNIQUE_CHAR + newKey;
 				}
@@ -560,6 +698,10 @@ public class Template extends KeyedRecord {
 
 		DbCore.releaseDb(db);
 
+		if (newKey > 0) {
+			invalidateCache(theDbID, newKey);
+		}
+
 		if (error) {
 			if (null != errors) {
 				errors.reportError(errmsg);
@@ -634,6 +776,8 @@ public class Template extends KeyedRecord {
 
 		DbCore.releaseDb(db);
 
+		invalidateCache(theDbID, templateKey);
+
 		if (error) {
 			if (null != errors) {
 				errors.reportError(errmsg);
@@ -0,0 +1,276 @@
+//
+//  BinaryXML.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core.editdata;
+
+import java.util.*;
+import java.util.zip.*;
+import java.io.*;
+
+import org.xml.sax.*;
+import org.xml.sax.helpers.*;
+
+
+//=====================================================================================================================
+// Compact binary encoding of an XML document as a recorded stream of SAX events, used to store user records so they
+// can be loaded without running the XML parser, see SourceEditData.findUserRecord().  Rather than define a separate
+// binary format for every source type the encoding captures exactly what the SAX parser delivers to a handler, so
+// decoding just replays the events into the same ParseXML handler used for the XML text and there is only one code
+// path building source objects.  XML remains the interchange and primary storage format, the encoding may always be
+// re-created from the XML text.
+
+// Element and attribute names are written once and referenced by index after that, values and character content are
+// written as UTF strings, and the whole stream is deflated.  Only element, attribute, and character events are
+// recorded, that is all ParseXML uses.  An end element event does not repeat the name, the decoder keeps a stack of
+// open elements to supply it.  The first byte is a format version, a decoder seeing a different version
+// returns false so the caller can fall back to the XML text.
+
+public class BinaryXML {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int EVENT_END_DOCUMENT = 0;
+	private static final int EVENT_START_ELEMENT = 1;
+	private static final int EVENT_END_ELEMENT = 2;
+	private static final int EVENT_CHARACTERS = 3;
+
+	// Character content is split into chunks so writeUTF() can never exceed it's length limit.
+
+	private static final int MAX_CHUNK_LENGTH = 16000;
+
+
+	//=================================================================================================================
+	// Handler that records events while forwarding them to another handler, so a document can be parsed and encoded
+	// in one pass.  Call getData() after the parse completes.
+
+	public static class Recorder extends DefaultHandler {
+
+		private ContentHandler handler;
+
+		private ByteArrayOutputStream byteStream;
+		private DataOutputStream out;
+
+		private HashMap<String, Integer> names;
+
+		private boolean failed;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// The handler may be null to just record, or may be set later but must be set before parsing begins.
+
+		public Recorder(ContentHandler theHandler) {
+
+			handler = theHandler;
+
+			byteStream = new ByteArrayOutputStream();
+			out = new DataOutputStream(new DeflaterOutputStream(byteStream));
+
+			names = new HashMap<String, Integer>();
+
+			try {
+				out.writeByte(FORMAT_VERSION);
+			} catch (IOException e) {
+				failed = true;
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void setHandler(ContentHandler theHandler) {
+
+			handler = theHandler;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void startElement(String nameSpc, String locName, String qName, Attributes attrs) throws SAXException {
+
+			if (!failed) {
+				try {
+					out.writeByte(EVENT_START_ELEMENT);
+					writeName(qName);
+					int n = attrs.getLength();
+					out.writeShort(n);
+					for (int i = 0; i < n; i++) {
+						writeName(attrs.getQName(i));
+						out.writeUTF(attrs.getValue(i));
+					}
+				} catch (IOException e) {
+					failed = true;
+				}
+			}
+
+			if (null != handler) {
+				handler.startElement(nameSpc, locName, qName, attrs);
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void characters(char[] ch, int start, int length) throws SAXException {
+
+			if (!failed) {
+				try {
+					int len;
+					for (int off = 0; off < length; off += MAX_CHUNK_LENGTH) {
+						len = Math.min(MAX_CHUNK_LENGTH, (length - off));
+						out.writeByte(EVENT_CHARACTERS);
+						out.writeUTF(new String(ch, (start + off), len));
+					}
+				} catch (IOException e) {
+					failed = true;
+				}
+			}
+
+			if (null != handler) {
+				handler.characters(ch, start, length);
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void endElement(String nameSpc, String locName, String qName) throws SAXException {
+
+			if (!failed) {
+				try {
+					out.writeByte(EVENT_END_ELEMENT);
+				} catch (IOException e) {
+					failed = true;
+				}
+			}
+
+			if (null != handler) {
+				handler.endElement(nameSpc, locName, qName);
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// A name is written as an index, a new name is written as -1 followed by the string and gets the next index.
+
+		private void writeName(String theName) throws IOException {
+
+			Integer theIndex = names.get(theName);
+			if (null != theIndex) {
+				out.writeShort(theIndex.intValue());
+			} else {
+				out.writeShort(-1);
+				out.writeUTF(theName);
+				names.put(theName, Integer.valueOf(names.size()));
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Finish the encoding and return the data, or null if any error occurred.  Call only once.
+
+		public byte[] getData() {
+
+			if (failed) {
+				return null;
+			}
+
+			try {
+				out.writeByte(EVENT_END_DOCUMENT);
+				out.close();
+			} catch (IOException e) {
+				return null;
+			}
+
+			return byteStream.toByteArray();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Replay encoded data into a handler.  Returns false if the data is not a recognized encoding or is corrupt, the
+	// handler may have received some events in that case so the caller must discard it.  Exceptions thrown by the
+	// handler are passed through.
+
+	public static boolean replay(byte[] theData, ContentHandler handler) throws SAXException {
+
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayDeque<String> openElements = new ArrayDeque<String>();
+		AttributesImpl attrs = new AttributesImpl();
+
+		try {
+
+			DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(theData)));
+
+			if (in.readUnsignedByte() != FORMAT_VERSION) {
+				return false;
+			}
+
+			String theName, attName;
+			int n;
+			char[] chars;
+
+			while (true) {
+
+				switch (in.readUnsignedByte()) {
+
+					case EVENT_END_DOCUMENT: {
+						return true;
+					}
+
+					case EVENT_START_ELEMENT: {
+						theName = readName(in, names);
+						n = in.readShort();
+						attrs.clear();
+						for (int i = 0; i < n; i++) {
+							attName = readName(in, names);
+							attrs.addAttribute("", attName, attName, "CDATA", in.readUTF());
+						}
+						openElements.push(theName);
+						handler.startElement("", theName, theName, attrs);
+						break;
+					}
+
+					case EVENT_END_ELEMENT: {
+						theName = openElements.pop();
+						handler.endElement("", theName, theName);
+						break;
+					}
+
+					case EVENT_CHARACTERS: {
+						chars = in.readUTF().toCharArray();
+						handler.characters(chars, 0, chars.length);
+						break;
+					}
+
+					default: {
+						return false;
+					}
+				}
+			}
+
+		} catch (IOException e) {
+			return false;
+		} catch (IndexOutOfBoundsException e) {
+			return false;
+		} catch (NoSuchElementException e) {
+			return false;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static String readName(DataInputStream in, ArrayList<String> names) throws IOException {
+
+		int theIndex = in.readShort();
+		if (theIndex < 0) {
+			String theName = in.readUTF();
+			names.add(theName);
+			return theName;
+		}
+		return names.get(theIndex);
+	}
+}
@@ -0,0 +1,623 @@
+//
+//  ExportXML.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core.editdata;
+
+import gov.fcc.tvstudy.core.*;
+import gov.fcc.tvstudy.core.data.*;
+
+import java.util.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.sql.*;
+import java.util.zip.*;
+
+
+//=====================================================================================================================
+// Streaming export of XML from a study or a generic data set, directly from the database.  The writeToXML() methods
+// in ScenarioEditData and SourceEditData work from an editing model, so exporting a large study or data set that way
+// first requires loading every scenario and source.  Here records are read in key order one page at a time using a
+// key range taken from the previous page, each page is written out and discarded before the next is read, so memory
+// use is bounded by the page size regardless of the size of the study or data set.  The output is the same format
+// written by the other export methods, see StudyEditData.writeScenariosToXML() and SourceEditData.writeToXML(), it
+// can be imported anywhere those can.  The actual element content is still written by SourceEditData.writeToXML(),
+// so validity checks and the treatment of locked records, replication, and DTS are all the same.
+
+// The study export writes every scenario except child scenarios, which are never exported.  Scenario parameters are
+// written as stored, or as defaults if the scenario has none.  Unlike ScenarioEditData.writeToXML() there is no
+// scenario-level validity check, that needs the full scenario model, but each source is still checked.  The study is
+// locked for the duration of the export, so it cannot be open in another window at the time.
+
+// The caller provides the writer, see openWriter(), and is responsible for closing it.  A StatusLogger may be provided
+// for progress reporting and cancel, if canceled the export stops and returns an error but the output is incomplete.
+
+public class ExportXML {
+
+	private static final int SOURCE_PAGE_SIZE = 500;
+	private static final int SCENARIO_PAGE_SIZE = 50;
+	private static final long STATUS_INTERVAL = 1000L;   // milliseconds
+
+	private static final int WRITE_BUFFER_SIZE = 65536;
+
+	private static final Comparator<Source> KEY_ORDER = new Comparator<Source>() {
+		public int compare(Source theSource, Source otherSource) {
+			return Integer.compare(theSource.key, otherSource.key);
+		}
+	};
+
+
+	//=================================================================================================================
+	// Flags for a source in the current page of a scenario.
+
+	private static class SourceFlags {
+
+		private boolean isDesired;
+		private boolean isUndesired;
+	}
+
+
+	//=================================================================================================================
+	// Properties for a scenario in the current page.
+
+	private static class ScenarioItem {
+
+		private int key;
+		private String name;
+		private String description;
+	}
+
+
+	//=================================================================================================================
+	// Progress and cancel state for one export.
+
+	private static class Progress {
+
+		private StatusLogger status;
+		private String label;
+		private int total;
+		private int count;
+		private long lastStatusTime;
+
+		private Progress(StatusLogger theStatus, String theLabel, int theTotal) {
+
+			status = theStatus;
+			label = theLabel;
+			total = theTotal;
+		}
+
+		private void add(int theCount) {
+
+			count += theCount;
+			if (null == status) {
+				return;
+			}
+
+			long now = System.currentTimeMillis();
+			if ((now - lastStatusTime) >= STATUS_INTERVAL) {
+				status.reportStatus("Exported " + AppCore.formatCount(count) + " of " + AppCore.formatCount(total) +
+					" " + label);
+				lastStatusTime = now;
+			}
+		}
+
+		private boolean isCanceled() {
+
+			return (null != status) && status.isCanceled();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Open a file for export, UTF-8 through a large buffer, optionally compressed.  Closing the writer finishes the
+	// compressed stream.  The encoding is declared in the XML prolog, see ImportXML.openReader().
+
+	public static Writer openWriter(File theFile, boolean compress) throws IOException {
+
+		OutputStream theStream = new FileOutputStream(theFile);
+		if (compress) {
+			theStream = new GZIPOutputStream(theStream, WRITE_BUFFER_SIZE);
+		}
+
+		return new BufferedWriter(new OutputStreamWriter(theStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Export all records from a generic data set as standalone sources, the same as SourceEditData.writeSourcesToXML().
+	// Returns the number of records exported, or -1 on error.
+
+	public static int exportExtDb(ExtDb extDb, Writer xml, StatusLogger status, ErrorLogger errors) {
+
+		if (!extDb.isGeneric()) {
+			if (null != errors) {
+				errors.reportError("Unknown or unsupported station data type.");
+			}
+			return -1;
+		}
+
+		DbConnection db = extDb.connectDb(errors);
+		if (null == db) {
+			return -1;
+		}
+
+		int result = -1;
+
+		try {
+
+			db.setDatabase(extDb.dbName);
+
+			int theTotal = 0;
+			db.query("SELECT COUNT(*) FROM source WHERE (record_type = " + extDb.recordType +
+				") AND (parent_source_key = 0)");
+			if (db.next()) {
+				theTotal = db.getInt(1);
+			}
+
+			Progress theProgress = new Progress(status, "records", theTotal);
+
+			xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			xml.append("<TVSTUDY VERSION=\"" + ParseXML.XML_VERSION + "\">\n");
+
+			ArrayList<Source> theSources = new ArrayList<Source>();
+			int lastKey = 0, endKey;
+			String theRange, theDTSRange;
+			boolean error = false;
+
+			while (!error) {
+
+				if (theProgress.isCanceled()) {
+					if (null != errors) {
+						errors.reportError("Export canceled, the file is incomplete.");
+					}
+					error = true;
+					break;
+				}
+
+				db.setDatabase(extDb.dbName);
+
+				db.query(
+				"SELECT " +
+					"source_key " +
+				"FROM " +
+					"source " +
+				"WHERE " +
+					"(record_type = " + extDb.recordType + ") " +
+					"AND (parent_source_key = 0) " +
+					"AND (source_key > " + lastKey + ") " +
+				"ORDER BY " +
+					"source_key " +
+				"LIMIT " + SOURCE_PAGE_SIZE);
+
+				endKey = lastKey;
+				while (db.next()) {
+					endKey = db.getInt(1);
+				}
+				if (endKey == lastKey) {
+					break;
+				}
+
+				theRange = "(source_key > " + lastKey + ") AND (source_key <= " + endKey + ")";
+				theDTSRange = "(parent_source_key > " + lastKey + ") AND (parent_source_key <= " + endKey + ")";
+
+				theSources.clear();
+				getSources(db, extDb.dbID, extDb.dbName, extDb.recordType, theRange, theDTSRange, theSources);
+
+				for (SourceEditData theSource : getEditSources(db, extDb.dbID, extDb.dbName, theSources)) {
+					if (!theSource.writeToXML(xml, true, false, false, errors)) {
+						error = true;
+						break;
+					}
+				}
+
+				theProgress.add(theSources.size());
+				lastKey = endKey;
+			}
+
+			xml.append("</TVSTUDY>\n");
+
+			if (!error) {
+				result = theProgress.count;
+			}
+
+		} catch (SQLException se) {
+			DbConnection.reportError(errors, se);
+		} catch (IOException ie) {
+			if (null != errors) {
+				errors.reportError("Could not write to the file:\n" + ie.getMessage());
+			}
+		} catch (Throwable t) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+			if (null != errors) {
+				errors.reportError("An unexpected error occurred:\n" + t);
+			}
+		}
+
+		extDb.releaseDb(db);
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Export all scenarios from a study, the same as StudyEditData.writeScenariosToXML().  The study must not be
+	// locked, it is locked here for the duration, see Study.duplicateStudy() for the lock protocol.  Returns the number
+	// of scenarios exported, or -1 on error.
+
+	public static int exportStudy(String theDbID, int theStudyKey, Writer xml, StatusLogger status,
+			ErrorLogger errors) {
+
+		String rootName = DbCore.getDbName(theDbID);
+		String theDbName = rootName + "_" + theStudyKey;
+
+		DbConnection db = DbCore.connectDb(theDbID, errors);
+		if (null == db) {
+			return -1;
+		}
+
+		boolean error = false, lockSet = false;
+		String errmsg = "", theName = String.valueOf(theStudyKey);
+		int errtyp = AppCore.ERROR_MESSAGE, result = -1;
+
+		try {
+
+			db.update("LOCK TABLES study WRITE, version WRITE");
+
+			db.query(
+			"SELECT " +
+				"study.name, " +
+				"version.version, " +
+				"study.study_lock, " +
+				"study.template_key, " +
+				"study.study_type " +
+			"FROM " +
+				"study " +
+				"JOIN version " +
+			"WHERE " +
+				"study_key = " + theStudyKey);
+
+			if (db.next()) {
+
+				theName = "'" + db.getString(1) + "'";
+
+				if (DbCore.DATABASE_VERSION == db.getInt(2)) {
+
+					if (Study.LOCK_NONE == db.getInt(3)) {
+
+						int theTemplateKey = db.getInt(4);
+						int theStudyType = db.getInt(5);
+
+						db.update("UPDATE study SET study_lock = " + Study.LOCK_ADMIN +
+							", lock_count = lock_count + 1, share_count = 0 WHERE study_key = " + theStudyKey);
+						lockSet = true;
+
+						db.update("UNLOCK TABLES");
+
+						result = writeScenarios(db, theDbID, rootName, theDbName, theTemplateKey, theStudyType, xml,
+							status, errors);
+
+					} else {
+						error = true;
+						errmsg = "The study is in use by another application.";
+						errtyp = AppCore.WARNING_MESSAGE;
+					}
+
+				} else {
+					error = true;
+					errmsg = "The database version is incorrect.";
+				}
+
+			} else {
+				error = true;
+				errmsg = "The study does not exist.";
+			}
+
+		} catch (SQLException se) {
+			error = true;
+			errmsg = DbConnection.ERROR_TEXT_PREFIX + se;
+			db.reportError(se);
+		}
+
+		try {
+			db.update("UNLOCK TABLES");
+			db.setDatabase(rootName);
+			if (lockSet) {
+				db.update("UPDATE study SET study_lock = " + Study.LOCK_NONE +
+					", lock_count = lock_count + 1, share_count = 0 WHERE study_key = " + theStudyKey);
+			}
+		} catch (SQLException se) {
+			db.reportError(se);
+		}
+
+		DbCore.releaseDb(db);
+
+		if (error) {
+			if (null != errors) {
+				errors.reportError("Could not export study " + theName + ":\n" + errmsg, errtyp);
+			}
+			return -1;
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Write the scenarios for exportStudy(), the study is locked.  Scenarios are read a page at a time, then for each
+	// scenario the sources are read a page at a time.  Errors are reported here, returns -1 on error.
+
+	private static int writeScenarios(DbConnection db, String theDbID, String rootName, String theDbName,
+			int theTemplateKey, int theStudyType, Writer xml, StatusLogger status, ErrorLogger errors) {
+
+		try {
+
+			ArrayList<Parameter> defaultParams =
+				Parameter.getDefaultScenarioParameters(db, rootName, theTemplateKey, theStudyType);
+
+			db.setDatabase(theDbName);
+
+			int theTotal = 0;
+			db.query("SELECT COUNT(*) FROM scenario_source JOIN scenario USING (scenario_key) " +
+				"WHERE scenario.parent_scenario_key = 0");
+			if (db.next()) {
+				theTotal = db.getInt(1);
+			}
+
+			Progress theProgress = new Progress(status, "scenario records", theTotal);
+
+			xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			xml.append("<TVSTUDY VERSION=\"" + ParseXML.XML_VERSION + "\">\n");
+
+			ArrayList<ScenarioItem> theScenarios = new ArrayList<ScenarioItem>();
+			ScenarioItem theScenario;
+			int lastScenarioKey = 0, scenarioCount = 0;
+
+			while (true) {
+
+				db.setDatabase(theDbName);
+
+				db.query(
+				"SELECT " +
+					"scenario_key, " +
+					"name, " +
+					"description " +
+				"FROM " +
+					"scenario " +
+				"WHERE " +
+					"(parent_scenario_key = 0) " +
+					"AND (scenario_key > " + lastScenarioKey + ") " +
+				"ORDER BY " +
+					"scenario_key " +
+				"LIMIT " + SCENARIO_PAGE_SIZE);
+
+				theScenarios.clear();
+				while (db.next()) {
+					theScenario = new ScenarioItem();
+					theScenario.key = db.getInt(1);
+					theScenario.name = db.getString(2);
+					theScenario.description = db.getString(3);
+					theScenarios.add(theScenario);
+				}
+				if (theScenarios.isEmpty()) {
+					break;
+				}
+
+				for (ScenarioItem aScenario : theScenarios) {
+					if (!writeScenario(db, theDbID, rootName, theDbName, theTemplateKey, theStudyType, defaultParams,
+							aScenario, xml, theProgress, errors)) {
+						return -1;
+					}
+					scenarioCount++;
+					lastScenarioKey = aScenario.key;
+				}
+			}
+
+			xml.append("</TVSTUDY>\n");
+
+			return scenarioCount;
+
+		} catch (SQLException se) {
+			DbConnection.reportError(errors, se);
+		} catch (IOException ie) {
+			if (null != errors) {
+				errors.reportError("Could not write to the file:\n" + ie.getMessage());
+			}
+		} catch (Throwable t) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+			if (null != errors) {
+				errors.reportError("An unexpected error occurred:\n" + t);
+			}
+		}
+
+		return -1;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Write one scenario, see ScenarioEditData.writeToXML().  A scenario with no sources is skipped, as it would be
+	// when the study is loaded, see Scenario.getScenarios().
+
+	private static boolean writeScenario(DbConnection db, String theDbID, String rootName, String theDbName,
+			int theTemplateKey, int theStudyType, ArrayList<Parameter> defaultParams, ScenarioItem theScenario,
+			Writer xml, Progress theProgress, ErrorLogger errors) throws SQLException, IOException {
+
+		db.setDatabase(theDbName);
+
+		db.query("SELECT COUNT(*) FROM scenario_source WHERE scenario_key = " + theScenario.key);
+		if (!db.next() || (0 == db.getInt(1))) {
+			return true;
+		}
+
+		ArrayList<Parameter> theParams = Parameter.getScenarioParameters(db, theDbName, rootName, theTemplateKey,
+			theStudyType, "scenario.scenario_key = " + theScenario.key).get(Integer.valueOf(theScenario.key));
+		if (null == theParams) {
+			theParams = defaultParams;
+		}
+
+		xml.append("<SCENARIO NAME=\"" + AppCore.xmlclean(theScenario.name) + "\">\n");
+		xml.append("<DESCRIPTION>" + AppCore.xmlclean(theScenario.description) + "</DESCRIPTION>\n");
+
+		if (null != theParams) {
+			int valueIndex;
+			for (Parameter theParam : theParams) {
+				xml.append("<PARAMETER KEY=\"" + theParam.key + "\">\n");
+				for (valueIndex = 0; valueIndex < theParam.valueCount; valueIndex++) {
+					if (null != theParam.value[valueIndex]) {
+						xml.append("<VALUE INDEX=\"" + valueIndex + "\">" +
+							AppCore.xmlclean(theParam.value[valueIndex]) + "</VALUE>\n");
+					}
+				}
+				xml.append("</PARAMETER>\n");
+			}
+		}
+
+		HashMap<Integer, SourceFlags> flagsMap = new HashMap<Integer, SourceFlags>();
+		ArrayList<Source> theSources = new ArrayList<Source>();
+		SourceFlags theFlags;
+		int lastKey = 0, endKey;
+		String theKeys;
+
+		while (true) {
+
+			if (theProgress.isCanceled()) {
+				if (null != errors) {
+					errors.reportError("Export canceled, the file is incomplete.");
+				}
+				return false;
+			}
+
+			db.setDatabase(theDbName);
+
+			db.query(
+			"SELECT " +
+				"source_key, " +
+				"is_desired, " +
+				"is_undesired " +
+			"FROM " +
+				"scenario_source " +
+			"WHERE " +
+				"(scenario_key = " + theScenario.key + ") " +
+				"AND (source_key > " + lastKey + ") " +
+			"ORDER BY " +
+				"source_key " +
+			"LIMIT " + SOURCE_PAGE_SIZE);
+
+			flagsMap.clear();
+			endKey = lastKey;
+			while (db.next()) {
+				endKey = db.getInt(1);
+				theFlags = new SourceFlags();
+				theFlags.isDesired = db.getBoolean(2);
+				theFlags.isUndesired = db.getBoolean(3);
+				flagsMap.put(Integer.valueOf(endKey), theFlags);
+			}
+			if (endKey == lastKey) {
+				break;
+			}
+
+			// The page is selected from the scenario by sub-query rather than a key list, DTS sources are selected by
+			// the parent key.
+
+			theKeys = "(SELECT source_key FROM scenario_source WHERE (scenario_key = " + theScenario.key +
+				") AND (source_key > " + lastKey + ") AND (source_key <= " + endKey + "))";
+
+			theSources.clear();
+			getSources(db, theDbID, theDbName, 0, "source_key IN " + theKeys, "parent_source_key IN " + theKeys,
+				theSources);
+			Collections.sort(theSources, KEY_ORDER);
+
+			for (SourceEditData theSource : getEditSources(db, theDbID, theDbName, theSources)) {
+				theFlags = flagsMap.get(theSource.key);
+				if (null == theFlags) {
+					continue;
+				}
+				if (!theSource.writeToXML(xml, theFlags.isDesired, theFlags.isUndesired, errors)) {
+					return false;
+				}
+			}
+
+			theProgress.add(flagsMap.size());
+			lastKey = endKey;
+		}
+
+		xml.append("</SCENARIO>\n");
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Load sources of a record type, or all types if the type is 0, matching a query and DTS query, see
+	// SourceTV.getSources().
+
+	private static void getSources(DbConnection db, String theDbID, String theDbName, int theRecordType,
+			String theQuery, String theDTSQuery, ArrayList<Source> theSources) throws SQLException {
+
+		if ((0 == theRecordType) || (Source.RECORD_TYPE_TV == theRecordType)) {
+			SourceTV.getSources(db, theDbID, theDbName, theQuery, theDTSQuery, theSources);
+		}
+		if ((0 == theRecordType) || (Source.RECORD_TYPE_WL == theRecordType)) {
+			SourceWL.getSources(db, theDbID, theDbName, theQuery, theSources);
+		}
+		if ((0 == theRecordType) || (Source.RECORD_TYPE_FM == theRecordType)) {
+			SourceFM.getSources(db, theDbID, theDbName, theQuery, theSources);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Create editable sources for a page, outside of any study.  A replication source needs the original to write the
+	// XML, with no study to find those in, originals for the page are loaded separately.
+
+	private static ArrayList<SourceEditData> getEditSources(DbConnection db, String theDbID, String theDbName,
+			ArrayList<Source> theSources) throws SQLException {
+
+		ArrayList<SourceEditData> result = new ArrayList<SourceEditData>();
+
+		StringBuilder theKeys = new StringBuilder();
+		char sep = '(';
+
+		SourceEditData theSource;
+		for (Source aSource : theSources) {
+			theSource = SourceEditData.getInstance(null, aSource);
+			if (null == theSource) {
+				continue;
+			}
+			result.add(theSource);
+			if ((Source.RECORD_TYPE_TV == theSource.recordType) &&
+					(null != ((SourceEditDataTV)theSource).originalSourceKey)) {
+				theKeys.append(sep);
+				theKeys.append(String.valueOf(((SourceEditDataTV)theSource).originalSourceKey));
+				sep = ',';
+			}
+		}
+
+		if (0 == theKeys.length()) {
+			return result;
+		}
+		theKeys.append(')');
+
+		ArrayList<Source> theOriginals = new ArrayList<Source>();
+		SourceTV.getSources(db, theDbID, theDbName, "source_key IN " + theKeys, "parent_source_key IN " + theKeys,
+			theOriginals);
+
+		HashMap<Integer, SourceEditDataTV> originalMap = new HashMap<Integer, SourceEditDataTV>();
+		for (Source aSource : theOriginals) {
+			originalMap.put(Integer.valueOf(aSource.key), new SourceEditDataTV(null, (SourceTV)aSource));
+		}
+
+		SourceEditDataTV theSourceTV;
+		for (SourceEditData aSource : result) {
+			if (Source.RECORD_TYPE_TV == aSource.recordType) {
+				theSourceTV = (SourceEditDataTV)aSource;
+				if (null != theSourceTV.originalSourceKey) {
+					theSourceTV.exportOriginalSource = originalMap.get(theSourceTV.originalSourceKey);
+				}
+			}
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,581 @@
+//
+//  ImportXML.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.core.editdata;
+
+import gov.fcc.tvstudy.core.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.*;
+import java.util.zip.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.sql.*;
+
+import org.xml.sax.*;
+import org.xml.sax.helpers.*;
+
+
+//=====================================================================================================================
+// Streaming import of XML into a generic data set.  Previously the entire file was parsed into a list of sources
+// then each was saved with individual INSERT statements for the source and each pattern.  Here the work is split into
+// a pipeline with three stages connected by bounded queues.  The SAX parse runs on the calling thread, each unique
+// source is handed off as soon as it is complete, see ParseXML.addSource().  A pool of converter threads prepares
+// sources for save and generates the SQL, by running the normal save() methods against a capturing connection that
+// records statements rather than executing them.  A single writer thread owns the real connection and combines the
+// statements from many sources into multi-row INSERTs, see StatementBatch.  When a queue is full the stage feeding it
+// waits, so memory use is bounded regardless of the size of the file.
+
+// Source keys are allocated by the ExtDb during parsing so they are unique within the import, that means statements
+// for different sources never affect the same rows and the writer is free to re-order and combine them.  Pattern
+// de-duplication across sources (see SourceEditData.beginPatternSave()) is not used here because the copy refers to
+// rows which may still be pending in the writer, combining inserts in batches has a similar effect on total time.
+
+// The caller provides a connection already set to the data set database and locked, see ExtDb.connectAndLock(), and
+// a StatusLogger for progress reporting.  If any stage fails the others stop promptly and the error is thrown from
+// importXML() after all threads have exited.  Because records are written while the file is still being parsed, an
+// error may occur after some have been written.  In that case the import is rolled back by deleting all records with
+// keys above the highest key present before the import, the data set is locked so those all came from this import,
+// see rollBack().  If the roll-back fails the number of records left in the data set is reported.
+
+public class ImportXML {
+
+	private static final int QUEUE_SIZE = 500;
+	private static final int MAX_CONVERTER_COUNT = 4;
+	private static final int WRITE_BATCH_SIZE = 200;           // sources
+	private static final long POLL_TIME = 100L;                // milliseconds
+	private static final long STATUS_INTERVAL = 1000L;         // milliseconds
+
+	// Set after importXML() returns, see ParseXML.hadStudy.
+
+	public boolean hadStudy;
+
+	private ExtDb importExtDb;
+	private Integer lookupExtDbKey;
+	private Integer alternateExtDbKey;
+	private ErrorLogger errors;
+
+	// Pipeline state.
+
+	private ArrayBlockingQueue<SourceEditData> convertQueue;
+	private ArrayBlockingQueue<ArrayList<String>> writeQueue;
+
+	private volatile boolean parseDone;
+	private volatile boolean failed;
+	private Throwable failure;
+
+	private AtomicInteger activeConverterCount;
+	private AtomicInteger parsedCount;
+	private AtomicInteger writtenCount;
+
+	private String dbName;
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Arguments are as for the import form of the ParseXML constructor.
+
+	public ImportXML(ExtDb theImportExtDb, Integer theLookupExtDbKey, Integer theAlternateExtDbKey,
+			ErrorLogger theErrors) {
+
+		importExtDb = theImportExtDb;
+		lookupExtDbKey = theLookupExtDbKey;
+		alternateExtDbKey = theAlternateExtDbKey;
+		errors = theErrors;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Open a file for import.  A file with a .gz extension is decompressed, see ExportXML.openWriter().  Files written
+	// by ExportXML are UTF-8 with the encoding declared in the prolog.  Older exports have no prolog and were written
+	// in the platform default encoding, so that is used unless the file declares UTF-8.  If the file is not a valid
+	// compressed file or cannot be read, the file is closed and the error is thrown.
+
+	public static Reader openReader(File theFile) throws IOException {
+
+		InputStream theStream = new BufferedInputStream(new FileInputStream(theFile));
+
+		try {
+
+			if (theFile.getName().toLowerCase().endsWith(".gz")) {
+				theStream = new BufferedInputStream(new GZIPInputStream(theStream));
+			}
+
+			byte[] theBytes = new byte[100];
+			theStream.mark(theBytes.length);
+			int length = 0, count;
+			while (length < theBytes.length) {
+				count = theStream.read(theBytes, length, (theBytes.length - length));
+				if (count <= 0) {
+					break;
+				}
+				length += count;
+			}
+			theStream.reset();
+
+			Charset theCharset = Charset.defaultCharset();
+			String thePrologue = new String(theBytes, 0, length, StandardCharsets.ISO_8859_1);
+			if (thePrologue.startsWith("<?xml")) {
+				int end = thePrologue.indexOf("?>");
+				if ((end > 0) && thePrologue.substring(0, end).toUpperCase().contains("UTF-8")) {
+					theCharset = StandardCharsets.UTF_8;
+				}
+			}
+
+			return new BufferedReader(new InputStreamReader(theStream, theCharset));
+
+		} catch (IOException ie) {
+			try {theStream.close();} catch (IOException ce) {};
+			throw ie;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Run the import, returns the number of records written.  Parse errors are thrown as SAXException as from a
+	// normal parse, an error writing is thrown as SQLException.  The status logger may be null.
+
+	public int importXML(Reader xml, DbConnection db, StatusLogger status)
+			throws SAXException, IOException, SQLException {
+
+		dbName = db.getDatabase();
+
+		int lastKey = 0;
+		db.query("SELECT MAX(source_key) FROM source");
+		if (db.next()) {
+			lastKey = db.getInt(1);
+		}
+
+		convertQueue = new ArrayBlockingQueue<SourceEditData>(QUEUE_SIZE);
+		writeQueue = new ArrayBlockingQueue<ArrayList<String>>(QUEUE_SIZE);
+
+		parseDone = false;
+		failed = false;
+		failure = null;
+
+		parsedCount = new AtomicInteger();
+		writtenCount = new AtomicInteger();
+
+		// Start the converters and the writer.  The converter count leaves one processor for the parse and one for
+		// the writer, which mostly waits on the server.
+
+		int converterCount = Math.max(1, Math.min(MAX_CONVERTER_COUNT, (AppCore.availableCPUCount - 2)));
+		activeConverterCount = new AtomicInteger(converterCount);
+
+		ArrayList<Thread> converters = new ArrayList<Thread>();
+		for (int i = 0; i < converterCount; i++) {
+			Thread theThread = new Thread() {
+				public void run() {
+					runConverter();
+				}
+			};
+			theThread.setName("ImportXML converter " + (i + 1));
+			converters.add(theThread);
+			theThread.start();
+		}
+
+		final StatementBatch theBatch = new StatementBatch(db);
+
+		Thread writer = new Thread() {
+			public void run() {
+				runWriter(theBatch);
+			}
+		};
+		writer.setName("ImportXML writer");
+		writer.start();
+
+		// Parse on this thread.  Sources are queued as they are found, with periodic progress updates.
+
+		ParseXML handler = new ParseXML(importExtDb, lookupExtDbKey, alternateExtDbKey, errors) {
+
+			private long lastStatusTime;
+
+			protected void addSource(SourceEditData theSource) throws SAXException {
+
+				try {
+					while (!convertQueue.offer(theSource, POLL_TIME, TimeUnit.MILLISECONDS)) {
+						if (failed) {
+							throw new SAXException();
+						}
+					}
+				} catch (InterruptedException ie) {
+					setFailure(ie);
+					throw new SAXException();
+				}
+
+				parsedCount.incrementAndGet();
+
+				long now = System.currentTimeMillis();
+				if ((null != status) && ((now - lastStatusTime) > STATUS_INTERVAL)) {
+					lastStatusTime = now;
+					reportProgress(status);
+				}
+			}
+		};
+
+		Throwable parseError = null;
+
+		try {
+			XMLReader xReader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+			xReader.setContentHandler(handler);
+			xReader.parse(new InputSource(xml));
+		} catch (Throwable t) {
+			parseError = t;
+			failed = true;
+		}
+
+		hadStudy = handler.hadStudy;
+
+		// Wait for the converters and writer to finish, continue progress updates meanwhile.
+
+		parseDone = true;
+
+		for (Thread theThread : converters) {
+			joinThread(theThread, status);
+		}
+		joinThread(writer, status);
+
+		if (null != status) {
+			reportProgress(status);
+		}
+
+		// A failure in a pipeline stage takes precedence since an abort of the parse may have been the result.
+
+		Throwable theFailure = getFailure();
+		if (null == theFailure) {
+			theFailure = parseError;
+		}
+		if (null != theFailure) {
+			rollBack(db, lastKey, status);
+			if (theFailure instanceof SQLException) {
+				throw (SQLException)theFailure;
+			}
+			if (theFailure instanceof SAXException) {
+				throw (SAXException)theFailure;
+			}
+			if (theFailure instanceof IOException) {
+				throw (IOException)theFailure;
+			}
+			if (theFailure instanceof RuntimeException) {
+				throw (RuntimeException)theFailure;
+			}
+			if (theFailure instanceof Error) {
+				throw (Error)theFailure;
+			}
+			throw new SAXException(theFailure.toString());
+		}
+
+		return writtenCount.get();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Remove records written by a failed import.  This is done even if no records were counted as written, a batch may
+	// have been partially executed when it failed.  Errors are reported but not thrown, the original failure is thrown
+	// by the caller regardless.
+
+	private void rollBack(DbConnection db, int lastKey, StatusLogger status) {
+
+		if (null != status) {
+			status.reportStatus("Import failed, removing imported records...");
+		}
+
+		try {
+			db.update("DELETE FROM source_horizontal_pattern WHERE source_key > " + lastKey);
+			db.update("DELETE FROM source_vertical_pattern WHERE source_key > " + lastKey);
+			db.update("DELETE FROM source_matrix_pattern WHERE source_key > " + lastKey);
+			db.update("DELETE FROM source WHERE source_key > " + lastKey);
+		} catch (SQLException se) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Could not roll back failed import", se);
+			if (null != errors) {
+				errors.reportError("Import failed and could not be rolled back, at least " +
+					AppCore.formatCount(writtenCount.get()) + " records remain in the station data.");
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private void reportProgress(StatusLogger status) {
+
+		status.reportStatus("Parsed " + AppCore.formatCount(parsedCount.get()) + ", imported " +
+			AppCore.formatCount(writtenCount.get()) + " records...");
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private void joinThread(Thread theThread, StatusLogger status) {
+
+		while (theThread.isAlive()) {
+			try {
+				theThread.join(STATUS_INTERVAL);
+			} catch (InterruptedException ie) {
+			}
+			if ((null != status) && theThread.isAlive()) {
+				reportProgress(status);
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Record the first failure from any thread and signal all stages to stop.
+
+	private synchronized void setFailure(Throwable theFailure) {
+
+		if (null == failure) {
+			failure = theFailure;
+		}
+		failed = true;
+	}
+
+	private synchronized Throwable getFailure() {
+
+		return failure;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Converter thread.  Takes sources from the parse until the parse is done and the queue is empty.  Each source is
+	// prepared and saved to a capturing connection, the statements are queued for the writer.  The done flag must be
+	// read before the poll, the parser may queue a final source and set the flag while a poll is timing out, so an
+	// empty poll means the queue is drained only if the parse was already done when the poll started.
+
+	private void runConverter() {
+
+		SourceEditData theSource;
+		StatementCapture theCapture;
+		boolean wasDone;
+
+		try {
+
+			while (!failed) {
+
+				wasDone = parseDone;
+				theSource = convertQueue.poll(POLL_TIME, TimeUnit.MILLISECONDS);
+				if (null == theSource) {
+					if (wasDone) {
+						break;
+					}
+					continue;
+				}
+
+				theCapture = new StatementCapture(dbName);
+				theSource.isDataChanged();
+				theSource.save(theCapture);
+
+				while (!writeQueue.offer(theCapture.statements, POLL_TIME, TimeUnit.MILLISECONDS)) {
+					if (failed) {
+						break;
+					}
+				}
+			}
+
+		} catch (Throwable t) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Import conversion failed", t);
+			setFailure(t);
+		}
+
+		activeConverterCount.decrementAndGet();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Writer thread.  Statements are added to the batch which is executed every WRITE_BATCH_SIZE sources, runs until
+	// all converters have exited and the queue is empty.  The final partial batch is executed only if no failure.
+
+	private void runWriter(StatementBatch theBatch) {
+
+		ArrayList<String> theStatements;
+		int pendingCount = 0;
+
+		try {
+
+			while (!failed) {
+
+				theStatements = writeQueue.poll(POLL_TIME, TimeUnit.MILLISECONDS);
+				if (null == theStatements) {
+					if ((0 == activeConverterCount.get()) && writeQueue.isEmpty()) {
+						break;
+					}
+					continue;
+				}
+
+				for (String theStatement : theStatements) {
+					theBatch.add(theStatement);
+				}
+
+				if (++pendingCount >= WRITE_BATCH_SIZE) {
+					theBatch.flush();
+					writtenCount.addAndGet(pendingCount);
+					pendingCount = 0;
+				}
+			}
+
+			if (!failed) {
+				theBatch.flush();
+				writtenCount.addAndGet(pendingCount);
+			}
+
+		} catch (Throwable t) {
+			setFailure(t);
+		}
+	}
+
+
+	//=================================================================================================================
+	// A connection that records update statements instead of executing them, used with the save() methods in the
+	// SourceEditData subclasses.  Those only use update(), clean(), and getDatabase(), anything else fails.  This is
+	// never connected, it is not registered for pattern de-duplication so all pattern data is inserted explicitly.
+
+	private static class StatementCapture extends DbConnection {
+
+		private String captureDbName;
+		private ArrayList<String> statements;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private StatementCapture(String theDbName) {
+
+			super(null, null, null, null);
+
+			captureDbName = theDbName;
+			statements = new ArrayList<String>();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public String getDatabase() {
+
+			return captureDbName;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void query(String theQuery) throws SQLException {
+
+			throw new SQLException("ImportXML: query not supported during conversion");
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public int update(String theQuery) throws SQLException {
+
+			statements.add(theQuery);
+			return 1;
+		}
+	}
+
+
+	//=================================================================================================================
+	// Combines statements from many sources into fewer, larger statements.  Single-key deletes are combined into one
+	// DELETE per table with an IN list, and single- or multi-row INSERT ... VALUES statements with the same table and
+	// columns are combined into one multi-row INSERT up to the maximum query length.  Pending deletes are always
+	// executed before any insert, that preserves the original order for any one source since keys are unique.  Any
+	// other statement causes everything pending to be executed first, then the statement is executed as-is.
+
+	private static class StatementBatch {
+
+		private static final Pattern DELETE_PATTERN = Pattern.compile("DELETE FROM (\\w+) WHERE source_key=(\\d+)");
+		private static final String VALUES_MARK = ") VALUES";
+
+		private DbConnection db;
+
+		private LinkedHashMap<String, StringBuilder> deletes;
+		private LinkedHashMap<String, StringBuilder> inserts;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private StatementBatch(DbConnection theDb) {
+
+			db = theDb;
+
+			deletes = new LinkedHashMap<String, StringBuilder>();
+			inserts = new LinkedHashMap<String, StringBuilder>();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private void add(String theStatement) throws SQLException {
+
+			Matcher theMatcher = DELETE_PATTERN.matcher(theStatement);
+			if (theMatcher.matches()) {
+
+				StringBuilder theKeys = deletes.get(theMatcher.group(1));
+				if (null == theKeys) {
+					theKeys = new StringBuilder();
+					deletes.put(theMatcher.group(1), theKeys);
+				} else {
+					theKeys.append(',');
+				}
+				theKeys.append(theMatcher.group(2));
+
+				return;
+			}
+
+			int valuesIndex = theStatement.indexOf(VALUES_MARK);
+			if (theStatement.startsWith("INSERT INTO ") && (valuesIndex > 0)) {
+
+				String thePrefix = theStatement.substring(0, (valuesIndex + VALUES_MARK.length()));
+				String theValues = theStatement.substring(valuesIndex + VALUES_MARK.length()).trim();
+
+				StringBuilder theQuery = inserts.get(thePrefix);
+				if ((null != theQuery) && ((theQuery.length() + theValues.length()) > DbCore.MAX_QUERY_LENGTH)) {
+					flushDeletes();
+					db.update(theQuery.toString());
+					theQuery = null;
+				}
+
+				if (null == theQuery) {
+					theQuery = new StringBuilder(thePrefix);
+					theQuery.append(' ');
+					inserts.put(thePrefix, theQuery);
+				} else {
+					theQuery.append(',');
+				}
+				theQuery.append(theValues);
+
+				return;
+			}
+
+			flush();
+			db.update(theStatement);
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private void flushDeletes() throws SQLException {
+
+			for (Map.Entry<String, StringBuilder> theEntry : deletes.entrySet()) {
+				db.update("DELETE FROM " + theEntry.getKey() + " WHERE source_key IN (" + theEntry.getValue() + ")");
+			}
+			deletes.clear();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private void flush() throws SQLException {
+
+			flushDeletes();
+
+			for (StringBuilder theQuery : inserts.values()) {
+				db.update(theQuery.toString());
+			}
+			inserts.clear();
+		}
+	}
+}
@@ -36,7 +36,7 @@ public class IxRuleListData implements ListDataChange {
 
 	//-----------------------------------------------------------------------------------------------------------------
 
-	public IxRuleListData(ArrayList<IxRule> theRules, boolean theLocked) {
+	public IxRuleListData(List<IxRule> theRules, boolean theLocked) {
 
 		isLocked = theLocked;
 
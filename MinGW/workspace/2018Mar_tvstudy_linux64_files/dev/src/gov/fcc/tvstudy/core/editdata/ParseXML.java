@@ -1252,7 +1252,7 @@ public class ParseXML extends DefaultHandler {
 
 						} else {
 
-							sources.add(newSource);
+							addSource(newSource);
 						}
 					}
 				}
@@ -1386,12 +1386,12 @@ public class ParseXML extends DefaultHandler {
 						if (isHpat) {
 							theSource.hasHorizontalPattern = true;
 							theSource.horizontalPattern = new AntPattern(dbID, AntPattern.PATTERN_TYPE_HORIZONTAL,
-								horizontalPatternName, thePoints);
+								horizontalPatternName, thePoints).intern();
 							theSource.horizontalPatternChanged = true;
 						} else {
 							theSource.hasVerticalPattern = true;
 							theSource.verticalPattern = new AntPattern(dbID, AntPattern.PATTERN_TYPE_VERTICAL,
-								verticalPatternName, thePoints);
+								verticalPatternName, thePoints).intern();
 							theSource.verticalPatternChanged = true;
 						}
 					}
@@ -1456,7 +1456,7 @@ public class ParseXML extends DefaultHandler {
 					if (!bad) {
 						theSource.hasMatrixPattern = true;
 						theSource.matrixPattern = new AntPattern(dbID, matrixPatternName,
-							AntPattern.PATTERN_TYPE_VERTICAL, theSlices);
+							AntPattern.PATTERN_TYPE_VERTICAL, theSlices).intern();
 						theSource.matrixPatternChanged = true;
 					}
 				}
@@ -1585,7 +1585,7 @@ public class ParseXML extends DefaultHandler {
 							throw new SAXException();
 						}
 
-						sources.add(theSourceTV);
+						addSource(theSourceTV);
 					}
 				}
 
@@ -1648,7 +1648,7 @@ public class ParseXML extends DefaultHandler {
 							throw new SAXException();
 						}
 
-						sources.add(theSourceFM);
+						addSource(theSourceFM);
 					}
 				}
 
@@ -1658,6 +1658,17 @@ public class ParseXML extends DefaultHandler {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Called for each unique source found when not in scenario or user record mode, by default adds it to the sources
+	// list.  A subclass may override to process sources as they are parsed rather than accumulating them, see
+	// ImportXML.  Throwing an exception aborts the parse.
+
+	protected void addSource(SourceEditData theSource) throws SAXException {
+
+		sources.add(theSource);
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Add a source to the scenario, first do replication if needed.  If the replication channel matches the original
 	// and the original is digital, the replication would do nothing so don't bother.  Only analog sources can be
@@ -677,6 +677,92 @@ public abstract class SourceEditData implements Record {
 	public abstract void save(DbConnection db) throws SQLException;
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pattern data for many sources is often identical, e.g. the same antenna used by many records or replicated
+	// across channels.  The study engine reads pattern data from the per-source tables so that data must still be
+	// stored for each source, but when a batch of sources is saved on one connection the point data for duplicates is
+	// copied server-side from the first source saved with that data, rather than sending it all again in the query
+	// text.  A caller saving many sources brackets the saves with beginPatternSave() and endPatternSave(), the index
+	// is only valid in that scope because rows are known to not be deleted during the batch.  Index keys are the
+	// database name, table, and pattern content hash; a hash match is confirmed with AntPattern.dataEquals().
+
+	private static class SavedPattern {
+
+		private final AntPattern pattern;
+		private final Integer sourceKey;
+
+		private SavedPattern(AntPattern thePattern, Integer theSourceKey) {
+			pattern = thePattern;
+			sourceKey = theSourceKey;
+		}
+	}
+
+	private static final HashMap<DbConnection, HashMap<String, SavedPattern>> patternSaveIndex =
+		new HashMap<DbConnection, HashMap<String, SavedPattern>>();
+
+	public static void beginPatternSave(DbConnection db) {
+
+		synchronized (patternSaveIndex) {
+			patternSaveIndex.put(db, new HashMap<String, SavedPattern>());
+		}
+	}
+
+	public static void endPatternSave(DbConnection db) {
+
+		synchronized (patternSaveIndex) {
+			patternSaveIndex.remove(db);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// If a save batch is active and an identical pattern was already saved to the same table in the batch, copy the
+	// rows from that source and return true.  Otherwise return false, the caller does the insert and then calls
+	// didSavePattern() to record it.
+
+	private boolean copySavedPattern(DbConnection db, String theTable, String theColumns, AntPattern thePattern)
+			throws SQLException {
+
+		SavedPattern theSaved = null;
+		synchronized (patternSaveIndex) {
+			HashMap<String, SavedPattern> theIndex = patternSaveIndex.get(db);
+			if (null != theIndex) {
+				theSaved = theIndex.get(db.getDatabase() + "." + theTable + ":" + thePattern.getContentHash());
+			}
+		}
+		if ((null == theSaved) || !thePattern.dataEquals(theSaved.pattern)) {
+			return false;
+		}
+
+		db.update(
+		"INSERT INTO " + theTable + " (" +
+			"source_key," +
+			theColumns + ") " +
+		"SELECT " +
+			key + "," +
+			theColumns + " " +
+		"FROM " +
+			theTable + " " +
+		"WHERE " +
+			"source_key = " + theSaved.sourceKey);
+
+		return true;
+	}
+
+	private void didSavePattern(DbConnection db, String theTable, AntPattern thePattern) {
+
+		synchronized (patternSaveIndex) {
+			HashMap<String, SavedPattern> theIndex = patternSaveIndex.get(db);
+			if (null != theIndex) {
+				String theKey = db.getDatabase() + "." + theTable + ":" + thePattern.getContentHash();
+				if (!theIndex.containsKey(theKey)) {
+					theIndex.put(theKey, new SavedPattern(thePattern, key));
+				}
+			}
+		}
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Save pattern data, called from subclass save() implementations.
 
@@ -690,7 +776,8 @@ public abstract class SourceEditData implements Record {
 
 			db.update("DELETE FROM source_horizontal_pattern WHERE source_key=" + key);
 
-			if (null != horizontalPattern) {
+			if ((null != horizontalPattern) &&
+					!copySavedPattern(db, "source_horizontal_pattern", "azimuth,relative_field", horizontalPattern)) {
 
 				query = new StringBuilder(
 				"INSERT INTO source_horizontal_pattern (" +
@@ -700,13 +787,13 @@ public abstract class SourceEditData implements Record {
 				"VALUES");
 				startLength = query.length();
 				sep = " (";
-				for (AntPattern.AntPoint thePoint : horizontalPattern.getPoints()) {
+				for (int i = 0; i < horizontalPattern.getPointCount(); i++) {
 					query.append(sep);
 					query.append(String.valueOf(key));
 					query.append(',');
-					query.append(String.valueOf(thePoint.angle));
+					query.append(String.valueOf(horizontalPattern.getAngle(i)));
 					query.append(',');
-					query.append(String.valueOf(thePoint.relativeField));
+					query.append(String.valueOf(horizontalPattern.getRelativeField(i)));
 					if (query.length() > DbCore.MAX_QUERY_LENGTH) {
 						query.append(')');
 						db.update(query.toString());
@@ -720,6 +807,7 @@ public abstract class SourceEditData implements Record {
 					query.append(')');
 					db.update(query.toString());
 				}
+				didSavePattern(db, "source_horizontal_pattern", horizontalPattern);
 			}
 		}
 
@@ -727,7 +815,8 @@ public abstract class SourceEditData implements Record {
 
 			db.update("DELETE FROM source_vertical_pattern WHERE source_key=" + key);
 
-			if (null != verticalPattern) {
+			if ((null != verticalPattern) && !copySavedPattern(db, "source_vertical_pattern",
+					"depression_angle,relative_field", verticalPattern)) {
 
 				query = new StringBuilder(
 				"INSERT INTO source_vertical_pattern (" +
@@ -737,13 +826,13 @@ public abstract class SourceEditData implements Record {
 				"VALUES");
 				startLength = query.length();
 				sep = " (";
-				for (AntPattern.AntPoint thePoint : verticalPattern.getPoints()) {
+				for (int i = 0; i < verticalPattern.getPointCount(); i++) {
 					query.append(sep);
 					query.append(String.valueOf(key));
 					query.append(',');
-					query.append(String.valueOf(thePoint.angle));
+					query.append(String.valueOf(verticalPattern.getAngle(i)));
 					query.append(',');
-					query.append(String.valueOf(thePoint.relativeField));
+					query.append(String.valueOf(verticalPattern.getRelativeField(i)));
 					if (query.length() > DbCore.MAX_QUERY_LENGTH) {
 						query.append(')');
 						db.update(query.toString());
@@ -757,6 +846,7 @@ public abstract class SourceEditData implements Record {
 					query.append(')');
 					db.update(query.toString());
 				}
+				didSavePattern(db, "source_vertical_pattern", verticalPattern);
 			}
 		}
 
@@ -764,7 +854,8 @@ public abstract class SourceEditData implements Record {
 
 			db.update("DELETE FROM source_matrix_pattern WHERE source_key=" + key);
 
-			if (null != matrixPattern) {
+			if ((null != matrixPattern) && !copySavedPattern(db, "source_matrix_pattern",
+					"azimuth,depression_angle,relative_field", matrixPattern)) {
 
 				query = new StringBuilder(
 				"INSERT INTO source_matrix_pattern (" +
@@ -775,16 +866,16 @@ public abstract class SourceEditData implements Record {
 				"VALUES");
 				startLength = query.length();
 				sep = " (";
-				for (AntPattern.AntSlice theSlice : matrixPattern.getSlices()) {
-					for (AntPattern.AntPoint thePoint : theSlice.points) {
+				for (int s = 0; s < matrixPattern.getSliceCount(); s++) {
+					for (int i = matrixPattern.getSliceStart(s); i < matrixPattern.getSliceEnd(s); i++) {
 						query.append(sep);
 						query.append(String.valueOf(key));
 						query.append(',');
-						query.append(String.valueOf(theSlice.value));
+						query.append(String.valueOf(matrixPattern.getSliceValue(s)));
 						query.append(',');
-						query.append(String.valueOf(thePoint.angle));
+						query.append(String.valueOf(matrixPattern.getAngle(i)));
 						query.append(',');
-						query.append(String.valueOf(thePoint.relativeField));
+						query.append(String.valueOf(matrixPattern.getRelativeField(i)));
 						if (query.length() > DbCore.MAX_QUERY_LENGTH) {
 							query.append(')');
 							db.update(query.toString());
@@ -799,6 +890,7 @@ public abstract class SourceEditData implements Record {
 					query.append(')');
 					db.update(query.toString());
 				}
+				didSavePattern(db, "source_matrix_pattern", matrixPattern);
 			}
 		}
 	}
@@ -936,9 +1028,12 @@ public abstract class SourceEditData implements Record {
 
 		// Save the new data, assign a record ID in the process.  The full source data is saved as XML, however a
 		// subset of source properties are also saved as separate fields in the record table to support SQL searches.
-		// Note an empty comment is added to the cache, see getRecordComment().
+		// The XML is parsed to create the new source before the save, with the binary encoding recorded in the same
+		// pass and saved along with the XML, see BinaryXML.  The new source is added to the user record cache.  Note
+		// an empty comment is added to the comment cache, see getRecordComment().
 
 		Integer theUserRecordID = null;
+		SourceEditData newSource = null;
 		boolean error = false;
 		String errmsg = "";
 
@@ -953,12 +1048,17 @@ public abstract class SourceEditData implements Record {
 
 			try {
 
-				db.update("LOCK TABLES user_record WRITE, user_record_id_sequence WRITE");
+				theUserRecordID = Integer.valueOf(KeyAllocator.getKey(dbID, KeyAllocator.SEQUENCE_USER_RECORD));
+
+				BinaryXML.Recorder theRecorder = new BinaryXML.Recorder(null);
+				newSource = readSourceFromXML(dbID, new StringReader(sourceData), null, theUserRecordID, theRecorder,
+					errors);
+				if (null == newSource) {
+					DbCore.releaseDb(db);
+					return null;
+				}
 
-				db.update("UPDATE user_record_id_sequence SET user_record_id = user_record_id + 1");
-				db.query("SELECT user_record_id FROM user_record_id_sequence");
-				db.next();
-				theUserRecordID = Integer.valueOf(db.getInt(1));
+				db.update("LOCK TABLES user_record WRITE");
 
 				int facID = 0, chan = 0;
 				switch (recordType) {
@@ -988,7 +1088,8 @@ public abstract class SourceEditData implements Record {
 					"state," +
 					"country," +
 					"file_number," +
-					"comment) " +
+					"comment," +
+					"bin_data) " +
 				"VALUES (" +
 					theUserRecordID + "," +
 					recordType + "," +
@@ -1002,7 +1103,8 @@ public abstract class SourceEditData implements Record {
 					"'" + db.clean(getState()) + "'," +
 					"'" + db.clean(getCountryCode()) + "'," +
 					"'" + db.clean(getFileNumber()) + "'," +
-					"'')");
+					"''," +
+					DbConnection.hexLiteral(theRecorder.getData()) + ")");
 
 				theCache.put(theUserRecordID, "");
 
@@ -1029,7 +1131,9 @@ public abstract class SourceEditData implements Record {
 			return null;
 		}
 
-		return readSourceFromXML(dbID, new StringReader(sourceData), null, theUserRecordID, errors);
+		cacheUserRecord(newSource);
+
+		return newSource;
 	}
 
 
@@ -1082,6 +1186,10 @@ public abstract class SourceEditData implements Record {
 				theCache.remove(theUserRecordID);
 			}
 
+			synchronized (userRecordCache) {
+				userRecordCache.remove(theDbID + ":" + theUserRecordID);
+			}
+
 			return true;
 
 		} else {
@@ -1094,19 +1202,27 @@ public abstract class SourceEditData implements Record {
 	// Do a search of the user record table.  Note errors parsing the XML are ignored here, those just cause the
 	// record to not be included in the results.  This must always match a specific record type and is assumed to be
 	// occurring outside any study context; user records are never added to a study en masse so a multi-record query
-	// is always a pre-search in advance of the user selecting specific records to actually be added to a study.
+	// is always a pre-search in advance of the user selecting specific records to actually be added to a study.  The
+	// result sources may come from the user record cache, the XML or binary data is not retrieved for those.  A
+	// listener may be provided to receive records as they are found, see RecordListener.
 
 	public static ArrayList<SourceEditData> findUserRecords(String theDbID, int recordType, String query) {
-		return findUserRecords(theDbID, recordType, query, null);
+		return findUserRecords(theDbID, recordType, query, null, null);
 	}
 
 	public static ArrayList<SourceEditData> findUserRecords(String theDbID, int recordType, String query,
 			ErrorLogger errors) {
+		return findUserRecords(theDbID, recordType, query, null, errors);
+	}
+
+	public static ArrayList<SourceEditData> findUserRecords(String theDbID, int recordType, String query,
+			RecordListener listener, ErrorLogger errors) {
 
 		ArrayList<SourceEditData> results = new ArrayList<SourceEditData>();
 
 		SourceEditData theSource;
 		Integer theID;
+		HashMap<Integer, byte[]> newBinData = new HashMap<Integer, byte[]>();
 
 		String whrStr;
 		if ((null != query) && (query.length() > 0)) {
@@ -1131,12 +1247,17 @@ public abstract class SourceEditData implements Record {
 
 			ErrorLogger xmlErrors = new ErrorLogger(null, null);
 
+			// First query just the keys to check the cache, then the data for any not in the cache.  Records that
+			// don't have binary data yet are encoded during the parse, those are updated after the query.
+
 			try {
 
+				HashSet<Integer> loadIDs = new HashSet<Integer>();
+				boolean stopped = false;
+
 				db.query(
 				"SELECT " +
 					"user_record_id, " +
-					"xml_data, " +
 					"comment " +
 				"FROM " +
 					"user_record " +
@@ -1145,13 +1266,48 @@ public abstract class SourceEditData implements Record {
 
 				while (db.next()) {
 					theID = Integer.valueOf(db.getInt(1));
-					theSource = readSourceFromXML(theDbID, new StringReader(db.getString(2)), null, theID, xmlErrors);
+					theSource = getCachedUserRecord(theDbID, theID);
 					if (null != theSource) {
 						results.add(theSource);
-						theCache.put(theID, db.getString(3));
+						theCache.put(theID, db.getString(2));
+						if ((null != listener) && !listener.recordFound(theSource)) {
+							stopped = true;
+							break;
+						}
+					} else {
+						loadIDs.add(theID);
 					}
 				}
 
+				if (!stopped && !loadIDs.isEmpty()) {
+
+					db.query(
+					"SELECT " +
+						"user_record_id, " +
+						"xml_data, " +
+						"comment, " +
+						"bin_data " +
+					"FROM " +
+						"user_record " +
+					"WHERE " +
+						"user_record_id IN " + DbConnection.makeKeyList(loadIDs));
+
+					while (db.next()) {
+						theID = Integer.valueOf(db.getInt(1));
+						theSource = loadUserRecord(theDbID, theID, db.getString(2), db.getBytes(4), newBinData,
+							xmlErrors);
+						if (null != theSource) {
+							results.add(theSource);
+							theCache.put(theID, db.getString(3));
+							if ((null != listener) && !listener.recordFound(theSource)) {
+								break;
+							}
+						}
+					}
+
+					saveUserRecordBinData(db, newBinData);
+				}
+
 				DbCore.releaseDb(db);
 
 			} catch (SQLException se) {
@@ -1167,7 +1323,9 @@ public abstract class SourceEditData implements Record {
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Load a source from the user record table.  Note record comments are included in the queries and added to the
-	// comment cache directly, see getRecordComment().
+	// comment cache directly, see getRecordComment().  Sources are cached without a study context, if a study is
+	// provided the cached source is derived into that study.  Note the comment cache is checked along with the source
+	// cache, if the comment is not cached the database is always queried to get it.
 
 	public static SourceEditData findUserRecord(String theDbID, Integer theUserRecordID) {
 		return findUserRecord(theDbID, null, theUserRecordID, null);
@@ -1184,42 +1342,189 @@ public abstract class SourceEditData implements Record {
 	public static SourceEditData findUserRecord(String theDbID, StudyEditData theStudy, Integer theUserRecordID,
 			ErrorLogger errors) {
 
-		String sourceData = null;
+		SourceEditData theSource = getCachedUserRecord(theDbID, theUserRecordID);
+
+		HashMap<Integer, String> theCache = userRecordCommentCaches.get(theDbID);
+		if ((null != theSource) && (null != theCache) && theCache.containsKey(theUserRecordID)) {
+			if (null != theStudy) {
+				return theSource.deriveSource(theStudy, true, errors);
+			}
+			return theSource;
+		}
+
+		if (null != errors) {
+			errors.clearErrors();
+		} else {
+			errors = new ErrorLogger(null, null);
+		}
+
 		boolean notfound = false;
 
 		DbConnection db = DbCore.connectDb(theDbID, errors);
-		if (null != db) {
+		if (null == db) {
+			return null;
+		}
 
-			HashMap<Integer, String> theCache = userRecordCommentCaches.get(theDbID);
-			if (null == theCache) {
-				theCache = new HashMap<Integer, String>();
-				userRecordCommentCaches.put(theDbID, theCache);
-			}
+		if (null == theCache) {
+			theCache = new HashMap<Integer, String>();
+			userRecordCommentCaches.put(theDbID, theCache);
+		}
 
-			try {
-				db.query("SELECT xml_data, comment FROM user_record WHERE user_record_id = " + theUserRecordID);
+		try {
+
+			if (null != theSource) {
+
+				db.query("SELECT comment FROM user_record WHERE user_record_id = " + theUserRecordID);
 				if (db.next()) {
-					sourceData = db.getString(1);
+					theCache.put(theUserRecordID, db.getString(1));
+				} else {
+					notfound = true;
+				}
+
+			} else {
+
+				db.query("SELECT xml_data, comment, bin_data FROM user_record WHERE user_record_id = " +
+					theUserRecordID);
+				if (db.next()) {
+					HashMap<Integer, byte[]> newBinData = new HashMap<Integer, byte[]>();
+					theSource = loadUserRecord(theDbID, theUserRecordID, db.getString(1), db.getBytes(3), newBinData,
+						errors);
 					theCache.put(theUserRecordID, db.getString(2));
+					saveUserRecordBinData(db, newBinData);
 				} else {
 					notfound = true;
 				}
-				DbCore.releaseDb(db);
-			} catch (SQLException se) {
-				DbCore.releaseDb(db);
-				DbConnection.reportError(errors, se);
-				return null;
 			}
+
+			DbCore.releaseDb(db);
+
+		} catch (SQLException se) {
+			DbCore.releaseDb(db);
+			DbConnection.reportError(errors, se);
+			return null;
 		}
 
 		if (notfound) {
-			if (null != errors) {
-				errors.reportError("User record not found for record ID '" + theUserRecordID + "'.");
-			}
+			errors.reportError("User record not found for record ID '" + theUserRecordID + "'.");
 			return null;
 		}
 
-		return readSourceFromXML(theDbID, new StringReader(sourceData), theStudy, theUserRecordID, errors);
+		if ((null != theSource) && (null != theStudy)) {
+			return theSource.deriveSource(theStudy, true, errors);
+		}
+		return theSource;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Cache of user record sources, user records are immutable so once parsed a source can be re-used indefinitely,
+	// until the record is deleted.  The cache is JVM-wide across all databases and limited in size, the least-recently
+	// used entry is discarded when full.  Cached sources never have a study context.  The cache for a database is
+	// cleared when the database is closed, see DbCore.closeDb().
+
+	private static final int USER_RECORD_CACHE_SIZE = 2000;
+
+	private static final LinkedHashMap<String, SourceEditData> userRecordCache =
+			new LinkedHashMap<String, SourceEditData>(256, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<String, SourceEditData> eldest) {
+			return (size() > USER_RECORD_CACHE_SIZE);
+		}
+	};
+
+	private static SourceEditData getCachedUserRecord(String theDbID, Integer theUserRecordID) {
+
+		SourceEditData theSource;
+		synchronized (userRecordCache) {
+			theSource = userRecordCache.get(theDbID + ":" + theUserRecordID);
+		}
+
+		if (null != theSource) {
+			AppMetrics.increment(AppMetrics.USER_RECORD_LOADS, "source", "cache");
+		}
+
+		return theSource;
+	}
+
+	private static void cacheUserRecord(SourceEditData theSource) {
+
+		if ((null == theSource.userRecordID) || (null != theSource.study)) {
+			return;
+		}
+
+		synchronized (userRecordCache) {
+			userRecordCache.put(theSource.dbID + ":" + theSource.userRecordID, theSource);
+		}
+	}
+
+	public static void clearUserRecordCache(String theDbID) {
+
+		String thePrefix = theDbID + ":";
+
+		synchronized (userRecordCache) {
+			Iterator<String> it = userRecordCache.keySet().iterator();
+			while (it.hasNext()) {
+				if (it.next().startsWith(thePrefix)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Create a user record source from data retrieved from the user record table and add it to the cache.  If binary
+	// data exists it is replayed, otherwise or if that fails the XML is parsed.  When the XML is parsed a new binary
+	// encoding is recorded and placed in the newBinData map, the caller should use saveUserRecordBinData() to store
+	// those once the query results are no longer needed.
+
+	private static SourceEditData loadUserRecord(String theDbID, Integer theUserRecordID, String xmlData,
+			byte[] binData, HashMap<Integer, byte[]> newBinData, ErrorLogger errors) {
+
+		SourceEditData theSource = null;
+
+		if (null != binData) {
+			theSource = readSourceFromBinary(theDbID, binData, theUserRecordID, errors);
+			if (null != theSource) {
+				AppMetrics.increment(AppMetrics.USER_RECORD_LOADS, "source", "binary");
+			}
+		}
+
+		if (null == theSource) {
+			BinaryXML.Recorder theRecorder = new BinaryXML.Recorder(null);
+			theSource = readSourceFromXML(theDbID, new StringReader(xmlData), null, theUserRecordID, theRecorder,
+				errors);
+			if (null != theSource) {
+				AppMetrics.increment(AppMetrics.USER_RECORD_LOADS, "source", "xml");
+				byte[] theData = theRecorder.getData();
+				if (null != theData) {
+					newBinData.put(theUserRecordID, theData);
+				}
+			}
+		}
+
+		if (null != theSource) {
+			cacheUserRecord(theSource);
+		}
+
+		return theSource;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Save new binary data for user records.  This is an optimization so errors are logged but otherwise ignored.
+
+	private static void saveUserRecordBinData(DbConnection db, HashMap<Integer, byte[]> newBinData) {
+
+		for (Map.Entry<Integer, byte[]> e : newBinData.entrySet()) {
+			try {
+				db.update("UPDATE user_record SET bin_data = " + DbConnection.hexLiteral(e.getValue()) +
+					" WHERE user_record_id = " + e.getKey());
+			} catch (SQLException se) {
+				db.reportError(se);
+			}
+		}
+
+		newBinData.clear();
 	}
 
 
@@ -1228,6 +1533,7 @@ public abstract class SourceEditData implements Record {
 	// The query methods in Source are used to retrieve records which are then wrapped in SourceEditData objects.
 	// Although stored using internal formats, these data sets are managed in the UI like other specific-format import
 	// data sets hence the API is similar to those; see ExtDb and ExtDbRecord for details on the concepts and patterns.
+	// A listener may be provided to receive records as they are created, see RecordListener.
 
 	public static LinkedList<SourceEditData> findImportRecords(ExtDb extDb, String query) {
 		return findImportRecords(extDb, query, null, 0., 0., null);
@@ -1244,6 +1550,16 @@ public abstract class SourceEditData implements Record {
 
 	public static LinkedList<SourceEditData> findImportRecords(ExtDb extDb, String query, GeoPoint searchCenter,
 			double searchRadius, double kmPerDegree, ErrorLogger errors) {
+		return findImportRecords(extDb, query, searchCenter, searchRadius, kmPerDegree, null, errors);
+	}
+
+	public static LinkedList<SourceEditData> findImportRecords(ExtDb extDb, String query, RecordListener listener,
+			ErrorLogger errors) {
+		return findImportRecords(extDb, query, null, 0., 0., listener, errors);
+	}
+
+	public static LinkedList<SourceEditData> findImportRecords(ExtDb extDb, String query, GeoPoint searchCenter,
+			double searchRadius, double kmPerDegree, RecordListener listener, ErrorLogger errors) {
 
 		if (!extDb.isGeneric()) {
 			return new LinkedList<SourceEditData>();
@@ -1318,6 +1634,9 @@ public abstract class SourceEditData implements Record {
 			newSource = getInstance(null, theSource);
 			if (null != newSource) {
 				results.add(newSource);
+				if ((null != listener) && !listener.recordFound(newSource)) {
+					break;
+				}
 			}
 		}
 
@@ -1971,10 +2290,10 @@ public abstract class SourceEditData implements Record {
 
 		if (hasHpat) {
 			xml.append("<APAT>\n");
-			for (AntPattern.AntPoint point : horizontalPattern.getPoints()) {
-				xml.append(AppCore.formatAzimuth(point.angle));
+			for (int i = 0; i < horizontalPattern.getPointCount(); i++) {
+				xml.append(AppCore.formatAzimuth(horizontalPattern.getAngle(i)));
 				xml.append(',');
-				xml.append(AppCore.formatRelativeField(point.relativeField));
+				xml.append(AppCore.formatRelativeField(horizontalPattern.getRelativeField(i)));
 				xml.append('\n');
 			}
 			xml.append("</APAT>\n");
@@ -1982,10 +2301,10 @@ public abstract class SourceEditData implements Record {
 
 		if (hasVpat) {
 			xml.append("<EPAT>\n");
-			for (AntPattern.AntPoint point : verticalPattern.getPoints()) {
-				xml.append(AppCore.formatDepression(point.angle));
+			for (int i = 0; i < verticalPattern.getPointCount(); i++) {
+				xml.append(AppCore.formatDepression(verticalPattern.getAngle(i)));
 				xml.append(',');
-				xml.append(AppCore.formatRelativeField(point.relativeField));
+				xml.append(AppCore.formatRelativeField(verticalPattern.getRelativeField(i)));
 				xml.append('\n');
 			}
 			xml.append("</EPAT>\n");
@@ -1993,13 +2312,13 @@ public abstract class SourceEditData implements Record {
 
 		if (hasMpat) {
 			xml.append("<MPAT>\n");
-			for (AntPattern.AntSlice slice : matrixPattern.getSlices()) {
-				for (AntPattern.AntPoint point : slice.points) {
-					xml.append(AppCore.formatAzimuth(slice.value));
+			for (int s = 0; s < matrixPattern.getSliceCount(); s++) {
+				for (int i = matrixPattern.getSliceStart(s); i < matrixPattern.getSliceEnd(s); i++) {
+					xml.append(AppCore.formatAzimuth(matrixPattern.getSliceValue(s)));
 					xml.append(',');
-					xml.append(AppCore.formatDepression(point.angle));
+					xml.append(AppCore.formatDepression(matrixPattern.getAngle(i)));
 					xml.append(',');
-					xml.append(AppCore.formatRelativeField(point.relativeField));
+					xml.append(AppCore.formatRelativeField(matrixPattern.getRelativeField(i)));
 					xml.append('\n');
 				}
 			}
@@ -2014,8 +2333,10 @@ public abstract class SourceEditData implements Record {
 	// generalize this for other purposes significant changes would be needed in ParseXML.  Other classes can use
 	// readSourcesFromXML() instead which is more generalized.
 
+	// If a recorder is provided the parse events are also recorded to create the binary encoding, see BinaryXML.
+
 	private static SourceEditData readSourceFromXML(String theDbID, Reader xml, StudyEditData theStudy,
-			Integer theUserRecordID, ErrorLogger errors) {
+			Integer theUserRecordID, BinaryXML.Recorder theRecorder, ErrorLogger errors) {
 
 		if (null != errors) {
 			errors.clearErrors();
@@ -2028,7 +2349,12 @@ public abstract class SourceEditData implements Record {
 			ParseXML handler = new ParseXML(theStudy, theDbID, theUserRecordID, errors);
 
 			XMLReader xReader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
-			xReader.setContentHandler(handler);
+			if (null != theRecorder) {
+				theRecorder.setHandler(handler);
+				xReader.setContentHandler(theRecorder);
+			} else {
+				xReader.setContentHandler(handler);
+			}
 			xReader.parse(new InputSource(xml));
 
 			if (null == handler.source) {
@@ -2052,6 +2378,49 @@ public abstract class SourceEditData implements Record {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Obtain a user record from binary-encoded data by replaying it into the XML parse handler.  If the data is not a
+	// valid encoding this returns null without reporting an error, the caller should fall back to the XML.  Errors
+	// from the handler are reported as for readSourceFromXML().
+
+	private static SourceEditData readSourceFromBinary(String theDbID, byte[] theData, Integer theUserRecordID,
+			ErrorLogger errors) {
+
+		if (null != errors) {
+			errors.clearErrors();
+		} else {
+			errors = new ErrorLogger(null, null);
+		}
+
+		try {
+
+			ParseXML handler = new ParseXML(null, theDbID, theUserRecordID, errors);
+
+			if (!BinaryXML.replay(theData, handler)) {
+				return null;
+			}
+
+			if (null == handler.source) {
+				errors.reportError("Invalid XML structure in user record data.");
+				return null;
+			}
+
+			return handler.source;
+
+		} catch (SAXException se) {
+			String msg = se.getMessage();
+			if ((null != msg) && (msg.length() > 0)) {
+				errors.reportError("XML error: " + msg);
+			}
+		} catch (Throwable t) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+			errors.reportError("An unexpected error occurred: " + t);
+		}
+
+		return null;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Parse XML to obtain all source elements, optionally filtered by record or study type.  Create a temporary error
 	// logger if one is not provided so parsing code doesn't have to worry about a null logger.  An external data set
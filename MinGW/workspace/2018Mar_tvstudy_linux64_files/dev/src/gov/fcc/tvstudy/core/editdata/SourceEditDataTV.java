@@ -70,6 +70,11 @@ public class SourceEditDataTV extends SourceEditData implements Record {
 
 	private ArrayList<SourceEditDataTV> dtsSourceListCache;
 
+	// For a replication source written to XML without a study object, the original source loaded separately, see
+	// ExportXML.  Otherwise the original is found in the study.
+
+	SourceEditDataTV exportOriginalSource;
+
 	// See getRuleExtraDistance().
 
 	public static final double DEFAULT_RULE_EXTRA_DISTANCE = 163.;
@@ -2446,7 +2451,7 @@ public class SourceEditDataTV extends SourceEditData implements Record {
 					theSource = (SourceEditDataTV)aSource;
 				}
 			} else {
-				theSource = null;
+				theSource = exportOriginalSource;
 			}
 			if (null == theSource) {
 				if (null != errors) {
@@ -1249,10 +1249,16 @@ public class StudyEditData {
 					Geography.deleteStudyGeographies(db, rootName, study.key, keyList);
 				}
 
-				// Save changed and new source records.  The update flag is always set on save.
+				// Save changed and new source records.  The update flag is always set on save.  Duplicate pattern data
+				// is copied server-side within the batch, see SourceEditData.beginPatternSave().
 
-				for (SourceEditData theSource : changedSources) {
-					theSource.save(db);
+				SourceEditData.beginPatternSave(db);
+				try {
+					for (SourceEditData theSource : changedSources) {
+						theSource.save(db);
+					}
+				} finally {
+					SourceEditData.endPatternSave(db);
 				}
 
 				addedSourceKeys.clear();
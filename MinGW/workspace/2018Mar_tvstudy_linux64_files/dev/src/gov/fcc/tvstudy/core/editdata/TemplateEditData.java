@@ -217,6 +217,10 @@ public class TemplateEditData {
 					}
 					ixRuleData.didSave();
 
+					// Increment the modification count so cached copies of the template are re-loaded, see Template.
+
+					db.update("UPDATE template SET mod_count = mod_count + 1 WHERE template_key = " + template.key);
+
 					if (!name.equals(template.name)) {
 						db.query("SELECT template_key FROM template WHERE UPPER(name) = '" +
 							db.clean(name.toUpperCase()) + "' AND template_key <> " + template.key);
@@ -250,6 +254,8 @@ public class TemplateEditData {
 
 			DbCore.releaseDb(db);
 
+			Template.invalidateCache(dbID, template.key);
+
 			if (error) {
 				if (null != errors) {
 					errors.reportError(errmsg);
@@ -396,8 +402,7 @@ public class TemplateEditData {
 
 		try {
 
-			db.update("LOCK TABLES template WRITE, template_key_sequence WRITE, template_parameter_data WRITE, " +
-				"template_ix_rule WRITE");
+			db.update("LOCK TABLES template WRITE, template_parameter_data WRITE, template_ix_rule WRITE");
 
 			boolean appendKey = false;
 			db.query("SELECT permanent, template_key FROM template WHERE UPPER(name) = '" +
@@ -406,16 +411,14 @@ public class TemplateEditData {
 				if (renameExisting && !db.getBoolean(1)) {
 					theKey = db.getInt(2);
 					db.update("UPDATE template SET name = '" + db.clean(theName) + " " + DbCore.NAME_UNIQUE_CHAR +
-						theKey + "' WHERE template_key = " + theKey);
+						theKey + "', mod_count = mod_count + 1 WHERE template_key = " + theKey);
+					Template.invalidateCache(theDbID, theKey);
 				} else {
 					appendKey = true;
 				}
 			}
 
-			db.update("UPDATE template_key_sequence SET template_key = template_key + 1");
-			db.query("SELECT template_key FROM template_key_sequence");
-			db.next();
-			theKey = db.getInt(1);
+			theKey = KeyAllocator.getKey(theDbID, KeyAllocator.SEQUENCE_TEMPLATE);
 			if (appendKey) {
 				theName = theName + " " + DbCore.NAME_UNIQUE_CHAR + theKey;
 			}
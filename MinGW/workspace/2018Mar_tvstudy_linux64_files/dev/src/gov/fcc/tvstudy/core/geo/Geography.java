@@ -538,7 +538,7 @@ public abstract class Geography {
 					tbl = "geo_polygon WRITE, ";
 					break;
 			}
-			db.update("LOCK TABLES geography WRITE, geo_key_sequence WRITE, " + tbl +
+			db.update("LOCK TABLES geography WRITE, " + tbl +
 				"study WRITE, study_geography WRITE");
 
 			if (null != key) {
@@ -609,10 +609,7 @@ public abstract class Geography {
 		}
 
 		if (null == key) {
-			db.update("UPDATE geo_key_sequence SET geo_key = geo_key + 1");
-			db.query("SELECT geo_key FROM geo_key_sequence");
-			db.next();
-			key = Integer.valueOf(db.getInt(1));
+			key = Integer.valueOf(KeyAllocator.getKey(dbID, KeyAllocator.SEQUENCE_GEOGRAPHY));
 		} else {
 			db.update("DELETE FROM geography WHERE geo_key = " + key);
 			modCount++;
@@ -727,7 +724,7 @@ public abstract class Geography {
 	// First get the set of geographies that need to be duplicated, that may be empty, along the way also get the
 	// geography types to avoid re-querying later.  Then do the duplications.
 
-	public static void duplicateStudyGeographies(DbConnection db, String rootName, int studyKey,
+	public static void duplicateStudyGeographies(String theDbID, DbConnection db, String rootName, int studyKey,
 			Study.GeographyKeys studyGeoKeys) throws SQLException {
 
 		db.setDatabase(rootName);
@@ -746,7 +743,6 @@ public abstract class Geography {
 			"LOCK TABLES " +
 				"geography WRITE, " +
 				"geography AS old WRITE, " +
-				"geo_key_sequence WRITE, " +
 				"geo_point_set WRITE, " +
 				"geo_point_set AS old_point WRITE, " +
 				"geography_receive_antenna WRITE, " +
@@ -759,10 +755,7 @@ public abstract class Geography {
 
 			int oldKey, newKey, geoType;
 
-			db.query("SELECT geo_key FROM geo_key_sequence");
-			db.next();
-			newKey = db.getInt(1);
-			db.update("UPDATE geo_key_sequence SET geo_key = geo_key + " + toDupe.size());
+			newKey = KeyAllocator.getKeys(theDbID, KeyAllocator.SEQUENCE_GEOGRAPHY, toDupe.size()) - 1;
 
 			for (Integer dupeKey : toDupe.keySet()) {
 
@@ -31,6 +31,9 @@ public class DbUtil {
 	private static final int UNINSTALL_DATABASE = 5;
 	private static final int DOWNLOAD_DATA_SET = 6;
 	private static final int IMPORT_DATA_SET = 7;
+	private static final int SHOW_CACHE_STATUS = 8;
+	private static final int APPLY_CACHE_LIMIT = 9;
+	private static final int IX_CHECK_BATCH = 10;
 
 
 	//-----------------------------------------------------------------------------------------------------------------
@@ -128,7 +131,19 @@ public class DbUtil {
 										if (args[iarg].equalsIgnoreCase("import")) {
 											mode = IMPORT_DATA_SET;
 										} else {
-											bad = true;
+											if (args[iarg].equalsIgnoreCase("cache")) {
+												mode = SHOW_CACHE_STATUS;
+											} else {
+												if (args[iarg].equalsIgnoreCase("cachelimit")) {
+													mode = APPLY_CACHE_LIMIT;
+												} else {
+													if (args[iarg].equalsIgnoreCase("ixcheck")) {
+														mode = IX_CHECK_BATCH;
+													} else {
+														bad = true;
+													}
+												}
+											}
 										}
 									}
 								}
@@ -175,6 +190,20 @@ public class DbUtil {
 			}
 		}
 
+		// Interference check batch has input and summary output file paths.
+
+		File outputFile = null;
+		if (!bad) {
+			if (IX_CHECK_BATCH == mode) {
+				if ((iarg + 2) >= args.length) {
+					bad = true;
+				} else {
+					sourceFile = new File(args[++iarg]);
+					outputFile = new File(args[++iarg]);
+				}
+			}
+		}
+
 		// Print out usage if anything wrong, unless in quiet then just one line error.  All output is printed to
 		// System.out, even error messages; System.err is unreliable on some platforms.
 
@@ -221,6 +250,16 @@ public class DbUtil {
 			System.out.print("    Import data set files.\n");
 			System.out.print("    type: lmstv cdbsfm cdbstv\n");
 			System.out.print("    path: file directory or ZIP file\n");
+			System.out.print("  cache\n");
+			System.out.print("    Show study engine cache use by study.\n");
+			System.out.print("  cachelimit\n");
+			System.out.print("    Delete least-recently-used study caches to meet the cache limit.\n");
+			System.out.print("  ixcheck inpath outpath\n");
+			System.out.print("    Run interference check studies for a list of proposals.\n");
+			System.out.print("    inpath: CSV file with header line, one proposal per line, columns:\n");
+			System.out.print("      user_record_id, or xml_file, or ext_db_key and ext_record_id\n");
+			System.out.print("      optional study settings named as for the web API\n");
+			System.out.print("    outpath: CSV summary, PASS, FAIL, or ERROR for each proposal\n");
 			return;
 		}
 
@@ -300,6 +339,52 @@ public class DbUtil {
 				break;
 			}
 
+			// Show cache use and hit rate by study, and the overall cache total and limit.
+
+			case SHOW_CACHE_STATUS: {
+				ArrayList<CacheManager.StudyCacheInfo> theList = CacheManager.getCacheInfo(dbInfo.dbID);
+				if (theList.isEmpty()) {
+					System.out.print("Cache is empty\n");
+				} else {
+					System.out.print(String.format(Locale.US, "%10s  %10s  %-23s  %s\n", "Study key", "Size",
+						"Last used", "Hit rate"));
+					for (CacheManager.StudyCacheInfo theInfo : theList) {
+						System.out.print(String.format(Locale.US, "%10d  %10s  %-23s  %s\n", theInfo.studyKey,
+							AppCore.formatBytes(theInfo.size), AppCore.formatTimestamp(theInfo.lastUsed),
+							theInfo.getHitRateText()));
+					}
+				}
+				System.out.print("Total cache size, all databases: " +
+					AppCore.formatBytes(CacheManager.getStudyCacheSize(null, 0)) + "\n");
+				long theLimit = CacheManager.getCacheLimit();
+				if (theLimit > 0L) {
+					System.out.print("Cache limit: " + AppCore.formatBytes(theLimit) + "\n");
+				} else {
+					System.out.print("Cache limit: none\n");
+				}
+				break;
+			}
+
+			// Apply the cache limit.  The database must be registered in core state so study locks can be set,
+			// caches for other databases may be counted toward the limit but are not deleted.
+
+			case APPLY_CACHE_LIMIT: {
+				if (CacheManager.getCacheLimit() <= 0L) {
+					if (!quiet) {
+						System.out.print("No cache limit is set\n");
+					}
+					break;
+				}
+				if (DbCore.registerDb(dbInfo, errors)) {
+					long freed = CacheManager.applyCacheLimit(status, errors);
+					if (!quiet) {
+						System.out.print("Deleted " + AppCore.formatBytes(freed) + " of cache files\n");
+					}
+					DbCore.closeDb(dbInfo.dbID, null);
+				}
+				break;
+			}
+
 			// Database install.  If canOpen is true means the db is already installed and fully updated so there is
 			// nothing to do; that is not considered an error, only report it if not quiet.  If canInstall is false
 			// the database is already installed but not usable e.g. needs update.
@@ -392,6 +477,17 @@ public class DbUtil {
 				}
 				break;
 			}
+
+			// Interference check batch, this needs the study engine so do the engine checks skipped earlier.
+
+			case IX_CHECK_BATCH: {
+				AppCore.initializeEngine();
+				if (DbCore.registerDb(dbInfo, errors)) {
+					IxCheckBatch.runBatch(dbInfo.dbID, sourceFile, outputFile, status, errors);
+					DbCore.closeDb(dbInfo.dbID, null);
+				}
+				break;
+			}
 		}
 	}
 }
@@ -0,0 +1,993 @@
+//
+//  IxCheckBatch.java
+//  TVStudy
+//
+//  Copyright (c) 2018 Hammett & Edison, Inc.  All rights reserved.
+
+package gov.fcc.tvstudy.dbutil;
+
+import gov.fcc.tvstudy.core.*;
+import gov.fcc.tvstudy.core.data.*;
+import gov.fcc.tvstudy.core.editdata.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.io.*;
+
+
+//=====================================================================================================================
+// Headless batch runner for interference-check studies, see the ixcheck command in DbUtil.  The input is a CSV file
+// with a header line naming the columns, then one line per proposal.  The proposal is identified by a user record ID,
+// a station data key and record ID, or the path to an XML file containing exactly one TV record.  An XML record is
+// saved as a new user record so it has a persistent identity, the same file appearing on several lines is saved just
+// once.  Other columns are study options with the same names and meanings as the parameters for IxCheckAPI, an empty
+// value uses the default.  Blank lines and lines starting with '#' are ignored.
+
+// All proposals are set up first on the calling thread, that loads records and initializes a StudyBuildIxCheck for
+// each.  Proposals with the same makeStudyID() string are identical requests, those share a single study run.  Then
+// the unique studies go through a two-stage pipeline.  Build threads call buildRunStudy() and pass the study to a
+// bounded queue, run threads take studies from that queue and call runBuiltStudy() under the AppTask queue using the
+// same load as runStudy(), so engine processes are limited exactly as for the web API.  Builds are not counted in the
+// task queue, so the next study is built while engines are running.  The queue bound keeps the builds from getting
+// too far ahead, each study built but not run holds a study database.  Studies are registered in the output cache
+// index by willRunStudy() as for web API runs.
+
+// If a run thread exits unexpectedly the others continue.  If all run threads are gone, studies still in the queue
+// and any not yet built are reported as errors rather than blocking the build threads, see putRunJob().
+
+// The summary output is also CSV, one line per input proposal in input order.  The result is PASS if the study ran
+// and the engine reported no failures, FAIL if it did, or ERROR if the proposal could not be set up or the study
+// build or run failed.  The engine reports an explicit line when there are no failures, see study.c, the result is
+// FAIL if that line is absent.  The engine also flags report lines with "**" for both failures and notices that do
+// not fail the check, those lines are counted and the first is the message, but the text is not interpreted.
+
+public class IxCheckBatch {
+
+	// Input column names, these match the parameter names used by IxCheckAPI and SearchAPI.
+
+	public static final String KEY_USER_RECORD_ID = "user_record_id";
+	public static final String KEY_EXT_DB_KEY = "ext_db_key";
+	public static final String KEY_EXT_RECORD_ID = "ext_record_id";
+	public static final String KEY_XML_FILE = "xml_file";
+
+	public static final String KEY_REPLICATION_CHANNEL = "replication_channel";
+	public static final String KEY_TEMPLATE_KEY = "template_key";
+	public static final String KEY_STUDY_EXT_DB_KEY = "study_ext_db_key";
+	public static final String KEY_OUTPUT_CONFIG = "output_config";
+	public static final String KEY_MAP_OUTPUT_CONFIG = "map_output_config";
+	public static final String KEY_CELL_SIZE = "cell_size";
+	public static final String KEY_PROFILE_PPK = "profile_ppk";
+	public static final String KEY_PROTECT_NON_BL = "protect_non_bl";
+	public static final String KEY_LPTV_PROTECT_BL = "lptv_protect_bl";
+	public static final String KEY_CLASS_A_PROTECT_LPTV = "class_a_protect_lptv";
+	public static final String KEY_INCLUDE_FOREIGN = "include_foreign";
+	public static final String KEY_INCLUDE_USERIDS = "include_userids";
+	public static final String KEY_CP_EXCLUDES_BASELINE = "cp_excludes_baseline";
+	public static final String KEY_EXCLUDE_APPS = "ignore_apps";
+	public static final String KEY_EXCLUDE_PENDING = "ignore_pending";
+	public static final String KEY_EXCLUDE_POST_TRANSITION = "ignore_post_trans";
+	public static final String KEY_EXCLUDE_NEW_LPTV = "ignore_new_lptv";
+	public static final String KEY_EXCLUDE_ARNS = "exclude_arns";
+	public static final String KEY_FILING_CUTOFF = "filing_cutoff";
+
+	public static final String RESULT_PASS = "PASS";
+	public static final String RESULT_FAIL = "FAIL";
+	public static final String RESULT_ERROR = "ERROR";
+
+	private static final String FLAG_PREFIX = "**";
+	private static final String NO_FAILURES_LINE = "No IX check failures found.";
+
+	private static final int MAX_BUILD_THREADS = 2;
+	private static final long POLL_TIME = 500L;   // milliseconds
+
+	private String dbID;
+
+	private StudyBuildIxCheck defaultBuild;
+	private HashMap<String, SourceEditDataTV> xmlSources;
+
+	private ArrayList<Proposal> proposals;
+	private ArrayDeque<Job> buildQueue;
+	private ArrayBlockingQueue<Job> runQueue;
+
+	private int jobCount;
+	private int doneCount;
+
+	private AtomicInteger liveRunCount;
+
+	private StatusLogger status;
+
+	// Marks the end of the run queue, one is queued for each run thread.
+
+	private static final Job END_JOB = new Job();
+
+
+	//=================================================================================================================
+	// One input line.  The job is null if the proposal could not be set up, in that case message explains why.
+
+	private static class Proposal {
+
+		private int lineNumber;
+		private String description;
+		private Job job;
+		private String message;
+	}
+
+
+	//=================================================================================================================
+	// One unique study, possibly shared by several proposals.
+
+	private static class Job {
+
+		private String studyID;
+		private StudyBuildIxCheck build;
+		private Study study;
+
+		private String result;
+		private int flagCount;
+		private String message;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Run a batch, returns false if the input could not be read or the summary could not be written.  A failure of an
+	// individual proposal is reported in the summary but is not an error here.  The status logger may be null.
+
+	public static boolean runBatch(String theDbID, File inFile, File outFile, StatusLogger status,
+			ErrorLogger errors) {
+
+		if (AppCore.maxEngineProcessCount < 1) {
+			if (null != errors) {
+				errors.reportError("Study engine unavailable.");
+			}
+			return false;
+		}
+
+		IxCheckBatch theBatch = new IxCheckBatch();
+		theBatch.dbID = theDbID;
+		theBatch.status = status;
+
+		theBatch.defaultBuild = new StudyBuildIxCheck(theDbID);
+		theBatch.defaultBuild.outPath = AppCore.outDirectoryPath;
+		theBatch.defaultBuild.loadDefaults();
+		if ((theBatch.defaultBuild.templateKey <= 0) || (null == theBatch.defaultBuild.extDb) ||
+				theBatch.defaultBuild.extDb.deleted || (null == theBatch.defaultBuild.fileOutputConfig) ||
+				!theBatch.defaultBuild.fileOutputConfig.isValid() || (null == theBatch.defaultBuild.mapOutputConfig) ||
+				!theBatch.defaultBuild.mapOutputConfig.isValid()) {
+			if (null != errors) {
+				errors.reportError("Could not load default study settings.");
+			}
+			return false;
+		}
+
+		if (!theBatch.readProposals(inFile, errors)) {
+			return false;
+		}
+
+		theBatch.runJobs();
+
+		return theBatch.writeSummary(outFile, errors);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Read the input file and set up all proposals.  Returns false only if the file cannot be read.
+
+	private boolean readProposals(File inFile, ErrorLogger errors) {
+
+		proposals = new ArrayList<Proposal>();
+		xmlSources = new HashMap<String, SourceEditDataTV>();
+
+		LinkedHashMap<String, Job> jobs = new LinkedHashMap<String, Job>();
+
+		BufferedReader theReader = null;
+
+		try {
+
+			theReader = new BufferedReader(new FileReader(inFile));
+
+			String line;
+			String[] names = null, fields;
+			int lineNumber = 0, i;
+			Proposal theProposal;
+			HashMap<String, String> values = new HashMap<String, String>();
+			ErrorLogger lineErrors;
+
+			while (null != (line = theReader.readLine())) {
+
+				lineNumber++;
+				line = line.trim();
+				if ((0 == line.length()) || line.startsWith("#")) {
+					continue;
+				}
+
+				fields = line.split(",", -1);
+
+				if (null == names) {
+					names = fields;
+					for (i = 0; i < names.length; i++) {
+						names[i] = names[i].trim().toLowerCase();
+					}
+					continue;
+				}
+
+				values.clear();
+				for (i = 0; (i < names.length) && (i < fields.length); i++) {
+					if (fields[i].trim().length() > 0) {
+						values.put(names[i], fields[i].trim());
+					}
+				}
+
+				theProposal = new Proposal();
+				theProposal.lineNumber = lineNumber;
+				proposals.add(theProposal);
+
+				lineErrors = new ErrorLogger();
+				StudyBuildIxCheck theBuild = setupBuild(values, lineErrors);
+
+				if (null == theBuild) {
+					theProposal.message = lineErrors.toString();
+					continue;
+				}
+
+				theProposal.description = theBuild.getStudyDescription();
+
+				String theID = theBuild.makeStudyID();
+				if (null == theID) {
+					theProposal.message = "Cannot form unique study ID for proposal";
+					continue;
+				}
+
+				Job theJob = jobs.get(theID);
+				if (null == theJob) {
+					theJob = new Job();
+					theJob.studyID = theID;
+					theJob.build = theBuild;
+					jobs.put(theID, theJob);
+				}
+				theProposal.job = theJob;
+			}
+
+		} catch (IOException ie) {
+			if (null != errors) {
+				errors.reportError("Could not read input file:\n" + ie.getMessage());
+			}
+			return false;
+
+		} finally {
+			if (null != theReader) {
+				try {theReader.close();} catch (IOException ie) {}
+			}
+		}
+
+		buildQueue = new ArrayDeque<Job>(jobs.values());
+		jobCount = buildQueue.size();
+
+		if (null != status) {
+			status.reportStatus(proposals.size() + " proposals read, " + jobCount + " unique studies to run");
+		}
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Load the proposal record, apply options, and initialize the build.  Returns null on error.
+
+	private StudyBuildIxCheck setupBuild(HashMap<String, String> values, ErrorLogger errors) {
+
+		StudyBuildIxCheck theBuild = defaultBuild.copy();
+
+		if (!loadProposal(theBuild, values, errors)) {
+			return null;
+		}
+
+		boolean isLPTV, isDigital;
+		int chan;
+		if (null != theBuild.source) {
+			isLPTV = theBuild.source.service.isLPTV();
+			isDigital = theBuild.source.service.isDigital();
+			chan = ((SourceEditDataTV)theBuild.source).channel;
+		} else {
+			isLPTV = theBuild.record.service.isLPTV();
+			isDigital = theBuild.record.service.isDigital();
+			chan = ((ExtDbRecordTV)theBuild.record).channel;
+		}
+
+		String value = values.get(KEY_REPLICATION_CHANNEL);
+		if (null != value) {
+			int c = parseInt(value);
+			if ((c < SourceTV.CHANNEL_MIN) || (c > SourceTV.CHANNEL_MAX)) {
+				errors.reportError("Invalid replication channel");
+				return null;
+			}
+			if ((c != chan) || !isDigital) {
+				theBuild.replicate = true;
+				theBuild.replicationChannel = c;
+			}
+		}
+
+		value = values.get(KEY_TEMPLATE_KEY);
+		if (null != value) {
+			int t = parseInt(value);
+			Template.Info theInfo = null;
+			if (t > 0) {
+				theInfo = Template.getTemplateInfo(dbID, t);
+			}
+			if ((null == theInfo) || !theInfo.isLocked || theInfo.isLockedInStudy) {
+				errors.reportError("Invalid study template key");
+				return null;
+			}
+			theBuild.templateKey = t;
+		}
+
+		value = values.get(KEY_STUDY_EXT_DB_KEY);
+		if (null != value) {
+			int k = parseInt(value);
+			ExtDb theDb = null;
+			if (k > 0) {
+				theDb = ExtDb.getExtDb(dbID, Integer.valueOf(k));
+			}
+			if ((null == theDb) || (Source.RECORD_TYPE_TV != theDb.recordType)) {
+				errors.reportError("Invalid study station data key");
+				return null;
+			}
+			theBuild.extDb = theDb;
+		} else {
+			if (null != theBuild.record) {
+				theBuild.extDb = theBuild.record.extDb;
+			}
+		}
+
+		value = values.get(KEY_OUTPUT_CONFIG);
+		if (null != value) {
+			theBuild.fileOutputConfig = new OutputConfig(OutputConfig.CONFIG_TYPE_FILE, value);
+		}
+		value = values.get(KEY_MAP_OUTPUT_CONFIG);
+		if (null != value) {
+			theBuild.mapOutputConfig = new OutputConfig(OutputConfig.CONFIG_TYPE_MAP, value);
+		}
+
+		value = values.get(KEY_CELL_SIZE);
+		if (null != value) {
+			double d = parseDouble(value);
+			if ((d < Parameter.MIN_CELL_SIZE) || (d > Parameter.MAX_CELL_SIZE)) {
+				errors.reportError("Bad cell size");
+				return null;
+			}
+			theBuild.cellSize = value;
+		}
+
+		value = values.get(KEY_PROFILE_PPK);
+		if (null != value) {
+			double d = parseDouble(value);
+			if ((d < Parameter.MIN_PATH_TERR_RES) || (d > Parameter.MAX_PATH_TERR_RES)) {
+				errors.reportError("Bad profile resolution");
+				return null;
+			}
+			theBuild.profilePpk = value;
+		}
+
+		value = values.get(KEY_PROTECT_NON_BL);
+		if (null != value) {
+			theBuild.protectPreBaseline = Boolean.valueOf(value).booleanValue();
+		} else {
+			theBuild.protectPreBaseline = isLPTV;
+		}
+
+		value = values.get(KEY_LPTV_PROTECT_BL);
+		if (null != value) {
+			theBuild.protectBaselineFromLPTV = Boolean.valueOf(value).booleanValue();
+		}
+
+		value = values.get(KEY_CLASS_A_PROTECT_LPTV);
+		if (null != value) {
+			theBuild.protectLPTVFromClassA = Boolean.valueOf(value).booleanValue();
+		}
+
+		value = values.get(KEY_INCLUDE_FOREIGN);
+		if (null != value) {
+			theBuild.includeForeign = Boolean.valueOf(value).booleanValue();
+		}
+
+		theBuild.includeUserRecords = null;
+		value = values.get(KEY_INCLUDE_USERIDS);
+		if (null != value) {
+			theBuild.includeUserRecords = new TreeSet<Integer>();
+			int id;
+			for (String uid : value.split("\\s+")) {
+				id = parseInt(uid);
+				if (id <= 0) {
+					errors.reportError("Bad user record ID in include list");
+					return null;
+				}
+				theBuild.includeUserRecords.add(Integer.valueOf(id));
+			}
+		}
+
+		value = values.get(KEY_CP_EXCLUDES_BASELINE);
+		if (null != value) {
+			theBuild.cpExcludesBaseline = Boolean.valueOf(value).booleanValue();
+		}
+
+		value = values.get(KEY_EXCLUDE_APPS);
+		if (null != value) {
+			theBuild.excludeApps = Boolean.valueOf(value).booleanValue();
+		}
+
+		value = values.get(KEY_EXCLUDE_PENDING);
+		if (null != value) {
+			theBuild.excludePending = Boolean.valueOf(value).booleanValue();
+		}
+
+		value = values.get(KEY_EXCLUDE_POST_TRANSITION);
+		if (null != value) {
+			theBuild.excludePostTransition = Boolean.valueOf(value).booleanValue();
+		}
+
+		value = values.get(KEY_EXCLUDE_NEW_LPTV);
+		if (null != value) {
+			theBuild.excludeNewLPTV = Boolean.valueOf(value).booleanValue();
+		}
+
+		theBuild.excludeCommands = null;
+		value = values.get(KEY_EXCLUDE_ARNS);
+		if (null != value) {
+			theBuild.excludeCommands = new TreeSet<String>();
+			for (String cmd : value.split("\\s+")) {
+				theBuild.excludeCommands.add(cmd);
+			}
+		}
+
+		value = values.get(KEY_FILING_CUTOFF);
+		if (null != value) {
+			theBuild.filingCutoffDate = AppCore.parseDate(value);
+			if (null == theBuild.filingCutoffDate) {
+				errors.reportError("Bad cutoff date, use format YYYY-MM-DD or MM/DD/YYYY");
+				return null;
+			}
+		}
+
+		if (!theBuild.initialize(errors)) {
+			return null;
+		}
+
+		return theBuild;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Load the proposal record into the build.  A user record ID has priority, then an XML file, then a data set
+	// record.  Returns false on error.
+
+	private boolean loadProposal(StudyBuildIxCheck theBuild, HashMap<String, String> values, ErrorLogger errors) {
+
+		StringBuilder query = new StringBuilder();
+
+		String value = values.get(KEY_USER_RECORD_ID);
+		if (null != value) {
+
+			try {
+				SourceEditData.addRecordIDQuery(ExtDb.DB_TYPE_NOT_SET, value, query, false);
+			} catch (IllegalArgumentException ie) {
+				errors.reportError(ie.getMessage());
+				return false;
+			}
+
+			ArrayList<SourceEditData> sources =
+				SourceEditData.findUserRecords(dbID, Source.RECORD_TYPE_TV, query.toString(), errors);
+			if (null == sources) {
+				return false;
+			}
+			if (sources.isEmpty()) {
+				errors.reportError("User record not found");
+				return false;
+			}
+			theBuild.source = sources.get(0);
+			return true;
+		}
+
+		// Look up the station data set, that is also the lookup key for references in XML.
+
+		ExtDb extDb = null;
+		value = values.get(KEY_EXT_DB_KEY);
+		if (null != value) {
+			int theKey = parseInt(value);
+			if (theKey > 0) {
+				extDb = ExtDb.getExtDb(dbID, Integer.valueOf(theKey), errors);
+			}
+			if ((null == extDb) || (Source.RECORD_TYPE_TV != extDb.recordType)) {
+				if (!errors.hasErrors()) {
+					errors.reportError("Invalid station data key");
+				}
+				return false;
+			}
+		}
+
+		value = values.get(KEY_XML_FILE);
+		if (null != value) {
+			SourceEditDataTV theSource = loadXMLSource(new File(value), extDb, errors);
+			if (null == theSource) {
+				return false;
+			}
+			theBuild.source = theSource;
+			return true;
+		}
+
+		value = values.get(KEY_EXT_RECORD_ID);
+		if ((null == extDb) || (null == value)) {
+			errors.reportError("Missing proposal user record ID, XML file, or station data key and record ID");
+			return false;
+		}
+
+		try {
+			if (extDb.isGeneric()) {
+				SourceEditData.addRecordIDQuery(extDb.type, value, query, false);
+			} else {
+				ExtDbRecord.addRecordIDQuery(extDb.type, extDb.version, value, query, false);
+			}
+		} catch (IllegalArgumentException ie) {
+			errors.reportError(ie.getMessage());
+			return false;
+		}
+
+		if (extDb.isGeneric()) {
+			LinkedList<SourceEditData> sources = SourceEditData.findImportRecords(extDb, query.toString(), errors);
+			if (null == sources) {
+				return false;
+			}
+			if (1 != sources.size()) {
+				errors.reportError(sources.isEmpty() ? "Record not found" : "Record ID matches more than one record");
+				return false;
+			}
+			theBuild.source = sources.getFirst();
+		} else {
+			LinkedList<ExtDbRecordTV> records = ExtDbRecordTV.findRecordsTV(extDb, query.toString(), errors);
+			if (null == records) {
+				return false;
+			}
+			if (1 != records.size()) {
+				errors.reportError(records.isEmpty() ? "Record not found" : "Record ID matches more than one record");
+				return false;
+			}
+			theBuild.record = records.getFirst();
+		}
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Read a TV record from an XML file and save it as a user record.  Results are cached by file path so a file used
+	// on several input lines is the same user record, so those will be recognized as identical requests.
+
+	private SourceEditDataTV loadXMLSource(File theFile, ExtDb extDb, ErrorLogger errors) {
+
+		String thePath;
+		try {
+			thePath = theFile.getCanonicalPath();
+		} catch (IOException ie) {
+			thePath = theFile.getAbsolutePath();
+		}
+
+		SourceEditDataTV theSource = xmlSources.get(thePath);
+		if (null != theSource) {
+			return theSource;
+		}
+
+		Integer extDbKey = ((null != extDb) ? extDb.key : null);
+
+		ArrayList<SourceEditData> sources = null;
+		Reader xml = null;
+
+		try {
+			xml = ImportXML.openReader(theFile);
+			sources = SourceEditData.readSourcesFromXML(dbID, xml, extDbKey, null, Source.RECORD_TYPE_TV,
+				Study.STUDY_TYPE_TV_IX, errors);
+		} catch (IOException ie) {
+			errors.reportError("Could not open XML file:\n" + ie.getMessage());
+			return null;
+		} finally {
+			if (null != xml) {
+				try {xml.close();} catch (IOException ie) {}
+			}
+		}
+
+		if (null == sources) {
+			return null;
+		}
+		if (1 != sources.size()) {
+			errors.reportError("XML file must contain exactly one TV record");
+			return null;
+		}
+
+		theSource = (SourceEditDataTV)sources.get(0).saveAsUserRecord(errors);
+		if (null == theSource) {
+			if (!errors.hasErrors()) {
+				errors.reportError("Could not save XML record as a user record");
+			}
+			return null;
+		}
+
+		xmlSources.put(thePath, theSource);
+
+		return theSource;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Run all jobs through the build and run pipeline, return when all are done.
+
+	private void runJobs() {
+
+		if (0 == jobCount) {
+			return;
+		}
+
+		int runCount = AppCore.maxEngineProcessCount;
+		if (runCount > jobCount) {
+			runCount = jobCount;
+		}
+		int buildCount = MAX_BUILD_THREADS;
+		if (buildCount > jobCount) {
+			buildCount = jobCount;
+		}
+
+		runQueue = new ArrayBlockingQueue<Job>(runCount);
+		liveRunCount = new AtomicInteger(runCount);
+
+		ArrayList<Thread> buildThreads = new ArrayList<Thread>();
+		ArrayList<Thread> runThreads = new ArrayList<Thread>();
+
+		Thread theThread;
+
+		for (int i = 0; i < buildCount; i++) {
+			theThread = new Thread() {
+				public void run() {
+					doBuilds();
+				}
+			};
+			theThread.start();
+			buildThreads.add(theThread);
+		}
+
+		for (int i = 0; i < runCount; i++) {
+			theThread = new Thread() {
+				public void run() {
+					try {
+						doRuns();
+					} finally {
+						liveRunCount.decrementAndGet();
+					}
+				}
+			};
+			theThread.start();
+			runThreads.add(theThread);
+		}
+
+		// When all builds are done queue an end marker for each run thread.
+
+		for (Thread buildThread : buildThreads) {
+			joinThread(buildThread);
+		}
+
+		for (int i = 0; i < runCount; i++) {
+			putRunJob(END_JOB);
+		}
+
+		for (Thread runThread : runThreads) {
+			joinThread(runThread);
+		}
+
+		// If the run threads exited early, studies may remain in the queue.
+
+		Job theJob;
+		while (null != (theJob = runQueue.poll())) {
+			if (END_JOB != theJob) {
+				theJob.study = null;
+				jobFailed(theJob, "Study not run, engine run threads failed");
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Build thread, build studies until the build queue is empty.  Each goes to the run queue, that blocks when the
+	// queue is full.  A failed build is done here.  Each job gets a new error logger, clearErrors() does not clear
+	// the text so a shared logger would carry messages from one job to the next.
+
+	private void doBuilds() {
+
+		Job theJob;
+		ErrorLogger errors;
+
+		while (true) {
+
+			synchronized (this) {
+				theJob = buildQueue.poll();
+			}
+			if (null == theJob) {
+				return;
+			}
+
+			if (0 == liveRunCount.get()) {
+				jobFailed(theJob, "Study not run, engine run threads failed");
+				continue;
+			}
+
+			errors = new ErrorLogger();
+
+			try {
+
+				if (!theJob.build.willRunStudy(errors)) {
+					jobFailed(theJob, "Could not register study run: " +
+						(errors.hasErrors() ? errors.toString() : "database connection failed"));
+					continue;
+				}
+
+				theJob.study = theJob.build.buildRunStudy(null, errors);
+
+			} catch (Throwable t) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error in batch study build", t);
+				errors.reportError(t.toString());
+				theJob.study = null;
+			}
+
+			if (null == theJob.study) {
+				jobFailed(theJob, (errors.hasErrors() ? errors.toString() : "Study build failed, see log file"));
+				continue;
+			}
+
+			if (!putRunJob(theJob)) {
+				theJob.study = null;
+				jobFailed(theJob, "Study not run, engine run threads failed");
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Run thread, run the engine for built studies until the end marker appears.
+
+	private void doRuns() {
+
+		Job theJob;
+
+		while (true) {
+
+			theJob = null;
+			try {
+				theJob = runQueue.take();
+			} catch (InterruptedException ie) {
+			}
+			if ((null == theJob) || (END_JOB == theJob)) {
+				return;
+			}
+
+			try {
+				runJob(theJob);
+			} catch (Throwable t) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error in batch study run", t);
+				theJob.study = null;
+				jobFailed(theJob, "Study run failed: " + t);
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Run one study and check the report.  Uses the task queue exactly as in StudyBuildIxCheck.runStudy().
+
+	private void runJob(Job theJob) {
+
+		ErrorLogger errors = new ErrorLogger();
+
+		AppTask task = new AppTask(theJob.build.getMemoryLoad());
+		while (!AppTask.canTaskStart(task)) {
+			try {Thread.sleep(500);} catch (InterruptedException ie) {};
+		}
+
+		boolean ok = false;
+		try {
+			ok = theJob.build.runBuiltStudy(theJob.study, task, null, errors);
+		} finally {
+			AppTask.taskDone(task);
+			theJob.study = null;
+		}
+
+		if (!ok) {
+			jobFailed(theJob, (errors.hasErrors() ? errors.toString() : "Study run failed, see log file"));
+			return;
+		}
+
+		// Check the report for the engine's no-failures line, and count flagged lines.
+
+		boolean noFailures = false;
+		int flagCount = 0;
+		String firstFlag = null;
+		for (String line : theJob.build.getStudyReport().split("\n")) {
+			if (line.trim().equals(NO_FAILURES_LINE)) {
+				noFailures = true;
+				continue;
+			}
+			if (line.startsWith(FLAG_PREFIX)) {
+				if (null == firstFlag) {
+					firstFlag = line.substring(FLAG_PREFIX.length()).trim();
+				}
+				flagCount++;
+			}
+		}
+
+		theJob.flagCount = flagCount;
+		if (noFailures) {
+			theJob.result = RESULT_PASS;
+			theJob.message = ((null != firstFlag) ? firstFlag : "");
+		} else {
+			theJob.result = RESULT_FAIL;
+			theJob.message = ((null != firstFlag) ? firstFlag : "IX check failures found, see study report");
+		}
+
+		jobDone(theJob);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Queue a built study for the run threads.  This waits while the queue is full, but returns false if there are
+	// no run threads left to take from the queue.
+
+	private boolean putRunJob(Job theJob) {
+
+		while (liveRunCount.get() > 0) {
+			try {
+				if (runQueue.offer(theJob, POLL_TIME, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			} catch (InterruptedException ie) {
+			}
+		}
+
+		return false;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static void joinThread(Thread theThread) {
+
+		while (theThread.isAlive()) {
+			try {
+				theThread.join();
+			} catch (InterruptedException ie) {
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private void jobFailed(Job theJob, String theMessage) {
+
+		theJob.result = RESULT_ERROR;
+		theJob.message = theMessage;
+		jobDone(theJob);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private synchronized void jobDone(Job theJob) {
+
+		doneCount++;
+		if (null != status) {
+			String theName = theJob.build.studyName;
+			if (null == theName) {
+				theName = theJob.studyID;
+			}
+			status.reportStatus(doneCount + " of " + jobCount + " studies done, " + theName + " " + theJob.result);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Write the summary file, one line per input proposal in input order.
+
+	private boolean writeSummary(File outFile, ErrorLogger errors) {
+
+		BufferedWriter theWriter = null;
+
+		try {
+
+			theWriter = new BufferedWriter(new FileWriter(outFile));
+
+			theWriter.write("line,result,flagged,description,study_name,output_directory,study_id,message\n");
+
+			for (Proposal theProposal : proposals) {
+
+				Job theJob = theProposal.job;
+
+				theWriter.write(String.valueOf(theProposal.lineNumber));
+				theWriter.write(',');
+
+				if (null == theJob) {
+					theWriter.write(RESULT_ERROR);
+					theWriter.write(",0,");
+					theWriter.write(csvField(theProposal.description));
+					theWriter.write(",,,,");
+					theWriter.write(csvField(theProposal.message));
+					theWriter.write('\n');
+					continue;
+				}
+
+				theWriter.write(theJob.result);
+				theWriter.write(',');
+				theWriter.write(String.valueOf(theJob.flagCount));
+				theWriter.write(',');
+				theWriter.write(csvField(theProposal.description));
+				theWriter.write(',');
+				theWriter.write(csvField(theJob.build.studyName));
+				theWriter.write(',');
+				theWriter.write(csvField(theJob.build.getOutDirectoryPath()));
+				theWriter.write(',');
+				theWriter.write(csvField(theJob.studyID));
+				theWriter.write(',');
+				theWriter.write(csvField(theJob.message));
+				theWriter.write('\n');
+			}
+
+		} catch (IOException ie) {
+			if (null != errors) {
+				errors.reportError("Could not write summary file:\n" + ie.getMessage());
+			}
+			return false;
+
+		} finally {
+			if (null != theWriter) {
+				try {theWriter.close();} catch (IOException ie) {}
+			}
+		}
+
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Quote a value for CSV output if needed, line breaks are replaced with spaces.
+
+	private static String csvField(String theValue) {
+
+		if (null == theValue) {
+			return "";
+		}
+
+		String result = theValue.trim().replaceAll("\\s*[\\r\\n]+\\s*", " ");
+		if ((result.indexOf(',') >= 0) || (result.indexOf('"') >= 0)) {
+			result = "\"" + result.replace("\"", "\"\"") + "\"";
+		}
+
+		return result;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static int parseInt(String theValue) {
+
+		try {
+			return Integer.parseInt(theValue);
+		} catch (NumberFormatException ne) {
+			return 0;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private static double parseDouble(String theValue) {
+
+		try {
+			return Double.parseDouble(theValue);
+		} catch (NumberFormatException ne) {
+			return -1.;
+		}
+	}
+}
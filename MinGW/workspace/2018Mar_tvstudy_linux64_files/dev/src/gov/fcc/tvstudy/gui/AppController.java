@@ -438,6 +438,8 @@ public class AppController implements WindowListener {
 		private static final String WINDOW_TITLE = "TVStudy Preferences";
 
 		private JComboBox<String> defaultEngineMemoryLimitMenu;
+		private JTextField engineCacheLimitField;
+		private JTextField slowQueryThresholdField;
 		private JCheckBox autoDeletePreviousDownloadCheckBox;
 		private JCheckBox ixCheckIncludeForeignDefaultCheckBox;
 		private JCheckBox ixCheckDefaultCPExcludesBLCheckBox;
@@ -465,6 +467,22 @@ public class AppController implements WindowListener {
 			memFracPanel.add(new JLabel("   Default study engine memory use"));
 			memFracPanel.add(defaultEngineMemoryLimitMenu);
 
+			engineCacheLimitField = new JTextField(6);
+			AppController.fixKeyBindings(engineCacheLimitField);
+
+			JPanel cacheLimitPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+			cacheLimitPanel.add(new JLabel("   Study engine cache limit"));
+			cacheLimitPanel.add(engineCacheLimitField);
+			cacheLimitPanel.add(new JLabel("GB, 0 for no limit"));
+
+			slowQueryThresholdField = new JTextField(6);
+			AppController.fixKeyBindings(slowQueryThresholdField);
+
+			JPanel slowQueryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+			slowQueryPanel.add(new JLabel("   Log database queries slower than"));
+			slowQueryPanel.add(slowQueryThresholdField);
+			slowQueryPanel.add(new JLabel("seconds, 0 to disable"));
+
 			autoDeletePreviousDownloadCheckBox =
 				new JCheckBox("Delete previous downloaded station data after new download");
 			autoDeletePreviousDownloadCheckBox.setFocusable(false);
@@ -494,6 +512,8 @@ public class AppController implements WindowListener {
 			prefsPanel.setLayout(new BoxLayout(prefsPanel, BoxLayout.Y_AXIS));
 
 			prefsPanel.add(memFracPanel);
+			prefsPanel.add(cacheLimitPanel);
+			prefsPanel.add(slowQueryPanel);
 
 			JPanel boxP = new JPanel(new FlowLayout(FlowLayout.LEFT));
 			boxP.add(autoDeletePreviousDownloadCheckBox);
@@ -573,6 +593,41 @@ public class AppController implements WindowListener {
 
 		private void doOK() {
 
+			errorReporter.setTitle(WINDOW_TITLE);
+
+			double cacheLimit = 0.;
+			String str = engineCacheLimitField.getText().trim();
+			if (str.length() > 0) {
+				try {
+					cacheLimit = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+					cacheLimit = -1.;
+				}
+				if (cacheLimit < 0.) {
+					errorReporter.reportValidationError("Cache limit must be a number greater than or equal to 0.");
+					return;
+				}
+			}
+
+			double slowQueryThreshold = 0.;
+			str = slowQueryThresholdField.getText().trim();
+			if (str.length() > 0) {
+				try {
+					slowQueryThreshold = Double.parseDouble(str);
+				} catch (NumberFormatException ne) {
+					slowQueryThreshold = -1.;
+				}
+				if (slowQueryThreshold < 0.) {
+					errorReporter.reportValidationError(
+						"Slow query threshold must be a number greater than or equal to 0.");
+					return;
+				}
+			}
+
+			AppCore.setPreference(AppCore.PREF_ENGINE_CACHE_LIMIT, String.valueOf(cacheLimit));
+
+			SlowQueryLog.setThresholdPreference(slowQueryThreshold);
+
 			AppCore.setPreference(AppCore.PREF_DEFAULT_ENGINE_MEMORY_LIMIT,
 				String.valueOf(defaultEngineMemoryLimitMenu.getSelectedIndex()));
 
@@ -633,6 +688,15 @@ public class AppController implements WindowListener {
 				defaultEngineMemoryLimitMenu.setSelectedIndex(0);
 			}
 
+			long cacheLimit = CacheManager.getCacheLimit();
+			if (cacheLimit > 0L) {
+				engineCacheLimitField.setText(String.format(Locale.US, "%.1f", ((double)cacheLimit / 1.e9)));
+			} else {
+				engineCacheLimitField.setText("0");
+			}
+
+			slowQueryThresholdField.setText(String.format(Locale.US, "%.1f", SlowQueryLog.getThresholdPreference()));
+
 			str = AppCore.getPreference(AppCore.CONFIG_AUTO_DELETE_PREVIOUS_DOWNLOAD);
 			if (null != str) {
 				autoDeletePreviousDownloadCheckBox.setSelected(Boolean.valueOf(str).booleanValue());
@@ -803,6 +867,97 @@ public class AppController implements WindowListener {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Choose a file for an XML export, plain or compressed according to the filter selected, the extension is added
+	// as needed.  If the file exists, prompt before replacing.  Returns null if canceled.  See ExportXML.openWriter().
+
+	public static File chooseExportFile(Component parent, String title) {
+
+		JFileChooser chooser = new JFileChooser(AppCore.getProperty(AppCore.LAST_FILE_DIRECTORY_KEY));
+		chooser.setDialogType(JFileChooser.SAVE_DIALOG);
+		chooser.setDialogTitle(title);
+		chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+		chooser.setMultiSelectionEnabled(false);
+		javax.swing.filechooser.FileNameExtensionFilter xmlFilter =
+			new javax.swing.filechooser.FileNameExtensionFilter("XML (*.xml)", "xml");
+		javax.swing.filechooser.FileNameExtensionFilter gzFilter =
+			new javax.swing.filechooser.FileNameExtensionFilter("Compressed XML (*.xml.gz)", "gz");
+		chooser.addChoosableFileFilter(xmlFilter);
+		chooser.addChoosableFileFilter(gzFilter);
+		chooser.setFileFilter(xmlFilter);
+		chooser.setAcceptAllFileFilterUsed(false);
+
+		File theFile = null;
+		String theName;
+		do {
+			if (JFileChooser.APPROVE_OPTION != chooser.showDialog(parent, "Export")) {
+				return null;
+			}
+			theFile = chooser.getSelectedFile();
+			theName = theFile.getName().toLowerCase();
+			if (chooser.getFileFilter() == gzFilter) {
+				if (!theName.endsWith(".gz")) {
+					if (theName.endsWith(".xml")) {
+						theFile = new File(theFile.getAbsolutePath() + ".gz");
+					} else {
+						theFile = new File(theFile.getAbsolutePath() + ".xml.gz");
+					}
+				}
+			} else {
+				if (!theName.endsWith(".xml")) {
+					theFile = new File(theFile.getAbsolutePath() + ".xml");
+				}
+			}
+			if (theFile.exists()) {
+				beep();
+				if (JOptionPane.YES_OPTION != JOptionPane.showConfirmDialog(parent,
+						"The file exists, do you want to replace it?", title, JOptionPane.YES_NO_OPTION,
+						JOptionPane.WARNING_MESSAGE)) {
+					theFile = null;
+				}
+			}
+		} while (null == theFile);
+
+		AppCore.setProperty(AppCore.LAST_FILE_DIRECTORY_KEY, theFile.getParentFile().getAbsolutePath());
+
+		return theFile;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Choose a file to save text output such as a run log or report.  If the file exists, prompt before replacing.
+	// Returns null if canceled.
+
+	public static File chooseSaveFile(Component parent, String title) {
+
+		JFileChooser chooser = new JFileChooser(AppCore.getProperty(AppCore.LAST_FILE_DIRECTORY_KEY));
+		chooser.setDialogType(JFileChooser.SAVE_DIALOG);
+		chooser.setDialogTitle(title);
+		chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+		chooser.setMultiSelectionEnabled(false);
+
+		File theFile = null;
+		do {
+			if (JFileChooser.APPROVE_OPTION != chooser.showDialog(parent, "Save")) {
+				return null;
+			}
+			theFile = chooser.getSelectedFile();
+			if (theFile.exists()) {
+				beep();
+				if (JOptionPane.YES_OPTION != JOptionPane.showConfirmDialog(parent,
+						"The file exists, do you want to replace it?", title, JOptionPane.YES_NO_OPTION,
+						JOptionPane.WARNING_MESSAGE)) {
+					theFile = null;
+				}
+			}
+		} while (null == theFile);
+
+		AppCore.setProperty(AppCore.LAST_FILE_DIRECTORY_KEY, theFile.getParentFile().getAbsolutePath());
+
+		return theFile;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Convenience methods to beep and show message dialogs.  Currently just wrappers around JOptionPane.
 
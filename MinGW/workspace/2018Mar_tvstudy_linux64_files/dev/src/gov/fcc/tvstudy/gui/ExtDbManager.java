@@ -62,6 +62,7 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 	private KeyedRecordMenu createGenericMenu;
 	private JButton importGenericButton;
 	private JMenuItem importGenericMenuItem;
+	private JMenuItem exportGenericMenuItem;
 
 	// Disambiguation.
 
@@ -291,6 +292,16 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 		});
 		fileMenu.add(importGenericMenuItem);
 
+		// Export...
+
+		exportGenericMenuItem = new JMenuItem("Export...");
+		exportGenericMenuItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent theEvent) {
+				doExportGeneric();
+			}
+		});
+		fileMenu.add(exportGenericMenuItem);
+
 		// Rename...
 
 		renameExtDbMenuItem = new JMenuItem("Rename...");
@@ -357,6 +368,7 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 
 		importGenericButton.setEnabled(eImport);
 		importGenericMenuItem.setEnabled(eImport);
+		exportGenericMenuItem.setEnabled(eImport);
 
 		renameExtDbMenuItem.setEnabled(eRename);
 		deleteExtDbMenuItem.setEnabled(eDelete);
@@ -911,8 +923,9 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 
 	//-----------------------------------------------------------------------------------------------------------------
 	// Import into a generic data set.  Right now all this supports is XML, it will have more parsers soon.  This
-	// will eventually scale up to something that can be time-consuming but for now it is not expected to be, so don't
-	// use the run manager, just an inline background worker.
+	// does not use the run manager, just an inline background worker.  Large files are handled by ImportXML which
+	// streams records through parse, conversion, and batched writes with progress shown in the wait dialog.  If the
+	// import fails ImportXML removes any records already written, so the data set is unchanged.
 
 	private void doImportGeneric() {
 
@@ -940,7 +953,7 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 		chooser.setDialogTitle(title);
 		chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
 		chooser.setMultiSelectionEnabled(false);
-		chooser.addChoosableFileFilter(new FileNameExtensionFilter("XML (*.xml)", "xml"));
+		chooser.addChoosableFileFilter(new FileNameExtensionFilter("XML (*.xml, *.xml.gz)", "xml", "gz"));
 		chooser.setAcceptAllFileFilterUsed(false);
 
 		if (JFileChooser.APPROVE_OPTION != chooser.showDialog(this, "Import")) {
@@ -969,15 +982,15 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 		}
 		final Integer alternateExtDbKey = ((theKey > 0) ? Integer.valueOf(theKey) : null);
 
-		FileReader theReader = null;
+		Reader theReader = null;
 		try {
-			theReader = new FileReader(theFile);
-		} catch (FileNotFoundException fnfe) {
-			errorReporter.reportError("Could not open the file:\n" + fnfe.getMessage());
+			theReader = ImportXML.openReader(theFile);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
 			return;
 		}
 
-		final BufferedReader xml = new BufferedReader(theReader);
+		final Reader xml = theReader;
 
 		BackgroundWorker<Integer> theWorker = new BackgroundWorker<Integer>(this, title) {
 			protected Integer doBackgroundWork(ErrorLogger errors) {
@@ -991,20 +1004,11 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 
 				try {
 
-					ParseXML handler = new ParseXML(extDb, lookupExtDbKey, alternateExtDbKey, errors);
-
-					XMLReader xReader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
-					xReader.setContentHandler(handler);
-					xReader.parse(new InputSource(xml));
-
-					for (SourceEditData theSource : handler.sources) {
-						theSource.isDataChanged();
-						theSource.save(db);
-						sourceCount++;
-					}
+					ImportXML importer = new ImportXML(extDb, lookupExtDbKey, alternateExtDbKey, errors);
+					sourceCount = importer.importXML(xml, db, this);
 
 					if (0 == sourceCount) {
-						if (handler.hadStudy) {
+						if (importer.hadStudy) {
 							errors.reportWarning("No compatible records found.");
 						} else {
 							errors.reportWarning("No recognized XML structure found.");
@@ -1049,6 +1053,82 @@ public class ExtDbManager extends AppFrame implements ExtDbListener {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Export all records in a generic data set to an XML file, optionally compressed.  This reads from the database
+	// in pages so the size of the data set does not matter, see ExportXML.  If the file already exists, prompt before
+	// replacing.  If the export is canceled or fails the incomplete file is deleted.
+
+	private void doExportGeneric() {
+
+		int rowIndex = extDbTable.getSelectedRow();
+		if (rowIndex < 0) {
+			return;
+		}
+
+		String title = "Export Station Data To XML";
+		errorReporter.setTitle(title);
+
+		ExtDbListItem theItem = extDbModel.get(extDbTable.convertRowIndexToModel(rowIndex));
+		final ExtDb extDb = ExtDb.getExtDb(getDbID(), theItem.key, errorReporter);
+		if (null == extDb) {
+			return;
+		}
+
+		if (!extDb.isGeneric()) {
+			errorReporter.reportError("Unknown or unsupported station data type.");
+			return;
+		}
+
+		File theFile = AppController.chooseExportFile(this, title);
+		if (null == theFile) {
+			return;
+		}
+
+		Writer theWriter = null;
+		try {
+			theWriter = ExportXML.openWriter(theFile, theFile.getName().toLowerCase().endsWith(".gz"));
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
+			return;
+		}
+
+		final Writer xml = theWriter;
+
+		BackgroundWorker<Integer> theWorker = new BackgroundWorker<Integer>(this, title) {
+			protected Integer doBackgroundWork(ErrorLogger errors) {
+				int count = ExportXML.exportExtDb(extDb, xml, this, errors);
+				if (count < 0) {
+					return null;
+				}
+				return Integer.valueOf(count);
+			}
+		};
+
+		theWorker.showCancel();
+
+		errorReporter.clearMessages();
+
+		Integer count = theWorker.runWork("Exporting records, please wait...", errorReporter);
+
+		try {
+			xml.close();
+		} catch (IOException ie) {
+			if (null != count) {
+				errorReporter.reportError("Could not write to the file:\n" + ie.getMessage());
+				count = null;
+			}
+		}
+
+		if (null == count) {
+			theFile.delete();
+			return;
+		}
+
+		errorReporter.showMessages();
+		errorReporter.reportMessage("Exported " + count + " records.");
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// The name is really just a description, but for consistency this does enforce uniqueness.  The name is always
 	// optional so it can be set to an empty string, in which case the permanent ID string appears in the UI.  When a
@@ -79,6 +79,8 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 	private RecordListItem selectedItem;
 	private int selectedItemIndex = -1;
 
+	private SearchWorker searchWorker;
+
 	private JLabel noteLabel;
 	private JPanel notePanel;
 
@@ -395,7 +397,11 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 		searchButton = new JButton("Search");
 		searchButton.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent theEvent) {
-				doSearch();
+				if (null != searchWorker) {
+					cancelSearch();
+				} else {
+					doSearch();
+				}
 			}
 		});
 
@@ -978,7 +984,10 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 	// useful accessory information from the record.  It appears as a pop-up in the results table.  When records are
 	// imported from XML, isNew will be true on a record that is not locked, but in that case isImport is also true.
 	// If a new imported record is actually edited isImport is set false.  That is so new imported records that have
-	// not been edited do not trigger warning messages about unsaved changes, since there really aren't any.
+	// not been edited do not trigger warning messages about unsaved changes, since there really aren't any.  The
+	// values and sortValues arrays are the table cell and sort strings for the record, those are computed once since
+	// they are used repeatedly by the sorter and filter.  If the record changes those must be cleared to be re-
+	// computed, see setItemValues() in the model.
 
 	private class RecordListItem {
 
@@ -994,6 +1003,9 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 		private String comment;
 
 		private SourceEditor sourceEditor;
+
+		private String[] values;
+		private String[] sortValues;
 	}
 
 
@@ -1061,6 +1073,9 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 		private JPanel panel;
 		private ArrayList<RecordListItem> modelRows;
 
+		private String searchState = "";
+		private int searchCount;
+
 		private TableFilterPanel filterPanel;
 
 
@@ -1195,45 +1210,12 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 			TableStringConverter theConverter = new TableStringConverter() {
 				public String toString(TableModel theModel, int rowIndex, int columnIndex) {
 
-					Record theRecord = modelRows.get(filterPanel.forwardIndex[rowIndex]).record;
-
-					switch (columnIndex) {
-
-						case RECORD_TYPE_INDEX:
-							return theRecord.getRecordType();
-
-						case RECORD_CALLSIGN_INDEX:
-							return theRecord.getCallSign();
-
-						case RECORD_CHANNEL_INDEX:
-							return theRecord.getSortChannel();
-
-						case RECORD_SERVICE_INDEX:
-							return theRecord.getServiceCode();
-
-						case RECORD_STATUS_INDEX:
-							return theRecord.getSortStatus();
-
-						case RECORD_CITY_INDEX:
-							return theRecord.getCity();
-
-						case RECORD_STATE_INDEX:
-							return theRecord.getState();
-
-						case RECORD_COUNTRY_INDEX:
-							return theRecord.getSortCountry();
-
-						case RECORD_FACILITY_ID_INDEX:
-							return theRecord.getSortFacilityID();
-
-						case RECORD_FILE_INDEX:
-							return theRecord.getFileNumber();
-
-						case RECORD_DATE_INDEX:
-							return theRecord.getSortSequenceDate();
+					RecordListItem theItem = modelRows.get(filterPanel.forwardIndex[rowIndex]);
+					if (null == theItem.sortValues) {
+						setItemValues(theItem);
 					}
 
-					return "";
+					return theItem.sortValues[columnIndex];
 				}
 			};
 
@@ -1369,7 +1351,10 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 				}
 			}
 
+			abandonSearch();
+
 			modelRows.clear();
+			searchCount = 0;
 
 			if (null != newItems) {
 				modelRows.addAll(newItems);
@@ -1384,6 +1369,108 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 		}
 
 
+		//-------------------------------------------------------------------------------------------------------------
+		// Append a batch of search results, see SearchWorker.  New model rows are always at the end so in the filtered
+		// index any that pass the filter are also at the end, the view change is a single insert.
+
+		private void addItems(ArrayList<RecordListItem> newItems) {
+
+			int oldRowCount = filterPanel.forwardIndex.length;
+
+			modelRows.addAll(newItems);
+			searchCount += newItems.size();
+
+			filterPanel.updateFilter();
+			int newRowCount = filterPanel.forwardIndex.length;
+			if (newRowCount > oldRowCount) {
+				fireTableRowsInserted(oldRowCount, (newRowCount - 1));
+			}
+			updateBorder();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Remove the rows delivered by a search that failed, see SearchWorker.
+
+		private void removeSearchItems(HashSet<RecordListItem> theItems) {
+
+			if (theItems.isEmpty()) {
+				return;
+			}
+
+			Iterator<RecordListItem> it = modelRows.iterator();
+			while (it.hasNext()) {
+				if (theItems.contains(it.next())) {
+					it.remove();
+					searchCount--;
+				}
+			}
+
+			filterPanel.updateFilter();
+			fireTableDataChanged();
+			updateBorder();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Set text shown after the record count in the border while a search is running or after it is canceled.
+
+		private void setSearchState(String theState) {
+
+			searchState = theState;
+			updateBorder();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Compute the display and sort values for an item.  This does not use any model state so it may be called on
+		// a background thread.
+
+		private void setItemValues(RecordListItem theItem) {
+
+			Record theRecord = theItem.record;
+
+			String[] values = new String[RECORD_DATE_INDEX + 1];
+			String[] sortValues = new String[RECORD_DATE_INDEX + 1];
+
+			values[RECORD_TYPE_INDEX] = theRecord.getRecordType();
+			sortValues[RECORD_TYPE_INDEX] = values[RECORD_TYPE_INDEX];
+
+			values[RECORD_CALLSIGN_INDEX] = theRecord.getCallSign();
+			sortValues[RECORD_CALLSIGN_INDEX] = values[RECORD_CALLSIGN_INDEX];
+
+			values[RECORD_CHANNEL_INDEX] = theRecord.getChannel() + " " + theRecord.getFrequency();
+			sortValues[RECORD_CHANNEL_INDEX] = theRecord.getSortChannel();
+
+			values[RECORD_SERVICE_INDEX] = theRecord.getServiceCode();
+			sortValues[RECORD_SERVICE_INDEX] = values[RECORD_SERVICE_INDEX];
+
+			values[RECORD_STATUS_INDEX] = theRecord.getStatus();
+			sortValues[RECORD_STATUS_INDEX] = theRecord.getSortStatus();
+
+			values[RECORD_CITY_INDEX] = theRecord.getCity();
+			sortValues[RECORD_CITY_INDEX] = values[RECORD_CITY_INDEX];
+
+			values[RECORD_STATE_INDEX] = theRecord.getState();
+			sortValues[RECORD_STATE_INDEX] = values[RECORD_STATE_INDEX];
+
+			values[RECORD_COUNTRY_INDEX] = theRecord.getCountryCode();
+			sortValues[RECORD_COUNTRY_INDEX] = theRecord.getSortCountry();
+
+			values[RECORD_FACILITY_ID_INDEX] = theRecord.getFacilityID();
+			sortValues[RECORD_FACILITY_ID_INDEX] = theRecord.getSortFacilityID();
+
+			values[RECORD_FILE_INDEX] = theRecord.getFileNumber();
+			sortValues[RECORD_FILE_INDEX] = values[RECORD_FILE_INDEX];
+
+			values[RECORD_DATE_INDEX] = theRecord.getSequenceDate();
+			sortValues[RECORD_DATE_INDEX] = theRecord.getSortSequenceDate();
+
+			theItem.values = values;
+			theItem.sortValues = sortValues;
+		}
+
+
 		//-------------------------------------------------------------------------------------------------------------
 		// Check if there is any unsaved data, that is new edited records that haven't been applied.  Note wasApplied
 		// and isImport are both cleared if a new record is actually edited, even if it was previously applied.
@@ -1548,9 +1635,9 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 
 			int n = filterPanel.forwardIndex.length;
 			if (n > 0) {
-				panel.setBorder(BorderFactory.createTitledBorder(String.valueOf(n) + " records"));
+				panel.setBorder(BorderFactory.createTitledBorder(String.valueOf(n) + " records" + searchState));
 			} else {
-				panel.setBorder(BorderFactory.createTitledBorder("Records"));
+				panel.setBorder(BorderFactory.createTitledBorder("Records" + searchState));
 			}
 		}
 
@@ -1632,45 +1719,12 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 
 		public String getUnfilteredValueAt(int rowIndex, int columnIndex) {
 
-			Record theRecord = modelRows.get(rowIndex).record;
-
-			switch (columnIndex) {
-
-				case RECORD_TYPE_INDEX:
-					return theRecord.getRecordType();
-
-				case RECORD_CALLSIGN_INDEX:
-					return theRecord.getCallSign();
-
-				case RECORD_CHANNEL_INDEX:
-					return theRecord.getChannel() + " " + theRecord.getFrequency();
-
-				case RECORD_SERVICE_INDEX:
-					return theRecord.getServiceCode();
-
-				case RECORD_STATUS_INDEX:
-					return theRecord.getStatus();
-
-				case RECORD_CITY_INDEX:
-					return theRecord.getCity();
-
-				case RECORD_STATE_INDEX:
-					return theRecord.getState();
-
-				case RECORD_COUNTRY_INDEX:
-					return theRecord.getCountryCode();
-
-				case RECORD_FACILITY_ID_INDEX:
-					return theRecord.getFacilityID();
-
-				case RECORD_FILE_INDEX:
-					return theRecord.getFileNumber();
-
-				case RECORD_DATE_INDEX:
-					return theRecord.getSequenceDate();
+			RecordListItem theItem = modelRows.get(rowIndex);
+			if (null == theItem.values) {
+				setItemValues(theItem);
 			}
 
-			return "";
+			return theItem.values[columnIndex];
 		}
 	}
 
@@ -1733,15 +1787,19 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Do the search.  First build the search query.  If the record ID or file number are set, all other criteria are
-	// ignored as those are expected to match just one specific record.  For a file number search if archived records
-	// are included there may be multiple matches, however those are historical versions of the same record and it is
-	// assumed they would not vary with respect to other search criteria.  Otherwise a search is performed combining
-	// all criteria with AND.  The search is always restricted by record type even for an ID or file number search,
-	// also for TV records the search is always restricted by channel.
+	// Do the search, see startSearch().  First build the search query.  If the record ID or file number are set, all
+	// other criteria are ignored as those are expected to match just one specific record.  For a file number search
+	// if archived records are included there may be multiple matches, however those are historical versions of the
+	// same record and it is assumed they would not vary with respect to other search criteria.  Otherwise a search is
+	// performed combining all criteria with AND.  The search is always restricted by record type even for an ID or
+	// file number search, also for TV records the search is always restricted by channel.
 
 	private void doSearch() {
 
+		if (null != searchWorker) {
+			return;
+		}
+
 		errorReporter.clearTitle();
 
 		int dbType = ExtDb.DB_TYPE_NOT_SET;
@@ -1753,7 +1811,6 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 			isSrc = extDb.isGeneric();
 		}
 
-		ArrayList<RecordListItem> searchResults = null;
 		StringBuilder query = new StringBuilder();
 
 		if (!useBaseline || (Source.RECORD_TYPE_TV != searchRecordType)) {
@@ -1949,80 +2006,7 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 
 			// Do the search.
 
-			final String theQuery = query.toString();
-
-			BackgroundWorker<ArrayList<RecordListItem>> theWorker =
-					new BackgroundWorker<ArrayList<RecordListItem>>(getWindow(), getTitle()) {
-				protected ArrayList<RecordListItem> doBackgroundWork(ErrorLogger errors) {
-
-					ArrayList<RecordListItem> results = new ArrayList<RecordListItem>();
-					RecordListItem theItem;
-
-					int dbType = ExtDb.DB_TYPE_NOT_SET;
-					boolean isSrc = true;
-					if (null != extDb) {
-						dbType = extDb.type;
-						isSrc = extDb.isGeneric();
-					}
-
-					if (isSrc) {
-
-						java.util.List<SourceEditData> sources = null;
-
-						boolean isUsr = false;
-						if (ExtDb.DB_TYPE_NOT_SET == dbType) {
-							sources = SourceEditData.findUserRecords(getDbID(), searchRecordType, theQuery, errors);
-							isUsr = true;
-						} else {
-							sources = SourceEditData.findImportRecords(extDb, theQuery, errors);
-						}
-
-						if (null == sources) {
-							return null;
-						}
-
-						for (SourceEditData theSource : sources) {
-
-							theItem = new RecordListItem();
-							theItem.record = theSource;
-							theItem.isSource = true;
-							theItem.isUserRecord = isUsr;
-							theItem.isValid = true;
-
-							theItem.comment = theSource.makeCommentText();
-
-							results.add(theItem);
-						}
-
-					} else {
-
-						LinkedList<ExtDbRecord> records = ExtDbRecord.findRecords(extDb, theQuery, errors);
-						if (null == records) {
-							return null;
-						}
-
-						for (ExtDbRecord theRecord : records) {
-
-							theItem = new RecordListItem();
-							theItem.record = theRecord;
-							theItem.isValid = true;
-
-							theItem.comment = theRecord.makeCommentText();
-
-							results.add(theItem);
-						}
-					}
-
-					return results;
-				}
-			};
-
-			errorReporter.clearMessages();
-
-			searchResults = theWorker.runWork("Searching for records, please wait...", errorReporter);
-			if (null == searchResults) {
-				return;
-			}
+			startSearch(query.toString(), false);
 
 		} else {
 
@@ -2097,61 +2081,256 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 				return;
 			}
 
-			final String theQuery = query.toString();
+			startSearch(query.toString(), true);
+		}
+	}
 
-			BackgroundWorker<ArrayList<RecordListItem>> theWorker =
-					new BackgroundWorker<ArrayList<RecordListItem>>(getWindow(), getTitle()) {
-				protected ArrayList<RecordListItem> doBackgroundWork(ErrorLogger errors) {
 
-					ArrayList<RecordListItem> results = new ArrayList<RecordListItem>();
-					RecordListItem theItem;
+	//-----------------------------------------------------------------------------------------------------------------
+	// Start a streaming search, see SearchWorker.  Existing results are cleared first, preserving new records as
+	// usual.  The search button becomes a cancel button while the search is running.
 
-					LinkedList<ExtDbRecordTV> records = ExtDbRecordTV.findBaselineRecords(extDb, theQuery, errors);
-					if (null == records) {
-						return null;
-					}
+	private void startSearch(String theQuery, boolean isBaseline) {
 
-					for (ExtDbRecordTV theRecord : records) {
+		if (!listModel.setItems(null, true)) {
+			return;
+		}
+
+		errorReporter.clearMessages();
+
+		searchWorker = new SearchWorker(theQuery, isBaseline);
+		searchButton.setText("Cancel");
+		listModel.setSearchState(" (searching...)");
+
+		searchWorker.execute();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Cancel a running search at the user's request.  Rows already delivered remain in the table, the worker will
+	// finish normally and report the partial result.
+
+	private void cancelSearch() {
+
+		if (null != searchWorker) {
+			searchWorker.canceled = true;
+			searchButton.setEnabled(false);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Abandon a running search when the results are being replaced, see setItems() in the model.  The worker is
+	// canceled and detached so any further batches it publishes are ignored.
+
+	private void abandonSearch() {
+
+		if (null != searchWorker) {
+			searchWorker.canceled = true;
+			searchWorker = null;
+			searchButton.setText("Search");
+			searchButton.setEnabled(true);
+			listModel.setSearchState("");
+		}
+	}
+
+
+	//=================================================================================================================
+	// Background worker for a streaming search.  Records are wrapped in list items as they arrive from the search,
+	// including computing all display and sort values, and published in batches.  On the event thread each batch is
+	// appended to the table model so results appear progressively while the search is running, and the UI remains
+	// responsive.  A batch is published when it reaches a maximum size or when a minimum time has passed since the
+	// last, so a large result set arriving quickly is not delivered row-by-row.  The search may be canceled at any
+	// time, rows already delivered remain in the table and the border shows the partial count.  If the search fails
+	// the rows it delivered are removed again, see RecordListener.  Only the current worker may change the model, a
+	// worker that has been abandoned ignores further batches.
+
+	private static final int SEARCH_BATCH_SIZE = 500;
+	private static final long SEARCH_BATCH_INTERVAL = 250L;   // milliseconds
+
+	private class SearchWorker extends SwingWorker<Boolean, ArrayList<RecordListItem>> implements RecordListener {
+
+		private final String query;
+		private final boolean isBaseline;
+
+		private final String dbID;
+		private final ExtDb searchExtDb;
+		private final int recordType;
+
+		private final ErrorLogger errors;
+
+		private ArrayList<RecordListItem> batch;
+		private long lastPublishTime;
+
+		private HashSet<RecordListItem> deliveredItems = new HashSet<RecordListItem>();
+
+		private volatile boolean canceled;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Search state is captured here so the background thread does not depend on UI state that may change.
+
+		private SearchWorker(String theQuery, boolean theIsBaseline) {
+
+			query = theQuery;
+			isBaseline = theIsBaseline;
+
+			dbID = getDbID();
+			searchExtDb = extDb;
+			recordType = searchRecordType;
+
+			errors = new ErrorLogger(new StringBuilder());
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// The baseline search does not support a listener, the post-processing there can replace records, so the
+		// results are delivered after the search completes.
 
-						theItem = new RecordListItem();
-						theItem.record = theRecord;
-						theItem.isValid = true;
+		protected Boolean doInBackground() {
 
-						theItem.comment = theRecord.makeCommentText();
+			batch = new ArrayList<RecordListItem>();
+			lastPublishTime = System.currentTimeMillis();
 
-						results.add(theItem);
+			boolean result = false;
+
+			if (isBaseline) {
+
+				LinkedList<ExtDbRecordTV> records = ExtDbRecordTV.findBaselineRecords(searchExtDb, query, errors);
+				if (null != records) {
+					result = true;
+					for (ExtDbRecordTV theRecord : records) {
+						if (!recordFound(theRecord)) {
+							break;
+						}
 					}
+				}
+
+			} else {
 
-					return results;
+				if (null == searchExtDb) {
+					result = (null != SourceEditData.findUserRecords(dbID, recordType, query, this, errors));
+				} else {
+					if (searchExtDb.isGeneric()) {
+						result = (null != SourceEditData.findImportRecords(searchExtDb, query, this, errors));
+					} else {
+						result = (null != ExtDbRecord.findRecords(searchExtDb, query, this, errors));
+					}
 				}
-			};
+			}
+
+			if (!batch.isEmpty()) {
+				publish(batch);
+				batch = null;
+			}
+
+			return Boolean.valueOf(result);
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Called on the background thread as records are found.
+
+		public boolean recordFound(Record theRecord) {
+
+			if (canceled) {
+				return false;
+			}
+
+			RecordListItem theItem = new RecordListItem();
+			theItem.record = theRecord;
+			theItem.isValid = true;
+
+			if (theRecord instanceof SourceEditData) {
+				theItem.isSource = true;
+				theItem.isUserRecord = (null == searchExtDb);
+				theItem.comment = ((SourceEditData)theRecord).makeCommentText();
+			} else {
+				theItem.comment = ((ExtDbRecord)theRecord).makeCommentText();
+			}
 
-			errorReporter.clearMessages();
+			listModel.setItemValues(theItem);
 
-			searchResults = theWorker.runWork("Searching for records, please wait...", errorReporter);
-			if (null == searchResults) {
+			batch.add(theItem);
+
+			long now = System.currentTimeMillis();
+			if ((batch.size() >= SEARCH_BATCH_SIZE) || ((now - lastPublishTime) >= SEARCH_BATCH_INTERVAL)) {
+				publish(batch);
+				batch = new ArrayList<RecordListItem>();
+				lastPublishTime = now;
+			}
+
+			return !canceled;
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Add batches to the model on the event thread.  Select the first row when the first results arrive.
+
+		protected void process(java.util.List<ArrayList<RecordListItem>> batches) {
+
+			if (this != searchWorker) {
 				return;
 			}
+
+			for (ArrayList<RecordListItem> theBatch : batches) {
+				listModel.addItems(theBatch);
+				deliveredItems.addAll(theBatch);
+			}
+
+			if ((listTable.getSelectedRow() < 0) && (listTable.getRowCount() > 0)) {
+				listTable.setRowSelectionInterval(0, 0);
+				listTable.scrollRectToVisible(listTable.getCellRect(0, 0, true));
+			}
 		}
 
-		if (searchResults.size() > 0) {
 
-			if (!listModel.setItems(searchResults, true)) {
+		//-------------------------------------------------------------------------------------------------------------
+		// Search is complete, report errors and messages and the final state.
+
+		protected void done() {
+
+			if (this != searchWorker) {
 				return;
 			}
 
-			errorReporter.showMessages();
+			searchWorker = null;
+			searchButton.setText("Search");
+			searchButton.setEnabled(true);
 
-			listTable.setRowSelectionInterval(0, 0);
-			listTable.scrollRectToVisible(listTable.getCellRect(0, 0, true));
+			boolean result = false;
+			try {
+				result = get().booleanValue();
+			} catch (Throwable t) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+				errors.reportError("An unexpected error occurred:\n" + t, AppCore.ERROR_MESSAGE);
+			}
 
-		} else {
+			if (canceled) {
+				listModel.setSearchState(" (search canceled)");
+			} else {
+				listModel.setSearchState("");
+			}
+
+			if (errors.hasErrors()) {
+				errorReporter.reportError(errors.toString(), errors.getLastErrorType());
+			}
+			if (errors.hasMessages()) {
+				errorReporter.logMessage(errors.getMessages());
+			}
 
-			if (!listModel.setItems(null, true)) {
+			if (!result) {
+				listModel.removeSearchItems(deliveredItems);
 				return;
 			}
 
-			errorReporter.reportMessage("No matching records found.");
+			if (listModel.searchCount > 0) {
+				errorReporter.showMessages();
+			} else {
+				if (!canceled) {
+					errorReporter.reportMessage("No matching records found.");
+				}
+			}
 		}
 	}
 
@@ -2495,15 +2674,15 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 
 		// Open the file, do the import.
 
-		FileReader theReader = null;
+		Reader theReader = null;
 		try {
-			theReader = new FileReader(theFile);
-		} catch (FileNotFoundException fnfe) {
-			errorReporter.reportError("Could not open the file:\n" + fnfe.getMessage());
+			theReader = ImportXML.openReader(theFile);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
 			return;
 		}
 
-		final BufferedReader xml = new BufferedReader(theReader);
+		final Reader xml = theReader;
 
 		BackgroundWorker<ArrayList<SourceEditData>> theWorker =
 				new BackgroundWorker<ArrayList<SourceEditData>>(getWindow(), title) {
@@ -2707,6 +2886,8 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 		}
 
 		selectedItem.record = newSource;
+		selectedItem.values = null;
+		selectedItem.sortValues = null;
 		selectedItem.isUserRecord = true;
 		selectedItem.isNew = false;
 		selectedItem.isImport = false;
@@ -2767,6 +2948,8 @@ public class RecordFindPanel extends AppPanel implements ExtDbListener {
 			RecordListItem theItem = listModel.ufGet(rowIndex);
 
 			theItem.record = sourceEditor.getSource();
+			theItem.values = null;
+			theItem.sortValues = null;
 			theItem.isImport = false;
 			theItem.wasApplied = false;
 			theItem.isValid = true;
@@ -74,6 +74,7 @@ public class StudyManager extends AppFrame {
 	private JMenuItem newFolderMenuItem;
 	private JMenuItem renameFolderMenuItem;
 	private JMenuItem duplicateStudyMenuItem;
+	private JMenuItem exportStudyMenuItem;
 	private JMenuItem openStudyMenuItem;
 	private JMenuItem deleteStudyMenuItem;
 	private JMenuItem runStudyMenuItem;
@@ -89,6 +90,7 @@ public class StudyManager extends AppFrame {
 	private JMenu cmMoveToFolderMenu;
 
 	private JMenuItem cmDuplicateStudyMenuItem;
+	private JMenuItem cmExportStudyMenuItem;
 	private JMenuItem cmOpenStudyMenuItem;
 	private JMenuItem cmDeleteStudyMenuItem;
 	private JMenuItem cmRunStudyMenuItem;
@@ -109,15 +111,30 @@ public class StudyManager extends AppFrame {
 	private ReceiveAntennaEditor receiveAntennaEditor;
 	private boolean editLockSet;
 
-	// A timer used to update the list, a background thread is used for some updates.
+	// A timer used to update the list, a background thread is used for some updates.  The list is refreshed with an
+	// incremental check for changes at a short interval, see checkForChanges(), with a full reload at a much longer
+	// interval as a fail-safe.  The incremental check uses the mod_time columns maintained by the server on the study
+	// and folder tables, studyModTime is the newest study mod_time seen (as UNIX time), the folder count and newest
+	// mod_time detect any change to folders.  The list generation is incremented on every full reload so results
+	// from a check started before the reload are discarded.
 
 	private static final int TIMER_INTERVAL = 2000;           // milliseconds
-	private static final int UPDATE_INTERVAL = 60000;
+	private static final int UPDATE_INTERVAL = 10000;
+	private static final int FULL_UPDATE_INTERVAL = 600000;
 	private static final int CACHE_CHECK_INTERVAL = 600000;
+	private static final int MOD_TIME_OVERLAP = 5;            // seconds
 
 	private javax.swing.Timer updateTimer;
 
 	private long lastListUpdate;
+	private long lastFullUpdate;
+
+	private long studyModTime;
+	private int folderCount;
+	private long folderModTime;
+	private int listGeneration;
+
+	private Thread changeThread;
 
 	private Thread updateThread;
 	private ArrayDeque<StudyListItem> updateItems;
@@ -495,6 +512,16 @@ public class StudyManager extends AppFrame {
 		});
 		fileMenu.add(duplicateStudyMenuItem);
 
+		// Export...
+
+		exportStudyMenuItem = new JMenuItem("Export...");
+		exportStudyMenuItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent theEvent) {
+				doExportStudy();
+			}
+		});
+		fileMenu.add(exportStudyMenuItem);
+
 		// Open
 
 		openStudyMenuItem = new JMenuItem("Open");
@@ -596,6 +623,14 @@ public class StudyManager extends AppFrame {
 		});
 		studyListTablePopupMenu.add(cmDuplicateStudyMenuItem);
 
+		cmExportStudyMenuItem = new JMenuItem("Export...");
+		cmExportStudyMenuItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent theEvent) {
+				doExportStudy();
+			}
+		});
+		studyListTablePopupMenu.add(cmExportStudyMenuItem);
+
 		cmDeleteStudyMenuItem = new JMenuItem("Delete");
 		cmDeleteStudyMenuItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent theEvent) {
@@ -677,6 +712,16 @@ public class StudyManager extends AppFrame {
 		});
 		extraMenu.add(clearEditLockMenuItem);
 
+		// Apply Cache Limit
+
+		JMenuItem miCacheLimit = new JMenuItem("Apply Cache Limit");
+		miCacheLimit.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent theEvent) {
+				doApplyCacheLimit();
+			}
+		});
+		extraMenu.add(miCacheLimit);
+
 		// __________________________________
 
 		extraMenu.addSeparator();
@@ -722,8 +767,8 @@ public class StudyManager extends AppFrame {
 	private void updateControls() {
 
 		int rowCount = studyListTable.getSelectedRowCount();
-		boolean eMove = false, eRename = false, eOpen = false, eDuplicate = false, eDelete = false, eRun = false,
-			eRunPair = false, eClear = false, eUnlock = false;
+		boolean eMove = false, eRename = false, eOpen = false, eDuplicate = false, eExport = false, eDelete = false,
+			eRun = false, eRunPair = false, eClear = false, eUnlock = false;
 
 		if (1 == rowCount) {
 
@@ -761,6 +806,7 @@ public class StudyManager extends AppFrame {
 					eMove = true;
 					eOpen = true;
 					eDuplicate = true;
+					eExport = true;
 					eDelete = true;
 					eRun = (AppCore.maxEngineProcessCount > 0);
 					eRunPair = (eRun && (Study.STUDY_TYPE_TV == theItem.studyType));
@@ -791,6 +837,9 @@ public class StudyManager extends AppFrame {
 		duplicateStudyMenuItem.setEnabled(eDuplicate);
 		cmDuplicateStudyMenuItem.setEnabled(eDuplicate);
 
+		exportStudyMenuItem.setEnabled(eExport);
+		cmExportStudyMenuItem.setEnabled(eExport);
+
 		deleteStudyMenuItem.setEnabled(eDelete);
 		cmDeleteStudyMenuItem.setEnabled(eDelete);
 
@@ -1178,6 +1227,50 @@ public class StudyManager extends AppFrame {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Apply the engine cache limit now, deleting least-recently-used study caches until the total cache size is under
+	// the limit set in preferences.  This is normally done automatically after each run.  Can be slow, use a
+	// background thread.  Report the result including cache usage and hit rate for this database.
+
+	private void doApplyCacheLimit() {
+
+		String title = "Apply Cache Limit";
+		errorReporter.setTitle(title);
+
+		final long theLimit = CacheManager.getCacheLimit();
+		if (theLimit <= 0L) {
+			errorReporter.reportMessage("No cache limit is set.  The limit may be set in preferences.");
+			return;
+		}
+
+		BackgroundWorker<String> theWorker = new BackgroundWorker<String>(this, title) {
+			protected String doBackgroundWork(ErrorLogger errors) {
+				long freed = CacheManager.applyCacheLimit(null, errors);
+				long total = CacheManager.getStudyCacheSize(null, 0);
+				int runs = 0, warmRuns = 0;
+				for (CacheManager.StudyCacheInfo theInfo : CacheManager.getCacheInfo(dbID)) {
+					runs += theInfo.runCount;
+					warmRuns += theInfo.warmRunCount;
+				}
+				String result = "Cache limit " + AppCore.formatBytes(theLimit) + ", " + AppCore.formatBytes(freed) +
+					" deleted.\nTotal cache size is now " + AppCore.formatBytes(total) + ".";
+				if (runs > 0) {
+					result = result + String.format(Locale.US, "\nCache was in use for %.0f%% of %d runs.",
+						(100. * (double)warmRuns / (double)runs), runs);
+				}
+				return result;
+			}
+		};
+
+		String theMessage = theWorker.runWork("Deleting cache files, please wait...", errorReporter);
+		if (null != theMessage) {
+			errorReporter.reportMessage(theMessage);
+		}
+
+		updateStudyList(false, true, false);
+	}
+
+
 	//=================================================================================================================
 	// Data class for the study list.  Methods to handle synchronized update of the cache size on a background thread.
 
@@ -1189,7 +1282,7 @@ public class StudyManager extends AppFrame {
 		private boolean isFolder;
 		private boolean isLink;
 		private Integer folderKey;
-		private Integer parentFolderKey;
+		private Integer parentFolderKey;   // For a study, the folder containing the study.
 		private ArrayList<StudyListItem> items;
 
 		private String description;
@@ -1727,19 +1820,27 @@ public class StudyManager extends AppFrame {
 	// The item updating mechanism.  A background thread is used along with two FIFO queues, updateItems for input to
 	// the thread, updatedItems for output.  The thread polls items off the input queue, updates them, and pushes them
 	// on the output queue.  When the input queue is empty, the thread exits.  This method is called regularily by a
-	// timer on the Swing event thread.  It first checks if it is time to update the entire list, if so just clear the
-	// output queue since all rows will be updated.  Otherwise poll items off the output queue and update table rows.
+	// timer on the Swing event thread.  It first checks if it is time to reload the entire list, if so just clear the
+	// output queue since all rows will be updated.  Otherwise start an incremental check for changes if needed, then
+	// poll items off the output queue and update table rows.
 
 	private void doUpdates() {
 
 		updateFreeSpace();
 
-		if ((System.currentTimeMillis() - lastListUpdate) > UPDATE_INTERVAL) {
+		long now = System.currentTimeMillis();
+
+		if ((now - lastFullUpdate) > FULL_UPDATE_INTERVAL) {
 
 			updateStudyList(true, true, false);
 
 		} else {
 
+			if ((now - lastListUpdate) > UPDATE_INTERVAL) {
+				lastListUpdate = now;
+				checkForChanges();
+			}
+
 			StudyListItem theItem;
 			do {
 				theItem = getUpdatedItem();
@@ -1849,6 +1950,7 @@ public class StudyManager extends AppFrame {
 
 		ArrayList<StudyListItem> list = getItems(errors);
 		lastListUpdate = System.currentTimeMillis();
+		lastFullUpdate = lastListUpdate;
 		if (null == list) {
 			return;
 		}
@@ -1957,6 +2059,9 @@ public class StudyManager extends AppFrame {
 		Integer theKey;
 		ExtDb theDb;
 
+		long newStudyModTime = 0L, newFolderModTime = 0L, theModTime;
+		int newFolderCount = 0;
+
 		DbConnection db = DbCore.connectDb(dbID, errors);
 		if (null != db) {
 			try {
@@ -1989,6 +2094,12 @@ public class StudyManager extends AppFrame {
 						}
 					}
 
+					db.query("SELECT COUNT(*), UNIX_TIMESTAMP(MAX(mod_time)) FROM folder");
+					if (db.next()) {
+						newFolderCount = db.getInt(1);
+						newFolderModTime = db.getLong(2);
+					}
+
 					// Verify parent folder keys and place folders into parent item list.
 
 					for (StudyListItem theItem : newFolderMap.values()) {
@@ -2017,7 +2128,8 @@ public class StudyManager extends AppFrame {
 					"study.study_type, " +
 					"template.name, " +
 					"study.ext_db_key, " +
-					"study.folder_key " +
+					"study.folder_key, " +
+					"UNIX_TIMESTAMP(study.mod_time) " +
 				"FROM " +
 					"study " +
 					"JOIN template USING (template_key) " +
@@ -2058,6 +2170,12 @@ public class StudyManager extends AppFrame {
 						theFolder = topFolder;
 					}
 					theFolder.items.add(theStudy);
+					theStudy.parentFolderKey = theFolder.folderKey;
+
+					theModTime = db.getLong(10);
+					if (theModTime > newStudyModTime) {
+						newStudyModTime = theModTime;
+					}
 				}
 
 				// Success.
@@ -2065,6 +2183,11 @@ public class StudyManager extends AppFrame {
 				studyItemMap = newStudyMap;
 				folderItemMap = newFolderMap;
 
+				studyModTime = newStudyModTime;
+				folderCount = newFolderCount;
+				folderModTime = newFolderModTime;
+				listGeneration++;
+
 				DbCore.releaseDb(db);
 
 			} catch (SQLException se) {
@@ -2124,6 +2247,242 @@ public class StudyManager extends AppFrame {
 	}
 
 
+	//=================================================================================================================
+	// Result of an incremental check for changes, see checkForChanges().  The study rows are the records modified
+	// since the last check, each with the raw folder and station data keys, those are resolved on the event thread.
+
+	private static class StudyChange {
+
+		private Integer key;
+		private String name;
+		private String description;
+		private int studyLock;
+		private int lockCount;
+		private int studyType;
+		private String templateName;
+		private int extDbKey;
+		private int folderKey;
+	}
+
+	private static class StudyChanges {
+
+		private ArrayList<StudyChange> studies;
+		private int studyCount;
+		private long studyModTime;
+
+		private int folderCount;
+		private long folderModTime;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Start an incremental check for changes to the study list on a background thread.  This queries only the study
+	// records modified since the newest modification time seen, along with aggregate counts used to detect deleted
+	// studies and any folder changes.  The query window overlaps the previous check by a few seconds so a change that
+	// was committed late relative to its timestamp is not missed, records seen again are ignored if not different.
+	// The result is applied on the event thread by applyChanges().  Errors are silently ignored, the next full reload
+	// will show any problem.  If a previous check is still running this does nothing.
+
+	private void checkForChanges() {
+
+		if ((null != changeThread) && changeThread.isAlive()) {
+			return;
+		}
+
+		final long sinceTime = studyModTime - MOD_TIME_OVERLAP;
+		final boolean checkFolders = showFolders;
+		final int theGeneration = listGeneration;
+
+		changeThread = new Thread() {
+			public void run() {
+
+				final StudyChanges theChanges = getChanges(sinceTime, checkFolders);
+				if (null == theChanges) {
+					return;
+				}
+
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						applyChanges(theChanges, theGeneration);
+					}
+				});
+			}
+		};
+		changeThread.start();
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Query for changes, called on a background thread so this must not access any state other than the arguments
+	// and the database ID.  Returns null on error.
+
+	private StudyChanges getChanges(long sinceTime, boolean checkFolders) {
+
+		StudyChanges theChanges = new StudyChanges();
+		theChanges.studies = new ArrayList<StudyChange>();
+
+		StudyChange theStudy;
+		long theModTime;
+
+		DbConnection db = DbCore.connectDb(dbID);
+		if (null == db) {
+			return null;
+		}
+
+		try {
+
+			if (checkFolders) {
+				db.query("SELECT COUNT(*), UNIX_TIMESTAMP(MAX(mod_time)) FROM folder");
+				if (db.next()) {
+					theChanges.folderCount = db.getInt(1);
+					theChanges.folderModTime = db.getLong(2);
+				}
+			}
+
+			db.query("SELECT COUNT(*) FROM study");
+			if (db.next()) {
+				theChanges.studyCount = db.getInt(1);
+			}
+
+			db.query(
+			"SELECT " +
+				"study.study_key, " +
+				"study.name, " +
+				"study.description, " +
+				"study.study_lock, " +
+				"study.lock_count, " +
+				"study.study_type, " +
+				"template.name, " +
+				"study.ext_db_key, " +
+				"study.folder_key, " +
+				"UNIX_TIMESTAMP(study.mod_time) " +
+			"FROM " +
+				"study " +
+				"JOIN template USING (template_key) " +
+			"WHERE " +
+				"study.mod_time >= FROM_UNIXTIME(" + Math.max(0L, sinceTime) + ") " +
+			"ORDER BY 1");
+
+			while (db.next()) {
+
+				theStudy = new StudyChange();
+
+				theStudy.key = Integer.valueOf(db.getInt(1));
+				theStudy.name = db.getString(2);
+				theStudy.description = db.getString(3);
+				theStudy.studyLock = db.getInt(4);
+				theStudy.lockCount = db.getInt(5);
+				theStudy.studyType = db.getInt(6);
+				theStudy.templateName = db.getString(7);
+				theStudy.extDbKey = db.getInt(8);
+				theStudy.folderKey = db.getInt(9);
+
+				theChanges.studies.add(theStudy);
+
+				theModTime = db.getLong(10);
+				if (theModTime > theChanges.studyModTime) {
+					theChanges.studyModTime = theModTime;
+				}
+			}
+
+			DbCore.releaseDb(db);
+
+		} catch (SQLException se) {
+			DbCore.releaseDb(db);
+			return null;
+		}
+
+		return theChanges;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Apply changes from an incremental check, on the event thread.  If the list was reloaded since the check started
+	// the result is discarded.  Changes to existing studies that stay in the same folder are applied to the items
+	// directly with row-level update events.  Anything that changes the structure of the list, a new or deleted study,
+	// a study moved to a different folder, or any change to folders, triggers a full reload.
+
+	private void applyChanges(StudyChanges theChanges, int theGeneration) {
+
+		if (!isVisible() || (theGeneration != listGeneration)) {
+			return;
+		}
+
+		boolean reload = false, didChange = false;
+
+		if (showFolders && ((theChanges.folderCount != folderCount) || (theChanges.folderModTime != folderModTime))) {
+			reload = true;
+		}
+
+		StudyListItem theItem, theFolder;
+		String extDbName;
+
+		for (StudyChange theStudy : theChanges.studies) {
+
+			if (reload) {
+				break;
+			}
+
+			theItem = studyItemMap.get(theStudy.key);
+			if (null == theItem) {
+				reload = true;
+				break;
+			}
+
+			if (showFolders) {
+				theFolder = folderItemMap.get(Integer.valueOf(theStudy.folderKey));
+				if (null == theFolder) {
+					theFolder = folderItemMap.get(Integer.valueOf(0));
+				}
+				if ((null == theFolder) || !theFolder.folderKey.equals(theItem.parentFolderKey)) {
+					reload = true;
+					break;
+				}
+			}
+
+			extDbName = "";
+			if (theStudy.extDbKey > 0) {
+				extDbName = ExtDb.getExtDbDescription(dbID, Integer.valueOf(theStudy.extDbKey));
+			}
+
+			if (theStudy.name.equals(theItem.name) && theStudy.description.equals(theItem.description) &&
+					(theStudy.studyLock == theItem.studyLock) && (theStudy.lockCount == theItem.lockCount) &&
+					(theStudy.studyType == theItem.studyType) && theStudy.templateName.equals(theItem.templateName) &&
+					extDbName.equals(theItem.extDbName)) {
+				continue;
+			}
+
+			theItem.name = theStudy.name;
+			theItem.description = theStudy.description;
+			theItem.studyLock = theStudy.studyLock;
+			theItem.lockCount = theStudy.lockCount;
+			theItem.studyType = theStudy.studyType;
+			theItem.templateName = theStudy.templateName;
+			theItem.extDbName = extDbName;
+
+			studyListModel.itemWasChanged(theItem);
+			didChange = true;
+
+			if (theItem.isCacheSizeExpired()) {
+				addUpdateItem(theItem);
+			}
+		}
+
+		if (reload || (theChanges.studyCount != studyItemMap.size())) {
+			updateStudyList(true, true, false);
+			return;
+		}
+
+		if (theChanges.studyModTime > studyModTime) {
+			studyModTime = theChanges.studyModTime;
+		}
+
+		if (didChange) {
+			updateControls();
+		}
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Re-query the database record for a study or folder, update item properties.  Return the list item as updated,
 	// or null if the study/folder record no longer exists (the item is removed from the list) or an error occurs.
@@ -2321,8 +2680,8 @@ public class StudyManager extends AppFrame {
 						db.query("SELECT MAX(folder_key) FROM folder");
 						db.next();
 						folderKey = Integer.valueOf(db.getInt(1) + 1);
-						db.update("INSERT INTO folder VALUES (" + folderKey + ",'" + db.clean(folderName) + "'," +
-							currentFolderKey + ")");
+						db.update("INSERT INTO folder (folder_key, name, parent_folder_key) VALUES (" + folderKey + ",'" +
+							db.clean(folderName) + "'," + currentFolderKey + ")");
 					}
 				}
 
@@ -3067,6 +3426,94 @@ public class StudyManager extends AppFrame {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Export all scenarios in a study to an XML file, optionally compressed.  This reads directly from the database
+	// in pages without opening the study so the size of the study does not matter, see ExportXML.  The study must not
+	// be open, to export from an open study use the scenario export in the editor.  If the export is canceled or fails
+	// the incomplete file is deleted.
+
+	private void doExportStudy() {
+
+		if (studyListTable.getSelectedRowCount() != 1) {
+			return;
+		}
+
+		String title = "Export Study";
+		errorReporter.setTitle(title);
+
+		int rowIndex = studyListTable.convertRowIndexToModel(studyListTable.getSelectedRow());
+		StudyListItem theItem = checkItem(rowIndex, errorReporter);
+		if ((null == theItem) || theItem.isFolder) {
+			return;
+		}
+
+		StudyLockHolder lockHolder = lockHolders.get(theItem.key);
+		if (null != lockHolder) {
+			if (lockHolder.isVisible()) {
+				AppController.beep();
+				lockHolder.toFront();
+				return;
+			}
+			lockHolders.remove(theItem.key);
+		}
+
+		if (Study.LOCK_NONE != theItem.studyLock) {
+			errorReporter.reportWarning("Could not export study '" + theItem.name + "':\n" +
+				"The study is in use by another application.");
+			return;
+		}
+
+		File theFile = AppController.chooseExportFile(this, title);
+		if (null == theFile) {
+			return;
+		}
+
+		Writer theWriter = null;
+		try {
+			theWriter = ExportXML.openWriter(theFile, theFile.getName().toLowerCase().endsWith(".gz"));
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
+			return;
+		}
+
+		final Writer xml = theWriter;
+		final int theKey = theItem.key.intValue();
+
+		BackgroundWorker<Integer> theWorker = new BackgroundWorker<Integer>(this, title) {
+			protected Integer doBackgroundWork(ErrorLogger errors) {
+				int count = ExportXML.exportStudy(dbID, theKey, xml, this, errors);
+				if (count < 0) {
+					return null;
+				}
+				return Integer.valueOf(count);
+			}
+		};
+
+		theWorker.showCancel();
+
+		errorReporter.clearMessages();
+
+		Integer count = theWorker.runWork("Exporting study, please wait...", errorReporter);
+
+		try {
+			xml.close();
+		} catch (IOException ie) {
+			if (null != count) {
+				errorReporter.reportError("Could not write to the file:\n" + ie.getMessage());
+				count = null;
+			}
+		}
+
+		if (null == count) {
+			theFile.delete();
+			return;
+		}
+
+		errorReporter.showMessages();
+		errorReporter.reportMessage("Exported " + count + " scenarios.");
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Open a study editor for the selected study, or open a folder (display it's items in the table).  For a study,
 	// if some lock holder for that study already exists bring it's containing window to the front, regardless of what
@@ -3982,6 +4429,7 @@ public class StudyManager extends AppFrame {
 				errorReporter.setTitle("Load Study List");
 				studyListModel.setItems(getItems(errorReporter), true);
 				lastListUpdate = System.currentTimeMillis();
+				lastFullUpdate = lastListUpdate;
 
 				updateTimer.start();
 
@@ -4101,6 +4549,8 @@ public class StudyManager extends AppFrame {
 
 		updateTimer.stop();
 
+		listGeneration++;
+
 		clearUpdateItems();
 
 		if (null != updateThread) {
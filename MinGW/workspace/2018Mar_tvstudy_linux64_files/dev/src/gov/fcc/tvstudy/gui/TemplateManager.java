@@ -729,15 +729,15 @@ public class TemplateManager extends AppFrame {
 
 		AppCore.setProperty(AppCore.LAST_FILE_DIRECTORY_KEY, theFile.getParentFile().getAbsolutePath());
 
-		FileReader theReader = null;
+		Reader theReader = null;
 		try {
-			theReader = new FileReader(theFile);
-		} catch (FileNotFoundException fnfe) {
-			errorReporter.reportError("Could not open the file:\n" + fnfe.getMessage());
+			theReader = ImportXML.openReader(theFile);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
 			return;
 		}
 
-		BufferedReader xml = new BufferedReader(theReader);
+		Reader xml = theReader;
 		Integer newKey = TemplateEditData.readTemplateFromXML(getDbID(), xml, errorReporter);
 		try {xml.close();} catch (IOException ie) {}
 
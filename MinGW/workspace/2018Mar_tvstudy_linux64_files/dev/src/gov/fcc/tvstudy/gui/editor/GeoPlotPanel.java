@@ -13,6 +13,7 @@ import gov.fcc.tvstudy.core.geo.*;
 import java.util.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.*;
 import java.text.*;
 
 import javax.swing.*;
@@ -28,79 +29,170 @@ import javax.swing.border.*;
 // drawn, setters are provided for a full Geography object or lists of study points, sectors, or polygon vertex points.
 // Any of the set methods will take a null argument to clear the plot.
 
+// The plot is rendered to an off-screen image on a background thread, paint() just draws the most recent image.  The
+// set methods copy the data to be plotted into a PlotData object so the renderer does not access the model objects,
+// which may be edited while a render is in progress.  A new render occurs only when the data is set again or the
+// panel size changes, until that completes paint() continues to draw the previous image.  Rendering also applies a
+// level-of-detail reduction, study points that fall on the same pixel as a point already drawn are skipped, and
+// polygon vertices closer than a minimum pixel distance to the previous drawn vertex are skipped.  Large point sets
+// and long polygons would otherwise draw many thousands of overlapping symbols and zero-length line segments.
+
 public class GeoPlotPanel extends Canvas {
 
 	private static final int SYMBOL_SIZE = 3;
 
-	private int plotType;
-	private double latitude;
-	private double longitude;
-	private double radius;
-	private double width;
-	private double height;
-	private ArrayList<GeoPointSet.StudyPoint> studyPoints;
-	private ArrayList<GeoSectors.Sector> sectors;
-	private ArrayList<GeoPolygon.VertexPoint> vertexPoints;
+	private static final int MIN_VERTEX_DISTANCE = 2;
+
+	// Render state.  The data version is incremented every time the data is set, a rendered image is current if it
+	// has the same version and size as the panel.  All of this is protected by renderLock.
+
+	private final Object renderLock = new Object();
+
+	private PlotData plotData = new PlotData();
+	private int dataVersion;
+
+	private BufferedImage image;
+	private int imageVersion;
+	private int imageWidth;
+	private int imageHeight;
+
+	private Thread renderThread;
+	private boolean renderRequested;
+	private int requestWidth;
+	private int requestHeight;
+
+
+	//=================================================================================================================
+	// Copy of the data being plotted.  Point, sector, and vertex properties are copied into arrays, study point
+	// orientation is NaN if the point does not use an antenna orientation.  Immutable once created.
+
+	private static class PlotData {
+
+		private int plotType;
+		private double latitude;
+		private double longitude;
+		private double radius;
+		private double width;
+		private double height;
+
+		private double[] pointLatitudes;
+		private double[] pointLongitudes;
+		private double[] pointOrientations;
+
+		private double[] sectorAzimuths;
+		private double[] sectorRadii;
+
+		private double[] vertexLatitudes;
+		private double[] vertexLongitudes;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private void setStudyPoints(ArrayList<GeoPointSet.StudyPoint> thePoints) {
+
+			int i = 0, n = thePoints.size();
+
+			pointLatitudes = new double[n];
+			pointLongitudes = new double[n];
+			pointOrientations = new double[n];
+
+			for (GeoPointSet.StudyPoint thePoint : thePoints) {
+				pointLatitudes[i] = thePoint.latitude;
+				pointLongitudes[i] = thePoint.longitude;
+				if (thePoint.useAntennaOrientation) {
+					pointOrientations[i] = thePoint.antennaOrientation;
+				} else {
+					pointOrientations[i] = Double.NaN;
+				}
+				i++;
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private void setSectors(ArrayList<GeoSectors.Sector> theSectors) {
+
+			int i = 0, n = theSectors.size();
+
+			sectorAzimuths = new double[n];
+			sectorRadii = new double[n];
+
+			for (GeoSectors.Sector theSector : theSectors) {
+				sectorAzimuths[i] = theSector.azimuth;
+				sectorRadii[i] = theSector.radius;
+				i++;
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private void setVertexPoints(ArrayList<GeoPolygon.VertexPoint> thePoints) {
+
+			int i = 0, n = thePoints.size();
+
+			vertexLatitudes = new double[n];
+			vertexLongitudes = new double[n];
+
+			for (GeoPolygon.VertexPoint thePoint : thePoints) {
+				vertexLatitudes[i] = thePoint.latitude;
+				vertexLongitudes[i] = thePoint.longitude;
+				i++;
+			}
+		}
+	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
 
 	public void setGeography(Geography theGeo) {
 
-		latitude = 0.;
-		longitude = 0.;
-		radius = 0.;
-		width = 0.;
-		height = 0.;
-		studyPoints = null;
-		sectors = null;
-		vertexPoints = null;
-
-		if (null == theGeo) {
-			plotType = 0;
-		} else {
+		PlotData newData = new PlotData();
 
-			plotType = theGeo.type;
+		if (null != theGeo) {
 
-			switch (plotType) {
+			newData.plotType = theGeo.type;
+
+			switch (newData.plotType) {
 
 				case Geography.GEO_TYPE_POINT_SET: {
-					studyPoints = ((GeoPointSet)theGeo).points;
+					newData.setStudyPoints(((GeoPointSet)theGeo).points);
 					break;
 				}
 
 				case Geography.GEO_TYPE_CIRCLE: {
-					latitude = ((GeoCircle)theGeo).center.latitude;
-					longitude = ((GeoCircle)theGeo).center.longitude;
-					radius = ((GeoCircle)theGeo).radius;
+					newData.latitude = ((GeoCircle)theGeo).center.latitude;
+					newData.longitude = ((GeoCircle)theGeo).center.longitude;
+					newData.radius = ((GeoCircle)theGeo).radius;
 					break;
 				}
 
 				case Geography.GEO_TYPE_BOX: {
-					latitude = ((GeoBox)theGeo).center.latitude;
-					longitude = ((GeoBox)theGeo).center.longitude;
-					width = ((GeoBox)theGeo).width;
-					height = ((GeoBox)theGeo).height;
+					newData.latitude = ((GeoBox)theGeo).center.latitude;
+					newData.longitude = ((GeoBox)theGeo).center.longitude;
+					newData.width = ((GeoBox)theGeo).width;
+					newData.height = ((GeoBox)theGeo).height;
 					break;
 				}
 
 				case Geography.GEO_TYPE_SECTORS: {
-					latitude = ((GeoSectors)theGeo).center.latitude;
-					longitude = ((GeoSectors)theGeo).center.longitude;
-					sectors = ((GeoSectors)theGeo).sectors;
+					newData.latitude = ((GeoSectors)theGeo).center.latitude;
+					newData.longitude = ((GeoSectors)theGeo).center.longitude;
+					newData.setSectors(((GeoSectors)theGeo).sectors);
 					break;
 				}
 
 				case Geography.GEO_TYPE_POLYGON: {
-					latitude = ((GeoPolygon)theGeo).reference.latitude;
-					longitude = ((GeoPolygon)theGeo).reference.longitude;
-					vertexPoints = ((GeoPolygon)theGeo).points;
+					newData.latitude = ((GeoPolygon)theGeo).reference.latitude;
+					newData.longitude = ((GeoPolygon)theGeo).reference.longitude;
+					newData.setVertexPoints(((GeoPolygon)theGeo).points);
 					break;
 				}
 			}
 		}
 
-		repaint();
+		setPlotData(newData);
 	}
 
 
@@ -108,23 +200,14 @@ public class GeoPlotPanel extends Canvas {
 
 	public void setStudyPoints(ArrayList<GeoPointSet.StudyPoint> thePoints) {
 
-		latitude = 0.;
-		longitude = 0.;
-		radius = 0.;
-		width = 0.;
-		height = 0.;
-		sectors = null;
-		vertexPoints = null;
-
-		if (null == thePoints) {
-			plotType = 0;
-			studyPoints = null;
-		} else {
-			plotType = Geography.GEO_TYPE_POINT_SET;
-			studyPoints = thePoints;
+		PlotData newData = new PlotData();
+
+		if (null != thePoints) {
+			newData.plotType = Geography.GEO_TYPE_POINT_SET;
+			newData.setStudyPoints(thePoints);
 		}
 
-		repaint();
+		setPlotData(newData);
 	}
 
 
@@ -132,23 +215,14 @@ public class GeoPlotPanel extends Canvas {
 
 	public void setSectors(ArrayList<GeoSectors.Sector> theSectors) {
 
-		latitude = 0.;
-		longitude = 0.;
-		radius = 0.;
-		width = 0.;
-		height = 0.;
-		studyPoints = null;
-		vertexPoints = null;
-
-		if (null == theSectors) {
-			plotType = 0;
-			sectors = null;
-		} else {
-			plotType = Geography.GEO_TYPE_SECTORS;
-			sectors = theSectors;
+		PlotData newData = new PlotData();
+
+		if (null != theSectors) {
+			newData.plotType = Geography.GEO_TYPE_SECTORS;
+			newData.setSectors(theSectors);
 		}
 
-		repaint();
+		setPlotData(newData);
 	}
 
 
@@ -156,20 +230,24 @@ public class GeoPlotPanel extends Canvas {
 
 	public void setVertexPoints(ArrayList<GeoPolygon.VertexPoint> thePoints) {
 
-		latitude = 0.;
-		longitude = 0.;
-		radius = 0.;
-		width = 0.;
-		height = 0.;
-		studyPoints = null;
-		sectors = null;
-
-		if (null == thePoints) {
-			plotType = 0;
-			vertexPoints = null;
-		} else {
-			plotType = Geography.GEO_TYPE_POLYGON;
-			vertexPoints = thePoints;
+		PlotData newData = new PlotData();
+
+		if (null != thePoints) {
+			newData.plotType = Geography.GEO_TYPE_POLYGON;
+			newData.setVertexPoints(thePoints);
+		}
+
+		setPlotData(newData);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private void setPlotData(PlotData newData) {
+
+		synchronized (renderLock) {
+			plotData = newData;
+			dataVersion++;
 		}
 
 		repaint();
@@ -177,18 +255,140 @@ public class GeoPlotPanel extends Canvas {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// Draw the current image.  If the image is not current for the data and size, request a new render, but still
+	// draw the old image if one exists, it will be replaced when the render is done.  Override update() so the
+	// background is not cleared first, the image covers the entire panel when current.
+
+	public void update(Graphics g) {
+
+		paint(g);
+	}
+
+	public void paint(Graphics g) {
 
-	public void paint(Graphics og) {
+		int wid = getWidth(), hgt = getHeight();
+
+		BufferedImage theImage;
+		boolean isCurrent;
+
+		synchronized (renderLock) {
+			theImage = image;
+			isCurrent = ((null != image) && (imageVersion == dataVersion) && (imageWidth == wid) &&
+				(imageHeight == hgt));
+			if (!isCurrent) {
+				requestRender(wid, hgt);
+			}
+		}
+
+		if (isCurrent) {
+			g.drawImage(theImage, 0, 0, null);
+		} else {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, wid, hgt);
+			if (null != theImage) {
+				g.drawImage(theImage, 0, 0, null);
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Request a render at a given size, start the render thread if needed.  Caller must hold renderLock.  The thread
+	// runs until there are no more requests, multiple requests made while a render is in progress collapse to one.
+
+	private void requestRender(int wid, int hgt) {
+
+		if ((wid <= 0) || (hgt <= 0)) {
+			return;
+		}
+
+		requestWidth = wid;
+		requestHeight = hgt;
+		renderRequested = true;
+
+		if (null == renderThread) {
+			renderThread = new Thread() {
+				public void run() {
+					doRender();
+				}
+			};
+			renderThread.setDaemon(true);
+			renderThread.start();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Render loop on the background thread.  A finished image is kept only if the data did not change while it was
+	// being rendered, if it did there is already another request pending.  The image background is the panel
+	// background color so the image can be drawn without clearing first.
+
+	private void doRender() {
+
+		PlotData theData;
+		int theVersion, wid, hgt;
+		Color theBackground;
+
+		while (true) {
+
+			synchronized (renderLock) {
+				if (!renderRequested) {
+					renderThread = null;
+					return;
+				}
+				renderRequested = false;
+				theData = plotData;
+				theVersion = dataVersion;
+				wid = requestWidth;
+				hgt = requestHeight;
+			}
+
+			theBackground = getBackground();
+			if (null == theBackground) {
+				theBackground = Color.WHITE;
+			}
+
+			BufferedImage newImage = new BufferedImage(wid, hgt, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = newImage.createGraphics();
+
+			try {
+				g.setColor(theBackground);
+				g.fillRect(0, 0, wid, hgt);
+				render(g, theData, (double)wid, (double)hgt);
+			} catch (Throwable t) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+			} finally {
+				g.dispose();
+			}
+
+			synchronized (renderLock) {
+				if (theVersion == dataVersion) {
+					image = newImage;
+					imageVersion = theVersion;
+					imageWidth = wid;
+					imageHeight = hgt;
+				}
+			}
+
+			repaint();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Render the plot.
+
+	private void render(Graphics2D g, PlotData theData, double wid, double hgt) {
 
-		Graphics2D g = (Graphics2D)og;
 		g.setColor(Color.BLACK);
 
-		double wid = (double)getWidth(), hgt = (double)getHeight();
 		double xs = wid * 0.9, ys = hgt * 0.9, xo = wid * 0.05, yo = hgt * 0.05;
 
-		int ix, iy;
+		double latitude = theData.latitude, longitude = theData.longitude;
 
-		switch (plotType) {
+		int i, n, ix, iy;
+
+		switch (theData.plotType) {
 
 			default: {
 				return;
@@ -196,25 +396,28 @@ public class GeoPlotPanel extends Canvas {
 
 			case Geography.GEO_TYPE_POINT_SET: {
 
+				double[] lats = theData.pointLatitudes, lons = theData.pointLongitudes;
+				n = lats.length;
+
 				double slat = 999., nlat = -999., elon = 999., wlon = -999.;
 
-				for (GeoPointSet.StudyPoint thePoint : studyPoints) {
+				for (i = 0; i < n; i++) {
 
-					if ((0. == thePoint.latitude) || (0. == thePoint.longitude)) {
+					if ((0. == lats[i]) || (0. == lons[i])) {
 						continue;
 					}
 
-					if (thePoint.latitude < slat) {
-						slat = thePoint.latitude;
+					if (lats[i] < slat) {
+						slat = lats[i];
 					}
-					if (thePoint.latitude > nlat) {
-						nlat = thePoint.latitude;
+					if (lats[i] > nlat) {
+						nlat = lats[i];
 					}
-					if (thePoint.longitude < elon) {
-						elon = thePoint.longitude;
+					if (lons[i] < elon) {
+						elon = lons[i];
 					}
-					if (thePoint.longitude > wlon) {
-						wlon = thePoint.longitude;
+					if (lons[i] > wlon) {
+						wlon = lons[i];
 					}
 				}
 
@@ -249,31 +452,45 @@ public class GeoPlotPanel extends Canvas {
 					}
 				}
 
-				double x, y;
+				// Track which pixels already have a point symbol, skip later points on the same pixel.  Points may
+				// plot a little outside the panel due to rounding, those are always drawn.
+
+				int iwid = (int)wid, ihgt = (int)hgt;
+				boolean[] drawn = new boolean[iwid * ihgt];
+
+				double x, y, orient;
 				int ix1, iy1;
 
 				g.setStroke(new BasicStroke((float)1.));
 
-				for (GeoPointSet.StudyPoint thePoint : studyPoints) {
+				for (i = 0; i < n; i++) {
 
-					if ((0. == thePoint.latitude) || (0. == thePoint.longitude)) {
+					if ((0. == lats[i]) || (0. == lons[i])) {
 						continue;
 					}
 
-					x = xo + ((wlon - thePoint.longitude) * lonscl * scl);
-					y = hgt - (yo + ((thePoint.latitude - slat) * scl));
+					x = xo + ((wlon - lons[i]) * lonscl * scl);
+					y = hgt - (yo + ((lats[i] - slat) * scl));
 					ix = (int)Math.rint(x);
 					iy = (int)Math.rint(y);
 
+					if ((ix >= 0) && (ix < iwid) && (iy >= 0) && (iy < ihgt)) {
+						if (drawn[(iy * iwid) + ix]) {
+							continue;
+						}
+						drawn[(iy * iwid) + ix] = true;
+					}
+
 					g.drawLine((ix - SYMBOL_SIZE), iy, (ix + SYMBOL_SIZE), iy);
 					g.drawLine(ix, (iy - SYMBOL_SIZE), ix, (iy + SYMBOL_SIZE));
 
-					if (thePoint.useAntennaOrientation) {
+					orient = theData.pointOrientations[i];
+					if (!Double.isNaN(orient)) {
 
 						ix1 = (int)Math.rint(x + ((3. * (double)SYMBOL_SIZE) *
-							Math.sin(thePoint.antennaOrientation * GeoPoint.DEGREES_TO_RADIANS)));
+							Math.sin(orient * GeoPoint.DEGREES_TO_RADIANS)));
 						iy1 = (int)Math.rint(y - ((3. * (double)SYMBOL_SIZE) *
-							Math.cos(thePoint.antennaOrientation * GeoPoint.DEGREES_TO_RADIANS)));
+							Math.cos(orient * GeoPoint.DEGREES_TO_RADIANS)));
 
 						g.drawLine(ix, iy, ix1, iy1);
 					}
@@ -284,6 +501,8 @@ public class GeoPlotPanel extends Canvas {
 
 			case Geography.GEO_TYPE_CIRCLE: {
 
+				double radius = theData.radius;
+
 				if (radius <= 0.) {
 					return;
 				}
@@ -312,6 +531,8 @@ public class GeoPlotPanel extends Canvas {
 
 			case Geography.GEO_TYPE_BOX: {
 
+				double width = theData.width, height = theData.height;
+
 				if ((width <= 0.) || (height <= 0.)) {
 					return;
 				}
@@ -341,11 +562,14 @@ public class GeoPlotPanel extends Canvas {
 
 			case Geography.GEO_TYPE_SECTORS: {
 
+				double[] azms = theData.sectorAzimuths, rads = theData.sectorRadii;
+				n = azms.length;
+
 				double maxrad = 0.;
 
-				for (GeoSectors.Sector theSector : sectors) {
-					if (theSector.radius > maxrad) {
-						maxrad = theSector.radius;
+				for (i = 0; i < n; i++) {
+					if (rads[i] > maxrad) {
+						maxrad = rads[i];
 					}
 				}
 
@@ -364,36 +588,34 @@ public class GeoPlotPanel extends Canvas {
 				g.setStroke(new BasicStroke((float)3., BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 
 				double sr, cr;
-				int i, n = sectors.size(), iaz, iang, siz, ix1, iy1, ix2, iy2;
-				GeoSectors.Sector sect0, sect1;
+				int j, iaz, iang, siz, ix1, iy1, ix2, iy2;
 
 				for (i = 0; i < n; i++) {
 
-					sect0 = sectors.get(i);
 					if (i < (n - 1)) {
-						sect1 = sectors.get(i + 1);
+						j = i + 1;
 					} else {
-						sect1 = sectors.get(0);
+						j = 0;
 					}
-					diam = sect0.radius * 2.;
+					diam = rads[i] * 2.;
 					ix = (int)Math.rint(xo + ((xs - (diam * scl)) / 2.));
 					iy = (int)Math.rint(hgt - (yo + ((ys - (diam * scl)) / 2.) + (diam * scl)));
 					siz = (int)Math.rint(diam * scl);
-					iaz = (int)Math.rint(90. - sect0.azimuth);
-					if (sect1.azimuth > sect0.azimuth) {
-						iang = (int)Math.rint(sect0.azimuth - sect1.azimuth);
+					iaz = (int)Math.rint(90. - azms[i]);
+					if (azms[j] > azms[i]) {
+						iang = (int)Math.rint(azms[i] - azms[j]);
 					} else {
-						iang = (int)Math.rint(sect0.azimuth - sect1.azimuth - 360.);
+						iang = (int)Math.rint(azms[i] - azms[j] - 360.);
 					}
 
 					g.drawArc(ix, iy, siz, siz, iaz, iang);
 
-					sr = Math.sin(sect1.azimuth * GeoPoint.DEGREES_TO_RADIANS);
-					cr = Math.cos(sect1.azimuth * GeoPoint.DEGREES_TO_RADIANS);
-					ix1 = (int)Math.rint(x + (sect0.radius * scl * sr));
-					iy1 = (int)Math.rint(y - (sect0.radius * scl * cr));
-					ix2 = (int)Math.rint(x + (sect1.radius * scl * sr));
-					iy2 = (int)Math.rint(y - (sect1.radius * scl * cr));
+					sr = Math.sin(azms[j] * GeoPoint.DEGREES_TO_RADIANS);
+					cr = Math.cos(azms[j] * GeoPoint.DEGREES_TO_RADIANS);
+					ix1 = (int)Math.rint(x + (rads[i] * scl * sr));
+					iy1 = (int)Math.rint(y - (rads[i] * scl * cr));
+					ix2 = (int)Math.rint(x + (rads[j] * scl * sr));
+					iy2 = (int)Math.rint(y - (rads[j] * scl * cr));
 
 					g.drawLine(ix1, iy1, ix2, iy2);
 				}
@@ -410,29 +632,32 @@ public class GeoPlotPanel extends Canvas {
 
 			case Geography.GEO_TYPE_POLYGON: {
 
-				if (vertexPoints.size() < 2) {
+				double[] lats = theData.vertexLatitudes, lons = theData.vertexLongitudes;
+				n = lats.length;
+
+				if (n < 2) {
 					return;
 				}
 
 				double slat = 999., nlat = -999., elon = 999., wlon = -999.;
 
-				for (GeoPolygon.VertexPoint thePoint : vertexPoints) {
+				for (i = 0; i < n; i++) {
 
-					if ((0. == thePoint.latitude) || (0. == thePoint.longitude)) {
+					if ((0. == lats[i]) || (0. == lons[i])) {
 						continue;
 					}
 
-					if (thePoint.latitude < slat) {
-						slat = thePoint.latitude;
+					if (lats[i] < slat) {
+						slat = lats[i];
 					}
-					if (thePoint.latitude > nlat) {
-						nlat = thePoint.latitude;
+					if (lats[i] > nlat) {
+						nlat = lats[i];
 					}
-					if (thePoint.longitude < elon) {
-						elon = thePoint.longitude;
+					if (lons[i] < elon) {
+						elon = lons[i];
 					}
-					if (thePoint.longitude > wlon) {
-						wlon = thePoint.longitude;
+					if (lons[i] > wlon) {
+						wlon = lons[i];
 					}
 				}
 
@@ -484,23 +709,36 @@ public class GeoPlotPanel extends Canvas {
 
 				g.setStroke(new BasicStroke((float)3., BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 
-				int ix0 = 0, iy0 = 0, ixl = 0, iyl = 0;
+				// Vertices within the minimum distance of the last vertex drawn are skipped, except the last vertex
+				// is always drawn so the closing segment is correct.
+
+				int ix0 = 0, iy0 = 0, ixl = 0, iyl = 0, lastIndex = -1;
 				boolean first = true;
 
-				for (GeoPolygon.VertexPoint thePoint : vertexPoints) {
+				for (i = 0; i < n; i++) {
+					if ((0. != lats[i]) && (0. != lons[i])) {
+						lastIndex = i;
+					}
+				}
+
+				for (i = 0; i < n; i++) {
 
-					if ((0. == thePoint.latitude) || (0. == thePoint.longitude)) {
+					if ((0. == lats[i]) || (0. == lons[i])) {
 						continue;
 					}
 
-					ix = (int)Math.rint(xo + ((wlon - thePoint.longitude) * lonscl * scl));
-					iy = (int)Math.rint(hgt - (yo + ((thePoint.latitude - slat) * scl)));
+					ix = (int)Math.rint(xo + ((wlon - lons[i]) * lonscl * scl));
+					iy = (int)Math.rint(hgt - (yo + ((lats[i] - slat) * scl)));
 
 					if (first) {
 						ix0 = ix;
 						iy0 = iy;
 						first = false;
 					} else {
+						if ((i != lastIndex) && (Math.abs(ix - ixl) < MIN_VERTEX_DISTANCE) &&
+								(Math.abs(iy - iyl) < MIN_VERTEX_DISTANCE)) {
+							continue;
+						}
 						g.drawLine(ixl, iyl, ix, iy);
 					}
 
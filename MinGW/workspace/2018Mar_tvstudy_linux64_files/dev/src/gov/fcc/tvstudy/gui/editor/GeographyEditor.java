@@ -10,6 +10,7 @@ import gov.fcc.tvstudy.gui.*;
 
 import gov.fcc.tvstudy.core.*;
 import gov.fcc.tvstudy.core.data.*;
+import gov.fcc.tvstudy.core.editdata.*;
 import gov.fcc.tvstudy.core.geo.*;
 
 import java.util.*;
@@ -1171,15 +1172,15 @@ public class GeographyEditor extends RootEditor {
 
 		// Open the file, do the import.
 
-		FileReader theReader = null;
+		Reader theReader = null;
 		try {
-			theReader = new FileReader(theFile);
-		} catch (FileNotFoundException fnfe) {
-			errorReporter.reportError("Could not open the file:\n" + fnfe.getMessage());
+			theReader = ImportXML.openReader(theFile);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
 			return;
 		}
 
-		final BufferedReader xml = new BufferedReader(theReader);
+		final Reader xml = theReader;
 
 		BackgroundWorker<Geography> theWorker = new BackgroundWorker<Geography>(this, title) {
 			protected Geography doBackgroundWork(ErrorLogger errors) {
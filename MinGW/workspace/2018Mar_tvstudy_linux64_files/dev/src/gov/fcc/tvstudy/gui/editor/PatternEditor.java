@@ -1969,6 +1969,13 @@ public class PatternEditor extends AppDialog implements ExtDbListener {
 		private JButton searchButton;
 		private JButton loadButton;
 
+		// Type-ahead search, see doTypeAhead().
+
+		private static final int TYPE_AHEAD_DELAY = 250;   // milliseconds
+
+		private javax.swing.Timer typeAheadTimer;
+		private int typeAheadSequence;
+
 
 		//-------------------------------------------------------------------------------------------------------------
 		// Create the UI components.  The data set menu will be re-populated as needed, see windowWillOpen().
@@ -1989,6 +1996,24 @@ public class PatternEditor extends AppDialog implements ExtDbListener {
 				}
 			});
 
+			typeAheadTimer = new javax.swing.Timer(TYPE_AHEAD_DELAY, new ActionListener() {
+				public void actionPerformed(ActionEvent theEvent) {
+					doTypeAhead();
+				}
+			});
+			typeAheadTimer.setRepeats(false);
+
+			searchField.getDocument().addDocumentListener(new DocumentListener() {
+				public void insertUpdate(DocumentEvent theEvent) {
+					typeAheadTimer.restart();
+				}
+				public void removeUpdate(DocumentEvent theEvent) {
+					typeAheadTimer.restart();
+				}
+				public void changedUpdate(DocumentEvent theEvent) {
+				}
+			});
+
 			searchModel = new SearchListModel();
 
 			searchModel.list.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
@@ -2115,6 +2140,9 @@ public class PatternEditor extends AppDialog implements ExtDbListener {
 
 		private void doReset() {
 
+			typeAheadTimer.stop();
+			typeAheadSequence++;
+
 			searchField.setText("");
 			searchModel.setItems(null);
 			loadButton.setEnabled(false);
@@ -2133,6 +2161,9 @@ public class PatternEditor extends AppDialog implements ExtDbListener {
 				return;
 			}
 
+			typeAheadTimer.stop();
+			typeAheadSequence++;
+
 			BackgroundWorker<ArrayList<ExtDb.AntennaID>> theWorker =
 					new BackgroundWorker<ArrayList<ExtDb.AntennaID>>(outerThis, WINDOW_TITLE) {
 				protected ArrayList<ExtDb.AntennaID> doBackgroundWork(ErrorLogger errors) {
@@ -2154,7 +2185,49 @@ public class PatternEditor extends AppDialog implements ExtDbListener {
 
 
 		//-------------------------------------------------------------------------------------------------------------
-		// Try to load pattern data for the selected antenna into the pattern editor tab.
+		// Type-ahead search, runs after a brief pause in typing.  This only searches if the antenna catalog for the
+		// data set is already loaded, which happens on the first full search, see ExtDb.findAntennasInCatalog().  In
+		// that case the search is fast, but it still runs on a background thread since looking up the data set may
+		// occasionally need a query.  The sequence number discards results from superseded searches.  An empty search
+		// string does not clear the list.
+
+		private void doTypeAhead() {
+
+			final Integer extDbKey = Integer.valueOf(extDbMenu.getSelectedKey());
+
+			final String str = searchField.getText().trim();
+			if (0 == str.length()) {
+				return;
+			}
+
+			final int theSequence = ++typeAheadSequence;
+			final boolean searchElevation = (AntPattern.PATTERN_TYPE_VERTICAL == patternType);
+			final String theDbID = getDbID();
+
+			Thread theThread = new Thread() {
+				public void run() {
+					final ArrayList<ExtDb.AntennaID> theItems =
+						ExtDb.findAntennasInCatalog(theDbID, extDbKey, str, searchElevation);
+					if (null == theItems) {
+						return;
+					}
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							if (theSequence == typeAheadSequence) {
+								searchModel.setItems(theItems);
+							}
+						}
+					});
+				}
+			};
+			theThread.setDaemon(true);
+			theThread.start();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Try to load pattern data for the selected antenna into the pattern editor tab.  If the antenna is known to
+		// have no pattern points the query is skipped, the result is the same as an empty pattern.
 
 		private void doLoad() {
 
@@ -2171,24 +2244,31 @@ public class PatternEditor extends AppDialog implements ExtDbListener {
 			ArrayList<AntPattern.AntPoint> newPoints = null;
 			String theID = null;
 
-			if (AntPattern.PATTERN_TYPE_VERTICAL != patternType) {
+			if (0 == theAnt.patternPointCount) {
 
-				newPoints = ExtDbRecord.getAntennaPattern(theAnt.dbID, theAnt.extDbKey, theAnt.antennaRecordID,
-					errorReporter);
-				if ((null != newPoints) && newPoints.isEmpty()) {
-					errorReporter.reportWarning("No pattern data found for antenna.");
-					newPoints = null;
-				} else {
-					theID = theAnt.antennaID;
-				}
+				errorReporter.reportWarning("No pattern data found for antenna.");
 
 			} else {
 
-				newPoints = ExtDbRecord.getElevationPattern(theAnt.dbID, theAnt.extDbKey, theAnt.antennaRecordID,
-					errorReporter);
-				if ((null != newPoints) && newPoints.isEmpty()) {
-					errorReporter.reportWarning("No pattern data found for antenna.");
-					newPoints = null;
+				if (AntPattern.PATTERN_TYPE_VERTICAL != patternType) {
+
+					newPoints = ExtDbRecord.getAntennaPattern(theAnt.dbID, theAnt.extDbKey, theAnt.antennaRecordID,
+						errorReporter);
+					if ((null != newPoints) && newPoints.isEmpty()) {
+						errorReporter.reportWarning("No pattern data found for antenna.");
+						newPoints = null;
+					} else {
+						theID = theAnt.antennaID;
+					}
+
+				} else {
+
+					newPoints = ExtDbRecord.getElevationPattern(theAnt.dbID, theAnt.extDbKey, theAnt.antennaRecordID,
+						errorReporter);
+					if ((null != newPoints) && newPoints.isEmpty()) {
+						errorReporter.reportWarning("No pattern data found for antenna.");
+						newPoints = null;
+					}
 				}
 			}
 
@@ -956,15 +956,16 @@ public class ReceiveAntennaEditor extends AppFrame {
 
 		try {
 			if (thePattern.isMatrix()) {
-				for (AntPattern.AntSlice theSlice : thePattern.getSlices()) {
-					for (AntPattern.AntPoint thePoint : theSlice.points) {
-						csv.write(String.format(Locale.US, "%.3f,%.3f,%.4f\n", theSlice.value, thePoint.angle,
-							thePoint.relativeField));
+				for (int s = 0; s < thePattern.getSliceCount(); s++) {
+					for (int i = thePattern.getSliceStart(s); i < thePattern.getSliceEnd(s); i++) {
+						csv.write(String.format(Locale.US, "%.3f,%.3f,%.4f\n", thePattern.getSliceValue(s),
+							thePattern.getAngle(i), thePattern.getRelativeField(i)));
 					}
 				}
 			} else {
-				for (AntPattern.AntPoint thePoint : thePattern.getPoints()) {
-					csv.write(String.format(Locale.US, "%.3f,%.4f\n", thePoint.angle, thePoint.relativeField));
+				for (int i = 0; i < thePattern.getPointCount(); i++) {
+					csv.write(String.format(Locale.US, "%.3f,%.4f\n", thePattern.getAngle(i),
+						thePattern.getRelativeField(i)));
 				}
 			}
 		} catch (IOException ie) {
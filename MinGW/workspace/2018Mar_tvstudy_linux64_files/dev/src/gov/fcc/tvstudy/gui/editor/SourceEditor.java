@@ -3472,7 +3472,13 @@ public class SourceEditor extends AppDialog {
 
 		private boolean applyEditsFrom(PatternEditor theEditor) {
 
+			// The editor's pattern is in editing form and may still be in use if the editor remains open, the source
+			// gets a compact copy.
+
 			AntPattern newPattern = theEditor.getPattern();
+			if (null != newPattern) {
+				newPattern = newPattern.copy();
+			}
 
 			if (theEditor == horizontalPatternEditor) {
 
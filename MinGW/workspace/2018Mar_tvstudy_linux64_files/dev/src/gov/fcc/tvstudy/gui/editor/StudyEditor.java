@@ -3212,15 +3212,15 @@ public class StudyEditor extends RootEditor implements StudyLockHolder, ExtDbLis
 
 		// Open the file, do the import.
 
-		FileReader theReader = null;
+		Reader theReader = null;
 		try {
-			theReader = new FileReader(theFile);
-		} catch (FileNotFoundException fnfe) {
-			errorReporter.reportError("Could not open the file:\n" + fnfe.getMessage());
+			theReader = ImportXML.openReader(theFile);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
 			return;
 		}
 
-		final BufferedReader xml = new BufferedReader(theReader);
+		final Reader xml = theReader;
 
 		BackgroundWorker<Integer> theWorker = new BackgroundWorker<Integer>(this, title) {
 			protected Integer doBackgroundWork(ErrorLogger errors) {
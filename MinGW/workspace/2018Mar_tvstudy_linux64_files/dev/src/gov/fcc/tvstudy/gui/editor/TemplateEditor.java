@@ -1190,8 +1190,8 @@ public class TemplateEditor extends RootEditor {
 
 				if (0 == refCount) {
 
-					db.update("UPDATE template SET locked = true, locked_in_study = true WHERE template_key = " +
-						template.template.key);
+					db.update("UPDATE template SET locked = true, locked_in_study = true, mod_count = mod_count + 1 " +
+						"WHERE template_key = " + template.template.key);
 
 				} else {
 					error = true;
@@ -1199,7 +1199,8 @@ public class TemplateEditor extends RootEditor {
 				}
 
 			} else {
-				db.update("UPDATE template SET locked = true WHERE template_key = " + template.template.key);
+				db.update("UPDATE template SET locked = true, mod_count = mod_count + 1 WHERE template_key = " +
+					template.template.key);
 			}
 
 		} catch (SQLException se) {
@@ -1216,6 +1217,8 @@ public class TemplateEditor extends RootEditor {
 
 		DbCore.releaseDb(db);
 
+		Template.invalidateCache(getDbID(), template.template.key);
+
 		if (error) {
 			errorReporter.reportError(errmsg);
 			return;
@@ -8,7 +8,10 @@ package gov.fcc.tvstudy.gui.run;
 
 
 //=====================================================================================================================
-// Interface for objects that can be interactive controllers for processes running in a ProcessPanel.
+// Interface for objects that can be interactive controllers for processes running in a ProcessPanel.  Note the
+// prompt-and-response methods getProcessResponse() and processResponseConfirmed() are called from the panel's output
+// reader thread so a response never waits on the UI, those must be thread-safe with respect to any state the other
+// methods or the UI use, and must not touch UI components.  All other methods are called on the Swing event thread.
 
 public interface ProcessController {
 
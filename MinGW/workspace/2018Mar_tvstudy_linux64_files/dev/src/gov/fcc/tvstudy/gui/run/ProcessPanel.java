@@ -11,6 +11,7 @@ import gov.fcc.tvstudy.gui.*;
 
 import java.util.*;
 import java.util.logging.*;
+import java.util.regex.*;
 import java.io.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -25,12 +26,13 @@ import javax.swing.text.*;
 // interactive, command-line-driven process, as well as interactive process that support a special prompt protocol.
 // This is intended to be displayed in a window and remain visible as long as the process is running.  A manager must
 // call pollProcess() often (several times a second seems good).  On the first call that will start the process, on
-// later calls it updates output and process status.  The process can be aborted if running, or startup cancelled with
-// stopProcess().  Status is returned by isProcessRunning(), that will return true even before the process starts.
-// Once isProcessRunning() returns false, didProcessFail() indicates if the process failed to start, was killed, or
-// exited with a non-zero result; wasProcessCanceled() indicates if it was stopped before starting.  After the process
-// ends, hasOutput() will indicate if there is output accumulated regardless of success or failure.  The output can be
-// saved with writeOutputTo(), or the saveOutput() method will prompt the user to choose a file and write the output.
+// later calls it updates process status, output is read by a separate thread, see below.  The process can be aborted
+// if running, or startup cancelled with stopProcess().  Status is returned by isProcessRunning(), that will return
+// true even before the process starts.  Once isProcessRunning() returns false, didProcessFail() indicates if the
+// process failed to start, was killed, or exited with a non-zero result; wasProcessCanceled() indicates if it was
+// stopped before starting.  After the process ends, hasOutput() will indicate if there is output accumulated
+// regardless of success or failure.  The output can be saved with writeOutputTo(), or the saveOutput() method will
+// prompt the user to choose a file and write the output.
 
 // For interactive processes supporting the special protocol, a process controller object must be set, that is any
 // object implementing ProcessController which defines methods for prompt-and-response interaction.  When the process
@@ -42,10 +44,19 @@ import javax.swing.text.*;
 // assumes the process generates some output at fairly frequent intervals.  If there is no output for a long time this
 // will assume the process is stalled and kill it.
 
-// To avoid out-of-memory problems with very long run outputs, a temporary disk file is used to accumulate run output,
-// and only a limited number of lines remain in the view for scrollback.  When the limit is reached older lines are
-// removed.  The writeOutputTo() method copies the temp file contents to a Writer.  That is public so it can be used to
-// combine output from several runs to a single file.  The file is not created until needed.
+// Process output is read and parsed on a separate thread, see OutputReader.  That blocks on the output stream so
+// output is handled as soon as it arrives rather than at the polling interval, and parsing does not compete with UI
+// updates on the event thread.  Prompts are answered directly from the reader thread, so the controller methods
+// getProcessResponse() and processResponseConfirmed() are called on that thread, see ProcessController.  Other output
+// is passed to the event thread through a bounded queue, drained in batches with consecutive overwriting lines
+// coalesced, and status messages are sent to the controller from the event thread when the queue is drained.
+
+// To avoid out-of-memory problems with very long run outputs, a RunLog is used to accumulate run output on disk, and
+// only a limited number of lines remain in the view for scrollback.  When the limit is reached older lines are
+// removed.  The full history remains available from the log with random access by line and searching, the Find
+// button in the status panel opens a LogSearchDialog to search and page through it.  The writeOutputTo() methods
+// copy the log contents to a Writer or directly to a file.  Those are public so they can be used to combine output
+// from several runs to a single file.  The log files are not created until needed.
 
 // This now has a pre-run state in which it can be displayed but will not attempt to run the process.  The process
 // argument list is no longer set at construction, it is provided to setProcessArguments().  Before arguments are set,
@@ -69,6 +80,10 @@ public class ProcessPanel extends AppPanel {
 	private boolean processCanceled;
 
 	private ProcessController controller;
+
+	// Prompt state is shared between the reader thread and the event thread, protected by promptLock.
+
+	private final Object promptLock = new Object();
 	private boolean inPromptedState;
 	private String promptResponse;
 	private long lastResponseTime;
@@ -77,15 +92,22 @@ public class ProcessPanel extends AppPanel {
 	private static final int MAX_RESPONSE_ATTEMPTS = 3;
 
 	private static final int READ_BUFFER_SIZE = 102400;
-	private BufferedInputStream processOutput;
-	private byte[] readBuffer;
+	private OutputReader outputReader;
+	private volatile boolean abortRequested;
+	private static final long FINISH_OUTPUT_TIMEOUT = 2000;   // milliseconds
+
+	// The output queue is shared between the reader thread and the event thread, protected by outputLock.  The queue
+	// is bounded by line count, see queueLine().  The output log is also shared, that has its own synchronization.
 
-	private StringBuilder outputBuffer;
-	private boolean skipNextLine;
-	private File outputFile;
-	private boolean outputFileOpened;
-	private FileWriter outputFileWriter;
-	private static final int COPY_BUFFER_SIZE = 1048576;
+	private final Object outputLock = new Object();
+	private ArrayDeque<OutputItem> outputQueue;
+	private int queuedLineCount;
+	private int droppedLineCount;
+	private boolean drainScheduled;
+	private boolean outputDone;
+	private static final int MAX_QUEUED_LINES = 2000;
+
+	private RunLog runLog;
 
 	private JTextArea outputArea;
 	private ArrayList<String> mergeLineStrings;
@@ -100,13 +122,26 @@ public class ProcessPanel extends AppPanel {
 	private int autoScrollState;
 	private boolean autoScrollLock;
 
-	private long lastOutputTime;
+	private volatile long lastOutputTime;
 	private long stuckProcessTimeout = 600000L;   // milliseconds
 
+	// Process start time, for AppMetrics.
+
+	private long metricsStartTime;
+
+	// Optional memory monitoring for study engine processes, see setMemoryProfile() and EngineMemory.
+
+	private String memoryProfileKey;
+	private AppTask memoryTask;
+	private EngineMemory.Monitor memoryMonitor;
+
 	private JLabel statusLabel;
 	private JButton abortButton;
+	private JButton findButton;
 	private JPanel statusPanel;
 
+	private LogSearchDialog searchDialog;
+
 	private ProcessPanel outerThis = this;
 
 
@@ -138,13 +173,14 @@ public class ProcessPanel extends AppPanel {
 		// Set up the UI, main element is a text area displaying output from the process.  All output is written to a
 		// temporary disk file, that will be created when the first output needs to be written.  The most-recent lines
 		// are displayed for scroll-back viewing.  Output is processed in whole lines terminated by newline or carriage
-		// return, a buffer is used to hold partial lines for later processing.  The display may be condensed so lines
+		// return, the reader thread holds partial lines for later processing.  The display may be condensed so lines
 		// that repeat with incremental changes are over-written on a single line in the display.  That will occur when
 		// any two or more sequential lines all have a contains() match to the same one of the strings provided in the
 		// mergeLineStrings list.  Also sequential lines terminated by carriage return will overwrite on a single line
 		// in the display, regardless of line content.
 
-		outputBuffer = new StringBuilder();
+		outputQueue = new ArrayDeque<OutputItem>();
+		runLog = new RunLog(processName);
 
 		outputArea = new JTextArea(TEXT_AREA_ROWS, TEXT_AREA_COLUMNS);
 		outputArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
@@ -206,10 +242,21 @@ public class ProcessPanel extends AppPanel {
 			}
 		});
 
+		// Find button, search the full output history, see LogSearchDialog.
+
+		findButton = new JButton("Find");
+		findButton.setFocusable(false);
+		findButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent theEvent) {
+				doSearchLog();
+			}
+		});
+
 		// Layout.
 
 		statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 		statusPanel.add(abortButton);
+		statusPanel.add(findButton);
 		statusPanel.add(statusLabel);
 
 		setLayout(new BorderLayout());
@@ -220,23 +267,11 @@ public class ProcessPanel extends AppPanel {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Close and delete the temporary output file if needed.
+	// Delete the output log files if needed.
 
 	public void finalize() {
 
-		if (null != outputFile) {
-
-			if (null != outputFileWriter) {
-				try {
-					outputFileWriter.close();
-				} catch (IOException ie) {
-				}
-				outputFileWriter = null;
-			}
-
-			outputFile.delete();
-			outputFile = null;
-		}
+		runLog.delete();
 	}
 
 
@@ -250,6 +285,18 @@ public class ProcessPanel extends AppPanel {
 	}
 
 
+	//-----------------------------------------------------------------------------------------------------------------
+	// Set a memory profile for a study engine process, the process memory will be monitored while running and the
+	// result recorded in the profile.  The task is the AppTask the process is running under, that may be null.  This
+	// must be set before the process starts to have any effect.
+
+	public void setMemoryProfile(String theProfileKey, AppTask theTask) {
+
+		memoryProfileKey = theProfileKey;
+		memoryTask = theTask;
+	}
+
+
 	//-----------------------------------------------------------------------------------------------------------------
 	// Set a timeout in milliseconds to detect a stuck process, if no output at all for more than the set time the
 	// process will be killed.  Set to 0 to disable the check.  Default is 10 minutes.
@@ -335,17 +382,7 @@ public class ProcessPanel extends AppPanel {
 					}
 				}
 
-				try {
-					if (!outputFileOpened) {
-						outputFileOpened = true;
-						outputFile = File.createTempFile(processName, ".log");
-						outputFileWriter = new FileWriter(outputFile);
-					}
-					if (null != outputFileWriter) {
-						outputFileWriter.write(line);
-					}
-				} catch (IOException ie) {
-				}
+				writeOutputLog(line);
 			}
 
 			displayLine(line, lineType);
@@ -387,20 +424,24 @@ public class ProcessPanel extends AppPanel {
 				pb.redirectErrorStream(true);
 				process = pb.start();
 				processRunning = true;
+				metricsStartTime = AppMetrics.engineStarted("run");
+				if (null != memoryProfileKey) {
+					memoryMonitor = EngineMemory.startMonitor(process, memoryProfileKey, memoryTask);
+				}
 			} catch (Throwable t) {
 				AppCore.log(AppCore.ERROR_MESSAGE, "Could not start process", t);
 			}
 
 			if (processRunning) {
 
-				processOutput = new BufferedInputStream(process.getInputStream(), READ_BUFFER_SIZE);
-				readBuffer = new byte[READ_BUFFER_SIZE];
-
 				statusLabel.setText(processName + " running");
 				abortButton.setText("Abort");
 
 				lastOutputTime = now;
 
+				outputReader = new OutputReader(process.getInputStream(), password);
+				outputReader.start();
+
 			} else {
 
 				processFailed = true;
@@ -410,7 +451,6 @@ public class ProcessPanel extends AppPanel {
 
 				if (null != controller) {
 					controller.processFailed(this);
-					inPromptedState = false;
 				}
 
 				return false;
@@ -421,173 +461,19 @@ public class ProcessPanel extends AppPanel {
 			return false;
 		}
 
-		// Collect more output, parse it if there is any.  Note the process status is not checked until there is no
-		// more output; additional polls may be needed to collect all buffered output after exit.
-
-		boolean sendPassword = false;
-
-		if (collectOutput()) {
-
-			lastOutputTime = now;
-
-			// If still waiting to send the password check for the password prompt, that is any text containing
-			// "password" case-insensitive, regardless of line termination.  The actual send of the password is done
-			// later after any terminated lines are stripped out of the buffer.
-
-			if ((null != password) && outputBuffer.toString().toLowerCase().contains("password")) {
-				sendPassword = true;
-			}
-
-			// Parse lines from output buffer, nothing is processed (except recognizing the password prompt) until it
-			// is a terminated line, meaning not all new output may be processed this time.  Lines are written to the
-			// output file, except prompt lines and status message lines.  A fixed number of recent lines is also
-			// displayed in the view, again not including prompts, but including progress messages (status messages
-			// with ENGINE_PROGRESS_KEY are calculation progress messages written during lengthy operations so the
-			// process does not appear to be stuck).  However in the view display, if sequential lines contain the
-			// same string from the mergeLineStrings list, each overwrites the previous.  Also progress messages are
-			// always overwritten by the next message regardless of content.  Both linefeed and carriage return
-			// terminators are recognized.  A line terminated by carriage return also overwrites the previous line if
-			// that had a carriage return, but carriage returns are translated to linefeeds for output and display.
-
-			int newPosition = 0, newLength = outputBuffer.length(), newLineType = 0, stringIndex, e;
-			char nextChar;
-			String mesgKey, mesgData, newLine = null;
-
-			while (newPosition < newLength) {
-
-				do {
-					nextChar = outputBuffer.charAt(newPosition);
-				} while (('\n' != nextChar) && ('\r' != nextChar) && (++newPosition < newLength));
-
-				if (newPosition < newLength) {
-
-					newLineType = 0;
-
-					if ('\r' == nextChar) {
-						newLineType = CR_LINE;
-						outputBuffer.setCharAt(newPosition, '\n');
-					}
-
-					newLine = outputBuffer.substring(0, ++newPosition);
-					outputBuffer.delete(0, newPosition);
-					newLength -= newPosition;
-					newPosition = 0;
-
-					// If still waiting to send a password or if the flag is set to skip a line, ignore the new line.
-					// All output is discarded prior to sending the password.  See comments below.
-
-					if ((null != password) || skipNextLine) {
-						skipNextLine = false;
-						continue;
-					}
-
-					// If a process controller is set, check the prompt-and-response state.  Initially watch for a line
-					// that begins with the prompt prefix, when seen enter the prompted state and ask the controller
-					// for the response, it will return null if the prompt is unknown or unexpected in which case kill
-					// the process.  Otherwise the controller enters a pending state that must be terminated by either
-					// a confirmation or failure.  The response is sent to the process with timeouts and retries hence
-					// that is outside the line-parsing loop, see below.  The prompted state ends and the response is
-					// confirmed once any output is seen after the response is sent.  If there is output before the
-					// response is sent something is wrong, kill the process.
-
-					if (null != controller) {
-
-						if (inPromptedState) {
-
-							if (responseAttempts > 0) {
-
-								controller.processResponseConfirmed(this);
-								inPromptedState = false;
-
-							} else {
-
-								AppCore.log(AppCore.ERROR_MESSAGE,
-									"Unexpected output '" + newLine + "' from controlled process");
-								stopProcess(false);
-								return false;
-							}
-
-						} else {
-
-							if (newLine.startsWith(AppCore.ENGINE_PROMPT_PREFIX)) {
-
-								promptResponse = controller.getProcessResponse(this, newLine);
-
-								if (null == promptResponse) {
-
-									AppCore.log(AppCore.ERROR_MESSAGE,
-										"Unexpected prompt '" + newLine + "' from controlled process");
-									stopProcess(false);
-									return false;
-
-								} else {
-
-									inPromptedState = true;
-									lastResponseTime = 0;
-									responseAttempts = 0;
-
-									continue;
-								}
-							}
-						}
-					}
-
-					// Check for a status message.  Here the only one of interest is the progress messages, others are
-					// sent to the process controller if set, else ignored.  Progress messages are display-only.
-
-					if (newLine.startsWith(AppCore.ENGINE_MESSAGE_PREFIX)) {
-						e = newLine.indexOf('=');
-						if (e < 0) {
-							continue;
-						}
-						mesgKey = newLine.substring(AppCore.ENGINE_MESSAGE_PREFIX_LENGTH, e);
-						mesgData = newLine.substring(e + 1);
-						if (mesgKey.equals(AppCore.ENGINE_PROGRESS_KEY)) {
-							newLine = mesgData;
-							newLineType = PROG_LINE;
-						} else {
-							if (null != controller) {
-								mesgData = mesgData.substring(0, (mesgData.length() - 1));
-								controller.processStatusMessage(this, mesgKey, mesgData);
-							}
-							continue;
-						}
-					} else {
-
-						// Have a new output line to be processed.  Write message to the output file, open if needed.
-
-						try {
-							if (!outputFileOpened) {
-								outputFileOpened = true;
-								outputFile = File.createTempFile(processName, ".log");
-								outputFileWriter = new FileWriter(outputFile);
-							}
-							if (null != outputFileWriter) {
-								outputFileWriter.write(newLine);
-							}
-						} catch (IOException ie) {
-						}
-					}
-
-					// Display the new line.  First check for merging, overwrite or append as needed.  When appending
-					// check the scrollback limit, remove the oldest line if needed.
-
-					if ((0 == newLineType) && (null != mergeLineStrings)) {
-						for (stringIndex = 0; stringIndex < mergeLineStrings.size(); stringIndex++) {
-							if (newLine.contains(mergeLineStrings.get(stringIndex))) {
-								newLineType = stringIndex + 1;
-								break;
-							}
-						}
-					}
+		// Display output queued by the reader thread.  The reader also schedules this on the event thread as output
+		// arrives, see scheduleDrain(), it is repeated here so the exit check below sees a current state.  If the
+		// reader found a protocol error it has already killed the process, finish that here.  The process status is
+		// not checked until the reader has seen the end of the output and all output has been displayed.
 
-					displayLine(newLine, newLineType);
-				}
-			}
+		boolean outputDone = drainOutput();
 
-			updateScroll();
+		if (abortRequested) {
+			stopProcess(false);
+			return false;
+		}
 
-		} else {
+		if (outputDone) {
 
 			// Check if the process has exited, check exit value and update status.
 
@@ -595,6 +481,10 @@ public class ProcessPanel extends AppPanel {
 
 				processRunning = false;
 
+				AppMetrics.engineFinished("run", metricsStartTime, (process.exitValue() != 0));
+				EngineMemory.finishMonitor(memoryMonitor, (process.exitValue() != 0));
+				memoryMonitor = null;
+
 				if (process.exitValue() != 0) {
 
 					processFailed = true;
@@ -612,7 +502,9 @@ public class ProcessPanel extends AppPanel {
 				}
 
 				abortButton.setEnabled(false);
-				inPromptedState = false;
+				synchronized (promptLock) {
+					inPromptedState = false;
+				}
 
 				return false;
 			}
@@ -628,47 +520,34 @@ public class ProcessPanel extends AppPanel {
 			return false;
 		}
 
-		// If the password needs to be written (see above), do it.  When a password is set all output is discarded
-		// until the password is written.  The assumption is the user doesn't need to see the prompt or anything that
-		// precedes it, which should be nothing.  Set a flag to ignore the next line of output, in case the password
-		// echoes, and to suppress an initial blank line in the output.
-
-		if (sendPassword) {
-
-			OutputStream out = process.getOutputStream();
-			out.write(password.getBytes());
-			out.write("\n".getBytes());
-			out.flush();
-
-			password = null;
-			skipNextLine = true;
-
-			return true;
-		}
+		// If in the prompted state check to see if the response needs to be re-sent.  The reader thread sends the
+		// response the first time, if that is not confirmed or failure detected within a timeout interval, send again,
+		// up to a maximum number of attempts.  If retries are exceeded, kill the process.
 
-		// If in the prompted state check to see if response needs to be sent or re-sent.  After sending, if the
-		// response is not confirmed or failure detected (see above) within a timeout interval, send again, up to a
-		// maximum number of attempts.  If retries are exceeded, kill the process.
+		boolean retriesExceeded = false;
 
-		if (inPromptedState && ((now - lastResponseTime) > CONFIRMATION_TIMEOUT)) {
+		synchronized (promptLock) {
 
-			if (++responseAttempts > MAX_RESPONSE_ATTEMPTS) {
+			if (inPromptedState && (responseAttempts > 0) && ((now - lastResponseTime) > CONFIRMATION_TIMEOUT)) {
 
-				AppCore.log(AppCore.ERROR_MESSAGE, "No output from controlled process after sending prompt response");
-				stopProcess(false);
-				return false;
+				if (++responseAttempts > MAX_RESPONSE_ATTEMPTS) {
 
-			} else {
+					retriesExceeded = true;
 
-				lastResponseTime = now;
+				} else {
 
-				OutputStream out = process.getOutputStream();
-				out.write(promptResponse.getBytes());
-				out.write("\n".getBytes());
-				out.flush();
+					lastResponseTime = now;
+					sendResponse();
+				}
 			}
 		}
 
+		if (retriesExceeded) {
+			AppCore.log(AppCore.ERROR_MESSAGE, "No output from controlled process after sending prompt response");
+			stopProcess(false);
+			return false;
+		}
+
 		return true;
 	}
 
@@ -782,6 +661,8 @@ public class ProcessPanel extends AppPanel {
 
 			if (processRunning) {
 
+				abortRequested = true;
+
 				try {
 					process.destroy();
 				} catch (Throwable t) {
@@ -792,11 +673,17 @@ public class ProcessPanel extends AppPanel {
 				processRunning = false;
 				processFailed = true;
 
+				AppMetrics.engineFinished("run", metricsStartTime, true);
+				EngineMemory.finishMonitor(memoryMonitor, true);
+				memoryMonitor = null;
+
 				statusLabel.setText(processName + " aborted");
 				abortButton.setEnabled(false);
 
 				if (null != controller) {
 					controller.processFailed(this);
+				}
+				synchronized (promptLock) {
 					inPromptedState = false;
 				}
 			}
@@ -807,210 +694,808 @@ public class ProcessPanel extends AppPanel {
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Collect remaining output from the process, this should only be called after the process has exited.  Any output
-	// is displayed verbatim, no extra processing, and written to the output file which will be created if needed.
+	// Collect remaining output from the process after it has been killed.  Wait briefly for the reader thread to see
+	// the end of the output, that will queue any partial line remaining verbatim, then display everything queued.
 	// The view is scrolled to the bottom regardless of current autoscroll state.  Ignore all errors.
 
 	private void finishOutput() {
 
-		try {
-			collectOutput();
-		} catch (IOException ie) {
-		}
-
-		if (outputBuffer.length() > 0) {
-
-			outputBuffer.append('\n');
-
-			String finalOutput = outputBuffer.toString();
-
+		if (null != outputReader) {
 			try {
-				if (!outputFileOpened) {
-					outputFileOpened = true;
-					outputFile = File.createTempFile(processName, ".log");
-					outputFileWriter = new FileWriter(outputFile);
-				}
-				if (null != outputFileWriter) {
-					outputFileWriter.write(finalOutput);
-				}
-			} catch (IOException ie) {
+				outputReader.join(FINISH_OUTPUT_TIMEOUT);
+			} catch (InterruptedException ie) {
 			}
-
-			outputArea.append(finalOutput);
 		}
 
+		drainOutput();
+
 		outputViewport.validate();
 		outputViewport.scrollRectToVisible(new Rectangle(0, (outputViewport.getViewSize().height - 1), 1, 1));
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Collect any new output from the process, add it to the buffer, return true if anything read, else false.
+	// Write the response to the current prompt to the process, caller must hold promptLock.
 
-	private boolean collectOutput() throws IOException {
+	private void sendResponse() throws IOException {
 
-		boolean result = false;
+		OutputStream out = process.getOutputStream();
+		out.write(promptResponse.getBytes());
+		out.write("\n".getBytes());
+		out.flush();
+	}
 
-		if (null == processOutput) {
-			return result;
-		}
 
-		int count;
-		while (processOutput.available() > 0) {
-			count = processOutput.read(readBuffer);
-			if (count > 0) {
-				outputBuffer.append(new String(readBuffer, 0, count));
-				result = true;
-			}
-		}
-		
-		if(result){
-			outputBuffer.replace(0,outputBuffer.length(),outputBuffer.toString().replaceAll("\r",""));
-			if(outputBuffer.length()<1)
-				result = false;
-		}		
+	//-----------------------------------------------------------------------------------------------------------------
+	// Write text to the output log.  This may be called from the reader thread or the event thread.
+
+	private void writeOutputLog(String theText) {
 
-		return result;
+		runLog.append(theText);
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// This returns true if the process has not yet started.
+	// Queue a line for display.  If the line would overwrite the previous line still in the queue, see displayLine(),
+	// just replace that in the queue.  If the queue is full the oldest line is dropped, the display is scroll-back
+	// only, all lines are in the output file.  Called from the reader thread.
 
-	public boolean isProcessRunning() {
+	private void queueLine(String theLine, int theLineType) {
 
-		if (processStarted) {
-			return processRunning;
+		synchronized (outputLock) {
+
+			OutputItem lastItem = outputQueue.peekLast();
+			if ((null != lastItem) && (null == lastItem.key) &&
+					(((0 != theLineType) && (theLineType == lastItem.lineType)) || (PROG_LINE == lastItem.lineType))) {
+				lastItem.line = theLine;
+				lastItem.lineType = theLineType;
+				return;
+			}
+
+			if (queuedLineCount >= MAX_QUEUED_LINES) {
+				Iterator<OutputItem> it = outputQueue.iterator();
+				while (it.hasNext()) {
+					if (null == it.next().key) {
+						it.remove();
+						queuedLineCount--;
+						droppedLineCount++;
+						break;
+					}
+				}
+			}
+
+			OutputItem theItem = new OutputItem();
+			theItem.line = theLine;
+			theItem.lineType = theLineType;
+			outputQueue.add(theItem);
+			queuedLineCount++;
 		}
-		return true;
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// Queue a status message for the controller.  These are never dropped.  Called from the reader thread.
 
-	public boolean didProcessFail() {
+	private void queueMessage(String theKey, String theData) {
 
-		return processFailed;
+		synchronized (outputLock) {
+
+			OutputItem theItem = new OutputItem();
+			theItem.key = theKey;
+			theItem.data = theData;
+			outputQueue.add(theItem);
+		}
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// Schedule a drain of the output queue on the event thread, unless one is already pending.  Any amount of output
+	// arriving before the event thread gets to it is handled by a single drain.  Called from the reader thread.
 
-	public boolean wasProcessCanceled() {
+	private void scheduleDrain() {
 
-		return processCanceled;
+		synchronized (outputLock) {
+			if (drainScheduled) {
+				return;
+			}
+			drainScheduled = true;
+		}
+
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				drainOutput();
+			}
+		});
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// Display queued lines and send queued status messages to the controller.  Must be called on the event thread.
+	// Returns true if the reader thread has finished and everything it queued has been handled.
 
-	public boolean hasOutput() {
+	private boolean drainOutput() {
 
-		return (!processRunning && (null != outputFile) && (null != outputFileWriter));
-	}
+		ArrayList<OutputItem> theItems = null;
+		int theDropped;
+		boolean done;
 
+		synchronized (outputLock) {
 
-	//-----------------------------------------------------------------------------------------------------------------
-	// Copy the output file contents, if any, to a writer.  This can only be used once, it closes the output file then
-	// deletes the file.  Further messages (sent to displayLogMessage(), this can't be used while the process is still
-	// running so there will be no more process output) are displayed but cannot be saved.
+			drainScheduled = false;
+			done = outputDone;
 
-	public void writeOutputTo(Writer theWriter) throws IOException {
+			theDropped = droppedLineCount;
+			droppedLineCount = 0;
 
-		if (processRunning || (null == outputFile) || (null == outputFileWriter)) {
-			return;
+			if (!outputQueue.isEmpty()) {
+				theItems = new ArrayList<OutputItem>(outputQueue);
+				outputQueue.clear();
+				queuedLineCount = 0;
+			}
 		}
 
-		try {
-			outputFileWriter.close();
-		} catch (IOException ie) {
+		if (theDropped > 0) {
+			displayLine("(" + theDropped + " lines not displayed)\n", 0);
 		}
-		outputFileWriter = null;
-
-		IOException rethrow = null;
 
-		try {
+		if (null != theItems) {
+			for (OutputItem theItem : theItems) {
+				if (null != theItem.key) {
+					if (null != controller) {
+						controller.processStatusMessage(this, theItem.key, theItem.data);
+					}
+				} else {
+					displayLine(theItem.line, theItem.lineType);
+				}
+			}
+		}
 
-			FileReader theReader = new FileReader(outputFile);
+		if ((theDropped > 0) || (null != theItems)) {
+			updateScroll();
+		}
 
-			char[] cbuf = new char[COPY_BUFFER_SIZE];
-			int len;
+		return done;
+	}
 
-			do {
-				len = theReader.read(cbuf, 0, COPY_BUFFER_SIZE);
-				if (len > 0) {
-					theWriter.write(cbuf, 0, len);
-				}
-			} while (len >= 0);
 
-			theReader.close();
+	//=================================================================================================================
+	// Item in the output queue, either a line to display or a status message for the controller if key is non-null.
 
-		} catch (IOException ie) {
-			rethrow = ie;
-		}
+	private static class OutputItem {
 
-		outputFile.delete();
-		outputFile = null;
+		private String line;
+		private int lineType;
 
-		if (null != rethrow) {
-			throw rethrow;
-		}			
+		private String key;
+		private String data;
 	}
 
 
-	//-----------------------------------------------------------------------------------------------------------------
-	// Save process output to a file.  This is a UI convenience method, the actual output method is writeOutputTo().
+	//=================================================================================================================
+	// Thread reading the process output.  This blocks on the output stream and parses lines as soon as they arrive,
+	// see parseOutput().  At the end of output any partial line remaining is written and displayed verbatim.  A read
+	// error is treated as the end of output, that is expected when the process is killed.  If parsing finds a prompt
+	// protocol error this kills the process directly, pollProcess() will see abortRequested and finish the abort.
 
-	public void saveOutput() {
+	private class OutputReader extends Thread {
 
-		if (processRunning || (null == outputFile) || (null == outputFileWriter)) {
-			return;
-		}
+		private InputStream processOutput;
+		private String password;
 
-		String title = "Save " + processName + " Log";
-		errorReporter.setTitle(title);
+		private StringBuilder outputBuffer;
+		private boolean skipNextLine;
 
-		JFileChooser chooser = new JFileChooser(AppCore.getProperty(AppCore.LAST_FILE_DIRECTORY_KEY));
-		chooser.setDialogType(JFileChooser.SAVE_DIALOG);
-		chooser.setDialogTitle(title);
-		chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-		chooser.setMultiSelectionEnabled(false);
+		// Last run count from the engine, for AppMetrics.
 
-		File theFile = null;
-		do {
-			if (JFileChooser.APPROVE_OPTION != chooser.showDialog(this, "Save")) {
-				return;
-			}
-			theFile = chooser.getSelectedFile();
-			if (theFile.exists()) {
-				AppController.beep();
-				if (JOptionPane.YES_OPTION != JOptionPane.showConfirmDialog(this,
-						"The file exists, do you want to replace it?", title, JOptionPane.YES_NO_OPTION,
-						JOptionPane.WARNING_MESSAGE)) {
-					theFile = null;
-				}
-			}
-		} while (null == theFile);
+		private int metricsRunning;
 
-		AppCore.setProperty(AppCore.LAST_FILE_DIRECTORY_KEY, theFile.getParentFile().getAbsolutePath());
 
-		FileWriter theWriter = null;
-		try {
-			theWriter = new FileWriter(theFile);
-		} catch (IOException ie) {
-			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
-			return;
-		}
+		//-------------------------------------------------------------------------------------------------------------
+
+		private OutputReader(InputStream theOutput, String thePassword) {
+
+			super("ProcessPanel output reader");
+			setDaemon(true);
+
+			processOutput = theOutput;
+			password = thePassword;
+
+			outputBuffer = new StringBuilder();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void run() {
+
+			byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+			int count;
+			boolean ok = true;
+
+			try {
+				while (ok && !abortRequested) {
+					count = processOutput.read(readBuffer);
+					if (count < 0) {
+						break;
+					}
+					if (count > 0) {
+						ok = parseOutput(new String(readBuffer, 0, count));
+					}
+				}
+			} catch (IOException ie) {
+			} catch (Throwable t) {
+				AppCore.log(AppCore.ERROR_MESSAGE, "Unexpected error", t);
+				ok = false;
+			}
+
+			if (!ok) {
+				abortRequested = true;
+				try {
+					process.destroy();
+				} catch (Throwable t) {
+				}
+			}
+
+			if (outputBuffer.length() > 0) {
+				outputBuffer.append('\n');
+				String finalOutput = outputBuffer.toString();
+				writeOutputLog(finalOutput);
+				queueLine(finalOutput, 0);
+			}
+
+			synchronized (outputLock) {
+				outputDone = true;
+			}
+
+			scheduleDrain();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Add new output to the buffer and parse lines.  Nothing is processed (except recognizing the password prompt)
+		// until it is a terminated line, meaning not all new output may be processed this time.  Lines are written to
+		// the output file, except prompt lines and status message lines.  Lines are also queued for display, again not
+		// including prompts, but including progress messages (status messages with ENGINE_PROGRESS_KEY are calculation
+		// progress messages written during lengthy operations so the process does not appear to be stuck).  However in
+		// the view display, if sequential lines contain the same string from the mergeLineStrings list, each
+		// overwrites the previous.  Also progress messages are always overwritten by the next message regardless of
+		// content.  Both linefeed and carriage return terminators are recognized.  A line terminated by carriage
+		// return also overwrites the previous line if that had a carriage return, but carriage returns are translated
+		// to linefeeds for output and display.  Returns false if the process must be killed.
+
+		private boolean parseOutput(String newOutput) throws IOException {
+
+			outputBuffer.append(newOutput.replace("\r", ""));
+			if (0 == outputBuffer.length()) {
+				return true;
+			}
+
+			lastOutputTime = System.currentTimeMillis();
+
+			// If still waiting to send the password check for the password prompt, that is any text containing
+			// "password" case-insensitive, regardless of line termination.  The actual send of the password is done
+			// later after any terminated lines are stripped out of the buffer.
+
+			boolean sendPassword = false, sendPromptResponse = false;
+
+			if ((null != password) && outputBuffer.toString().toLowerCase().contains("password")) {
+				sendPassword = true;
+			}
+
+			int newPosition = 0, newLength = outputBuffer.length(), newLineType = 0, stringIndex, e;
+			char nextChar;
+			String mesgKey, mesgData, newLine = null;
+
+			while (newPosition < newLength) {
+
+				do {
+					nextChar = outputBuffer.charAt(newPosition);
+				} while (('\n' != nextChar) && ('\r' != nextChar) && (++newPosition < newLength));
+
+				if (newPosition < newLength) {
+
+					newLineType = 0;
+
+					if ('\r' == nextChar) {
+						newLineType = CR_LINE;
+						outputBuffer.setCharAt(newPosition, '\n');
+					}
+
+					newLine = outputBuffer.substring(0, ++newPosition);
+					outputBuffer.delete(0, newPosition);
+					newLength -= newPosition;
+					newPosition = 0;
+
+					// If still waiting to send a password or if the flag is set to skip a line, ignore the new line.
+					// All output is discarded prior to sending the password.  See comments below.
+
+					if ((null != password) || skipNextLine) {
+						skipNextLine = false;
+						continue;
+					}
+
+					if (abortRequested) {
+						return true;
+					}
+
+					// If a process controller is set, check the prompt-and-response state.  Initially watch for a line
+					// that begins with the prompt prefix, when seen enter the prompted state and ask the controller
+					// for the response, it will return null if the prompt is unknown or unexpected in which case kill
+					// the process.  Otherwise the controller enters a pending state that must be terminated by either
+					// a confirmation or failure.  The response is sent to the process after all lines are parsed, see
+					// below, re-sending after a timeout is done by pollProcess().  The prompted state ends and the
+					// response is confirmed once any output is seen after the response is sent.  If there is output
+					// before the response is sent something is wrong, kill the process.  The controller is called
+					// directly from this thread so the response never waits on the event thread.
+
+					if (null != controller) {
+
+						synchronized (promptLock) {
+
+							if (inPromptedState) {
+
+								if (responseAttempts > 0) {
+
+									controller.processResponseConfirmed(outerThis);
+									inPromptedState = false;
+
+								} else {
+
+									AppCore.log(AppCore.ERROR_MESSAGE,
+										"Unexpected output '" + newLine + "' from controlled process");
+									return false;
+								}
+
+							} else {
+
+								if (newLine.startsWith(AppCore.ENGINE_PROMPT_PREFIX)) {
+
+									promptResponse = controller.getProcessResponse(outerThis, newLine);
+
+									if (null == promptResponse) {
+
+										AppCore.log(AppCore.ERROR_MESSAGE,
+											"Unexpected prompt '" + newLine + "' from controlled process");
+										return false;
+
+									} else {
+
+										inPromptedState = true;
+										lastResponseTime = 0;
+										responseAttempts = 0;
+										sendPromptResponse = true;
+
+										continue;
+									}
+								}
+							}
+						}
+					}
+
+					// Check for a status message.  Here the only one of interest is the progress messages, others are
+					// queued for the process controller if set, else ignored.  Progress messages are display-only.
+
+					if (newLine.startsWith(AppCore.ENGINE_MESSAGE_PREFIX)) {
+						e = newLine.indexOf('=');
+						if (e < 0) {
+							continue;
+						}
+						mesgKey = newLine.substring(AppCore.ENGINE_MESSAGE_PREFIX_LENGTH, e);
+						mesgData = newLine.substring(e + 1);
+						if (mesgKey.equals(AppCore.ENGINE_PROGRESS_KEY)) {
+							newLine = mesgData;
+							newLineType = PROG_LINE;
+						} else {
+							mesgData = mesgData.substring(0, (mesgData.length() - 1));
+							if (mesgKey.equals(AppCore.ENGINE_RUNCOUNT_KEY)) {
+								AppMetrics.engineItemsDone("run", metricsRunning);
+								try {
+									metricsRunning = Integer.parseInt(mesgData.trim());
+								} catch (NumberFormatException nfe) {
+									metricsRunning = 0;
+								}
+							}
+							if (null != controller) {
+								queueMessage(mesgKey, mesgData);
+							}
+							continue;
+						}
+					} else {
+						writeOutputLog(newLine);
+					}
+
+					// Queue the new line for display, check for merging first.
+
+					if ((0 == newLineType) && (null != mergeLineStrings)) {
+						for (stringIndex = 0; stringIndex < mergeLineStrings.size(); stringIndex++) {
+							if (newLine.contains(mergeLineStrings.get(stringIndex))) {
+								newLineType = stringIndex + 1;
+								break;
+							}
+						}
+					}
+
+					queueLine(newLine, newLineType);
+				}
+			}
+
+			// If the password needs to be written (see above), do it.  When a password is set all output is discarded
+			// until the password is written.  The assumption is the user doesn't need to see the prompt or anything
+			// that precedes it, which should be nothing.  Set a flag to ignore the next line of output, in case the
+			// password echoes, and to suppress an initial blank line in the output.
+
+			if (sendPassword) {
+
+				OutputStream out = process.getOutputStream();
+				out.write(password.getBytes());
+				out.write("\n".getBytes());
+				out.flush();
+
+				password = null;
+				skipNextLine = true;
+			}
+
+			// Send the prompt response if needed.
+
+			if (sendPromptResponse) {
+				synchronized (promptLock) {
+					lastResponseTime = System.currentTimeMillis();
+					responseAttempts = 1;
+					sendResponse();
+				}
+			}
+
+			scheduleDrain();
+
+			return true;
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// This returns true if the process has not yet started.
+
+	public boolean isProcessRunning() {
+
+		if (processStarted) {
+			return processRunning;
+		}
+		return true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public boolean didProcessFail() {
+
+		return processFailed;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public boolean wasProcessCanceled() {
+
+		return processCanceled;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	public boolean hasOutput() {
+
+		return (!processRunning && (runLog.getLineCount() > 0));
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Copy the output log contents, if any, to a writer.  This can only be used once, it deletes the log files after.
+	// Further messages (sent to displayLogMessage(), this can't be used while the process is still running so there
+	// will be no more process output) are displayed but cannot be saved.
+
+	public void writeOutputTo(Writer theWriter) throws IOException {
+
+		if (!hasOutput()) {
+			return;
+		}
 
 		try {
-			writeOutputTo(theWriter);
-		} catch (IOException ie) {
-			errorReporter.reportError("Could not write to the file:\n" + ie.getMessage());
+			runLog.writeTo(theWriter);
+		} finally {
+			runLog.delete();
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Copy the output log contents to a file, the content is transferred directly from the log files without being
+	// decoded.  One-shot like writeOutputTo().
+
+	public void writeOutputTo(File theFile) throws IOException {
+
+		if (!hasOutput()) {
+			return;
+		}
+
+		FileOutputStream theStream = null;
+
+		try {
+			theStream = new FileOutputStream(theFile);
+			runLog.transferTo(theStream.getChannel());
+		} finally {
+			runLog.delete();
+			if (null != theStream) {
+				theStream.close();
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Show the log search dialog.  The log is empty once the output has been written out, see writeOutputTo().
+
+	private void doSearchLog() {
+
+		if (0 == runLog.getLineCount()) {
+			AppController.beep();
+			return;
+		}
+
+		if ((null != searchDialog) && searchDialog.isVisible()) {
+			searchDialog.toFront();
+			return;
+		}
+
+		searchDialog = new LogSearchDialog();
+		searchDialog.showPage();
+		AppController.showWindow(searchDialog);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Save process output to a file.  This is a UI convenience method, the actual output method is writeOutputTo().
+
+	public void saveOutput() {
+
+		if (!hasOutput()) {
+			return;
+		}
+
+		String title = "Save " + processName + " Log";
+		errorReporter.setTitle(title);
+
+		File theFile = AppController.chooseSaveFile(this, title);
+		if (null == theFile) {
+			return;
 		}
 
 		try {
-			theWriter.close();
+			writeOutputTo(theFile);
 		} catch (IOException ie) {
+			errorReporter.reportError("Could not write to the file:\n" + ie.getMessage());
+		}
+	}
+
+
+	//=================================================================================================================
+	// Dialog to search and page through the full output history in the run log, the view area only holds the most-
+	// recent lines.  Find Next searches forward from the line after the previous match, when no match is found the
+	// next search starts again from the beginning.  Earlier and Later move the page without searching.  The page is
+	// read from the log each time it changes so the dialog can stay open while the process is running.
+
+	private class LogSearchDialog extends AppDialog {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final int PAGE_LINES = 40;
+		private static final int CONTEXT_LINES = 10;
+
+		private JTextField patternField;
+		private JTextArea pageArea;
+		private JLabel pageLabel;
+
+		private int pageStart;
+		private int matchIndex = -1;
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		private LogSearchDialog() {
+
+			super(outerThis, processName + " Log", Dialog.ModalityType.MODELESS);
+
+			patternField = new JTextField(30);
+			AppController.fixKeyBindings(patternField);
+			patternField.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent theEvent) {
+					doFindNext();
+				}
+			});
+
+			JButton findNextButton = new JButton("Find Next");
+			findNextButton.setFocusable(false);
+			findNextButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent theEvent) {
+					doFindNext();
+				}
+			});
+
+			JPanel patternPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+			patternPanel.setBorder(BorderFactory.createTitledBorder("Regular expression"));
+			patternPanel.add(patternField);
+			patternPanel.add(findNextButton);
+
+			pageArea = new JTextArea(PAGE_LINES, TEXT_AREA_COLUMNS);
+			pageArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+			AppController.fixKeyBindings(pageArea);
+			pageArea.setEditable(false);
+
+			pageLabel = new JLabel();
+			pageLabel.setPreferredSize(AppController.labelSize[30]);
+
+			JButton earlierButton = new JButton("Earlier");
+			earlierButton.setFocusable(false);
+			earlierButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent theEvent) {
+					pageStart -= PAGE_LINES;
+					showPage();
+				}
+			});
+
+			JButton laterButton = new JButton("Later");
+			laterButton.setFocusable(false);
+			laterButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent theEvent) {
+					pageStart += PAGE_LINES;
+					showPage();
+				}
+			});
+
+			JButton closeButton = new JButton("Close");
+			closeButton.setFocusable(false);
+			closeButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent theEvent) {
+					AppController.hideWindow(LogSearchDialog.this);
+				}
+			});
+
+			JPanel pagePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+			pagePanel.add(earlierButton);
+			pagePanel.add(laterButton);
+			pagePanel.add(pageLabel);
+
+			JPanel closePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+			closePanel.add(closeButton);
+
+			JPanel buttonPanel = new JPanel(new BorderLayout());
+			buttonPanel.add(pagePanel, BorderLayout.WEST);
+			buttonPanel.add(closePanel, BorderLayout.EAST);
+
+			Container cp = getContentPane();
+			cp.setLayout(new BorderLayout());
+			cp.add(patternPanel, BorderLayout.NORTH);
+			cp.add(AppController.createScrollPane(pageArea), BorderLayout.CENTER);
+			cp.add(buttonPanel, BorderLayout.SOUTH);
+
+			setResizable(true);
+
+			pack();
+
+			setLocationRelativeTo(getOwner());
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Search forward from the previous match, on a match move the page so the line has some context above it.  The
+		// search runs on a background thread and may be canceled, see RunLog.findLines().
+
+		private void doFindNext() {
+
+			String theText = patternField.getText().trim();
+			if (0 == theText.length()) {
+				AppController.beep();
+				return;
+			}
+
+			Pattern thePattern;
+			try {
+				thePattern = Pattern.compile(theText, Pattern.CASE_INSENSITIVE);
+			} catch (PatternSyntaxException pe) {
+				errorReporter.reportWarning("Invalid regular expression:\n" + pe.getDescription());
+				return;
+			}
+
+			final Pattern searchPattern = thePattern;
+			final int fromIndex = matchIndex + 1;
+
+			BackgroundWorker<ArrayList<Integer>> theWorker =
+					new BackgroundWorker<ArrayList<Integer>>(this, processName + " Log") {
+				protected ArrayList<Integer> doBackgroundWork(ErrorLogger errors) {
+					showCancel();
+					ArrayList<Integer> result = runLog.findLines(searchPattern, fromIndex, 1, this);
+					if (isCanceled()) {
+						return null;
+					}
+					return result;
+				}
+			};
+
+			ArrayList<Integer> theMatches = theWorker.runWork("Searching log, please wait...", errorReporter);
+			if (null == theMatches) {
+				return;
+			}
+
+			if (theMatches.isEmpty()) {
+				AppController.beep();
+				if (matchIndex >= 0) {
+					errorReporter.reportMessage("No more matches, the next search starts at the beginning.");
+				} else {
+					errorReporter.reportMessage("No matches found.");
+				}
+				matchIndex = -1;
+				showPage();
+				return;
+			}
+
+			matchIndex = theMatches.get(0).intValue();
+			pageStart = matchIndex - CONTEXT_LINES;
+			showPage();
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Load the current page from the log, if the page start is out of range it is adjusted.  A new dialog, or one
+		// with no current match, starts at the end of the log.  The match line is selected when on the page.
+
+		private void showPage() {
+
+			int lineCount = runLog.getLineCount();
+			if ((matchIndex < 0) && !isVisible()) {
+				pageStart = lineCount - PAGE_LINES;
+			}
+			if (pageStart > (lineCount - PAGE_LINES)) {
+				pageStart = lineCount - PAGE_LINES;
+			}
+			if (pageStart < 0) {
+				pageStart = 0;
+			}
+
+			ArrayList<String> theLines = runLog.getLines(pageStart, PAGE_LINES);
+
+			StringBuilder theText = new StringBuilder();
+			int selStart = -1, selEnd = -1, lineIndex = pageStart;
+			for (String line : theLines) {
+				if (lineIndex == matchIndex) {
+					selStart = theText.length();
+					selEnd = selStart + line.length();
+				}
+				theText.append(line);
+				theText.append('\n');
+				lineIndex++;
+			}
+
+			pageArea.setText(theText.toString());
+			if (selStart >= 0) {
+				pageArea.select(selStart, selEnd);
+				pageArea.getCaret().setSelectionVisible(true);
+			} else {
+				pageArea.setCaretPosition(0);
+			}
+
+			if (theLines.isEmpty()) {
+				pageLabel.setText("No output");
+			} else {
+				pageLabel.setText("Lines " + (pageStart + 1) + " to " + (pageStart + theLines.size()) + " of " +
+					lineCount);
+			}
+		}
+
+
+		//-------------------------------------------------------------------------------------------------------------
+
+		public void windowWillOpen() {
+
+			patternField.requestFocusInWindow();
 		}
 	}
 }
@@ -72,7 +72,7 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 	private static final int RUN_STATE_EXITING = 7;
 	private static final int RUN_STATE_EXIT = 8;
 
-	private int runState;
+	private volatile int runState;
 
 	private boolean runFailed;
 	private boolean runCanceled;
@@ -81,14 +81,24 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 	private AppTask task;
 	private boolean taskWaiting;
 
+	// Set when the engine runs are reported to CacheManager, all runs are reported as one from the baseline run on.
+
+	private boolean cacheRunReported;
+
 	// The build process runs on a separate thread.
 
 	private Thread buildThread;
 	private boolean buildFailed;
 
-	// Run list from the build.
+	// Scenario scheduler from the build, partitions the scenarios between engine processes, see ScenarioScheduler.
+	// The engine index map gives each process panel's partition number.  The scheduler, the pending map, and the run
+	// status counts are used by ProcessController methods called from process output reader threads, all access is
+	// protected by scenarioLock.  The index map is filled before any process starts and is not changed after.
+
+	private final Object scenarioLock = new Object();
 
-	private ArrayDeque<StudyBuildPair.ScenarioSortItem> scenarioRunList;
+	private ScenarioScheduler scenarioScheduler;
+	private HashMap<ProcessPanel, Integer> runEngineIndex;
 
 	// There may be multiple running ProcessPanels.  See the ProcessController methods for details of other state.
 
@@ -523,6 +533,10 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 
 					it.remove();
 
+					if (RUN_STATE_RUNNING == runState) {
+						logEngineStatistics(theRun);
+					}
+
 					if (theRun.hasOutput()) {
 						hasOutput = true;
 					}
@@ -540,57 +554,60 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			// update flag is set whenever an engine process gives feedback indicating it has completed an item, the
 			// exact mechanism varies between the baseline study and full pair study but the concept is the same, see
 			// details in processResponseConfirmed() and processLogMessage().  However in the pair study phase the
-			// count of items (scenarios) is scaled according to the number of sources for the time estimate.
-
-			if (!studyRuns.isEmpty() && updateRunStatus) {
-				int totalCount = 0, doneCount = 0;
-				if (RUN_STATE_PRERUN == runState) {
-					totalCount = runStatusTotalCount;
-					doneCount = runStatusDoneCount;
-				} else {
-					if (RUN_STATE_RUNNING == runState) {
-						totalCount = studyBuild.scenarioCount;
-						doneCount = studyBuild.scenarioCount - scenarioRunList.size();
-					}
-				}
-				if (totalCount > 0) {
-					String status;
-					String progress = AppCore.formatCount(doneCount) + " of " +
-						AppCore.formatCount(totalCount) + " items done";
-					if (doneCount == totalCount) {
-						status = progress + ", runs finishing...";
+			// count of items (scenarios) is scaled according to the number of sources for the time estimate.  The
+			// counts may be changed by process reader threads so this is done holding the lock.
+
+			synchronized (scenarioLock) {
+				if (!studyRuns.isEmpty() && updateRunStatus) {
+					int totalCount = 0, doneCount = 0;
+					if (RUN_STATE_PRERUN == runState) {
+						totalCount = runStatusTotalCount;
+						doneCount = runStatusDoneCount;
 					} else {
-						if (0L == runStatusStartTime) {
-							status = progress + ", waiting for start...";
+						if (RUN_STATE_RUNNING == runState) {
+							totalCount = studyBuild.scenarioCount;
+							doneCount = studyBuild.scenarioCount - scenarioScheduler.getRemainingCount();
+						}
+					}
+					if (totalCount > 0) {
+						String status;
+						String progress = AppCore.formatCount(doneCount) + " of " +
+							AppCore.formatCount(totalCount) + " items done";
+						if (doneCount == totalCount) {
+							status = progress + ", runs finishing...";
 						} else {
-							double fractionDone = (double)runStatusDoneCount / (double)runStatusTotalCount;
-							double minutesElapsed = (double)(now - runStatusStartTime) / 60000.;
-							if ((fractionDone < 0.1) && (minutesElapsed < 2.)) {
-								status = progress + ", estimating time...";
+							if (0L == runStatusStartTime) {
+								status = progress + ", waiting for start...";
 							} else {
-								double minutesRemaining = minutesElapsed * ((1. / fractionDone) - 1.);
-								if (fractionDone < 0.5) {
-									minutesRemaining *= 1.5 - fractionDone;
-								}
-								if (minutesRemaining < 1.) {
-									status = progress + ", less than 1 minute remaining";
+								double fractionDone = (double)runStatusDoneCount / (double)runStatusTotalCount;
+								double minutesElapsed = (double)(now - runStatusStartTime) / 60000.;
+								if ((fractionDone < 0.1) && (minutesElapsed < 2.)) {
+									status = progress + ", estimating time...";
 								} else {
-									if (minutesRemaining < 60.) {
-										int minutes = (int)Math.rint(minutesRemaining);
-										status = progress + ", about " + minutes +
-											((1 == minutes) ? " minute" : " minutes") + " remaining";
+									double minutesRemaining = minutesElapsed * ((1. / fractionDone) - 1.);
+									if (fractionDone < 0.5) {
+										minutesRemaining *= 1.5 - fractionDone;
+									}
+									if (minutesRemaining < 1.) {
+										status = progress + ", less than 1 minute remaining";
 									} else {
-										int hours = (int)Math.rint(minutesRemaining / 60.);
-										status = progress + ", about " + hours +
-											((1 == hours) ? " hour" : " hours") + " remaining";
+										if (minutesRemaining < 60.) {
+											int minutes = (int)Math.rint(minutesRemaining);
+											status = progress + ", about " + minutes +
+												((1 == minutes) ? " minute" : " minutes") + " remaining";
+										} else {
+											int hours = (int)Math.rint(minutesRemaining / 60.);
+											status = progress + ", about " + hours +
+												((1 == hours) ? " hour" : " hours") + " remaining";
+										}
 									}
 								}
 							}
 						}
+						statusLabel.setText(status);
 					}
-					statusLabel.setText(status);
+					updateRunStatus = false;
 				}
-				updateRunStatus = false;
 			}
 
 			// If any still running, that's all for now.
@@ -602,7 +619,12 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			// All processes done.  In the running state do a fail-safe check to be sure all scenarios were run, in
 			// case processes exited but didn't report errors.
 
-			if ((RUN_STATE_RUNNING == runState) && !runFailed && !scenarioRunList.isEmpty()) {
+			boolean scenariosRemain;
+			synchronized (scenarioLock) {
+				scenariosRemain = ((null != scenarioScheduler) && !scenarioScheduler.isEmpty());
+			}
+
+			if ((RUN_STATE_RUNNING == runState) && !runFailed && scenariosRemain) {
 
 				runState = RUN_STATE_RESTORE;
 				runFailed = true;
@@ -679,6 +701,11 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			statusLabel.setText(runFailedMessage);
 		}
 
+		if (cacheRunReported) {
+			CacheManager.studyRunFinished(dbID, studyKey);
+			cacheRunReported = false;
+		}
+
 		if (null != studyManager) {
 			studyManager.editorClosing(this);
 		}
@@ -874,6 +901,9 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 		runStatusTotalCount = studyBuild.baselineSourceCount;
 		runStatusRunningCount = 0;
 		runStatusDoneCount = 0;
+
+		CacheManager.studyRunStarting(dbID, studyKey);
+		cacheRunReported = true;
 	}
 
 
@@ -882,9 +912,12 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 
 	private void startRunning() {
 
-		// Get the run list from the build.
+		// Get the scheduler from the build, one partition per engine process.
 
-		scenarioRunList = studyBuild.getScenarioRunList();
+		synchronized (scenarioLock) {
+			scenarioScheduler = studyBuild.getScenarioScheduler(runCount);
+			runEngineIndex = new HashMap<ProcessPanel, Integer>();
+		}
 
 		// Change the study lock to run shared.
 
@@ -1023,6 +1056,7 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 				theRun.setProcessArguments(arguments);
 
 				studyRuns.add(theRun);
+				runEngineIndex.put(theRun, Integer.valueOf(runNumber));
 
 				outFiles.add(outFile);
 			}
@@ -1288,6 +1322,9 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 	// per process until that is either confirmed or the process fails.  If there are no more scenarios, respond just
 	// with the prompting prefix which the process will interpret to mean clean up and exit, however even that has to
 	// be confirmed by the process.  See ProcessPanel.  Return null on invalid calls, calling process will be killed.
+	// This and processResponseConfirmed() are called from the process output reader thread, see ProcessController,
+	// so state is only accessed holding the lock and the study run list is not checked here, the process panel was
+	// added to that list before it was started and is not removed until it is no longer running.
 
 	public String getProcessResponse(ProcessPanel thePanel, String thePrompt) {
 
@@ -1295,7 +1332,17 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			return null;
 		}
 
-		if (!studyRuns.contains(thePanel) || studyRunsPending.containsKey(thePanel)) {
+		synchronized (scenarioLock) {
+			return getNextScenario(thePanel);
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+
+	private String getNextScenario(ProcessPanel thePanel) {
+
+		if (studyRunsPending.containsKey(thePanel)) {
 			return null;
 		}
 
@@ -1303,7 +1350,11 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			runStatusStartTime = System.currentTimeMillis();
 		}
 
-		StudyBuildPair.ScenarioSortItem theItem = scenarioRunList.poll();
+		StudyBuildPair.ScenarioSortItem theItem = null;
+		Integer engineIndex = runEngineIndex.get(thePanel);
+		if (null != engineIndex) {
+			theItem = scenarioScheduler.next(engineIndex.intValue());
+		}
 		studyRunsPending.put(thePanel, theItem);
 
 		if (null == theItem) {
@@ -1323,10 +1374,12 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			return;
 		}
 
-		StudyBuildPair.ScenarioSortItem theItem = studyRunsPending.remove(thePanel);
-		if (null != theItem) {
-			runStatusDoneCount += theItem.sourceCount;
-			updateRunStatus = true;
+		synchronized (scenarioLock) {
+			StudyBuildPair.ScenarioSortItem theItem = studyRunsPending.remove(thePanel);
+			if (null != theItem) {
+				runStatusDoneCount += theItem.sourceCount;
+				updateRunStatus = true;
+			}
 		}
 	}
 
@@ -1361,38 +1414,40 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			return;
 		}
 
-		if (studyRunsPending.containsKey(thePanel)) {
+		synchronized (scenarioLock) {
+			if (studyRunsPending.containsKey(thePanel)) {
 
-			StudyBuildPair.ScenarioSortItem theItem = studyRunsPending.remove(thePanel);
+				StudyBuildPair.ScenarioSortItem theItem = studyRunsPending.remove(thePanel);
 
-			if (null == theItem) {
-				ignoreFailedRuns.add(thePanel);
-			} else {
+				if (null == theItem) {
+					ignoreFailedRuns.add(thePanel);
+				} else {
 
-				boolean hasOther = false;
-				for (ProcessPanel otherRun : studyRuns) {
-					if (otherRun.isProcessRunning()) {
-						if (studyRunsPending.containsKey(otherRun)) {
-							if (null != studyRunsPending.get(otherRun)) {
+					boolean hasOther = false;
+					for (ProcessPanel otherRun : studyRuns) {
+						if (otherRun.isProcessRunning()) {
+							if (studyRunsPending.containsKey(otherRun)) {
+								if (null != studyRunsPending.get(otherRun)) {
+									hasOther = true;
+									break;
+								}
+							} else {
 								hasOther = true;
 								break;
 							}
-						} else {
-							hasOther = true;
-							break;
 						}
 					}
+					if (hasOther) {
+						requeueScenario(thePanel, theItem);
+						ignoreFailedRuns.add(thePanel);
+					} else {
+						scenarioScheduler.clear();
+					}
 				}
-				if (hasOther) {
-					scenarioRunList.push(theItem);
-					ignoreFailedRuns.add(thePanel);
-				} else {
-					scenarioRunList.clear();
-				}
-			}
 
-		} else {
-			scenarioRunList.clear();
+			} else {
+				scenarioScheduler.clear();
+			}
 		}
 	}
 
@@ -1410,9 +1465,44 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 			return;
 		}
 
-		StudyBuildPair.ScenarioSortItem theItem = studyRunsPending.remove(thePanel);
-		if (null != theItem) {
-			scenarioRunList.push(theItem);
+		synchronized (scenarioLock) {
+			StudyBuildPair.ScenarioSortItem theItem = studyRunsPending.remove(thePanel);
+			if (null != theItem) {
+				requeueScenario(thePanel, theItem);
+			}
+		}
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Put a scenario back in the scheduler, caller must hold the lock.  The scenario always came from the scheduler for
+	// a panel in the index map.
+
+	private void requeueScenario(ProcessPanel thePanel, StudyBuildPair.ScenarioSortItem theItem) {
+
+		scenarioScheduler.requeue(runEngineIndex.get(thePanel).intValue(), theItem);
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Show scheduling and cache statistics for a pair study engine process that has finished, in the process panel and
+	// in the application log for comparing runs.  Does nothing for the baseline process.
+
+	private void logEngineStatistics(ProcessPanel thePanel) {
+
+		String theMessage = null;
+		synchronized (scenarioLock) {
+			if ((null != scenarioScheduler) && (null != runEngineIndex)) {
+				Integer engineIndex = runEngineIndex.get(thePanel);
+				if (null != engineIndex) {
+					theMessage = scenarioScheduler.getStatistics(engineIndex.intValue());
+				}
+			}
+		}
+
+		if (null != theMessage) {
+			thePanel.displayLogMessage(theMessage);
+			AppCore.log(AppCore.INFORMATION_MESSAGE, "Pair study " + theMessage);
 		}
 	}
 
@@ -1420,27 +1510,50 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 	//-----------------------------------------------------------------------------------------------------------------
 	// In the baseline study phase, status messages are used to follow the study state and update run status and
 	// remaining-time estimate.  In the pair study phase, that is handled through the prompt-and-response methods
-	// above.  In either case, update of the status happens in checkRuns().
+	// above.  In either case, update of the status happens in checkRuns().  In the pair study phase the engines also
+	// report counts of fields read from cache and calculated for each scenario, those go to the scheduler statistics.
 
 	public void processStatusMessage(ProcessPanel thePanel, String theKey, String theData) {
 
+		if (RUN_STATE_RUNNING == runState) {
+			if (theKey.equals(AppCore.ENGINE_FIELDS_KEY)) {
+				String[] parts = theData.split(",");
+				if (2 == parts.length) {
+					try {
+						long cacheCount = Long.parseLong(parts[0].trim());
+						long calcCount = Long.parseLong(parts[1].trim());
+						synchronized (scenarioLock) {
+							Integer engineIndex = runEngineIndex.get(thePanel);
+							if (null != engineIndex) {
+								scenarioScheduler.addFieldCounts(engineIndex.intValue(), cacheCount, calcCount);
+							}
+						}
+					} catch (NumberFormatException e) {
+					}
+				}
+			}
+			return;
+		}
+
 		if (RUN_STATE_PRERUN != runState) {
 			return;
 		}
 
-		if (theKey.equals(AppCore.ENGINE_RUNCOUNT_KEY)) {
-			if (0L == runStatusStartTime) {
-				runStatusStartTime = System.currentTimeMillis();
-				updateRunStatus = true;
-			}
-			if (runStatusRunningCount > 0) {
-				runStatusDoneCount += runStatusRunningCount;
-				runStatusRunningCount = 0;
-				updateRunStatus = true;
-			}
-			try {
-				runStatusRunningCount = Integer.parseInt(theData);
-			} catch (NumberFormatException e) {
+		synchronized (scenarioLock) {
+			if (theKey.equals(AppCore.ENGINE_RUNCOUNT_KEY)) {
+				if (0L == runStatusStartTime) {
+					runStatusStartTime = System.currentTimeMillis();
+					updateRunStatus = true;
+				}
+				if (runStatusRunningCount > 0) {
+					runStatusDoneCount += runStatusRunningCount;
+					runStatusRunningCount = 0;
+					updateRunStatus = true;
+				}
+				try {
+					runStatusRunningCount = Integer.parseInt(theData);
+				} catch (NumberFormatException e) {
+				}
 			}
 		}
 	}
@@ -1571,17 +1684,21 @@ public class RunPanelPairStudy extends RunPanel implements StudyLockHolder, Proc
 
 			case RUN_STATE_PRERUN:
 				if (runStatusTotalCount > 0) {
-					return "Baseline " + AppCore.formatCount(runStatusDoneCount) + " of " +
-						AppCore.formatCount(runStatusTotalCount);
+					synchronized (scenarioLock) {
+						return "Baseline " + AppCore.formatCount(runStatusDoneCount) + " of " +
+							AppCore.formatCount(runStatusTotalCount);
+					}
 				} else {
 					return "Baseline";
 				}
 
 			case RUN_STATE_RUNNING:
 				if (studyBuild.scenarioCount > 0) {
-					return "Running " +
-						AppCore.formatCount(studyBuild.scenarioCount - scenarioRunList.size()) + " of " +
-						AppCore.formatCount(studyBuild.scenarioCount);
+					synchronized (scenarioLock) {
+						return "Running " +
+							AppCore.formatCount(studyBuild.scenarioCount - scenarioScheduler.getRemainingCount()) + " of " +
+							AppCore.formatCount(studyBuild.scenarioCount);
+					}
 				} else {
 					return "Running";
 				}
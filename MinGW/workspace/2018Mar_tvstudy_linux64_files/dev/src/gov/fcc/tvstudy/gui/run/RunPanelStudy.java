@@ -28,8 +28,9 @@ import javax.swing.text.*;
 // the parent of these panels is always the run manager, so the study manager reference is optional; if set that will
 // be notified at various stages in the run.  Once initialized, this will display a ProcessPanel to handle the study
 // engine, and optionally a report area in a separate tab showing report text.  The run manager will call poll()
-// frequently to keep things moving along.  This implements ProcessController, there is no interaction with the engine
-// process but messages are monitored to provide time-to-completion estimates.
+// frequently to keep things moving along.  This implements ProcessController, messages are monitored to provide
+// time-to-completion estimates.  If runCount is greater than one the scenarios may be run by several engines in
+// parallel, in that case scenario keys are passed to the engines interactively, see startRun().
 
 public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessController, StatusLogger {
 
@@ -61,11 +62,34 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 	public String reportPreamble;
 
 	public ArrayList<Integer> scenarioKeys;
+	public ArrayList<Integer> scenarioSourceCounts;
 	public int totalSourceCount;
 
-	// The process panel to manage the study engine run.
+	// Maximum number of engine processes to run in parallel, see startRun().  The source counts list is optional, if
+	// set it must be parallel to the scenario key list, it is used to dispatch larger scenarios first.
+
+	public int runCount = 1;
+
+	// The process panel to manage the study engine run.  When multiple engines are running this is the first, which
+	// opens the study and performs any needed updates before the others are started, see getProcessResponse().  All
+	// panels are in the studyRuns list, which always contains at least processPanel.
 
 	private ProcessPanel processPanel;
+	private ArrayList<ProcessPanel> studyRuns;
+	private boolean multiRun;
+	private boolean otherRunsStarted;
+	private ArrayList<String> runIDs;
+	private String engineCount;
+
+	// State for dispatching scenarios to multiple engines, accessed from process reader threads so this is protected
+	// by scenarioLock, see getProcessResponse().  The pending map value is null when the exit response is pending.
+
+	private final Object scenarioLock = new Object();
+	private ArrayDeque<Integer> scenarioQueue;
+	private HashMap<ProcessPanel, Integer> studyRunsPending;
+	private HashSet<ProcessPanel> ignoreFailedRuns;
+	private boolean startOtherRuns;
+	private int otherRunsLockCount;
 
 	// Study report messages displayed here.
 
@@ -84,6 +108,7 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 	private static final int RUN_STATE_BUILD = 2;
 	private static final int RUN_STATE_START = 3;
 	private static final int RUN_STATE_RUNNING = 4;
+	private static final int RUN_STATE_MERGE = 5;
 	private static final int RUN_STATE_EXITING = 6;
 	private static final int RUN_STATE_EXIT = 7;
 
@@ -94,6 +119,16 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 	private AppTask task;
 	private boolean taskWaiting;
 
+	// Set when the engine run is reported to CacheManager, so the end of the run is reported exactly once.
+
+	private boolean cacheRunReported;
+
+	// Engine memory profile key, see EngineMemory.  That needs a query so it is set on a background thread, by the
+	// build if there is one, else by a separate thread before the run starts.
+
+	private String memoryProfileKey;
+	private Thread profileThread;
+
 	// Build runs on a separate thread.
 
 	private Thread buildThread;
@@ -102,10 +137,15 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 	private String buildStatus;
 	private StringBuilder buildMessageLog;
 
-	// Time-to-completion estimate info, see processLogMessage().
+	// Merge of partial summary files after a multiple-engine run also runs on a separate thread.
+
+	private Thread mergeThread;
+	private ErrorLogger mergeErrors;
+
+	// Time-to-completion estimate info, see processStatusMessage().
 
 	private long runStatusStartTime;
-	private int runStatusRunningCount;
+	private HashMap<ProcessPanel, Integer> runStatusRunningCounts;
 	private int runStatusDoneCount;
 	private boolean updateRunStatus;
 
@@ -148,11 +188,40 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		// integer which is the reciprocal of the memory fraction and that should not be greater that the maximum,
 		// see AppCore.initialize().  If maxEngineProcessCount is <=0 the run is going to fail in any case.
 
+		// The engine count is likewise reduced if the memory fraction would not allow that many to run at once, also
+		// when running an existing study it is never more than the number of scenarios.  It may still be reduced to
+		// one later, see startRun().
+
+		if (runCount < 1) {
+			runCount = 1;
+		}
+
 		if (AppCore.maxEngineProcessCount > 0) {
+
 			double minFrac = 1. / (double)AppCore.maxEngineProcessCount;
 			if (memoryFraction < minFrac) {
 				memoryFraction = minFrac;
 			}
+
+			if ((runCount > 1) && (memoryFraction < 1.)) {
+				int maxCount = (int)(memoryFraction * (double)AppCore.maxEngineProcessCount);
+				if (maxCount < 1) {
+					maxCount = 1;
+				}
+				if (runCount > maxCount) {
+					runCount = maxCount;
+				}
+			}
+		}
+
+		if ((null == studyBuild) && (runCount > 1)) {
+			if ((Study.STUDY_TYPE_TV_IX == studyType) || (null == scenarioKeys)) {
+				runCount = 1;
+			} else {
+				if (runCount > scenarioKeys.size()) {
+					runCount = Math.max(1, scenarioKeys.size());
+				}
+			}
 		}
 
 		// Make sure the output configurations are set and valid.  If the config has the log file option, set the flag
@@ -225,14 +294,28 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 			return false;
 		}
 
-		task = new AppTask(memoryFraction);
+		if (runCount > 1) {
+			task = new AppTask(memoryFraction, runCount);
+		} else {
+			task = new AppTask(memoryFraction);
+		}
 
 		// Create the process display panel, arguments will be set in startRun() to start the process once AppTask
-		// approves.  Messages may still be displayed in the panel, see buildStudy().
+		// approves.  Messages may still be displayed in the panel, see buildStudy().  Additional panels for a multiple
+		// engine run are created in startRun().
 
 		processPanel = new ProcessPanel(parent, "Study", DbCore.getDbPassword(dbID), null);
 		processPanel.setProcessController(this);
 
+		studyRuns = new ArrayList<ProcessPanel>();
+		studyRuns.add(processPanel);
+
+		scenarioQueue = new ArrayDeque<Integer>();
+		studyRunsPending = new HashMap<ProcessPanel, Integer>();
+		ignoreFailedRuns = new HashSet<ProcessPanel>();
+
+		runStatusRunningCounts = new HashMap<ProcessPanel, Integer>();
+
 		// Text area for report display.
 
 		reportArea = new JTextArea(ProcessPanel.TEXT_AREA_ROWS, ProcessPanel.TEXT_AREA_COLUMNS);
@@ -490,7 +573,8 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		}
 
 		// In the start state, possibly falling through from build.  Set the argument list in the process panel, the
-		// process will start when the panel is polled below.  Again check for a cancel from the process panel.
+		// process will start when the panel is polled below.  Again check for a cancel from the process panel.  If
+		// there was no build, first wait for a background thread to get the engine memory profile key.
 
 		if (RUN_STATE_START == runState) {
 
@@ -500,6 +584,26 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 				runCanceled = processPanel.wasProcessCanceled();
 			} else {
 
+				if (null == memoryProfileKey) {
+					if (null == profileThread) {
+						profileThread = new Thread() {
+							public void run() {
+								try {
+									memoryProfileKey = EngineMemory.getStudyProfileKey(dbID, studyKey, studyType);
+								} catch (Throwable t) {
+									memoryProfileKey = EngineMemory.getProfileKey(studyType, null);
+								}
+							}
+						};
+						profileThread.start();
+						return;
+					}
+					if (profileThread.isAlive()) {
+						return;
+					}
+					profileThread = null;
+				}
+
 				runState = RUN_STATE_RUNNING;
 				updateRunStatus = true;
 
@@ -507,24 +611,62 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 			}
 		}
 
-		// In the running state, possibly falling through from start.  Poll the process panel.  That will start or
-		// update the process.  If the poll returns false the process is no longer running, check for failure.
+		// In the running state, possibly falling through from start.  Poll the process panels.  That will start or
+		// update the processes.  If a poll returns false the process is no longer running, check for failure.  With
+		// multiple engines the others are started once the first has opened the study, if the first exits before
+		// that happens the others are canceled.  A failure in one of several engines may be ignored if the scenario
+		// was re-queued for another engine, see processFailed().
 
 		if (RUN_STATE_RUNNING == runState) {
 
-			boolean isRunning = false;
+			if (multiRun && !otherRunsStarted) {
 
-			try {
-				isRunning = processPanel.pollProcess(now);
-				if (!isRunning && processPanel.didProcessFail()) {
-					runState = RUN_STATE_EXITING;
+				boolean doStart;
+				int theLockCount;
+				synchronized (scenarioLock) {
+					doStart = startOtherRuns;
+					theLockCount = otherRunsLockCount;
+				}
+
+				if (doStart) {
+					for (int runIndex = 1; runIndex < studyRuns.size(); runIndex++) {
+						studyRuns.get(runIndex).setProcessArguments(getArguments(theLockCount, runIDs.get(runIndex)));
+					}
+					otherRunsStarted = true;
+				} else {
+					if (!processPanel.isProcessRunning()) {
+						for (ProcessPanel theRun : studyRuns) {
+							theRun.stopProcess(false);
+						}
+						otherRunsStarted = true;
+					}
+				}
+			}
+
+			boolean isRunning = false, runRunning;
+
+			for (ProcessPanel theRun : studyRuns) {
+				try {
+					runRunning = theRun.pollProcess(now);
+					if (!runRunning && theRun.didProcessFail() && !ignoreFailedRuns.contains(theRun)) {
+						runFailed = true;
+					}
+				} catch (Throwable t) {
+					AppCore.log(AppCore.ERROR_MESSAGE, "pollProcess() failed", t);
+					theRun.stopProcess(false);
+					runRunning = false;
 					runFailed = true;
 				}
-			} catch (Throwable t) {
-				AppCore.log(AppCore.ERROR_MESSAGE, "pollProcess() failed", t);
+				if (runRunning) {
+					isRunning = true;
+				}
+			}
+
+			// With a single engine a failure is immediate, with multiple engines wait for all to finish.  If any did
+			// fail the scenario queue was cleared so the others will exit at their next prompt.
+
+			if (runFailed && !multiRun) {
 				isRunning = false;
-				runState = RUN_STATE_EXITING;
-				runFailed = true;
 			}
 
 			// Update time-to-completion display if needed.
@@ -565,7 +707,9 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 							}
 						}
 					}
-					processPanel.setStatusMessage(status);
+					for (ProcessPanel theRun : studyRuns) {
+						theRun.setStatusMessage(status);
+					}
 				}
 				updateRunStatus = false;
 			}
@@ -575,13 +719,86 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 			if (isRunning) {
 				return;
 			}
+
+			// All done.  With multiple engines do a fail-safe check to be sure all scenarios were dispatched, in case
+			// processes exited without reporting errors.  Then merge the partial summary files, that is done even if
+			// the run failed, a single engine would leave output for the scenarios that did run.
+
+			if (multiRun) {
+				synchronized (scenarioLock) {
+					if (!scenarioQueue.isEmpty()) {
+						runFailed = true;
+					}
+				}
+				runState = RUN_STATE_MERGE;
+			} else {
+				runState = RUN_STATE_EXITING;
+			}
+		}
+
+		// Merge state runs on a separate thread, similar to the build state.  Errors are shown in the first panel but
+		// do not change the run state.
+
+		if (RUN_STATE_MERGE == runState) {
+
+			if (null == mergeThread) {
+
+				mergeErrors = new ErrorLogger();
+
+				final File theDirectory = new File(AppCore.outDirectoryPath + File.separator +
+					DbCore.getHostDbName(dbID) + File.separator + studyName);
+				final ArrayList<Integer> theRunNumbers = new ArrayList<Integer>();
+				for (String runID : runIDs) {
+					theRunNumbers.add(Integer.valueOf(runID));
+				}
+
+				mergeThread = new Thread() {
+					public void run() {
+						try {
+							SummaryFileMerge.mergeFiles(theDirectory, theRunNumbers, scenarioKeys, mergeErrors);
+						} catch (Throwable t) {
+							AppCore.log(AppCore.ERROR_MESSAGE, "Output merge failed", t);
+						}
+					}
+				};
+				mergeThread.start();
+
+				processPanel.setStatusMessage("Merging output files...");
+
+				return;
+
+			} else {
+
+				if (mergeThread.isAlive()) {
+					return;
+				}
+
+				mergeThread = null;
+
+				if (mergeErrors.hasMessages()) {
+					processPanel.displayLogMessage(mergeErrors.getMessages() + "\n");
+				}
+				if (mergeErrors.hasErrors()) {
+					processPanel.displayLogMessage(mergeErrors.toString() + "\n");
+				}
+
+				if (runFailed) {
+					processPanel.setStatusMessage("Study failed");
+				} else {
+					processPanel.setStatusMessage("Study complete");
+				}
+
+				runState = RUN_STATE_EXITING;
+			}
 		}
 
-		// Final fall-through, must be in exiting.  If the run failed send the process an extra kill to be safe.
+		// Final fall-through, must be in exiting.  If the run failed send the processes an extra kill to be safe.
 
 		runState = RUN_STATE_EXIT;
 		if (runFailed) {
-			processPanel.stopProcess(false);
+			for (ProcessPanel theRun : studyRuns) {
+				theRun.stopProcess(false);
+			}
 		}
 
 		// Process is done, release the study lock (if it exists; an early failure can occur before the lock is set).
@@ -662,6 +879,11 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 			}
 		}
 
+		if (cacheRunReported) {
+			CacheManager.studyRunFinished(dbID, studyKey);
+			cacheRunReported = false;
+		}
+
 		// Notify the task queue this task is done, and inform the study manager that the lock is released.  Also
 		// close the database.
 
@@ -774,9 +996,11 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 								"ORDER BY 1");
 
 								scenarioKeys = new ArrayList<Integer>();
+								scenarioSourceCounts = new ArrayList<Integer>();
 
 								while (db.next()) {
 									scenarioKeys.add(Integer.valueOf(db.getInt(1)));
+									scenarioSourceCounts.add(Integer.valueOf(db.getInt(2)));
 									totalSourceCount += db.getInt(2);
 								}
 							}
@@ -812,6 +1036,10 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 			} else {
 				buildFailed = true;
 			}
+
+			if (!buildFailed) {
+				memoryProfileKey = EngineMemory.getStudyProfileKey(dbID, studyKey, studyType);
+			}
 		}
 	}
 
@@ -875,8 +1103,116 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 	//-----------------------------------------------------------------------------------------------------------------
 	// Start the run; build the argument list and give it to the process panel, the rest happens on the next poll.
 
+	// If runCount is greater than one the scenarios may be run by multiple engines.  That is not done for an IX check
+	// study, which runs its own scenarios, or if the study has scenario pairs because the pair results need both
+	// scenarios in the same engine.  Each engine is given the '*' scenario argument so it prompts for scenario keys,
+	// see getProcessResponse(), and the -j option so it writes partial summary files to be merged when all are done,
+	// see SummaryFileMerge.  A run ID is given to each for naming those files, based on combining the current lock
+	// count (which will always be unique for the study) with the run number, as in RunPanelPairStudy.  Only the first
+	// engine is started here, it opens the study and does any updates needed, the others are started once the first
+	// has reached its first scenario prompt and so has finished setup.
+
 	private void startRun() {
 
+		int theRunCount = runCount;
+
+		if ((theRunCount > 1) && ((Study.STUDY_TYPE_TV_IX == studyType) || (null == scenarioKeys) ||
+				(scenarioKeys.size() < 2))) {
+			theRunCount = 1;
+		}
+
+		if (theRunCount > 1) {
+			if (theRunCount > scenarioKeys.size()) {
+				theRunCount = scenarioKeys.size();
+			}
+			DbConnection db = DbCore.connectDb(dbID);
+			if (null != db) {
+				try {
+					db.query("SELECT COUNT(*) FROM " + DbCore.getDbName(dbID) + "_" + studyKey + ".scenario_pair");
+					if (db.next() && (db.getInt(1) > 0)) {
+						theRunCount = 1;
+					}
+				} catch (SQLException se) {
+					db.reportError(se);
+					theRunCount = 1;
+				}
+				DbCore.releaseDb(db);
+			} else {
+				theRunCount = 1;
+			}
+		}
+
+		if (theRunCount > 1) {
+
+			multiRun = true;
+
+			// The memory limit argument is the total number of engines expected to run concurrently, based on both
+			// the process count and memory fraction.
+
+			engineCount = String.valueOf((int)Math.rint((double)theRunCount / memoryFraction));
+
+			// Queue the scenarios, largest first if source counts are known so the long runs start early.  Output
+			// order does not depend on run order, the merge restores the original order.
+
+			ArrayList<Integer> theKeys = new ArrayList<Integer>(scenarioKeys);
+			if ((null != scenarioSourceCounts) && (scenarioSourceCounts.size() == scenarioKeys.size())) {
+				final HashMap<Integer, Integer> theCounts = new HashMap<Integer, Integer>();
+				for (int i = 0; i < scenarioKeys.size(); i++) {
+					theCounts.put(scenarioKeys.get(i), scenarioSourceCounts.get(i));
+				}
+				Collections.sort(theKeys, new Comparator<Integer>() {
+					public int compare(Integer theKey, Integer otherKey) {
+						return theCounts.get(otherKey).compareTo(theCounts.get(theKey));
+					}
+				});
+			}
+
+			synchronized (scenarioLock) {
+				scenarioQueue.addAll(theKeys);
+			}
+
+			runIDs = new ArrayList<String>();
+			ProcessPanel theRun;
+
+			for (int runNumber = 0; runNumber < theRunCount; runNumber++) {
+
+				runIDs.add(String.valueOf((lockCount * theRunCount) + runNumber));
+
+				if (runNumber > 0) {
+					theRun = new ProcessPanel(parent, "Study", DbCore.getDbPassword(dbID), null);
+					theRun.setProcessController(this);
+					studyRuns.add(theRun);
+				}
+			}
+
+			tabPane.setTitleAt(0, "Run 1");
+			for (int runNumber = 1; runNumber < studyRuns.size(); runNumber++) {
+				tabPane.insertTab("Run " + (runNumber + 1), null, studyRuns.get(runNumber), null, runNumber);
+			}
+		}
+
+		// Adjust the task memory load to the observed engine footprint for the study type and cell size if known, and
+		// have the process panels monitor engine memory, see EngineMemory.  The memory fraction is still used for the
+		// engine memory limit argument.
+
+		AppTask.setMemoryLoad(task, EngineMemory.getMemoryLoad(memoryProfileKey, theRunCount, memoryFraction));
+		for (ProcessPanel theRun : studyRuns) {
+			theRun.setMemoryProfile(memoryProfileKey, task);
+		}
+
+		processPanel.setProcessArguments(getArguments(lockCount, ((multiRun) ? runIDs.get(0) : null)));
+
+		CacheManager.studyRunStarting(dbID, studyKey);
+		cacheRunReported = true;
+	}
+
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Build an engine argument list.  If the run ID is null this is a single engine with the scenario keys on the
+	// command line, otherwise this is one of multiple engines, see startRun().
+
+	private ArrayList<String> getArguments(int theLockCount, String runID) {
+
 		ArrayList<String> arguments = new ArrayList<String>();
 
 		arguments.add(AppCore.libDirectoryPath + File.separator + AppCore.STUDY_ENGINE_NAME);
@@ -907,10 +1243,20 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		arguments.add(DbCore.getDbUsername(dbID));
 
 		arguments.add("-l");
-		arguments.add("\""+String.valueOf(lockCount)+"\"");
+		arguments.add("\""+String.valueOf(theLockCount)+"\"");
+
+		if (null != runID) {
+			arguments.add("-n");
+			arguments.add(runID);
+			arguments.add("-j");
+		}
 
 		arguments.add("-m");
-		arguments.add(String.valueOf((int)Math.rint(1. / memoryFraction)));
+		if (null != runID) {
+			arguments.add(engineCount);
+		} else {
+			arguments.add(String.valueOf((int)Math.rint(1. / memoryFraction)));
+		}
 
 		arguments.add("-f");
 		arguments.add("\""+fileOutputConfig.getCodes()+"\"");
@@ -928,22 +1274,57 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		// because it still does updates of derived source properties, replications, etc.  Also some special study
 		// types will auto-run scenarios regardless of the command-line, which would be ignored if defined.
 
-		if (null != scenarioKeys) {
-			for (Integer theKey : scenarioKeys) {
-				arguments.add("\""+String.valueOf(theKey)+"\"");
+		if (null != runID) {
+			arguments.add("*");
+		} else {
+			if (null != scenarioKeys) {
+				for (Integer theKey : scenarioKeys) {
+					arguments.add("\""+String.valueOf(theKey)+"\"");
+				}
 			}
 		}
 
-		processPanel.setProcessArguments(arguments);
+		return arguments;
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// ProcessController methods, see comments above.
+	// ProcessController methods.  A single engine is not interactive.  With multiple engines each prompts for scenario
+	// keys, those are passed out from the queue, when the queue is empty the response is the prompt prefix which tells
+	// the engine to exit.  Each response is pending until confirmed or the process fails, see RunPanelPairStudy for
+	// details of the protocol.  The first prompt from the first engine means it has finished opening the study, and
+	// if the lock was exclusive it has been changed to shared with the lock count incremented, so the other engines
+	// can now be started inheriting that lock.  Called on the process output reader thread, see ProcessController.
 
 	public String getProcessResponse(ProcessPanel theProcess, String thePrompt) {
 
-		return null;
+		if (!multiRun || (RUN_STATE_RUNNING != runState)) {
+			return null;
+		}
+
+		synchronized (scenarioLock) {
+
+			if (studyRunsPending.containsKey(theProcess)) {
+				return null;
+			}
+
+			if ((theProcess == processPanel) && !startOtherRuns) {
+				startOtherRuns = true;
+				if (Study.LOCK_RUN_EXCL == studyLock) {
+					otherRunsLockCount = lockCount + 1;
+				} else {
+					otherRunsLockCount = lockCount;
+				}
+			}
+
+			Integer theKey = scenarioQueue.pollFirst();
+			studyRunsPending.put(theProcess, theKey);
+
+			if (null == theKey) {
+				return AppCore.ENGINE_PROMPT_PREFIX;
+			}
+			return String.valueOf(theKey);
+		}
 	}
 
 
@@ -951,23 +1332,75 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 
 	public void processResponseConfirmed(ProcessPanel theProcess) {
 
-		return;
+		if (!multiRun) {
+			return;
+		}
+
+		synchronized (scenarioLock) {
+			studyRunsPending.remove(theProcess);
+		}
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// If a process fails while a scenario response is pending the scenario was never run, if another engine is still
+	// able to take scenarios re-queue it and ignore the failure.  Otherwise the study has failed, clear the queue so
+	// the other engines exit at their next prompt.
 
 	public void processFailed(ProcessPanel theProcess) {
 
-		return;
+		if (!multiRun) {
+			return;
+		}
+
+		synchronized (scenarioLock) {
+
+			if (studyRunsPending.containsKey(theProcess)) {
+
+				Integer theKey = studyRunsPending.remove(theProcess);
+
+				if (null == theKey) {
+					ignoreFailedRuns.add(theProcess);
+				} else {
+
+					boolean hasOther = false;
+					for (ProcessPanel otherRun : studyRuns) {
+						if ((otherRun != theProcess) && otherRun.isProcessRunning() &&
+								(!studyRunsPending.containsKey(otherRun) || (null != studyRunsPending.get(otherRun)))) {
+							hasOther = true;
+							break;
+						}
+					}
+					if (hasOther) {
+						scenarioQueue.addFirst(theKey);
+						ignoreFailedRuns.add(theProcess);
+					} else {
+						scenarioQueue.clear();
+					}
+				}
+
+			} else {
+				scenarioQueue.clear();
+			}
+		}
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// A process exited cleanly, if a scenario was pending put it back for another engine.
 
 	public void processComplete(ProcessPanel theProcess) {
 
-		return;
+		if (!multiRun) {
+			return;
+		}
+
+		synchronized (scenarioLock) {
+			Integer theKey = studyRunsPending.remove(theProcess);
+			if (null != theKey) {
+				scenarioQueue.addFirst(theKey);
+			}
+		}
 	}
 
 
@@ -991,13 +1424,13 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 				runStatusStartTime = System.currentTimeMillis();
 				updateRunStatus = true;
 			}
-			if (runStatusRunningCount > 0) {
-				runStatusDoneCount += runStatusRunningCount;
-				runStatusRunningCount = 0;
+			Integer runningCount = runStatusRunningCounts.remove(theProcess);
+			if ((null != runningCount) && (runningCount.intValue() > 0)) {
+				runStatusDoneCount += runningCount.intValue();
 				updateRunStatus = true;
 			}
 			try {
-				runStatusRunningCount = Integer.parseInt(theData);
+				runStatusRunningCounts.put(theProcess, Integer.valueOf(theData));
 			} catch (NumberFormatException e) {
 			}
 			return;
@@ -1077,6 +1510,9 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 					return "Running";
 				}
 
+			case RUN_STATE_MERGE:
+				return "Merging output";
+
 			case RUN_STATE_EXITING:
 				return "Exiting";
 
@@ -1137,11 +1573,16 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 
 
 	//-----------------------------------------------------------------------------------------------------------------
-	// Abort forwards to stopProcess().
+	// Abort forwards to stopProcess().  With multiple engines, if the user confirms stopping the first also stop all
+	// the others.
 
 	public void abort() {
 
-		stopProcess(processPanel);
+		if (stopProcess(processPanel) && multiRun) {
+			for (ProcessPanel theRun : studyRuns) {
+				theRun.stopProcess(false);
+			}
+		}
 	}
 
 
@@ -1166,18 +1607,38 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		if ((null == processPanel) || isRunning()) {
 			return false;
 		}
-		return processPanel.hasOutput();
+		for (ProcessPanel theRun : studyRuns) {
+			if (theRun.hasOutput()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 
 	//-----------------------------------------------------------------------------------------------------------------
+	// With multiple engines this concatenates output from all, as in RunPanelPairStudy.
 
 	public void writeOutputTo(Writer theWriter) throws IOException {
 
 		if ((null == processPanel) || isRunning()) {
 			return;
 		}
-		processPanel.writeOutputTo(theWriter);
+
+		if (!multiRun) {
+			processPanel.writeOutputTo(theWriter);
+			return;
+		}
+
+		int runNumber = 1;
+		for (ProcessPanel theRun : studyRuns) {
+			if (theRun.hasOutput()) {
+				theWriter.write("\n\n------------------------ Output from Run " + runNumber +
+					" ------------------------\n\n");
+				theRun.writeOutputTo(theWriter);
+			}
+			runNumber++;
+		}
 	}
 
 
@@ -1188,7 +1649,38 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		if ((null == processPanel) || isRunning()) {
 			return;
 		}
-		processPanel.saveOutput();
+
+		if (!multiRun) {
+			processPanel.saveOutput();
+			return;
+		}
+
+		String title = "Save Run Outputs";
+		errorReporter.setTitle(title);
+
+		File theFile = AppController.chooseSaveFile(this, title);
+		if (null == theFile) {
+			return;
+		}
+
+		FileWriter theWriter = null;
+		try {
+			theWriter = new FileWriter(theFile);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not open the file:\n" + ie.getMessage());
+			return;
+		}
+
+		try {
+			writeOutputTo(theWriter);
+		} catch (IOException ie) {
+			errorReporter.reportError("Could not write to the file:\n" + ie.getMessage());
+		}
+
+		try {
+			theWriter.close();
+		} catch (IOException ie) {
+		}
 	}
 
 
@@ -1217,29 +1709,10 @@ public class RunPanelStudy extends RunPanel implements StudyLockHolder, ProcessC
 		String title = "Save Study Report";
 		errorReporter.setTitle(title);
 
-		JFileChooser chooser = new JFileChooser(AppCore.getProperty(AppCore.LAST_FILE_DIRECTORY_KEY));
-		chooser.setDialogType(JFileChooser.SAVE_DIALOG);
-		chooser.setDialogTitle(title);
-		chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-		chooser.setMultiSelectionEnabled(false);
-
-		File theFile = null;
-		do {
-			if (JFileChooser.APPROVE_OPTION != chooser.showDialog(this, "Save")) {
-				return;
-			}
-			theFile = chooser.getSelectedFile();
-			if (theFile.exists()) {
-				AppController.beep();
-				if (JOptionPane.YES_OPTION != JOptionPane.showConfirmDialog(this,
-						"The file exists, do you want to replace it?", title, JOptionPane.YES_NO_OPTION,
-						JOptionPane.WARNING_MESSAGE)) {
-					theFile = null;
-				}
-			}
-		} while (null == theFile);
-
-		AppCore.setProperty(AppCore.LAST_FILE_DIRECTORY_KEY, theFile.getParentFile().getAbsolutePath());
+		File theFile = AppController.chooseSaveFile(this, title);
+		if (null == theFile) {
+			return;
+		}
 
 		FileWriter theWriter = null;
 		try {
@@ -37,6 +37,8 @@ public class RunStartStudy extends RunStart {
 	private ScenarioListTableModel scenarioListModel;
 	private JTable scenarioListTable;
 
+	private JComboBox<String> runCountMenu;
+
 	private int runAllCount;
 
 
@@ -57,11 +59,30 @@ public class RunStartStudy extends RunStart {
 		listPanel.setBorder(BorderFactory.createTitledBorder("Select scenario(s) to study"));
 		listPanel.add(AppController.createScrollPane(scenarioListTable), BorderLayout.CENTER);
 
+		// Pop-up list for selecting the number of simultaneous study engine processes, as in RunStartPairStudy.  The
+		// run may use fewer, see RunPanelStudy.startRun().
+
+		runCountMenu = new JComboBox<String>();
+		runCountMenu.setFocusable(false);
+		runCountMenu.addItem("1");
+		for (int runNumber = 2; runNumber <= AppCore.maxEngineProcessCount; runNumber++) {
+			runCountMenu.addItem(String.valueOf(runNumber));
+		}
+
+		JPanel runCountPanel = new JPanel();
+		runCountPanel.add(new JLabel("Max study processes"));
+		runCountPanel.add(runCountMenu);
+
 		// Do the layout.
 
+		JPanel southPanel = new JPanel();
+		southPanel.setLayout(new BoxLayout(southPanel, BoxLayout.Y_AXIS));
+		southPanel.add(runCountPanel);
+		southPanel.add(optionsPanel);
+
 		JPanel mainPanel = new JPanel(new BorderLayout());
 		mainPanel.add(listPanel, BorderLayout.CENTER);
-		mainPanel.add(optionsPanel, BorderLayout.SOUTH);
+		mainPanel.add(southPanel, BorderLayout.SOUTH);
 
 		Container cp = getContentPane();
 		cp.setLayout(new BorderLayout());
@@ -439,8 +460,10 @@ public class RunStartStudy extends RunStart {
 		}
 		if (Study.STUDY_TYPE_TV_IX == runPanel.studyType) {
 			AppController.setComponentEnabled(scenarioListTable, false);
+			AppController.setComponentEnabled(runCountMenu, false);
 		} else {
 			AppController.setComponentEnabled(scenarioListTable, true);
+			AppController.setComponentEnabled(runCountMenu, true);
 		}
 
 		updateDocumentName();
@@ -472,6 +495,7 @@ public class RunStartStudy extends RunStart {
 		super.doReset();
 
 		scenarioListTable.clearSelection();
+		runCountMenu.setSelectedIndex(0);
 	}
 
 
@@ -496,13 +520,17 @@ public class RunStartStudy extends RunStart {
 		} else {
 
 			runPanel.scenarioKeys = new ArrayList<Integer>();
+			runPanel.scenarioSourceCounts = new ArrayList<Integer>();
 			runPanel.totalSourceCount = 0;
 			ScenarioListItem theScenario;
 			for (int rowIndex : scenarioListTable.getSelectedRows()) {
 				theScenario = scenarioListModel.get(scenarioListTable.convertRowIndexToModel(rowIndex));
 				runPanel.scenarioKeys.add(Integer.valueOf(theScenario.key));
+				runPanel.scenarioSourceCounts.add(Integer.valueOf(theScenario.sourceCount));
 				runPanel.totalSourceCount += theScenario.sourceCount;
 			}
+
+			runPanel.runCount = runCountMenu.getSelectedIndex() + 1;
 		}
 
 		return true;
@@ -103,6 +103,50 @@ void write_report_preamble(int reportFlag, FILE *reportFile, int showExtDb, int
 }
 
 
+//---------------------------------------------------------------------------------------------------------------------
+// Write the report table header, normally done by write_report() when doHeader is true.  This depends only on the
+// study mode so it does not need a scenario loaded, that allows a partial summary report to have the header written
+// immediately following the preamble, see run_scenario() in study.c.
+
+// Arguments:
+
+//   reportFlag  Report format, REPORT_FILE_*
+//   reportFile  File output stream, never NULL
+
+void write_report_header(int reportFlag, FILE *reportFile) {
+
+	if (REPORT_FILE_DETAIL == reportFlag) {
+
+		if (STUDY_MODE_GRID == StudyMode) {
+
+			fputs("\nDesired station                                   Service area       Terrain-limited     Interference-free\n\n", reportFile);
+			fputs("     Undesired station                           Total interference   Unique interference\n", reportFile);
+
+		} else {
+
+			fputs("Point name                  Latitude       Longitude  Ground el  Rcvr hgt\n", reportFile);
+			fputs("  Desired station                        Bearing   Distance        Field  Conditions\n",
+				reportFile);
+			fputs("    Undesired station                          Field         D/U    Reqd D/U  Conditions\n\n",
+				reportFile);
+		}
+
+	} else {
+
+		if (STUDY_MODE_GRID == StudyMode) {
+
+			fputs("\nScenario\n", reportFile);
+			fputs("    Desired station                                   Service area       Terrain-limited     Interference-free\n\n", reportFile);
+
+		} else {
+
+			fputs("Point name                  Latitude       Longitude\n", reportFile);
+			fputs("  Desired station                            Field  Conditions\n\n", reportFile);
+		}
+	}
+}
+
+
 //---------------------------------------------------------------------------------------------------------------------
 // Write the text report for a scenario.
 
@@ -125,36 +169,7 @@ void write_report(int reportFlag, int optionFlag, FILE *reportFile, int doHeader
 	}
 
 	if (doHeader) {
-
-		if (REPORT_FILE_DETAIL == reportFlag) {
-
-			if (STUDY_MODE_GRID == StudyMode) {
-
-				fputs("\nDesired station                                   Service area       Terrain-limited     Interference-free\n\n", reportFile);
-				fputs("     Undesired station                           Total interference   Unique interference\n", reportFile);
-
-			} else {
-
-				fputs("Point name                  Latitude       Longitude  Ground el  Rcvr hgt\n", reportFile);
-				fputs("  Desired station                        Bearing   Distance        Field  Conditions\n",
-					reportFile);
-				fputs("    Undesired station                          Field         D/U    Reqd D/U  Conditions\n\n",
-					reportFile);
-			}
-
-		} else {
-
-			if (STUDY_MODE_GRID == StudyMode) {
-
-				fputs("\nScenario\n", reportFile);
-				fputs("    Desired station                                   Service area       Terrain-limited     Interference-free\n\n", reportFile);
-
-			} else {
-
-				fputs("Point name                  Latitude       Longitude\n", reportFile);
-				fputs("  Desired station                            Field  Conditions\n\n", reportFile);
-			}
-		}
+		write_report_header(reportFlag, reportFile);
 	}
 
 	// In points mode this is only used to get the headings.
@@ -544,54 +559,67 @@ void write_csv_preamble(int csvFlag, FILE *csvFile, int showExtDb, int showScena
 
 
 //---------------------------------------------------------------------------------------------------------------------
-// Write the CSV results for a scenario.
+// Write the CSV data header rows, normally done by write_csv() when doHeader is true, see write_report_header().
 
 // Arguments:
 
-//   csvFlag     CSV format, CSV_FILE_*
-//   optionFlag  Specific value of the output flag passed from UI.
-//   csvFile     File output stream, never NULL
-//   doHeader    Include data header rows
+//   csvFlag  CSV format, CSV_FILE_*
+//   csvFile  File output stream, never NULL
 
-void write_csv(int csvFlag, int optionFlag, FILE *csvFile, int doHeader) {
+void write_csv_header(int csvFlag, FILE *csvFile) {
 
-	if (!ScenarioKey) {
-		log_error("write_csv() called with no scenario loaded");
-		return;
-	}
+	if (CSV_FILE_DETAIL == csvFlag) {
 
-	if (doHeader) {
+		if (STUDY_MODE_GRID == StudyMode) {
 
-		if (CSV_FILE_DETAIL == csvFlag) {
+			fputs("Desired,,,,,,,ServiceArea,,,TerrainLimited,,,InterferenceFree,,,,", csvFile);
+			fputs("Undesired,,,,,,TotalInterference,,,UniqueInterference\n", csvFile);
+			fputs("FacID,Ch,Call,FileNumber,City,St,InCountry,", csvFile);
+			fputs("Area,Population,Households,Area,Population,Households,Area,Population,Households,,", csvFile);
+			fputs("FacID,Ch,Call,FileNumber,City,St,", csvFile);
+			fputs("Area,Population,Households,Area,Population,Households\n", csvFile);
 
-			if (STUDY_MODE_GRID == StudyMode) {
+		} else {
 
-				fputs("Desired,,,,,,,ServiceArea,,,TerrainLimited,,,InterferenceFree,,,,", csvFile);
-				fputs("Undesired,,,,,,TotalInterference,,,UniqueInterference\n", csvFile);
-				fputs("FacID,Ch,Call,FileNumber,City,St,InCountry,", csvFile);
-				fputs("Area,Population,Households,Area,Population,Households,Area,Population,Households,,", csvFile);
-				fputs("FacID,Ch,Call,FileNumber,City,St,", csvFile);
-				fputs("Area,Population,Households,Area,Population,Households\n", csvFile);
+			fputs("Point,,,,,Desired,,,,,,,,,,,Undesired\n", csvFile);
+			fputs("Name,Latitude,Longitude,GroundElv,RecvHgt,", csvFile);
+			fputs("FacID,Ch,Call,FileNumber,City,St,Cntry,Bear,Dist,Field,InSA,Serv,", csvFile);
+			fputs("FacID,Ch,Call,FileNumber,City,St,Field,DU,ReqDU,IX\n", csvFile);
+		}
 
-			} else {
+	} else {
 
-				fputs("Point,,,,,Desired,,,,,,,,,,,Undesired\n", csvFile);
-				fputs("Name,Latitude,Longitude,GroundElv,RecvHgt,", csvFile);
-				fputs("FacID,Ch,Call,FileNumber,City,St,Cntry,Bear,Dist,Field,InSA,Serv,", csvFile);
-				fputs("FacID,Ch,Call,FileNumber,City,St,Field,DU,ReqDU,IX\n", csvFile);
-			}
+		if (STUDY_MODE_GRID == StudyMode) {
+
+			fputs("Scenario,FacID,FileNumber,Cntry,Type,Chan,InCntry,,Contour,,,Service,,,IxFree\n", csvFile);
 
 		} else {
 
-			if (STUDY_MODE_GRID == StudyMode) {
+			fputs("PtName,Latitude,Longitude,FacID,FileNumber,Cntry,Type,Ch,Field,InSA,Serv,IX\n", csvFile);
+		}
+	}
+}
+
 
-				fputs("Scenario,FacID,FileNumber,Cntry,Type,Chan,InCntry,,Contour,,,Service,,,IxFree\n", csvFile);
+//---------------------------------------------------------------------------------------------------------------------
+// Write the CSV results for a scenario.
 
-			} else {
+// Arguments:
 
-				fputs("PtName,Latitude,Longitude,FacID,FileNumber,Cntry,Type,Ch,Field,InSA,Serv,IX\n", csvFile);
-			}
-		}
+//   csvFlag     CSV format, CSV_FILE_*
+//   optionFlag  Specific value of the output flag passed from UI.
+//   csvFile     File output stream, never NULL
+//   doHeader    Include data header rows
+
+void write_csv(int csvFlag, int optionFlag, FILE *csvFile, int doHeader) {
+
+	if (!ScenarioKey) {
+		log_error("write_csv() called with no scenario loaded");
+		return;
+	}
+
+	if (doHeader) {
+		write_csv_header(csvFlag, csvFile);
 	}
 
 	// In points mode this is only used to get the headings.
@@ -40,6 +40,7 @@ static int check_table_mountain(SOURCE *target, FILE *repFile);
 static int check_land_mobile(SOURCE *target, FILE *repFile);
 static int check_offshore_radio(SOURCE *target, FILE *repFile);
 static int do_run_scenario(int scenarioKey);
+static FILE *open_part_sum_file(char *fileName);
 static int do_open_mapfiles();
 static void do_start_image();
 static void do_end_image(int err);
@@ -69,6 +70,7 @@ char DatabaseID[MAX_STRING];   // Database UUID.
 char HostDbName[MAX_STRING];   // Host and root database names combined, for reports and file names.
 
 int UseDbIDOutPath = 0;   // Set true to use database ID instead of hostname in output file paths.
+int PartialSumOutput = 0;   // Set true to write summary files as parts for a later merge, see run_scenario().
 
 int StudyKey = 0;                         // Study key, type, template key, lock, name, station database name.
 int StudyType = STUDY_TYPE_UNKNOWN;
@@ -112,6 +114,7 @@ static FILE *OutputFile[N_OUTPUT_FILES];               // Output files.
 static MAPFILE *MapOutputFile[N_MAP_OUTPUT_FILES];
 static int ReportSumHeader = 0;
 static int CSVSumHeader = 0;
+static FILE *SumIndexFile = NULL;   // Index of scenario output in partial summary files, see run_scenario().
 
 static int IXMarginSourceKey = 0;   // Source key for interference margin outputs, see analyze_points().
 static double *IXMarginAz = NULL;   // Arrays to hold data for the IX margin CSV output, see analyze_points().
@@ -842,7 +845,7 @@ void close_study(int hadError) {
 
 		if (OutputFlags[SETTING_FILE]) {
 
-			FILE *outFile = open_sum_file(SETTING_FILE_NAME);
+			FILE *outFile = open_part_sum_file(SETTING_FILE_NAME);
 			if (outFile) {
 
 				write_report_preamble(REPORT_FILE_SUMMARY, outFile, 1, 0);
@@ -878,6 +881,10 @@ void close_study(int hadError) {
 		fclose(OutputFile[CELL_FILE_PAIRSTUDY]);
 		OutputFile[CELL_FILE_PAIRSTUDY] = NULL;
 	}
+	if (SumIndexFile) {
+		fclose(SumIndexFile);
+		SumIndexFile = NULL;
+	}
 
 	// Clear the pending files list in case it contains anything, always commit the files.
 
@@ -3856,30 +3863,51 @@ int run_scenario(int scenarioKey) {
 	// cell format temporary output files are used which are post-processed by an external utility to generate final
 	// output, those are also at the summary level and stay open across all scenarios.
 
+	// When PartialSumOutput is set this is one of several processes running scenarios from the same study in
+	// parallel, the front-end app will merge the summary files when all are done.  Each process writes files named
+	// with the run number appended, and the report and CSV table headers are written right after the preamble rather
+	// than with the first scenario.  An index file records the byte range of each scenario's output in each summary
+	// file, the merge copies the preamble and header from any one part then the scenario ranges in the desired order.
+
 	FILE *outFile;
 
 	if (OutputFlags[REPORT_FILE_SUMMARY] && !OutputFile[REPORT_FILE_SUMMARY]) {
-		outFile = open_sum_file(REPORT_FILE_NAME);
+		outFile = open_part_sum_file(REPORT_FILE_NAME);
 		if (!outFile) return 1;
 		OutputFile[REPORT_FILE_SUMMARY] = outFile;
 		write_report_preamble(REPORT_FILE_SUMMARY, outFile, 1, 1);
-		ReportSumHeader = 1;
+		if (PartialSumOutput) {
+			write_report_header(REPORT_FILE_SUMMARY, outFile);
+			ReportSumHeader = 0;
+		} else {
+			ReportSumHeader = 1;
+		}
 	}
 
 	if (OutputFlags[CSV_FILE_SUMMARY] && !OutputFile[CSV_FILE_SUMMARY]) {
-		outFile = open_sum_file(CSV_FILE_NAME);
+		outFile = open_part_sum_file(CSV_FILE_NAME);
 		if (!outFile) return 1;
 		OutputFile[CSV_FILE_SUMMARY] = outFile;
 		write_csv_preamble(CSV_FILE_SUMMARY, outFile, 1, 1);
-		CSVSumHeader = 1;
+		if (PartialSumOutput) {
+			write_csv_header(CSV_FILE_SUMMARY, outFile);
+			CSVSumHeader = 0;
+		} else {
+			CSVSumHeader = 1;
+		}
 	}
 
 	if (OutputFlags[CELL_FILE_SUMMARY] && !OutputFile[CELL_FILE_SUMMARY]) {
-		outFile = open_sum_file(CELL_FILE_NAME);
+		outFile = open_part_sum_file(CELL_FILE_NAME);
 		if (!outFile) return 1;
 		OutputFile[CELL_FILE_SUMMARY] = outFile;
 	}
 
+	if (PartialSumOutput && !SumIndexFile) {
+		SumIndexFile = open_part_sum_file(SUM_INDEX_FILE_NAME);
+		if (!SumIndexFile) return 1;
+	}
+
 	if (OutputFlags[CELL_FILE_PAIRSTUDY] && !OutputFile[CELL_FILE_PAIRSTUDY]) {
 		outFile = open_temp_file();
 		if (!outFile) return 1;
@@ -3895,10 +3923,38 @@ int run_scenario(int scenarioKey) {
 
 	log_message("Running scenario %s", ScenarioName);
 
-	// Run logic factored out so cleanup can happen here.
+	// Run logic factored out so cleanup can happen here.  For partial summary output note the file positions before
+	// and after and write those to the index, see above.  That is done even on error, partial output such as abort
+	// markers appears in a single-process summary file so it must also appear in the merge.
+
+	int fileIndex, sumFiles[3] = {REPORT_FILE_SUMMARY, CSV_FILE_SUMMARY, CELL_FILE_SUMMARY};
+	long sumStart[3];
+
+	if (SumIndexFile) {
+		for (fileIndex = 0; fileIndex < 3; fileIndex++) {
+			if ((outFile = OutputFile[sumFiles[fileIndex]])) {
+				sumStart[fileIndex] = ftell(outFile);
+			} else {
+				sumStart[fileIndex] = -1;
+			}
+		}
+	}
 
 	err = do_run_scenario(scenarioKey);
 
+	if (SumIndexFile) {
+		fprintf(SumIndexFile, "%d", scenarioKey);
+		for (fileIndex = 0; fileIndex < 3; fileIndex++) {
+			if ((outFile = OutputFile[sumFiles[fileIndex]])) {
+				fprintf(SumIndexFile, ",%ld,%ld", sumStart[fileIndex], ftell(outFile));
+			} else {
+				fputs(",-1,-1", SumIndexFile);
+			}
+		}
+		fputc('\n', SumIndexFile);
+		fflush(SumIndexFile);
+	}
+
 	// Free the point map if it was allocated.
 
 	if (PointMap) {
@@ -5159,6 +5215,11 @@ static int do_global_run() {
 			}
 		}
 
+		// Report the field counts so a front-end application can track cache effectiveness.
+
+		snprintf(mesg, MAX_STRING, "%d,%d", cacheCount, calcCount);
+		status_message(STATUS_KEY_FIELDS, mesg);
+
 		// Calculate new fields, periodically write to cache.  Ignore any errors from the writes.
 
 		if (calcCount) {
@@ -5386,6 +5447,7 @@ static int do_local_run() {
 	FIELD *field;
 	int err, sourceIndex, undesiredIndex, undesiredCount, gridCellIndex, cacheCount, calcCount, doneCount, showPcnt,
 		calcPcnt;
+	char mesg[MAX_STRING];
 	FILE *outFile;
 
 	source = Sources;
@@ -5471,6 +5533,9 @@ static int do_local_run() {
 				}
 			}
 
+			snprintf(mesg, MAX_STRING, "%d,%d", cacheCount, calcCount);
+			status_message(STATUS_KEY_FIELDS, mesg);
+
 			if (calcCount) {
 
 				log_message("Calculating %d new fields", calcCount);
@@ -6139,6 +6204,29 @@ FILE *open_sum_file(char *fileName) {
 }
 
 
+//---------------------------------------------------------------------------------------------------------------------
+// Open a summary file that may be a partial file to be merged later, see run_scenario().  If PartialSumOutput is set
+// the run number is appended to the name, otherwise this is just open_sum_file().
+
+// Arguments:
+
+//   fileName  File name, must not include any directory path!
+
+// Return the open file, or NULL on error.
+
+static FILE *open_part_sum_file(char *fileName) {
+
+	if (!PartialSumOutput) {
+		return open_sum_file(fileName);
+	}
+
+	char partName[MAX_STRING];
+
+	snprintf(partName, MAX_STRING, "%s.%d", fileName, RunNumber);
+	return open_sum_file(partName);
+}
+
+
 //---------------------------------------------------------------------------------------------------------------------
 // Get path for summary-level files, see comments above.
 
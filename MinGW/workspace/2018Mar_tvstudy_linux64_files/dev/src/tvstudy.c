@@ -164,6 +164,10 @@ static int CacheUndesired = 1;
 
 // Option -n sets a run identification number used for temporary output files.
 
+// Option -j activates partial summary output, used when a front-end application runs scenarios from one study in
+// several parallel processes.  Summary files are named with the -n run number appended and an index file is written,
+// the application merges those after all processes are done.  See run_scenario() in study.c.
+
 // Option -x disables caching of undesired field calculations.  For some types of studies the undesired cache files can
 // become so large that the time needed to scan the file and load a small number of fields for a scenario approaches
 // or even exceeds the time taken to just re-compute those fields.
@@ -196,7 +200,7 @@ static int CacheUndesired = 1;
 // the study and a custom report output is created.  That will occur even when the study is opened by a runfile.  The
 // flags argument may be present and normal output files will be generated accordingly, but that is optional.
 
-// Because I'm tired of having to figure it out every time, here is list of unused option letters:  a j p v y z
+// Because I'm tired of having to figure it out every time, here is list of unused option letters:  a v y z
 
 int main(int argc, char **argv) {
 
@@ -321,6 +325,9 @@ int main(int argc, char **argv) {
 			case 'x':
 				CacheUndesired = 0;
 				break;
+			case 'j':
+				PartialSumOutput = 1;
+				break;
 			case 'm':
 				if ((iarg + 1) < argc) {
 					ProcessCount = atoi(argv[++iarg]);
@@ -37,7 +37,7 @@
 // The main version number in string format has been moved to global.h so it is available to other utility builds.
 
 #define TVSTUDY_CACHE_VERSION     202000
-#define TVSTUDY_DATABASE_VERSION  20200502
+#define TVSTUDY_DATABASE_VERSION  20200505
 
 // Default database name, see study.c.
 
@@ -650,6 +650,7 @@
 #define SETTING_FILE_NAME "tvstudy_settings.txt"
 #define CSV_FILE_NAME "tvstudy.csv"
 #define CELL_FILE_NAME "tvstudy.cel"
+#define SUM_INDEX_FILE_NAME "tvstudy_index"
 #define POINTS_FILE_NAME "points.csv"
 #define PARAMETER_FILE_NAME "parameters.csv"
 #define TV_IX_FILE_NAME "tvixstudy.txt"
@@ -683,6 +684,7 @@
 #define STATUS_KEY_RUNCOUNT "runcount"
 #define STATUS_KEY_RESULT "result"
 #define STATUS_KEY_ERROR "error"
+#define STATUS_KEY_FIELDS "fields"
 
 // Source attribute keys, see get_source_attribute() in source.c.
 
@@ -1301,9 +1303,11 @@ double interp_min(double lookup, double *table, int count, double minVal, int mi
 // report.c
 
 void write_report_preamble(int reportFlag, FILE *reportFile, int showExtDb, int showScenario);
+void write_report_header(int reportFlag, FILE *reportFile);
 void write_report(int reportFlag, int optionFlag, FILE *reportFile, int doHeader);
 void write_pair_report(SCENARIO_PAIR *thePair, FILE *reportFile, int doHeader);
 void write_csv_preamble(int csvFlag, FILE *csvFile, int showExtDb, int showScenario);
+void write_csv_header(int csvFlag, FILE *csvFile);
 void write_csv(int csvFlag, int optionFlag, FILE *csvFile, int doHeader);
 void write_pair_csv(SCENARIO_PAIR *thePair, FILE *csvFile, int doHeader);
 void write_parameters(int paramsFlag, FILE *paramsFile);
@@ -1423,6 +1427,7 @@ extern char DatabaseID[MAX_STRING];
 extern char HostDbName[MAX_STRING];
 
 extern int UseDbIDOutPath;
+extern int PartialSumOutput;
 
 extern int StudyKey;
 extern int StudyType;